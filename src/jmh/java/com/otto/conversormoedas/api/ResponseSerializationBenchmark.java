@@ -0,0 +1,126 @@
+package com.otto.conversormoedas.api;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.otto.conversormoedas.model.ConversionHistory;
+import com.otto.conversormoedas.util.ConversionCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Serialização das respostas de /api/convert e /api/history: caminho antigo (HashMap + Gson
+ * pretty + bytes) contra a escrita em streaming de {@link JsonResponses}.
+ * Rodar com {@code -prof gc} para comparar a alocação por operação.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+    private static final int HISTORY_SIZE = 100;
+
+    private final Gson prettyGson = new GsonBuilder().setPrettyPrinting().create();
+    private final Gson compactGson = new Gson();
+    private final OutputStream sink = OutputStream.nullOutputStream();
+    private ConversionCalculator.ConversionResult result;
+    private List<ConversionHistory> history;
+
+    @Setup
+    public void setup() {
+        result = new ConversionCalculator.ConversionResult(100.0, "USD", 505.5, "BRL", 5.055);
+        history = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 12, 0);
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            history.add(new ConversionHistory("USD", "BRL", 100.0 + i, (100.0 + i) * 5.055, 5.055,
+                    start.plusSeconds(i)));
+        }
+    }
+
+    @Benchmark
+    public byte[] convertResponseMap() {
+        return prettyGson.toJson(convertMap()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] convertResponseMapCompact() {
+        return compactGson.toJson(convertMap()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public OutputStream convertResponseStreaming() throws IOException {
+        JsonResponses.write(sink, false, json -> {
+            json.beginObject();
+            JsonResponses.conversionFields(json, result);
+            json.name("timestamp").value(1699632000000L);
+            json.endObject();
+        });
+        return sink;
+    }
+
+    @Benchmark
+    public byte[] historyResponseMap() {
+        var historyList = history.stream()
+            .map(record -> Map.of(
+                "from", record.getFromCurrency(),
+                "to", record.getToCurrency(),
+                "amount", record.getAmount(),
+                "result", record.getResult(),
+                "rate", record.getExchangeRate(),
+                "timestamp", record.getFormattedTimestamp()
+            ))
+            .collect(Collectors.toList());
+        Map<String, Object> response = new HashMap<>();
+        response.put("history", historyList);
+        response.put("count", historyList.size());
+        response.put("total", historyList.size());
+        return prettyGson.toJson(response).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public OutputStream historyResponseStreaming() throws IOException {
+        JsonResponses.write(sink, false, json -> {
+            json.beginObject();
+            json.name("history").beginArray();
+            for (ConversionHistory record : history) {
+                JsonResponses.history(json, record);
+            }
+            json.endArray();
+            json.name("count").value(history.size());
+            json.name("total").value(history.size());
+            json.endObject();
+        });
+        return sink;
+    }
+
+    private Map<String, Object> convertMap() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("from", result.getFromCurrency());
+        response.put("to", result.getToCurrency());
+        response.put("amount", result.getOriginalAmount());
+        response.put("result", result.getConvertedAmount());
+        response.put("rate", result.getExchangeRate());
+        response.put("timestamp", 1699632000000L);
+        return response;
+    }
+}
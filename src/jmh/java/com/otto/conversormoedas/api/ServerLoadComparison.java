@@ -0,0 +1,93 @@
+package com.otto.conversormoedas.api;
+
+import com.otto.conversormoedas.client.StubExchangeRateClient;
+import com.otto.conversormoedas.model.CurrencyCode;
+import com.otto.conversormoedas.service.ConversionHistoryService;
+import com.otto.conversormoedas.service.CurrencyConverterService;
+import com.otto.conversormoedas.util.VirtualThreads;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Teste de carga comparando o pool padrão do Jetty com virtual threads, com upstream lento (stub).
+ * Cada requisição usa um par distinto (sem cache nem coalescência), então cada uma bloqueia
+ * uma thread pelo tempo do upstream. Mede o tempo total da rajada e a latência do /health
+ * medida no meio da carga.
+ *
+ * Executar (JDK 21 para o modo virtual):
+ * mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.otto.conversormoedas.api.ServerLoadComparison -Dexec.args="2000 500"
+ */
+public class ServerLoadComparison {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long upstreamLatencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 500;
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        System.out.printf("Requisições: %d | latência do upstream (stub): %d ms | JDK %s%n",
+            requests, upstreamLatencyMillis, System.getProperty("java.version"));
+        run("pool padrão", false, requests, upstreamLatencyMillis, 7301);
+        if (VirtualThreads.isAvailable()) {
+            run("virtual threads", true, requests, upstreamLatencyMillis, 7302);
+        } else {
+            System.out.println("virtual threads: indisponível neste runtime (requer JDK 21+)");
+        }
+        System.exit(0);
+    }
+
+    private static void run(String label, boolean virtualThreads, int requests, long latencyMillis, int port)
+            throws Exception {
+        // TTL zero: toda requisição vai ao upstream
+        CurrencyConverterService service = new CurrencyConverterService(new StubExchangeRateClient(latencyMillis), 0);
+        ApiServer server = new ApiServer(service, new ConversionHistoryService(), port, virtualThreads);
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+        try {
+            server.start();
+            CurrencyCode[] codes = CurrencyCode.values();
+            List<CompletableFuture<HttpResponse<Void>>> pending = new ArrayList<>(requests);
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                CurrencyCode from = codes[(i / codes.length) % codes.length];
+                CurrencyCode to = codes[i % codes.length];
+                if (from == to) {
+                    to = codes[(i + 1) % codes.length];
+                }
+                URI uri = URI.create("http://localhost:" + port + "/api/convert?from=" + from.name() + "&to=" + to.name() + "&amount=1");
+                pending.add(http.sendAsync(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(120)).build(),
+                    HttpResponse.BodyHandlers.discarding()));
+            }
+
+            Thread.sleep(latencyMillis / 2);
+            long healthStart = System.nanoTime();
+            int healthStatus = http.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/health")).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+            long healthMillis = (System.nanoTime() - healthStart) / 1_000_000;
+
+            int ok = 0;
+            for (CompletableFuture<HttpResponse<Void>> f : pending) {
+                try {
+                    if (f.join().statusCode() == 200) {
+                        ok++;
+                    }
+                } catch (RuntimeException e) {
+                    // conta como falha
+                }
+            }
+            long totalMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("%-16s total %6d ms | %7.1f req/s | ok %d/%d | /health sob carga: %d ms (HTTP %d)%n",
+                label, totalMillis, requests * 1000.0 / totalMillis, ok, requests, healthMillis, healthStatus);
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.otto.conversormoedas.client;
+
+import com.otto.conversormoedas.model.CurrencyCode;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Cliente stub para benchmarks: responde sem rede, com latência opcional simulada.
+ * Todas as moedas valem 1 + ordinal/100 em relação ao USD.
+ */
+public class StubExchangeRateClient extends ExchangeRateClient {
+    private final long latencyMillis;
+
+    public StubExchangeRateClient() {
+        this(0);
+    }
+
+    public StubExchangeRateClient(long latencyMillis) {
+        super("benchmark-key");
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public ExchangePairResponse fetchPair(String from, String to) throws InterruptedException {
+        simulateLatency();
+        ExchangePairResponse resp = new ExchangePairResponse();
+        resp.result = "success";
+        resp.base_code = from;
+        resp.target_code = to;
+        resp.conversion_rate = usdRate(to) / usdRate(from);
+        return resp;
+    }
+
+    @Override
+    public CompletableFuture<ExchangePairResponse> fetchPairAsync(String from, String to, Duration timeout) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetchPair(from, to);
+            } catch (InterruptedException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    @Override
+    public ExchangeLatestResponse fetchLatest(String base) throws InterruptedException {
+        simulateLatency();
+        Map<String, Double> rates = new HashMap<>();
+        double baseRate = usdRate(base);
+        for (CurrencyCode code : CurrencyCode.values()) {
+            rates.put(code.name(), usdRate(code.name()) / baseRate);
+        }
+        ExchangeLatestResponse resp = new ExchangeLatestResponse();
+        resp.result = "success";
+        resp.base_code = base;
+        resp.conversion_rates = rates;
+        return resp;
+    }
+
+    @Override
+    public CompletableFuture<ExchangeLatestResponse> fetchLatestAsync(String base, Duration timeout) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetchLatest(base);
+            } catch (InterruptedException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private static double usdRate(String code) {
+        return 1.0 + CurrencyCode.valueOf(code).ordinal() / 100.0;
+    }
+
+    private void simulateLatency() throws InterruptedException {
+        if (latencyMillis > 0) {
+            Thread.sleep(latencyMillis);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.otto.conversormoedas.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Parse de códigos de moeda vindos de query params (maiúsculas e minúsculas). */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurrencyCodeBenchmark {
+    private String upper = "BRL";
+    private String lower = "brl";
+
+    @Benchmark
+    public CurrencyCode fromStringUpperCase() {
+        return CurrencyCode.fromString(upper);
+    }
+
+    @Benchmark
+    public CurrencyCode fromStringLowerCase() {
+        return CurrencyCode.fromString(lower);
+    }
+}
@@ -0,0 +1,51 @@
+package com.otto.conversormoedas.service;
+
+import com.otto.conversormoedas.model.ConversionHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/** Registro e leitura do histórico sob contenção (4 threads escrevendo/lendo). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConversionHistoryBenchmark {
+    private ConversionHistoryService history;
+
+    @Setup
+    public void setUp() {
+        // O log por conversão dominaria a medição e inundaria a saída do JMH
+        Logger.getLogger(ConversionHistoryService.class.getName()).setLevel(Level.WARNING);
+        history = new ConversionHistoryService();
+        for (int i = 0; i < 100; i++) {
+            history.addConversion("USD", "BRL", 100.0, 505.5, 5.055);
+        }
+    }
+
+    @Benchmark
+    public void addConversion() {
+        history.addConversion("USD", "BRL", 100.0, 505.5, 5.055);
+    }
+
+    @Benchmark
+    public List<ConversionHistory> lastConversions() {
+        return history.getLastConversions(20);
+    }
+}
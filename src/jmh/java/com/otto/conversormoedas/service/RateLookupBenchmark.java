@@ -0,0 +1,60 @@
+package com.otto.conversormoedas.service;
+
+import com.otto.conversormoedas.client.StubExchangeRateClient;
+import com.otto.conversormoedas.model.CurrencyCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminho de leitura de taxas: tipado (ordinal, sem alocação) vs String (chave FROM:TO),
+ * em acerto e em falha de cache (cliente stub sem rede).
+ * Rodar com {@code -prof gc}: {@code typedHit} deve reportar gc.alloc.rate.norm ≈ 0 B/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLookupBenchmark {
+    private CurrencyConverterService service;
+    private CurrencyConverterService missService;
+
+    @Setup
+    public void setUp() {
+        service = new CurrencyConverterService(new StubExchangeRateClient(), 60 * 60 * 1000L);
+        service.getRate(CurrencyCode.USD, CurrencyCode.BRL);
+        // TTL zero: toda leitura vira busca no upstream (stub)
+        missService = new CurrencyConverterService(new StubExchangeRateClient(), 0);
+    }
+
+    @Benchmark
+    public double typedHit() {
+        return service.getRate(CurrencyCode.USD, CurrencyCode.BRL);
+    }
+
+    @Benchmark
+    public double stringHit() {
+        return service.getRate("USD", "BRL");
+    }
+
+    @Benchmark
+    public double stringHitLowerCase() {
+        return service.getRate("usd", "brl");
+    }
+
+    @Benchmark
+    public double typedMiss() {
+        return missService.getRate(CurrencyCode.USD, CurrencyCode.BRL);
+    }
+}
@@ -0,0 +1,79 @@
+package com.otto.conversormoedas.timeseries;
+
+import com.otto.conversormoedas.model.CurrencyCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas ao histórico de taxas com um ano de pontos a cada 5 minutos (~105 mil pontos):
+ * barras diárias (rollup por dia), horárias da última semana (rollup por hora) e de 5 minutos do
+ * último dia (rollup por minuto), e a mesma janela só com pontos brutos (passo de 90s); e a taxa
+ * vigente em um instante (conversão retroativa: binária nos blocos + varredura do bloco).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateTimeSeriesBenchmark {
+    private static final long MINUTE = 60_000L;
+    private static final long DAY = 24 * 60 * MINUTE;
+    /** 2024-01-01T00:00:00Z */
+    private static final long START = 1_704_067_200_000L;
+    private static final long END = START + 365 * DAY;
+
+    private RateTimeSeries series;
+
+    @Setup
+    public void setUp() {
+        series = new RateTimeSeries();
+        Random random = new Random(1);
+        double rate = 5.0;
+        for (long t = START; t < END; t += 5 * MINUTE) {
+            rate *= 1 + (random.nextDouble() - 0.5) / 1_000;
+            series.record(CurrencyCode.USD, CurrencyCode.BRL, rate, t);
+        }
+    }
+
+    @Benchmark
+    public RateBars yearDaily() {
+        return series.query(CurrencyCode.USD, CurrencyCode.BRL, START, END, DAY);
+    }
+
+    @Benchmark
+    public RateBars weekHourly() {
+        return series.query(CurrencyCode.USD, CurrencyCode.BRL, END - 7 * DAY, END, 60 * MINUTE);
+    }
+
+    @Benchmark
+    public RateBars dayFiveMinutes() {
+        return series.query(CurrencyCode.USD, CurrencyCode.BRL, END - DAY, END, 5 * MINUTE);
+    }
+
+    @Benchmark
+    public RateBars dayRaw() {
+        return series.query(CurrencyCode.USD, CurrencyCode.BRL, END - DAY, END, 90_000L);
+    }
+
+    @Benchmark
+    public RatePoint rateAtMidYear() {
+        return series.rateAt(CurrencyCode.USD, CurrencyCode.BRL, START + 182 * DAY + 12_345);
+    }
+
+    @Benchmark
+    public RateBars inverseYearDaily() {
+        return series.query(CurrencyCode.BRL, CurrencyCode.USD, START, END, DAY);
+    }
+}
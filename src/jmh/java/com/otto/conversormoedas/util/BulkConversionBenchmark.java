@@ -0,0 +1,95 @@
+package com.otto.conversormoedas.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão em massa de 1 mil, 1 milhão e 100 milhões de valores (tempo por array; elementos por
+ * segundo = size / tempo): núcleo da Vector API, laço escalar auto-vetorizado e
+ * {@link ConversionCalculator#convert} elemento a elemento; com uma taxa por valor e com as taxas
+ * reunidas pelo índice do par (matriz 64x64). Os 100 milhões ocupam ~2,8 GB de heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Xmx3500m"})
+public class BulkConversionBenchmark {
+    private static final int PAIRS = 64 * 64;
+
+    @Param({"1000", "1000000", "100000000"})
+    public int size;
+
+    private double[] amounts;
+    private double[] rates;
+    private int[] pairs;
+    private double[] rateTable;
+    private double[] out;
+    private final ConversionKernel scalar = new ScalarConversionKernel();
+
+    @Setup
+    public void setUp() {
+        if (!BulkConversion.isVectorized()) {
+            throw new IllegalStateException("Vector API indisponível: rode com -Pbenchmark,vector");
+        }
+        Random random = new Random(1);
+        amounts = new double[size];
+        rates = new double[size];
+        pairs = new int[size];
+        out = new double[size];
+        rateTable = new double[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            rateTable[i] = 0.01 + random.nextDouble() * 100;
+        }
+        for (int i = 0; i < size; i++) {
+            amounts[i] = random.nextDouble() * 10_000;
+            pairs[i] = random.nextInt(PAIRS);
+            rates[i] = rateTable[pairs[i]];
+        }
+    }
+
+    @Benchmark
+    public double[] vector() {
+        BulkConversion.convertAll(amounts, rates, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] scalarLoop() {
+        BulkConversion.convertAll(scalar, amounts, rates, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] perElement() {
+        for (int i = 0; i < size; i++) {
+            out[i] = ConversionCalculator.convert(amounts[i], rates[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] vectorGather() {
+        BulkConversion.convertAll(amounts, pairs, rateTable, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] scalarGather() {
+        BulkConversion.convertAll(scalar, amounts, pairs, rateTable, out);
+        return out;
+    }
+}
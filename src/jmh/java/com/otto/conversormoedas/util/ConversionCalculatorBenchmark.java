@@ -0,0 +1,36 @@
+package com.otto.conversormoedas.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Cálculo de conversão e construção do {@link ConversionCalculator.ConversionResult}. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionCalculatorBenchmark {
+    private double amount = 1234.56;
+    private double rate = 5.0551;
+
+    @Benchmark
+    public double convert() {
+        return ConversionCalculator.convert(amount, rate);
+    }
+
+    @Benchmark
+    public ConversionCalculator.ConversionResult conversionResult() {
+        double converted = ConversionCalculator.convert(amount, rate);
+        return new ConversionCalculator.ConversionResult(amount, "USD", converted, "BRL", rate);
+    }
+}
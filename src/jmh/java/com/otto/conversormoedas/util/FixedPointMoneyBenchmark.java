@@ -0,0 +1,77 @@
+package com.otto.conversormoedas.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão com arredondamento para centavos: double ({@code convert} + {@code round}), ponto fixo
+ * em long (taxa decimal pré-derivada ou derivada a cada chamada) e com entrada/saída BigDecimal
+ * ({@link FixedPointMoney}), e BigDecimal ingênuo
+ * ({@code multiply} + {@code setScale}). Taxas publicada (5.0551), cruzada com precisão total do
+ * double (produto de 128 bits) e pequena; valores de varejo e de tesouraria.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPointMoneyBenchmark {
+    @Param({"1234.56", "987654321.99"})
+    public String amount;
+
+    @Param({"5.0551", "0.18148820326678766", "0.0000372"})
+    public double rate;
+
+    private double amountDouble;
+    private long amountCents;
+    private BigDecimal amountDecimal;
+    private FixedPointMoney.Rate fixedRate;
+
+    @Setup
+    public void setUp() {
+        amountDecimal = new BigDecimal(amount);
+        amountDouble = amountDecimal.doubleValue();
+        amountCents = amountDecimal.unscaledValue().longValueExact();
+        fixedRate = FixedPointMoney.rate(rate);
+    }
+
+    @Benchmark
+    public double doubleRounded() {
+        return ConversionCalculator.round(ConversionCalculator.convert(amountDouble, rate), 2);
+    }
+
+    /** Taxa decimal derivada uma vez, como nas conversões em massa. */
+    @Benchmark
+    public long fixedPoint() {
+        return FixedPointMoney.convert(amountCents, 2, fixedRate, 2, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public long fixedPointPerCallRate() {
+        return FixedPointMoney.convert(amountCents, 2, rate, 2, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public BigDecimal fixedPointDecimal() {
+        return FixedPointMoney.convert(amountDecimal, rate, 2, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public BigDecimal naiveBigDecimal() {
+        return amountDecimal.multiply(BigDecimal.valueOf(rate)).setScale(2, RoundingMode.HALF_EVEN);
+    }
+}
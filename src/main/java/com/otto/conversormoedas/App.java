@@ -1,9 +1,37 @@
 package com.otto.conversormoedas;
 
 import com.otto.conversormoedas.api.ApiServer;
+import com.otto.conversormoedas.client.CircuitBreaker;
 import com.otto.conversormoedas.client.ExchangeRateClient;
+import com.otto.conversormoedas.client.FileRateProvider;
+import com.otto.conversormoedas.client.FrankfurterClient;
+import com.otto.conversormoedas.client.HedgedRateProvider;
+import com.otto.conversormoedas.client.QuotaGovernor;
+import com.otto.conversormoedas.client.RateProvider;
+import com.otto.conversormoedas.config.Config;
+import com.otto.conversormoedas.history.HistoryLog;
+import com.otto.conversormoedas.model.CurrencyCode;
+import com.otto.conversormoedas.service.ConversionHistoryService;
 import com.otto.conversormoedas.service.CurrencyConverterService;
+import com.otto.conversormoedas.service.RateSnapshotStore;
+import com.otto.conversormoedas.service.RefreshScheduler;
+import com.otto.conversormoedas.service.StreamingConverter;
 import com.otto.conversormoedas.ui.ConsoleUI;
+import com.otto.conversormoedas.util.VirtualThreads;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Aplicação principal do Conversor de Moedas.
@@ -13,6 +41,25 @@ import com.otto.conversormoedas.ui.ConsoleUI;
  * - Console (padrão): java -jar conversor-moedas.jar
  * - API Server: java -jar conversor-moedas.jar --server
  * - API Server (porta customizada): java -jar conversor-moedas.jar --server --port=8080
+ * - Arquivo (CSV/NDJSON): java -jar conversor-moedas.jar --convert-file=entrada.csv [--output=saida.csv]
+ * - Virtual threads (JDK 21+): --virtual-threads ou VIRTUAL_THREADS=true (servidor e cliente HTTP)
+ *
+ * Cache de taxas (variáveis de ambiente):
+ * - CACHE_TTL_SECONDS: TTL rígido do cache (padrão 300)
+ * - CACHE_SOFT_TTL_SECONDS: ativa stale-while-revalidate a partir desta idade (padrão desativado)
+ * - CACHE_MAX_ENTRIES: quantidade máxima de pares em cache (padrão 10000)
+ * - HISTORY_CAPACITY: conversões mantidas no histórico em memória (padrão 1024)
+ * - HISTORY_LOG_DIR: diretório do log persistente de conversões (auditoria; padrão desativado)
+ * - RATE_SNAPSHOT_FILE: arquivo binário onde as taxas são persistidas e restauradas na partida (padrão desativado)
+ * - RATE_SNAPSHOT_FLUSH_SECONDS: intervalo entre gravações do snapshot (padrão 60)
+ * - WARMUP_CURRENCIES: moedas (ex.: USD,BRL,EUR) cujos pares são buscados em paralelo ao subir o servidor
+ *
+ * Provedores de taxas:
+ * - RATE_PROVIDERS: provedores em ordem de preferência (exchangerate-api, frankfurter, file; padrão exchangerate-api);
+ *   com mais de um, as buscas são hedged
+ * - EXCHANGE_RATE_API_BASE_URL / FRANKFURTER_BASE_URL: URLs base (padrão: as públicas)
+ * - RATE_FILE: arquivo JSON do provedor "file"
+ * - HEDGE_INITIAL_DELAY_MILLIS: atraso do hedge até haver amostras de latência (padrão 500)
  */
 public class App {
     private static final int DEFAULT_PORT = 7000;
@@ -33,17 +80,28 @@ public class App {
     public static void main(String[] args) {
         try {
             // Inicializa o client e o service
-            ExchangeRateClient client = new ExchangeRateClient();
-            CurrencyConverterService service = new CurrencyConverterService(client);
+            boolean virtualThreads = useVirtualThreads(args);
+            RateProvider provider = createRateProvider(
+                virtualThreads ? VirtualThreads.newVirtualThreadPerTaskExecutor() : null);
+            CurrencyConverterService service = createService(provider);
+            enableRateSnapshot(service, System.getenv("RATE_SNAPSHOT_FILE"));
             
             // Detecta modo de execução
             boolean serverMode = hasArg(args, "--server") || hasEnvVar("SERVER_MODE");
-            
-            if (serverMode) {
+            String inputFile = getArgValue(args, "--convert-file=");
+
+            if (inputFile != null) {
+                // Modo arquivo (conversão em lote via streaming)
+                convertFile(service, inputFile, getArgValue(args, "--output="));
+            } else if (serverMode) {
                 // Modo API Server (para deploy)
                 int port = getPort(args);
-                ApiServer server = new ApiServer(service, port);
+                int historyCapacity = (int) Config.getLongEnv("HISTORY_CAPACITY", ConversionHistoryService.DEFAULT_CAPACITY);
+                ApiServer server = new ApiServer(service,
+                    new ConversionHistoryService(historyCapacity, openHistoryLog(System.getenv("HISTORY_LOG_DIR"))),
+                    port, virtualThreads);
                 server.start();
+                warmUp(service, System.getenv("WARMUP_CURRENCIES"));
                 
                 // Mantém o servidor rodando
                 Thread.currentThread().join();
@@ -65,6 +123,237 @@ public class App {
         }
     }
 
+    /**
+     * Converte um arquivo CSV/NDJSON em streaming (memória constante).
+     * O formato é detectado pela extensão (.csv, .ndjson, .jsonl); sem --output, escreve em stdout.
+     * O resumo (linhas, erros, pares distintos) vai para stderr.
+     *
+     * @param service serviço de conversão
+     * @param inputFile caminho do arquivo de entrada
+     * @param outputFile caminho do arquivo de saída (ou null para stdout)
+     */
+    private static void convertFile(CurrencyConverterService service, String inputFile, String outputFile) throws IOException {
+        StreamingConverter.Format format = StreamingConverter.Format.fromFileName(inputFile);
+        if (format == null) {
+            throw new IllegalArgumentException("Formato não suportado (use .csv, .ndjson ou .jsonl): " + inputFile);
+        }
+        long start = System.nanoTime();
+        StreamingConverter.Summary summary;
+        try (Reader in = Files.newBufferedReader(Path.of(inputFile), StandardCharsets.UTF_8);
+             Writer out = outputFile != null
+                 ? Files.newBufferedWriter(Path.of(outputFile), StandardCharsets.UTF_8)
+                 : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            summary = new StreamingConverter(service).convert(in, out, format);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.err.println("✅ Arquivo convertido: " + summary + " em " + elapsedMillis + " ms");
+    }
+
+    /**
+     * Aquece o cache em segundo plano com todos os pares entre as moedas informadas.
+     * As buscas são disparadas em paralelo (uma ida ao upstream de latência por base);
+     * falhas são apenas reportadas, o servidor segue normalmente.
+     *
+     * @param service serviço de conversão
+     * @param currencies códigos separados por vírgula (null ou vazio desativa)
+     */
+    private static void warmUp(CurrencyConverterService service, String currencies) {
+        if (currencies == null || currencies.isBlank()) {
+            return;
+        }
+        List<CurrencyCode> codes = new ArrayList<>();
+        for (String code : currencies.split(",")) {
+            CurrencyCode currency = CurrencyCode.lookup(code.trim());
+            if (currency != null) {
+                codes.add(currency);
+            }
+        }
+        long start = System.nanoTime();
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        for (CurrencyCode from : codes) {
+            pending.add(service.getRatesAsync(from, codes, CurrencyConverterService.DEFAULT_FAN_OUT_TIMEOUT));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).whenComplete((done, error) -> {
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            if (error != null) {
+                System.err.println("⚠️  Aquecimento do cache incompleto: " + error.getMessage());
+            } else {
+                System.out.println("🔥 Cache aquecido: " + codes.size() + " moedas em " + elapsedMillis + " ms");
+            }
+        });
+    }
+
+    /**
+     * Verifica se o modo virtual threads foi pedido (--virtual-threads ou VIRTUAL_THREADS=true).
+     * Se o runtime não suportar (JDK < 21), avisa e segue com o pool de threads padrão.
+     *
+     * @param args argumentos recebidos no método main
+     * @return true se pedido e suportado pelo runtime
+     */
+    private static boolean useVirtualThreads(String[] args) {
+        if (!hasArg(args, "--virtual-threads") && !hasEnvVar("VIRTUAL_THREADS")) {
+            return false;
+        }
+        if (!VirtualThreads.isAvailable()) {
+            System.err.println("⚠️  Virtual threads exigem JDK 21+; usando o pool de threads padrão.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Obtém o valor de um argumento no formato prefixo=valor (ex.: --output=saida.csv).
+     *
+     * @param args argumentos recebidos no método main
+     * @param prefix prefixo do argumento, incluindo '='
+     * @return o valor após o prefixo, ou null se ausente
+     */
+    private static String getArgValue(String[] args, String prefix) {
+        for (String a : args) {
+            if (a.startsWith(prefix) && a.length() > prefix.length()) {
+                return a.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cria o serviço de conversão conforme a configuração de cache do ambiente.
+     * Com CACHE_SOFT_TTL_SECONDS > 0 (e menor que o TTL rígido) ativa a atualização em
+     * segundo plano; chaves sem acesso por um TTL rígido deixam de ser atualizadas.
+     *
+     * @param provider fonte das taxas
+     * @return serviço configurado
+     */
+    private static CurrencyConverterService createService(RateProvider provider) {
+        long hardTtlMillis = Config.getLongEnv("CACHE_TTL_SECONDS", 300) * 1000;
+        long softTtlMillis = Config.getLongEnv("CACHE_SOFT_TTL_SECONDS", 0) * 1000;
+        int maxEntries = (int) Config.getLongEnv("CACHE_MAX_ENTRIES", CurrencyConverterService.DEFAULT_MAX_CACHE_ENTRIES);
+        if (softTtlMillis <= 0 || softTtlMillis >= hardTtlMillis) {
+            return new CurrencyConverterService(provider, hardTtlMillis, hardTtlMillis, null, maxEntries);
+        }
+        RefreshScheduler scheduler = new RefreshScheduler(hardTtlMillis, Math.max(1000, softTtlMillis / 2));
+        return new CurrencyConverterService(provider, softTtlMillis, hardTtlMillis, scheduler, maxEntries);
+    }
+
+    /**
+     * Fonte das taxas conforme RATE_PROVIDERS (nomes separados por vírgula, em ordem de preferência;
+     * padrão só a ExchangeRate-API). Com mais de um provedor as buscas são hedged: o seguinte é
+     * disparado quando o anterior passa do seu p95 de latência ou falha.
+     *
+     * @param executor executor dos clientes HTTP (null usa o padrão)
+     * @return provedor configurado
+     */
+    private static RateProvider createRateProvider(Executor executor) {
+        String names = System.getenv("RATE_PROVIDERS");
+        List<RateProvider> providers = new ArrayList<>();
+        for (String name : (names == null || names.isBlank() ? ExchangeRateClient.NAME : names).split(",")) {
+            if (!name.isBlank()) {
+                providers.add(createRateProvider(name.trim().toLowerCase(), executor));
+            }
+        }
+        if (providers.size() == 1) {
+            return providers.get(0);
+        }
+        long delayMillis = Config.getLongEnv("HEDGE_INITIAL_DELAY_MILLIS", HedgedRateProvider.DEFAULT_INITIAL_DELAY.toMillis());
+        return new HedgedRateProvider(providers, Duration.ofMillis(delayMillis));
+    }
+
+    private static RateProvider createRateProvider(String name, Executor executor) {
+        switch (name) {
+            case ExchangeRateClient.NAME:
+                return new ExchangeRateClient(getEnv("EXCHANGE_RATE_API_BASE_URL", ExchangeRateClient.DEFAULT_BASE_URL),
+                    Config.getExchangeRateApiKey(), executor, createQuotaGovernor(), createCircuitBreaker(name));
+            case FrankfurterClient.NAME:
+                return new FrankfurterClient(getEnv("FRANKFURTER_BASE_URL", FrankfurterClient.DEFAULT_BASE_URL),
+                    executor, createQuotaGovernor(), createCircuitBreaker(name));
+            case FileRateProvider.NAME:
+                String file = System.getenv("RATE_FILE");
+                if (file == null || file.isBlank()) {
+                    throw new IllegalStateException("RATE_PROVIDERS inclui \"file\", mas RATE_FILE não foi configurada");
+                }
+                return new FileRateProvider(Path.of(file));
+            default:
+                throw new IllegalStateException("Provedor desconhecido em RATE_PROVIDERS: " + name
+                    + " (use exchangerate-api, frankfurter ou file)");
+        }
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Governador de cota do upstream conforme o ambiente: UPSTREAM_QUOTA (cota do plano por
+     * período, ex.: 1500/month) ou UPSTREAM_RATE_PER_SECOND (chamadas/s, aceita frações; 0 desativa
+     * o limite local), UPSTREAM_BURST e UPSTREAM_QUOTA_RESERVE_PERCENT (parte da cota guardada para
+     * os pares mais usados).
+     *
+     * @return governador configurado
+     */
+    private static QuotaGovernor createQuotaGovernor() {
+        String quota = getEnv("UPSTREAM_QUOTA", getEnv("UPSTREAM_RATE_PER_SECOND", null));
+        double permitsPerSecond;
+        try {
+            permitsPerSecond = quota != null ? QuotaGovernor.parseRate(quota) : QuotaGovernor.DEFAULT_PERMITS_PER_SECOND;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("UPSTREAM_QUOTA/UPSTREAM_RATE_PER_SECOND: " + e.getMessage(), e);
+        }
+        long burst = Config.getLongEnv("UPSTREAM_BURST", QuotaGovernor.DEFAULT_BURST);
+        long reservePercent = Config.getLongEnv("UPSTREAM_QUOTA_RESERVE_PERCENT",
+            Math.round(QuotaGovernor.DEFAULT_RESERVE_FRACTION * 100));
+        return new QuotaGovernor(permitsPerSecond, (int) burst, Math.min(99, Math.max(0, reservePercent)) / 100.0);
+    }
+
+    /**
+     * Circuit breaker do upstream conforme o ambiente: UPSTREAM_CIRCUIT_FAILURES (falhas seguidas
+     * que abrem o circuito), UPSTREAM_SLOW_CALL_MILLIS (p99 que abre o circuito) e
+     * UPSTREAM_CIRCUIT_OPEN_SECONDS (tempo aberto até a chamada de teste).
+     *
+     * @param provider nome do provedor (rótulo das métricas)
+     * @return circuit breaker configurado
+     */
+    private static CircuitBreaker createCircuitBreaker(String provider) {
+        long failures = Config.getLongEnv("UPSTREAM_CIRCUIT_FAILURES", CircuitBreaker.DEFAULT_FAILURE_THRESHOLD);
+        long slowMillis = Config.getLongEnv("UPSTREAM_SLOW_CALL_MILLIS", CircuitBreaker.DEFAULT_SLOW_CALL_THRESHOLD.toMillis());
+        long openSeconds = Config.getLongEnv("UPSTREAM_CIRCUIT_OPEN_SECONDS", CircuitBreaker.DEFAULT_OPEN_DURATION.getSeconds());
+        return new CircuitBreaker(provider, (int) Math.max(1, failures), Duration.ofMillis(slowMillis),
+            Duration.ofSeconds(openSeconds), RateProvider.DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Restaura as taxas persistidas e passa a gravá-las periodicamente (e ao encerrar).
+     *
+     * @param service serviço de conversão
+     * @param file caminho do snapshot (null ou vazio desativa)
+     */
+    private static void enableRateSnapshot(CurrencyConverterService service, String file) {
+        if (file == null || file.isBlank()) {
+            return;
+        }
+        long flushMillis = Config.getLongEnv("RATE_SNAPSHOT_FLUSH_SECONDS", 60) * 1000;
+        RateSnapshotStore store = new RateSnapshotStore(Path.of(file), flushMillis);
+        store.restore(service);
+        store.start(service);
+        Runtime.getRuntime().addShutdownHook(new Thread(store::close, "rate-snapshot-shutdown"));
+    }
+
+    /**
+     * Abre o log persistente de histórico, fechado (com os registros pendentes gravados) ao encerrar.
+     *
+     * @param dir diretório do log (null ou vazio desativa)
+     * @return o log, ou null se desativado
+     */
+    private static HistoryLog openHistoryLog(String dir) throws IOException {
+        if (dir == null || dir.isBlank()) {
+            return null;
+        }
+        HistoryLog log = new HistoryLog(Path.of(dir));
+        Runtime.getRuntime().addShutdownHook(new Thread(log::close, "history-log-shutdown"));
+        return log;
+    }
+
     /**
      * Verifica se um argumento específico foi passado na linha de comando.
      *
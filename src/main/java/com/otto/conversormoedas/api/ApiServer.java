@@ -1,18 +1,50 @@
 package com.otto.conversormoedas.api;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.otto.conversormoedas.client.CircuitBreaker;
+import com.otto.conversormoedas.client.QuotaExceededException;
+import com.otto.conversormoedas.client.QuotaGovernor;
+import com.otto.conversormoedas.metrics.MetricsRegistry;
+import com.otto.conversormoedas.model.ConversionHistory;
 import com.otto.conversormoedas.model.CurrencyCode;
+import com.otto.conversormoedas.model.HistoryPage;
 import com.otto.conversormoedas.service.ConversionHistoryService;
 import com.otto.conversormoedas.service.CurrencyConverterService;
+import com.otto.conversormoedas.service.ParallelRatesResolver;
+import com.otto.conversormoedas.service.StreamingConverter;
+import com.otto.conversormoedas.timeseries.OhlcBar;
+import com.otto.conversormoedas.timeseries.RateBars;
+import com.otto.conversormoedas.util.ConversionCalculator;
+import com.otto.conversormoedas.util.FixedPointMoney;
+import com.otto.conversormoedas.util.VirtualThreads;
 import io.javalin.Javalin;
 import io.javalin.http.Context;
 import io.javalin.json.JsonMapper;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
 
 /**
@@ -20,15 +52,60 @@ import java.util.stream.Collectors;
  * Expõe endpoints HTTP para conversão de moedas.
  */
 public class ApiServer {
+    private static final String[] ENDPOINTS = {
+        "/api/convert?from=USD&to=BRL&amount=100",
+        "POST /api/convert/batch",
+        "POST /api/convert/stream",
+        "/api/rates?from=USD",
+        "/api/rates/history?from=USD&to=BRL&start=2024-01-01&step=1d",
+        "SSE /api/rates/stream?base=USD&pairs=EUR:BRL",
+        "/api/currencies",
+        "/api/history?limit=10",
+        "/api/quota",
+        "/health"
+    };
+    /** /, /api/currencies: não mudam enquanto o processo roda. */
+    private static final String STATIC_CACHE_CONTROL = "public, max-age=86400";
+    /** /api/rates: sempre revalidar (a ETag muda a cada snapshot novo). */
+    private static final String RATES_CACHE_CONTROL = "no-cache";
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+    private static final HttpMetrics HTTP_METRICS = new HttpMetrics(METRICS);
+
     private final CurrencyConverterService service;
     private final ConversionHistoryService historyService;
+    private final BatchConversionHandler batchHandler;
+    private final StreamingConverter streamingConverter;
+    private final ParallelRatesResolver ratesResolver;
+    private final CachedResponse rootResponse = CachedResponse.of(STATIC_CACHE_CONTROL, 0, ApiServer::writeRoot);
+    private final CachedResponse currenciesResponse = CachedResponse.of(STATIC_CACHE_CONTROL, 0, ApiServer::writeCurrencies);
+    /** Última resposta de /api/rates por base (índice = ordinal), válida enquanto o snapshot não muda. */
+    private final AtomicReferenceArray<CachedResponse> ratesResponses =
+        new AtomicReferenceArray<>(CurrencyCode.values().length);
     private final Javalin app;
+    private LiveRatesBroadcaster liveRates;
     private final int port;
+    private final boolean virtualThreads;
 
     public ApiServer(CurrencyConverterService service, int port) {
+        this(service, new ConversionHistoryService(), port);
+    }
+
+    public ApiServer(CurrencyConverterService service, ConversionHistoryService historyService, int port) {
+        this(service, historyService, port, false);
+    }
+
+    /**
+     * @param virtualThreads atende requisições em virtual threads (JDK 21+; ignorado em runtimes sem suporte)
+     */
+    public ApiServer(CurrencyConverterService service, ConversionHistoryService historyService, int port,
+                     boolean virtualThreads) {
         this.service = service;
-        this.historyService = new ConversionHistoryService();
+        this.historyService = historyService;
+        this.batchHandler = new BatchConversionHandler(service, historyService);
+        this.streamingConverter = new StreamingConverter(service);
+        this.ratesResolver = new ParallelRatesResolver(service);
         this.port = port;
+        this.virtualThreads = virtualThreads;
         this.app = createApp();
     }
 
@@ -36,12 +113,20 @@ public class ApiServer {
      * Cria e configura a instância do Javalin.
      * - CORS liberado (dev e GitHub Pages)
      * - Arquivos estáticos opcionais (frontend separado)
-     * - JSON mapper configurado com Gson
+     * - JSON mapper configurado com Gson (respostas de erro; as de sucesso usam {@link JsonResponses})
+     * - Virtual threads no Jetty, quando habilitado (chamadas bloqueantes ao upstream
+     *   não esgotam o pool de threads)
      */
     private Javalin createApp() {
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        Gson gson = new Gson(); // saída compacta
         
         return Javalin.create(config -> {
+            config.useVirtualThreads = virtualThreads && VirtualThreads.isAvailable();
+
+            // Latência e status de cada requisição (exposto em /metrics)
+            config.requestLogger.http((ctx, executionTimeMs) -> HTTP_METRICS.record(routeLabel(ctx),
+                ctx.method(), ctx.statusCode(), (long) (executionTimeMs * 1_000_000L)));
+
             // Configura Gson como JSON mapper
             config.jsonMapper(new JsonMapper() {
                 @Override
@@ -82,57 +167,140 @@ public class ApiServer {
         app.get("/health", this::handleHealth);
         app.get("/helth", this::handleHealth); // Workaround: typo no Dashboard Render
         app.get("/api/convert", this::handleConvert);
+        app.post("/api/convert/batch", batchHandler::handle);
+        app.post("/api/convert/stream", this::handleConvertStream);
         app.get("/api/rates", this::handleRates);
+        app.get("/api/rates/history", this::handleRatesHistory);
+        liveRates = new LiveRatesBroadcaster(service);
+        app.sse("/api/rates/stream", liveRates::handle);
         app.get("/api/currencies", this::handleCurrencies);
         app.get("/api/history", this::handleHistory);
+        app.get("/api/quota", this::handleQuota);
+        app.get("/metrics", this::handleMetrics);
         
             app.start("0.0.0.0", port);
         System.out.println("🚀 API Server rodando em http://localhost:" + port);
         System.out.println("📚 Endpoints disponíveis:");
         System.out.println("   GET /api/convert?from=USD&to=BRL&amount=100");
+        System.out.println("   POST /api/convert/batch (JSON array ou NDJSON)");
+        System.out.println("   POST /api/convert/stream (CSV ou NDJSON em streaming)");
         System.out.println("   GET /api/rates?from=USD");
+        System.out.println("   GET /api/rates/history?from=USD&to=BRL&start=...&end=...&step=1h");
+        System.out.println("   GET /api/rates/stream?base=USD&pairs=EUR:BRL (Server-Sent Events)");
         System.out.println("   GET /api/currencies");
         System.out.println("   GET /api/history");
+        System.out.println("   GET /api/quota");
         System.out.println("   GET /health");
+        System.out.println("   GET /metrics (Prometheus)");
     }
 
     /**
      * Para o servidor.
      */
     public void stop() {
+        if (liveRates != null) {
+            liveRates.close();
+        }
         app.stop();
     }
 
     /**
-     * Raiz da API – informações básicas.
+     * Raiz da API – informações básicas (resposta pré-serializada).
      */
-    private void handleRoot(Context ctx) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("name", "Conversor de Moedas API");
-        response.put("version", "0.2.0");
-        response.put("endpoints", Arrays.asList(
-            "/api/convert?from=USD&to=BRL&amount=100",
-            "/api/rates?from=USD",
-            "/api/currencies",
-            "/api/history?limit=10",
-            "/health"
-        ));
-        ctx.json(response);
+    private void handleRoot(Context ctx) throws IOException {
+        if (JsonResponses.isPretty(ctx)) {
+            JsonResponses.send(ctx, 200, ApiServer::writeRoot);
+        } else {
+            rootResponse.send(ctx);
+        }
+    }
+
+    private static void writeRoot(JsonWriter json) throws IOException {
+        json.beginObject();
+        json.name("name").value("Conversor de Moedas API");
+        json.name("version").value("0.2.0");
+        json.name("endpoints").beginArray();
+        for (String endpoint : ENDPOINTS) {
+            json.value(endpoint);
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    /**
+     * Verificação de saúde (usado por Render). Sempre 200: com o upstream fora o serviço
+     * continua respondendo do cache; "upstream" mostra o estado do circuit breaker.
+     */
+    private void handleHealth(Context ctx) throws IOException {
+        CircuitBreaker breaker = service.getCircuitBreaker();
+        JsonResponses.send(ctx, 200, json -> json.beginObject()
+            .name("status").value("healthy")
+            .name("service").value("conversor-moedas")
+            .name("upstream").value(breaker.getState().name().toLowerCase())
+            .name("upstreamTimeoutMs").value(breaker.currentTimeout().toMillis())
+            .endObject());
+    }
+
+    /**
+     * Estado do governador de cota do upstream.
+     * GET /api/quota
+     */
+    private void handleQuota(Context ctx) throws IOException {
+        QuotaGovernor governor = service.getQuotaGovernor();
+        long resetAt = governor.getResetAtMillis();
+        JsonResponses.send(ctx, 200, json -> {
+            json.beginObject();
+            json.name("permitsPerSecond").value(governor.getPermitsPerSecond());
+            json.name("burst").value(governor.getBurst());
+            json.name("availableTokens").value(Math.floor(governor.getAvailableTokens() * 100) / 100);
+            json.name("quota").beginObject();
+            json.name("limit").value(governor.getQuotaLimit() >= 0 ? governor.getQuotaLimit() : null);
+            json.name("remaining").value(governor.getQuotaRemaining() >= 0 ? governor.getQuotaRemaining() : null);
+            json.name("resetAt").value(resetAt > 0 ? Instant.ofEpochMilli(resetAt).toString() : null);
+            json.endObject();
+            json.name("budgetLow").value(governor.isBudgetLow());
+            json.name("exhausted").value(governor.isExhausted());
+            json.name("granted").value(governor.getGranted());
+            json.name("denied").beginObject();
+            for (QuotaGovernor.Reason reason : QuotaGovernor.Reason.values()) {
+                json.name(reason.name().toLowerCase()).value(governor.getDenied(reason));
+            }
+            json.endObject();
+            json.name("hotPairs").beginArray();
+            for (String pair : governor.getHotPairs(20)) {
+                json.value(pair);
+            }
+            json.endArray();
+            json.endObject();
+        });
     }
 
     /**
-     * Verificação de saúde (usado por Render).
+     * Métricas no formato texto do Prometheus.
      */
-    private void handleHealth(Context ctx) {
-        Map<String, String> health = new HashMap<>();
-        health.put("status", "healthy");
-        health.put("service", "conversor-moedas");
-        ctx.json(health);
+    private void handleMetrics(Context ctx) throws IOException {
+        ctx.contentType("text/plain; version=0.0.4; charset=utf-8");
+        Writer out = new BufferedWriter(new OutputStreamWriter(ctx.outputStream(), StandardCharsets.UTF_8));
+        METRICS.writePrometheus(out);
+        out.flush();
+    }
+
+    /** Rota registrada que atendeu a requisição; "other" para 404 e arquivos estáticos (cardinalidade fixa). */
+    private static String routeLabel(Context ctx) {
+        if (ctx.statusCode() == 404) {
+            return "other";
+        }
+        String path = ctx.endpointHandlerPath();
+        return path == null || path.isEmpty() || path.equals("*") ? "other" : path;
     }
 
     /**
      * Converte moeda.
      * GET /api/convert?from=USD&to=BRL&amount=100
+     * GET /api/convert?from=USD&to=BRL&amount=100&at=2024-03-15T12:00:00Z (taxa vigente no instante,
+     * do histórico local; "at" como em /api/history; 404 sem taxa registrada até lá)
+     * GET /api/convert?from=USD&to=BRL&amount=100.05&precision=exact&rounding=HALF_EVEN (ponto fixo:
+     * resultado decimal exato na unidade menor da moeda destino; rounding padrão HALF_EVEN)
      */
     private void handleConvert(Context ctx) {
         try {
@@ -164,13 +332,32 @@ public class ApiServer {
                 return;
             }
 
+            // Precisão: double (padrão) ou exact (ponto fixo com arredondamento)
+            String precisionParam = ctx.queryParam("precision");
+            RoundingMode rounding = null;
+            if (precisionParam != null && !precisionParam.equalsIgnoreCase("double")) {
+                rounding = precisionParam.equalsIgnoreCase("exact") ? parseRounding(ctx.queryParam("rounding")) : null;
+                if (rounding == null) {
+                    ctx.status(400).json(Map.of(
+                        "error", "Parâmetros 'precision'/'rounding' inválidos",
+                        "supported", "precision=double|exact, rounding=" + Arrays.toString(RoundingMode.values()),
+                        "example", "/api/convert?from=USD&to=BRL&amount=100.05&precision=exact&rounding=HALF_EVEN"
+                    ));
+                    return;
+                }
+            }
+
             // Faz parse do amount
             double amount;
+            BigDecimal exactAmount = null;
             try {
                 amount = Double.parseDouble(amountParam.replace(",", "."));
                 if (amount <= 0) {
                     throw new NumberFormatException("Valor deve ser positivo");
                 }
+                if (rounding != null) {
+                    exactAmount = new BigDecimal(amountParam.replace(",", "."));
+                }
             } catch (NumberFormatException e) {
                 ctx.status(400).json(Map.of(
                     "error", "Valor inválido",
@@ -180,8 +367,17 @@ public class ApiServer {
                 return;
             }
 
+            String atParam = ctx.queryParam("at");
+            if (atParam != null) {
+                handleConvertAt(ctx, from, to, amount, exactAmount, rounding, atParam);
+                return;
+            }
+
             // Executa conversão
-            var result = service.convertDetailed(from, to, amount);
+            var result = rounding != null
+                ? service.convertExact(from, to, exactAmount, rounding)
+                : service.convertDetailed(from, to, amount);
+            RoundingMode resultRounding = rounding;
 
             // Registra no histórico
             historyService.addConversion(
@@ -192,28 +388,111 @@ public class ApiServer {
                 result.getExchangeRate()
             );
 
-            // Monta resposta JSON
-            Map<String, Object> response = new HashMap<>();
-            response.put("from", from.name());
-            response.put("to", to.name());
-            response.put("amount", amount);
-            response.put("result", result.getConvertedAmount());
-            response.put("rate", result.getExchangeRate());
-            response.put("timestamp", System.currentTimeMillis());
-
-            ctx.json(response);
+            // Escreve a resposta direto no stream
+            long timestamp = System.currentTimeMillis();
+            JsonResponses.send(ctx, 200, json -> {
+                json.beginObject();
+                JsonResponses.conversionFields(json, result);
+                precisionFields(json, resultRounding);
+                json.name("timestamp").value(timestamp);
+                json.endObject();
+            });
 
+        } catch (ArithmeticException e) {
+            // rounding=UNNECESSARY com resultado que não cabe na escala da moeda destino
+            ctx.status(400).json(Map.of(
+                "error", "Arredondamento necessário",
+                "message", e.getMessage()
+            ));
         } catch (Exception e) {
-            ctx.status(500).json(Map.of(
-                "error", "Falha na conversão",
+            sendFetchError(ctx, "Falha na conversão", e);
+        }
+    }
+
+    /**
+     * Conversão retroativa: taxa do histórico local, sem ir ao upstream. Não entra no histórico de
+     * conversões (é uma reavaliação, não uma conversão nova).
+     */
+    private void handleConvertAt(Context ctx, CurrencyCode from, CurrencyCode to, double amount,
+                                 BigDecimal exactAmount, RoundingMode rounding, String atParam) throws IOException {
+        long at;
+        try {
+            at = parseTime(atParam, System.currentTimeMillis());
+        } catch (DateTimeParseException | NumberFormatException e) {
+            ctx.status(400).json(Map.of(
+                "error", "Parâmetro 'at' inválido",
+                "example", "/api/convert?from=USD&to=BRL&amount=100&at=2024-03-15T12:00:00Z"
+            ));
+            return;
+        }
+        ConversionCalculator.ConversionResult result;
+        try {
+            result = rounding != null
+                ? service.convertExact(from, to, exactAmount, rounding, at)
+                : service.convertDetailed(from, to, amount, at);
+        } catch (NoSuchElementException e) {
+            ctx.status(404).json(Map.of(
+                "error", "Taxa histórica indisponível",
                 "message", e.getMessage()
             ));
+            return;
+        }
+        JsonResponses.send(ctx, 200, json -> {
+            json.beginObject();
+            JsonResponses.conversionFields(json, result);
+            precisionFields(json, rounding);
+            json.name("at").value(at);
+            json.endObject();
+        });
+    }
+
+    /** Modo de arredondamento pelo nome (padrão HALF_EVEN); null se inválido. */
+    static RoundingMode parseRounding(String value) {
+        if (value == null || value.isBlank()) {
+            return FixedPointMoney.DEFAULT_ROUNDING;
+        }
+        try {
+            return RoundingMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** Campos da conversão exata (nenhum no caminho em double). */
+    private static void precisionFields(JsonWriter json, RoundingMode rounding) throws IOException {
+        if (rounding != null) {
+            json.name("precision").value("exact");
+            json.name("rounding").value(rounding.name());
+        }
+    }
+
+    /**
+     * Converte um corpo CSV/NDJSON grande em streaming (memória constante).
+     * POST /api/convert/stream com Content-Type text/csv ou application/x-ndjson.
+     */
+    private void handleConvertStream(Context ctx) throws Exception {
+        StreamingConverter.Format format = StreamingConverter.Format.fromContentType(ctx.contentType());
+        if (format == null) {
+            ctx.status(415).json(Map.of(
+                "error", "Content-Type não suportado",
+                "supported", "text/csv, application/x-ndjson"
+            ));
+            return;
+        }
+
+        ctx.status(200).contentType(format == StreamingConverter.Format.CSV
+            ? "text/csv; charset=utf-8" : "application/x-ndjson");
+        try (Reader in = new InputStreamReader(ctx.bodyInputStream(), StandardCharsets.UTF_8)) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(ctx.outputStream(), StandardCharsets.UTF_8));
+            streamingConverter.convert(in, out, format);
         }
     }
 
     /**
      * Retorna as taxas para a moeda base.
      * GET /api/rates?from=USD
+     * Resolução paralela com prazo ({@link ParallelRatesResolver}): se parte das moedas falhar ou
+     * não responder a tempo, devolve as taxas obtidas com "complete": false e o status das demais.
      */
     private void handleRates(Context ctx) {
         try {
@@ -238,54 +517,223 @@ public class ApiServer {
                 return;
             }
 
-            // Monta mapa de taxas para as moedas suportadas
-            Map<String, Double> rates = new HashMap<>();
-            for (CurrencyCode to : CurrencyCode.values()) {
-                if (from != to) {
-                    double rate = service.getRate(from, to);
-                    rates.put(to.name(), rate);
+            ParallelRatesResolver.Result result = ratesResolver.resolve(from, ParallelRatesResolver.DEFAULT_DEADLINE);
+            long version = result.getSnapshotVersion();
+            if (version != ParallelRatesResolver.NO_SNAPSHOT && !JsonResponses.isPretty(ctx)) {
+                // Taxas de um snapshot: serializa uma vez por versão; timestamp = instante do snapshot
+                CachedResponse cached = ratesResponses.get(from.ordinal());
+                if (cached == null || cached.getVersion() != version) {
+                    cached = CachedResponse.of(RATES_CACHE_CONTROL, version,
+                        json -> writeRates(json, from, result, version));
+                    // Requisições concorrentes: mantém a versão mais nova, nunca volta a uma anterior
+                    ratesResponses.accumulateAndGet(from.ordinal(), cached, ApiServer::newerResponse);
+                }
+                cached.send(ctx);
+                return;
+            }
+
+            long timestamp = System.currentTimeMillis();
+            boolean noRates = result.getRates().isEmpty() && !result.isComplete();
+            if (noRates && result.getQuotaDenial() != null) {
+                // Nenhuma taxa por recusa da cota: 429/503 com Retry-After, como em /api/convert
+                sendFetchError(ctx, "Falha ao buscar taxas", result.getQuotaDenial());
+                return;
+            }
+            // Nenhuma taxa obtida: upstream indisponível
+            int status = noRates ? 503 : 200;
+            JsonResponses.send(ctx, status, json -> writeRates(json, from, result, timestamp));
+
+        } catch (Exception e) {
+            sendFetchError(ctx, "Falha ao buscar taxas", e);
+        }
+    }
+
+    private static void writeRates(JsonWriter json, CurrencyCode from, ParallelRatesResolver.Result result,
+                                   long timestamp) throws IOException {
+        json.beginObject();
+        json.name("base").value(from.name());
+        json.name("rates").beginObject();
+        for (Map.Entry<CurrencyCode, Double> rate : result.getRates().entrySet()) {
+            json.name(rate.getKey().name()).value(rate.getValue());
+        }
+        json.endObject();
+        json.name("complete").value(result.isComplete());
+        // Status apenas das moedas sem taxa (unavailable, error, timeout)
+        if (result.getRates().size() < result.getStatuses().size()) {
+            json.name("status").beginObject();
+            for (Map.Entry<CurrencyCode, ParallelRatesResolver.Status> st : result.getStatuses().entrySet()) {
+                if (st.getValue() != ParallelRatesResolver.Status.OK) {
+                    json.name(st.getKey().name()).value(st.getValue().name().toLowerCase());
                 }
             }
+            json.endObject();
+        }
+        if (!result.getErrors().isEmpty()) {
+            json.name("errors").beginObject();
+            for (Map.Entry<CurrencyCode, String> error : result.getErrors().entrySet()) {
+                json.name(error.getKey().name()).value(error.getValue());
+            }
+            json.endObject();
+        }
+        json.name("timestamp").value(timestamp);
+        json.endObject();
+    }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("base", from.name());
-            response.put("rates", rates);
-            response.put("timestamp", System.currentTimeMillis());
+    /** Passos "redondos" para o passo automático do histórico de taxas. */
+    private static final long[] HISTORY_STEPS = {
+        60_000L, 5 * 60_000L, 15 * 60_000L, 3_600_000L, 6 * 3_600_000L, 86_400_000L, 7 * 86_400_000L
+    };
+    /** Quantidade aproximada de barras com o passo automático. */
+    private static final int HISTORY_TARGET_BARS = 500;
 
-            ctx.json(response);
+    /**
+     * Histórico das taxas de um par em barras OHLC.
+     * GET /api/rates/history?from=USD&to=BRL&start=2024-01-01&end=2024-12-31&step=1d
+     * start/end como em /api/history (padrão: últimas 24h); step em 30s, 5m, 1h, 1d, 1w, ISO-8601
+     * (PT15M) ou millis; sem step, escolhe um passo com até ~500 barras. Intervalos sem dados são
+     * omitidos; "source" indica se as barras vêm dos pontos brutos ou de um rollup.
+     */
+    private void handleRatesHistory(Context ctx) {
+        CurrencyCode from = CurrencyCode.lookup(ctx.queryParam("from"));
+        CurrencyCode to = CurrencyCode.lookup(ctx.queryParam("to"));
+        if (from == null || to == null) {
+            ctx.status(400).json(Map.of(
+                "error", "Parâmetros 'from' e 'to' obrigatórios (códigos de moeda válidos)",
+                "example", "/api/rates/history?from=USD&to=BRL&start=2024-01-01&step=1d"
+            ));
+            return;
+        }
+        long start;
+        long end;
+        long step;
+        try {
+            end = parseTime(ctx.queryParam("end"), System.currentTimeMillis());
+            start = parseTime(ctx.queryParam("start"), end - 86_400_000L);
+            String stepParam = ctx.queryParam("step");
+            step = stepParam != null ? parseStep(stepParam) : autoStep(end - start);
+        } catch (DateTimeParseException | ArithmeticException | IllegalArgumentException e) {
+            ctx.status(400).json(Map.of(
+                "error", "Parâmetros de intervalo inválidos",
+                "example", "/api/rates/history?from=USD&to=BRL&start=2024-01-01T00:00:00Z&end=2024-01-02T00:00:00Z&step=1h"
+            ));
+            return;
+        }
 
+        RateBars bars;
+        try {
+            bars = service.getTimeSeries().query(from, to, start, end, step);
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(Map.of(
+                "error", "Intervalo inválido",
+                "message", e.getMessage()
+            ));
+            return;
+        }
+        try {
+            JsonResponses.send(ctx, 200, json -> {
+                json.beginObject();
+                json.name("from").value(from.name());
+                json.name("to").value(to.name());
+                json.name("start").value(start);
+                json.name("end").value(end);
+                json.name("stepMillis").value(bars.getStepMillis());
+                json.name("source").value(bars.getSource());
+                json.name("count").value(bars.getBars().size());
+                json.name("points").beginArray();
+                for (OhlcBar bar : bars.getBars()) {
+                    json.beginObject()
+                        .name("timestamp").value(bar.getTime())
+                        .name("open").value(bar.getOpen())
+                        .name("high").value(bar.getHigh())
+                        .name("low").value(bar.getLow())
+                        .name("close").value(bar.getClose())
+                        .name("count").value(bar.getCount())
+                        .endObject();
+                }
+                json.endArray();
+                json.endObject();
+            });
         } catch (Exception e) {
             ctx.status(500).json(Map.of(
-                "error", "Falha ao buscar taxas",
-                "message", e.getMessage()
+                "error", "Falha ao buscar histórico de taxas",
+                "message", String.valueOf(e.getMessage())
             ));
         }
     }
 
+    /** Converte o passo: millis, número com sufixo s/m/h/d/w ou duração ISO-8601 (PT5M). */
+    static long parseStep(String value) {
+        String v = value.trim().toLowerCase();
+        if (v.isEmpty()) {
+            throw new IllegalArgumentException("step vazio");
+        }
+        if (v.startsWith("p")) {
+            return Duration.parse(value.trim()).toMillis();
+        }
+        char unit = v.charAt(v.length() - 1);
+        if (Character.isDigit(unit)) {
+            return Long.parseLong(v);
+        }
+        long amount = Long.parseLong(v.substring(0, v.length() - 1));
+        switch (unit) {
+            case 's': return Math.multiplyExact(amount, 1_000L);
+            case 'm': return Math.multiplyExact(amount, 60_000L);
+            case 'h': return Math.multiplyExact(amount, 3_600_000L);
+            case 'd': return Math.multiplyExact(amount, 86_400_000L);
+            case 'w': return Math.multiplyExact(amount, 7 * 86_400_000L);
+            default: throw new IllegalArgumentException("Unidade de step inválida: " + unit);
+        }
+    }
+
+    /** Menor passo "redondo" que cobre o período com até ~{@value #HISTORY_TARGET_BARS} barras. */
+    static long autoStep(long rangeMillis) {
+        long wanted = Math.max(1, rangeMillis / HISTORY_TARGET_BARS);
+        for (long candidate : HISTORY_STEPS) {
+            if (candidate >= wanted) {
+                return candidate;
+            }
+        }
+        long week = HISTORY_STEPS[HISTORY_STEPS.length - 1];
+        return (wanted + week - 1) / week * week;
+    }
+
     /**
      * Lista moedas suportadas.
      * GET /api/currencies
      */
-    private void handleCurrencies(Context ctx) {
-        var currencies = Arrays.stream(CurrencyCode.values())
-            .map(code -> Map.of(
-                "code", code.name(),
-                "description", code.toString()
-            ))
-            .collect(Collectors.toList());
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("currencies", currencies);
-        response.put("count", currencies.size());
-
-        ctx.json(response);
+    private void handleCurrencies(Context ctx) throws IOException {
+        if (JsonResponses.isPretty(ctx)) {
+            JsonResponses.send(ctx, 200, ApiServer::writeCurrencies);
+        } else {
+            currenciesResponse.send(ctx);
+        }
+    }
+
+    private static void writeCurrencies(JsonWriter json) throws IOException {
+        json.beginObject();
+        json.name("currencies").beginArray();
+        for (CurrencyCode code : CurrencyCode.values()) {
+            json.beginObject()
+                .name("code").value(code.name())
+                .name("description").value(code.toString())
+                .endObject();
+        }
+        json.endArray();
+        json.name("count").value(CurrencyCode.values().length);
+        json.endObject();
     }
 
     /**
      * Retorna histórico de conversões.
      * GET /api/history?limit=10 (limite opcional, padrão 20)
+     * GET /api/history?from=2024-01-01T00:00:00&to=...&limit=500&cursor=... (intervalo de tempo,
+     * paginado; from/to em ISO-8601 ou epoch millis, limite até 1000)
      */
     private void handleHistory(Context ctx) {
+        if (ctx.queryParam("from") != null || ctx.queryParam("to") != null || ctx.queryParam("cursor") != null) {
+            handleHistoryRange(ctx);
+            return;
+        }
         try {
             String limitParam = ctx.queryParam("limit");
             int limit = 20; // padrão
@@ -302,25 +750,20 @@ public class ApiServer {
             }
             
             var history = historyService.getLastConversions(limit);
+            int total = historyService.getHistorySize();
             
-            // Converte para formato JSON amigável
-            var historyList = history.stream()
-                .map(record -> Map.of(
-                    "from", record.getFromCurrency(),
-                    "to", record.getToCurrency(),
-                    "amount", record.getAmount(),
-                    "result", record.getResult(),
-                    "rate", record.getExchangeRate(),
-                    "timestamp", record.getFormattedTimestamp()
-                ))
-                .collect(Collectors.toList());
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("history", historyList);
-            response.put("count", historyList.size());
-            response.put("total", historyService.getHistorySize());
-            
-            ctx.json(response);
+            // Escreve cada registro direto no stream (sem lista intermediária de mapas)
+            JsonResponses.send(ctx, 200, json -> {
+                json.beginObject();
+                json.name("history").beginArray();
+                for (ConversionHistory record : history) {
+                    JsonResponses.history(json, record);
+                }
+                json.endArray();
+                json.name("count").value(history.size());
+                json.name("total").value(total);
+                json.endObject();
+            });
             
         } catch (Exception e) {
             ctx.status(500).json(Map.of(
@@ -329,4 +772,116 @@ public class ApiServer {
             ));
         }
     }
+
+    /**
+     * Consulta por intervalo de tempo, paginada por cursor (usa o log persistente, se configurado).
+     */
+    private void handleHistoryRange(Context ctx) {
+        long fromMillis;
+        long toMillis;
+        long cursor;
+        int limit;
+        try {
+            fromMillis = parseTime(ctx.queryParam("from"), Long.MIN_VALUE);
+            toMillis = parseTime(ctx.queryParam("to"), Long.MAX_VALUE);
+            String cursorParam = ctx.queryParam("cursor");
+            cursor = cursorParam != null ? Long.parseLong(cursorParam) : -1;
+            String limitParam = ctx.queryParam("limit");
+            limit = limitParam != null ? Integer.parseInt(limitParam) : 100;
+            if (limit <= 0 || limit > 1000) {
+                limit = 100;
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            ctx.status(400).json(Map.of(
+                "error", "Parâmetros de intervalo inválidos",
+                "example", "/api/history?from=2024-01-01T00:00:00&to=2024-01-31T23:59:59&limit=100"
+            ));
+            return;
+        }
+
+        try {
+            HistoryPage page = historyService.query(fromMillis, toMillis, cursor, limit);
+            JsonResponses.send(ctx, 200, json -> {
+                json.beginObject();
+                json.name("history").beginArray();
+                for (ConversionHistory record : page.getRecords()) {
+                    JsonResponses.history(json, record);
+                }
+                json.endArray();
+                json.name("count").value(page.getRecords().size());
+                json.name("persistent").value(historyService.isPersistent());
+                if (page.getNextCursor() != null) {
+                    json.name("nextCursor").value(page.getNextCursor());
+                }
+                json.endObject();
+            });
+        } catch (Exception e) {
+            ctx.status(500).json(Map.of(
+                "error", "Falha ao buscar histórico",
+                "message", String.valueOf(e.getMessage())
+            ));
+        }
+    }
+
+    /**
+     * Falha ao obter taxas. A recusa do governador de cota (sem taxa em cache para servir) vira 429
+     * (limite local de chamadas) ou 503 (cota do plano reservada ou esgotada), com {@code Retry-After}
+     * quando a espera é conhecida; o resto, 500.
+     */
+    private static void sendFetchError(Context ctx, String error, Exception e) {
+        QuotaExceededException quota = quotaCause(e);
+        if (quota == null) {
+            ctx.status(500).json(Map.of(
+                "error", error,
+                "message", String.valueOf(e.getMessage())
+            ));
+            return;
+        }
+        if (quota.getRetryAfterMillis() >= 0) {
+            ctx.header("Retry-After", String.valueOf(Math.max(1, (quota.getRetryAfterMillis() + 999) / 1000)));
+        }
+        ctx.status(quota.getReason() == QuotaGovernor.Reason.RATE_LIMITED ? 429 : 503).json(Map.of(
+            "error", "Cota do upstream indisponível",
+            "reason", quota.getReason().name(),
+            "message", String.valueOf(quota.getMessage())
+        ));
+    }
+
+    private static QuotaExceededException quotaCause(Throwable error) {
+        for (int depth = 0; error != null && depth < 8; depth++, error = error.getCause()) {
+            if (error instanceof QuotaExceededException) {
+                return (QuotaExceededException) error;
+            }
+        }
+        return null;
+    }
+
+    private static CachedResponse newerResponse(CachedResponse current, CachedResponse candidate) {
+        return current != null && current.getVersion() >= candidate.getVersion() ? current : candidate;
+    }
+
+    /**
+     * Converte o parâmetro de tempo: epoch millis, instante ISO com offset ou zona
+     * (2024-01-01T00:00:00Z, 2024-01-01T00:00:00-03:00), data/hora local (2024-01-01T00:00:00)
+     * ou data (2024-01-01, início do dia). Um '+' não codificado na query chega como espaço e é
+     * restaurado.
+     */
+    static long parseTime(String value, long defaultValue) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        String text = value.trim().replace(' ', '+');
+        if (text.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(text);
+        }
+        if (text.indexOf('T') < 0) {
+            return LocalDate.parse(text).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(text,
+            ZonedDateTime::from, LocalDateTime::from);
+        ZonedDateTime time = parsed instanceof ZonedDateTime
+            ? (ZonedDateTime) parsed
+            : ((LocalDateTime) parsed).atZone(ZoneId.systemDefault());
+        return time.toInstant().toEpochMilli();
+    }
 }
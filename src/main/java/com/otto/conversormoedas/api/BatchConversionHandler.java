@@ -0,0 +1,334 @@
+package com.otto.conversormoedas.api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import com.otto.conversormoedas.model.CurrencyCode;
+import com.otto.conversormoedas.service.ConversionHistoryService;
+import com.otto.conversormoedas.service.CurrencyConverterService;
+import com.otto.conversormoedas.service.PairRateResolver;
+import com.otto.conversormoedas.service.ParallelRatesResolver;
+import com.otto.conversormoedas.util.BulkConversion;
+import com.otto.conversormoedas.util.ConversionCalculator;
+import io.javalin.http.Context;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Conversão em lote: POST /api/convert/batch.
+ * Corpo: array JSON ou NDJSON (Content-Type application/x-ndjson) de itens {from, to, amount}.
+ * Fluxo: lê os itens, resolve cada par distinto uma única vez ({@link PairRateResolver}), com
+ * as buscas dos pares em paralelo (no máximo {@link ParallelRatesResolver#DEFAULT_MAX_CONCURRENCY}
+ * simultâneas), converte de uma vez os itens com taxa atual ({@link BulkConversion}, taxas reunidas
+ * pelo índice do par) e escreve os resultados em streaming, na ordem de entrada e no mesmo formato do corpo.
+ * Erros por item (moeda inválida, valor inválido, taxa indisponível) vão na própria linha
+ * do resultado, sem falhar o lote inteiro.
+ * Itens com "at" (epoch millis ou ISO-8601, como em /api/history) usam a taxa vigente naquele
+ * instante, do histórico local: reavaliar registros antigos em massa não faz I/O de rede.
+ * Essas reavaliações não entram no histórico de conversões.
+ */
+public class BatchConversionHandler {
+    /** Limite de itens por lote. */
+    public static final int MAX_ITEMS = 100_000;
+    static final String NDJSON = "application/x-ndjson";
+    private static final int PAIRS = CurrencyCode.values().length * CurrencyCode.values().length;
+
+    private final CurrencyConverterService service;
+    private final ConversionHistoryService historyService;
+
+    public BatchConversionHandler(CurrencyConverterService service, ConversionHistoryService historyService) {
+        this.service = service;
+        this.historyService = historyService;
+    }
+
+    /**
+     * Handler Javalin do endpoint de lote.
+     */
+    public void handle(Context ctx) throws IOException {
+        boolean ndjson = isNdjson(ctx.contentType());
+        List<BatchItem> items;
+        try (Reader in = new InputStreamReader(ctx.bodyInputStream(), StandardCharsets.UTF_8)) {
+            items = ndjson ? parseNdjson(in) : parseJsonArray(in);
+        } catch (IllegalArgumentException | JsonParseException | IllegalStateException
+                 | MalformedJsonException | EOFException e) {
+            ctx.status(400).json(Map.of(
+                "error", "Corpo do lote inválido",
+                "message", String.valueOf(e.getMessage()),
+                "example", "[{\"from\":\"USD\",\"to\":\"BRL\",\"amount\":100}]"
+            ));
+            return;
+        }
+
+        ctx.status(200).contentType(ndjson ? NDJSON : "application/json");
+        Writer out = new BufferedWriter(new OutputStreamWriter(ctx.outputStream(), StandardCharsets.UTF_8));
+        convert(items, ndjson, out);
+        out.flush();
+    }
+
+    /**
+     * Resolve os pares distintos e escreve os resultados, na ordem, em {@code out}.
+     */
+    void convert(List<BatchItem> items, boolean ndjson, Writer out) throws IOException {
+        PairRateResolver resolver = new PairRateResolver(service);
+        // Resolve os pares distintos, em paralelo, antes de começar a escrever
+        BitSet pairs = new BitSet();
+        for (BatchItem item : items) {
+            if (item.error == null && item.at == BatchItem.NOW) {
+                pairs.set(PairRateResolver.pairIndex(item.from, item.to));
+            }
+        }
+        resolver.prefetch(pairs, ParallelRatesResolver.DEFAULT_MAX_CONCURRENCY);
+        double[] converted = convertLive(items, resolver);
+
+        JsonWriter writer = new JsonWriter(out);
+        writer.setLenient(true); // NDJSON: vários valores de topo, separados por '\n'
+        if (!ndjson) {
+            writer.beginArray();
+        }
+        for (int i = 0; i < items.size(); i++) {
+            writeResult(writer, i, items.get(i), resolver, converted == null ? Double.NaN : converted[i]);
+            if (ndjson) {
+                writer.flush();
+                out.write('\n');
+            }
+        }
+        if (!ndjson) {
+            writer.endArray();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Converte de uma vez os itens com taxa atual resolvida ({@link BulkConversion#convertAll(double[],
+     * int[], double[], double[])}). Devolve o resultado por posição do item (NaN nos demais), ou null
+     * se alguma taxa for inválida: aí cada item é convertido e validado ao ser escrito.
+     */
+    private static double[] convertLive(List<BatchItem> items, PairRateResolver resolver) {
+        int n = 0;
+        for (BatchItem item : items) {
+            if (item.error == null && item.at == BatchItem.NOW && !Double.isNaN(resolver.rate(item.from, item.to))) {
+                n++;
+            }
+        }
+        double[] amounts = new double[n];
+        int[] pairs = new int[n];
+        double[] rateTable = new double[PAIRS];
+        int k = 0;
+        for (BatchItem item : items) {
+            if (item.error == null && item.at == BatchItem.NOW) {
+                double rate = resolver.rate(item.from, item.to);
+                if (!Double.isNaN(rate)) {
+                    int pair = PairRateResolver.pairIndex(item.from, item.to);
+                    rateTable[pair] = rate;
+                    amounts[k] = item.amount;
+                    pairs[k++] = pair;
+                }
+            }
+        }
+        double[] out = new double[n];
+        try {
+            BulkConversion.convertAll(amounts, pairs, rateTable, out);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        double[] results = new double[items.size()];
+        Arrays.fill(results, Double.NaN);
+        k = 0;
+        for (int i = 0; i < items.size(); i++) {
+            BatchItem item = items.get(i);
+            if (item.error == null && item.at == BatchItem.NOW && !Double.isNaN(resolver.rate(item.from, item.to))) {
+                results[i] = out[k++];
+            }
+        }
+        return results;
+    }
+
+    /** @param converted resultado já calculado em {@link #convertLive}, ou NaN */
+    private void writeResult(JsonWriter writer, int index, BatchItem item, PairRateResolver resolver,
+                             double converted) throws IOException {
+        writer.beginObject();
+        writer.name("index").value(index);
+        String error = item.error;
+        double rate = Double.NaN;
+        if (error == null && item.at != BatchItem.NOW) {
+            try {
+                rate = service.getRateAt(item.from, item.to, item.at).getRate();
+            } catch (NoSuchElementException e) {
+                error = "Taxa histórica indisponível: " + e.getMessage();
+            }
+        } else if (error == null) {
+            rate = resolver.rate(item.from, item.to);
+            if (Double.isNaN(rate)) {
+                error = "Taxa indisponível: " + resolver.error(item.from, item.to);
+            }
+        }
+        if (error != null) {
+            if (item.rawFrom != null) writer.name("from").value(item.rawFrom);
+            if (item.rawTo != null) writer.name("to").value(item.rawTo);
+            writer.name("error").value(error);
+        } else {
+            double result = !Double.isNaN(converted) ? converted : ConversionCalculator.convert(item.amount, rate);
+            writer.name("from").value(item.from.name());
+            writer.name("to").value(item.to.name());
+            writer.name("amount").value(item.amount);
+            writer.name("result").value(result);
+            writer.name("rate").value(rate);
+            if (item.at != BatchItem.NOW) {
+                writer.name("at").value(item.at);
+            } else {
+                historyService.addConversion(item.from.name(), item.to.name(), item.amount, result, rate);
+            }
+        }
+        writer.endObject();
+    }
+
+    /** Lê um array JSON de itens em streaming (erro de sintaxe invalida o lote). */
+    List<BatchItem> parseJsonArray(Reader in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new IllegalArgumentException("Esperado um array JSON de itens {from, to, amount}");
+        }
+        List<BatchItem> items = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            checkLimit(items);
+            items.add(BatchItem.from(JsonParser.parseReader(reader)));
+        }
+        reader.endArray();
+        return items;
+    }
+
+    /** Lê NDJSON linha a linha; linhas inválidas viram itens com erro. */
+    List<BatchItem> parseNdjson(Reader in) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        List<BatchItem> items = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            checkLimit(items);
+            BatchItem item;
+            try {
+                item = BatchItem.from(JsonParser.parseString(line));
+            } catch (JsonParseException e) {
+                item = BatchItem.invalid("JSON inválido na linha");
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static void checkLimit(List<BatchItem> items) {
+        if (items.size() >= MAX_ITEMS) {
+            throw new IllegalArgumentException("Lote excede o limite de " + MAX_ITEMS + " itens");
+        }
+    }
+
+    static boolean isNdjson(String contentType) {
+        return contentType != null && (contentType.startsWith(NDJSON) || contentType.startsWith("application/ndjson"));
+    }
+
+    /** Item do lote já validado (ou com a mensagem de erro). */
+    static final class BatchItem {
+        /** Sem "at": taxa atual. */
+        static final long NOW = Long.MIN_VALUE;
+
+        final String rawFrom;
+        final String rawTo;
+        final CurrencyCode from;
+        final CurrencyCode to;
+        final double amount;
+        final long at;
+        final String error;
+
+        private BatchItem(String rawFrom, String rawTo, CurrencyCode from, CurrencyCode to, double amount,
+                          long at, String error) {
+            this.rawFrom = rawFrom;
+            this.rawTo = rawTo;
+            this.from = from;
+            this.to = to;
+            this.amount = amount;
+            this.at = at;
+            this.error = error;
+        }
+
+        private static BatchItem invalid(String rawFrom, String rawTo, String error) {
+            return new BatchItem(rawFrom, rawTo, null, null, 0, NOW, error);
+        }
+
+        static BatchItem invalid(String error) {
+            return invalid(null, null, error);
+        }
+
+        /**
+         * Valida um item {from, to, amount, at?}; amount aceita número ou texto com vírgula,
+         * at (opcional) epoch millis ou ISO-8601.
+         */
+        static BatchItem from(JsonElement element) {
+            if (!element.isJsonObject()) {
+                return invalid("Item deve ser um objeto {from, to, amount}");
+            }
+            JsonObject obj = element.getAsJsonObject();
+            String rawFrom = stringField(obj, "from");
+            String rawTo = stringField(obj, "to");
+            String rawAmount = stringField(obj, "amount");
+            if (rawFrom == null || rawTo == null || rawAmount == null) {
+                return invalid(rawFrom, rawTo, "Campos obrigatórios: from, to, amount");
+            }
+            CurrencyCode from = CurrencyCode.lookup(rawFrom);
+            CurrencyCode to = CurrencyCode.lookup(rawTo);
+            if (from == null || to == null) {
+                return invalid(rawFrom, rawTo, "Código de moeda inválido");
+            }
+            double amount;
+            try {
+                amount = Double.parseDouble(rawAmount.replace(",", "."));
+            } catch (NumberFormatException e) {
+                amount = Double.NaN;
+            }
+            if (!(amount > 0) || Double.isInfinite(amount)) {
+                return invalid(rawFrom, rawTo, "Valor deve ser um número positivo");
+            }
+            long at = NOW;
+            String rawAt = stringField(obj, "at");
+            if (rawAt != null) {
+                try {
+                    at = ApiServer.parseTime(rawAt, NOW);
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    return invalid(rawFrom, rawTo, "Instante 'at' inválido");
+                }
+            }
+            return new BatchItem(rawFrom, rawTo, from, to, amount, at, null);
+        }
+
+        private static String stringField(JsonObject obj, String name) {
+            JsonElement value = obj.get(name);
+            if (value == null || !value.isJsonPrimitive()) {
+                return null;
+            }
+            return value.getAsString();
+        }
+    }
+}
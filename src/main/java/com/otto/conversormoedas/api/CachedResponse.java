@@ -0,0 +1,141 @@
+package com.otto.conversormoedas.api;
+
+import io.javalin.http.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Resposta JSON serializada uma única vez: bytes prontos (e também já comprimidos com gzip),
+ * servidos com ETag forte e Cache-Control. {@code If-None-Match} com a mesma ETag recebe 304 sem corpo.
+ * Imutável; {@code version} identifica os dados de origem (ex.: instante do snapshot de taxas).
+ */
+final class CachedResponse {
+    private final byte[] body;
+    private final byte[] gzipBody;
+    private final String etag;
+    private final String gzipEtag;
+    private final String cacheControl;
+    private final long version;
+
+    private CachedResponse(byte[] body, byte[] gzipBody, String etag, String cacheControl, long version) {
+        this.body = body;
+        this.gzipBody = gzipBody;
+        this.etag = "\"" + etag + "\"";
+        this.gzipEtag = "\"" + etag + "-gzip\""; // representação diferente, ETag diferente
+        this.cacheControl = cacheControl;
+        this.version = version;
+    }
+
+    /** Serializa {@code body} (compacto) e pré-comprime o resultado. */
+    static CachedResponse of(String cacheControl, long version, JsonResponses.Body body) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            JsonResponses.write(out, false, body);
+            byte[] bytes = out.toByteArray();
+            return new CachedResponse(bytes, gzip(bytes), hash(bytes), cacheControl, version);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    byte[] getGzipBody() {
+        return gzipBody;
+    }
+
+    String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Envia a resposta (200 com corpo ou 304). Com Content-Encoding já definido o Javalin
+     * não comprime de novo.
+     */
+    void send(Context ctx) {
+        boolean gzip = acceptsGzip(ctx.header("Accept-Encoding"));
+        ctx.header("ETag", gzip ? gzipEtag : etag);
+        ctx.header("Cache-Control", cacheControl);
+        ctx.header("Vary", "Accept-Encoding");
+        if (matches(ctx.header("If-None-Match"))) {
+            ctx.status(304);
+            return;
+        }
+        ctx.status(200).contentType("application/json");
+        if (gzip) {
+            ctx.header("Content-Encoding", "gzip");
+            ctx.result(gzipBody);
+        } else {
+            ctx.result(body);
+        }
+    }
+
+    /** true se {@code If-None-Match} contém alguma das ETags desta resposta (comparação fraca). */
+    boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** true se o cliente aceita gzip (ignora {@code gzip;q=0}). */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (coding.equalsIgnoreCase("gzip") || coding.equals("*")) {
+                for (int i = 1; i < tokens.length; i++) {
+                    if (tokens[i].trim().matches("q\\s*=\\s*0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 32);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
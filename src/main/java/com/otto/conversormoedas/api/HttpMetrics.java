@@ -0,0 +1,78 @@
+package com.otto.conversormoedas.api;
+
+import com.otto.conversormoedas.metrics.Counter;
+import com.otto.conversormoedas.metrics.LatencyHistogram;
+import com.otto.conversormoedas.metrics.MetricsRegistry;
+import io.javalin.http.HandlerType;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Métricas por requisição HTTP (latência por rota e método, contagem por status). As séries são
+ * resolvidas no registro só na primeira vez de cada rota/método/status; depois, gravar é uma
+ * consulta pela rota (string já existente, sem montar chave) e duas leituras de array.
+ */
+final class HttpMetrics {
+    private static final String LATENCY_METRIC = "conversor_http_request_duration_seconds";
+    private static final String LATENCY_HELP = "Latência das requisições HTTP por rota";
+    private static final String REQUESTS_METRIC = "conversor_http_requests_total";
+    private static final String REQUESTS_HELP = "Requisições HTTP por rota e status";
+    private static final int STATUS_LIMIT = 600;
+
+    private final MetricsRegistry registry;
+    private final ConcurrentHashMap<String, AtomicReferenceArray<MethodSeries>> routes = new ConcurrentHashMap<>();
+
+    HttpMetrics(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /** Registra uma requisição concluída. */
+    void record(String route, HandlerType method, int status, long elapsedNanos) {
+        AtomicReferenceArray<MethodSeries> byMethod = routes.get(route);
+        if (byMethod == null) {
+            byMethod = routes.computeIfAbsent(route, r -> new AtomicReferenceArray<>(HandlerType.values().length));
+        }
+        MethodSeries series = byMethod.get(method.ordinal());
+        if (series == null) {
+            series = new MethodSeries(route, method.name());
+            if (!byMethod.compareAndSet(method.ordinal(), null, series)) {
+                series = byMethod.get(method.ordinal());
+            }
+        }
+        series.latency.record(elapsedNanos);
+        series.counter(status).increment();
+    }
+
+    /** Séries de uma rota e método: o histograma e os contadores por status, criados sob demanda. */
+    private final class MethodSeries {
+        private final String route;
+        private final String method;
+        private final LatencyHistogram latency;
+        private final AtomicReferenceArray<Counter> byStatus = new AtomicReferenceArray<>(STATUS_LIMIT);
+
+        MethodSeries(String route, String method) {
+            this.route = route;
+            this.method = method;
+            this.latency = registry.histogram(LATENCY_METRIC, LATENCY_HELP, "route", route, "method", method);
+        }
+
+        Counter counter(int status) {
+            if (status < 0 || status >= STATUS_LIMIT) {
+                return resolve(status);
+            }
+            Counter counter = byStatus.get(status);
+            if (counter == null) {
+                // O registro devolve a mesma instância para a mesma série: corrida inofensiva
+                counter = resolve(status);
+                byStatus.set(status, counter);
+            }
+            return counter;
+        }
+
+        private Counter resolve(int status) {
+            return registry.counter(REQUESTS_METRIC, REQUESTS_HELP,
+                "route", route, "method", method, "status", String.valueOf(status));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.otto.conversormoedas.api;
+
+import com.google.gson.stream.JsonWriter;
+import com.otto.conversormoedas.model.ConversionHistory;
+import com.otto.conversormoedas.util.ConversionCalculator;
+import io.javalin.http.Context;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Escrita das respostas JSON em streaming: os handlers escrevem campo a campo em um
+ * {@link JsonWriter} ligado ao stream da resposta, sem montar HashMaps intermediários nem
+ * a String completa do corpo. Saída compacta; {@code ?pretty=true} indenta (útil para depuração).
+ * Também reúne os escritores tipados das estruturas repetidas (conversão, histórico).
+ */
+final class JsonResponses {
+    /** Buffer de bytes de cada resposta; o stream do Jetty já bufferiza, então basta um buffer pequeno. */
+    static final int BUFFER_BYTES = 256;
+
+    /** Corpo da resposta, escrito no JsonWriter recebido. */
+    @FunctionalInterface
+    interface Body {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    private JsonResponses() {
+    }
+
+    /** Envia {@code body} como JSON com o status informado. */
+    static void send(Context ctx, int status, Body body) throws IOException {
+        ctx.status(status).contentType("application/json");
+        write(ctx.outputStream(), isPretty(ctx), body);
+    }
+
+    /** true se a requisição pediu saída indentada ({@code ?pretty=true}). */
+    static boolean isPretty(Context ctx) {
+        return "true".equalsIgnoreCase(ctx.queryParam("pretty"));
+    }
+
+    /** Escreve {@code body} em {@code out} (UTF-8); não fecha nem faz flush no stream. */
+    static void write(OutputStream out, boolean pretty, Body body) throws IOException {
+        Utf8Writer writer = new Utf8Writer(out, BUFFER_BYTES);
+        JsonWriter json = new JsonWriter(writer);
+        if (pretty) {
+            json.setIndent("  ");
+        }
+        body.write(json);
+        writer.drain();
+    }
+
+    /** Campos de uma conversão (from, to, amount, result, rate), dentro de um objeto já aberto. */
+    static void conversionFields(JsonWriter json, ConversionCalculator.ConversionResult result) throws IOException {
+        json.name("from").value(result.getFromCurrency());
+        json.name("to").value(result.getToCurrency());
+        if (result.isExact()) {
+            // Decimal sem notação científica e sem passar por double
+            json.name("amount").jsonValue(result.getExactOriginalAmount().toPlainString());
+            json.name("result").jsonValue(result.getExactConvertedAmount().toPlainString());
+        } else {
+            json.name("amount").value(result.getOriginalAmount());
+            json.name("result").value(result.getConvertedAmount());
+        }
+        json.name("rate").value(result.getExchangeRate());
+    }
+
+    /** Um registro do histórico como objeto JSON. */
+    static void history(JsonWriter json, ConversionHistory record) throws IOException {
+        json.beginObject();
+        json.name("from").value(record.getFromCurrency());
+        json.name("to").value(record.getToCurrency());
+        json.name("amount").value(record.getAmount());
+        json.name("result").value(record.getResult());
+        json.name("rate").value(record.getExchangeRate());
+        json.name("timestamp").value(record.getFormattedTimestamp());
+        json.endObject();
+    }
+}
@@ -0,0 +1,565 @@
+package com.otto.conversormoedas.api;
+
+import com.otto.conversormoedas.metrics.Counter;
+import com.otto.conversormoedas.metrics.Gauge;
+import com.otto.conversormoedas.metrics.MetricsRegistry;
+import com.otto.conversormoedas.model.CurrencyCode;
+import com.otto.conversormoedas.service.CurrencyConverterService;
+import com.otto.conversormoedas.service.RateListener;
+import com.otto.conversormoedas.service.RateMatrix;
+import com.otto.conversormoedas.util.VirtualThreads;
+import io.javalin.http.sse.SseClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Taxas ao vivo por Server-Sent Events: GET /api/rates/stream?base=USD,EUR&pairs=USD:BRL.
+ * Tópicos: moedas base (todas as taxas base→X, evento "rates") e pares (evento "rate").
+ * A cada taxa nova do serviço ({@link RateListener}) só as taxas que mudaram são enviadas; cada
+ * frame SSE é codificado uma única vez por tópico e o mesmo {@code byte[]} vai para todos os
+ * inscritos. Ao se inscrever, o cliente recebe o estado atual dos seus tópicos ("snapshot": true,
+ * com o instante de captura da taxa mais antiga incluída).
+ * Conexões: o handler retorna logo após a inscrição (a conexão fica aberta em modo assíncrono) e
+ * não prende uma thread de requisição por painel. Cada cliente tem uma fila limitada
+ * ({@value #QUEUE_CAPACITY} frames) esvaziada por uma tarefa de escrita, agendada quando chegam
+ * frames, em virtual threads quando disponíveis (senão em um pool pequeno); o publicador nunca
+ * bloqueia. Fila cheia (cliente lento): os deltas pendentes são descartados e o cliente recebe um
+ * snapshot novo quando voltar a consumir.
+ * Demanda: enquanto houver inscritos, os tópicos são consultados no serviço a cada
+ * {@code demandInterval} (uma consulta por tópico, não por cliente), mantendo o cache e a
+ * atualização em segundo plano ativos sem polling dos painéis.
+ */
+public class LiveRatesBroadcaster implements RateListener, AutoCloseable {
+    /** Frames pendentes por cliente antes de descartar e reenviar um snapshot. */
+    public static final int QUEUE_CAPACITY = 256;
+    /** Intervalo padrão das consultas de demanda. */
+    public static final Duration DEFAULT_DEMAND_INTERVAL = Duration.ofSeconds(5);
+    static final Duration HEARTBEAT = Duration.ofSeconds(15);
+    /** Threads de escrita sem virtual threads (escritas bloqueiam só enquanto o socket não aceita). */
+    static final int WRITER_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static final Logger LOGGER = Logger.getLogger(LiveRatesBroadcaster.class.getName());
+    private static final CurrencyCode[] CODES = CurrencyCode.values();
+    private static final int SIZE = CODES.length;
+    private static final byte[] HEARTBEAT_FRAME = ": keep-alive\n\n".getBytes(StandardCharsets.US_ASCII);
+    /** Sinal de encerramento na fila de um cliente. */
+    private static final byte[] CLOSE = new byte[0];
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+    private static final Gauge CLIENTS = METRICS.gauge("conversor_sse_clients",
+            "Clientes conectados ao streaming de taxas");
+    private static final Counter FRAMES = METRICS.counter("conversor_sse_frames_total",
+            "Frames de taxas codificados (um por tópico alterado, compartilhado entre os clientes)");
+    private static final Counter OVERFLOWS = METRICS.counter("conversor_sse_overflows_total",
+            "Filas de clientes lentos que encheram (deltas descartados, snapshot reenviado)");
+
+    private final CurrencyConverterService service;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService writers;
+    // Protegidos por this
+    /** Última taxa enviada por par (índice from * N + to); NaN se desconhecida. */
+    private final double[] published = new double[SIZE * SIZE];
+    /** Instante de captura da última taxa enviada por par. */
+    private final long[] publishedAt = new long[SIZE * SIZE];
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final int[] baseSubscribers = new int[SIZE];
+    private final int[] pairSubscribers = new int[SIZE * SIZE];
+    private boolean closed;
+
+    public LiveRatesBroadcaster(CurrencyConverterService service) {
+        this(service, DEFAULT_DEMAND_INTERVAL);
+    }
+
+    /**
+     * @param demandInterval intervalo das consultas de demanda; zero desliga
+     */
+    public LiveRatesBroadcaster(CurrencyConverterService service, Duration demandInterval) {
+        this.service = service;
+        Arrays.fill(published, Double.NaN);
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "live-rates-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        long heartbeat = HEARTBEAT.toMillis();
+        timer.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+        if (!demandInterval.isZero()) {
+            long millis = demandInterval.toMillis();
+            timer.scheduleWithFixedDelay(this::touchTopics, millis, millis, TimeUnit.MILLISECONDS);
+        }
+        writers = VirtualThreads.isAvailable()
+                ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(WRITER_THREADS, r -> {
+                    Thread t = new Thread(r, "live-rates-writer");
+                    t.setDaemon(true);
+                    return t;
+                });
+        service.addRateListener(this);
+    }
+
+    /**
+     * Handler do endpoint SSE: valida os tópicos, inscreve o cliente e mantém a conexão aberta em
+     * modo assíncrono; a escrita fica com {@link #start}, e a thread do handler é liberada.
+     */
+    public void handle(SseClient client) {
+        Subscriber subscriber;
+        try {
+            subscriber = subscribe(parseBases(client.ctx().queryParam("base")),
+                    parsePairs(client.ctx().queryParam("pairs")));
+        } catch (IllegalArgumentException e) {
+            client.sendEvent("error", "{\"error\":\"" + e.getMessage().replace("\"", "'") + "\"}");
+            return;
+        }
+        client.keepAlive();
+        client.onClose(() -> unsubscribe(subscriber));
+        OutputStream out;
+        try {
+            out = client.ctx().res().getOutputStream();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Live rates client disconnected", e);
+            client.close();
+            return;
+        }
+        start(subscriber, out, client::close);
+    }
+
+    /** Moedas base separadas por vírgula (vazio: nenhuma). */
+    static boolean[] parseBases(String value) {
+        boolean[] bases = new boolean[SIZE];
+        if (value != null && !value.isBlank()) {
+            for (String code : value.split(",")) {
+                CurrencyCode currency = CurrencyCode.lookup(code.trim());
+                if (currency == null) {
+                    throw new IllegalArgumentException("Código de moeda inválido: " + code.trim());
+                }
+                bases[currency.ordinal()] = true;
+            }
+        }
+        return bases;
+    }
+
+    /** Pares FROM:TO separados por vírgula; devolve os índices from * N + to. */
+    static int[] parsePairs(String value) {
+        if (value == null || value.isBlank()) {
+            return new int[0];
+        }
+        String[] parts = value.split(",");
+        int[] pairs = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String pair = parts[i].trim();
+            int sep = pair.indexOf(':');
+            CurrencyCode from = sep > 0 ? CurrencyCode.lookup(pair.substring(0, sep)) : null;
+            CurrencyCode to = sep > 0 ? CurrencyCode.lookup(pair.substring(sep + 1)) : null;
+            if (from == null || to == null || from == to) {
+                throw new IllegalArgumentException("Par inválido (use FROM:TO): " + pair);
+            }
+            pairs[i] = from.ordinal() * SIZE + to.ordinal();
+        }
+        return pairs;
+    }
+
+    /** Inscreve um cliente; o snapshot dos tópicos já fica na fila. */
+    synchronized Subscriber subscribe(boolean[] bases, int[] pairs) {
+        if (closed) {
+            throw new IllegalArgumentException("Servidor encerrando");
+        }
+        boolean any = pairs.length > 0;
+        for (boolean base : bases) {
+            any |= base;
+        }
+        if (!any) {
+            throw new IllegalArgumentException("Informe ao menos um tópico: base=USD ou pairs=USD:BRL");
+        }
+        Subscriber subscriber = new Subscriber(bases, pairs);
+        for (int b = 0; b < SIZE; b++) {
+            if (bases[b]) {
+                baseSubscribers[b]++;
+            }
+        }
+        for (int pair : pairs) {
+            pairSubscribers[pair]++;
+        }
+        subscribers.add(subscriber);
+        CLIENTS.set(subscribers.size());
+        enqueueSnapshot(subscriber);
+        return subscriber;
+    }
+
+    synchronized void unsubscribe(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        for (int b = 0; b < SIZE; b++) {
+            if (subscriber.bases[b]) {
+                baseSubscribers[b]--;
+            }
+        }
+        for (int pair : subscriber.pairs) {
+            pairSubscribers[pair]--;
+        }
+        CLIENTS.set(subscribers.size());
+    }
+
+    /**
+     * Liga o cliente à saída: a partir daqui os frames enfileirados são escritos por tarefas de
+     * drenagem no executor de escrita. {@code disconnect} encerra a conexão (erro de escrita ou
+     * servidor encerrando).
+     */
+    void start(Subscriber subscriber, OutputStream out, Runnable disconnect) {
+        subscriber.out = out;
+        subscriber.disconnect = disconnect;
+        schedule(subscriber);
+    }
+
+    /** Agenda a drenagem da fila do cliente, se ainda não houver uma em andamento. */
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.out == null || !subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            writers.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false); // encerrando: close() já enfileirou o fim da conexão
+        }
+    }
+
+    /**
+     * Escreve os frames acumulados do cliente com um único flush. Ao terminar, confere a fila de
+     * novo: um frame que chegou durante a escrita não fica sem tarefa.
+     */
+    private void drain(Subscriber subscriber) {
+        OutputStream out = subscriber.out;
+        try {
+            do {
+                boolean wrote = false;
+                byte[] frame;
+                while ((frame = nextFrame(subscriber, 0)) != null) {
+                    if (frame == CLOSE) {
+                        out.flush();
+                        finish(subscriber);
+                        return;
+                    }
+                    out.write(frame);
+                    wrote = true;
+                }
+                if (wrote) {
+                    out.flush();
+                }
+                subscriber.draining.set(false);
+            } while ((!subscriber.queue.isEmpty() || subscriber.overflowed)
+                    && subscriber.draining.compareAndSet(false, true));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Live rates client disconnected", e);
+            finish(subscriber);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(subscriber);
+        }
+    }
+
+    /** Cancela a inscrição e encerra a conexão do cliente. */
+    private void finish(Subscriber subscriber) {
+        unsubscribe(subscriber);
+        Runnable disconnect = subscriber.disconnect;
+        if (disconnect != null) {
+            try {
+                disconnect.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Failed to close live rates client", e);
+            }
+        }
+    }
+
+    /** Comentário SSE para clientes sem frames pendentes: mantém proxies abertos e detecta quedas. */
+    private void heartbeat() {
+        synchronized (this) {
+            for (Subscriber s : subscribers) {
+                if (s.queue.isEmpty()) {
+                    s.offer(HEARTBEAT_FRAME);
+                }
+            }
+        }
+    }
+
+    /**
+     * Próximo frame do cliente (null após {@code timeoutMillis} sem dados). Se a fila transbordou,
+     * descarta os deltas pendentes e reenfileira um snapshot atual antes de continuar.
+     */
+    byte[] nextFrame(Subscriber subscriber, long timeoutMillis) throws InterruptedException {
+        if (subscriber.overflowed) {
+            synchronized (this) {
+                subscriber.queue.clear();
+                subscriber.overflowed = false;
+                if (closed) {
+                    return CLOSE;
+                }
+                enqueueSnapshot(subscriber);
+            }
+        }
+        return subscriber.queue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onMatrix(RateMatrix matrix) {
+        long timestamp = matrix.getFetchedAtMillis();
+        synchronized (this) {
+            boolean[] changed = new boolean[SIZE * SIZE];
+            for (int from = 0; from < SIZE; from++) {
+                for (int to = 0; to < SIZE; to++) {
+                    double rate = matrix.rate(CODES[from], CODES[to]);
+                    int i = from * SIZE + to;
+                    if (from != to && !Double.isNaN(rate) && rate != published[i]) {
+                        published[i] = rate;
+                        publishedAt[i] = timestamp;
+                        changed[i] = true;
+                    }
+                }
+            }
+            publish(changed, timestamp);
+        }
+    }
+
+    @Override
+    public void onPairRate(CurrencyCode from, CurrencyCode to, double rate, long fetchedAtMillis) {
+        int i = from.ordinal() * SIZE + to.ordinal();
+        synchronized (this) {
+            if (rate == published[i]) {
+                return;
+            }
+            published[i] = rate;
+            publishedAt[i] = fetchedAtMillis;
+            boolean[] changed = new boolean[SIZE * SIZE];
+            changed[i] = true;
+            publish(changed, fetchedAtMillis);
+        }
+    }
+
+    /** Codifica um frame por tópico com inscritos e alterações, e o entrega a todos eles. */
+    private void publish(boolean[] changed, long timestamp) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (int b = 0; b < SIZE; b++) {
+            if (baseSubscribers[b] > 0) {
+                byte[] frame = baseFrame(b, changed, timestamp, false);
+                if (frame != null) {
+                    for (Subscriber s : subscribers) {
+                        if (s.bases[b]) {
+                            s.offer(frame);
+                        }
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < changed.length; i++) {
+            if (changed[i] && pairSubscribers[i] > 0) {
+                byte[] frame = pairFrame(i, timestamp, false);
+                for (Subscriber s : subscribers) {
+                    if (s.hasPair(i)) {
+                        s.offer(frame);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Estado atual dos tópicos do cliente (frames próprios: só na inscrição e após transbordar),
+     * com o instante de captura das taxas (na base, o da mais antiga da linha).
+     */
+    private void enqueueSnapshot(Subscriber subscriber) {
+        for (int b = 0; b < SIZE; b++) {
+            if (subscriber.bases[b]) {
+                byte[] frame = baseFrame(b, null, oldestInRow(b), true);
+                if (frame != null) {
+                    subscriber.offer(frame);
+                }
+            }
+        }
+        for (int pair : subscriber.pairs) {
+            if (!Double.isNaN(published[pair])) {
+                subscriber.offer(pairFrame(pair, publishedAt[pair], true));
+            }
+        }
+    }
+
+    private long oldestInRow(int b) {
+        long oldest = Long.MAX_VALUE;
+        for (int i = b * SIZE; i < (b + 1) * SIZE; i++) {
+            if (!Double.isNaN(published[i])) {
+                oldest = Math.min(oldest, publishedAt[i]);
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Frame "rates" da base {@code b}: as taxas alteradas ({@code changed}) ou, com null, todas as
+     * conhecidas. Null se não houver nenhuma.
+     */
+    private byte[] baseFrame(int b, boolean[] changed, long timestamp, boolean snapshot) {
+        int row = b * SIZE;
+        boolean any = false;
+        for (int to = 0; to < SIZE && !any; to++) {
+            any = changed != null ? changed[row + to] : !Double.isNaN(published[row + to]);
+        }
+        if (!any) {
+            return null;
+        }
+        return encode("rates", json -> {
+            json.beginObject();
+            json.name("base").value(CODES[b].name());
+            json.name("rates").beginObject();
+            for (int to = 0; to < SIZE; to++) {
+                int i = row + to;
+                if (changed != null ? changed[i] : !Double.isNaN(published[i])) {
+                    json.name(CODES[to].name()).value(published[i]);
+                }
+            }
+            json.endObject();
+            if (snapshot) {
+                json.name("snapshot").value(true);
+            }
+            json.name("timestamp").value(timestamp);
+            json.endObject();
+        });
+    }
+
+    private byte[] pairFrame(int i, long timestamp, boolean snapshot) {
+        return encode("rate", json -> {
+            json.beginObject();
+            json.name("from").value(CODES[i / SIZE].name());
+            json.name("to").value(CODES[i % SIZE].name());
+            json.name("rate").value(published[i]);
+            if (snapshot) {
+                json.name("snapshot").value(true);
+            }
+            json.name("timestamp").value(timestamp);
+            json.endObject();
+        });
+    }
+
+    /** Frame SSE completo ("event: ...\ndata: {json}\n\n"); o JSON compacto não tem quebras de linha. */
+    private static byte[] encode(String event, JsonResponses.Body body) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(JsonResponses.BUFFER_BYTES);
+            out.write(("event: " + event + "\ndata: ").getBytes(StandardCharsets.US_ASCII));
+            JsonResponses.write(out, false, body);
+            out.write('\n');
+            out.write('\n');
+            FRAMES.increment();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Falha ao codificar frame de taxas", e);
+        }
+    }
+
+    /** Consulta os tópicos com inscritos (cache quente; busca no upstream só se expirado). */
+    private void touchTopics() {
+        List<CurrencyCode> bases = new ArrayList<>();
+        List<Integer> pairs = new ArrayList<>();
+        synchronized (this) {
+            for (int b = 0; b < SIZE; b++) {
+                if (baseSubscribers[b] > 0) {
+                    bases.add(CODES[b]);
+                }
+            }
+            for (int i = 0; i < pairSubscribers.length; i++) {
+                if (pairSubscribers[i] > 0) {
+                    pairs.add(i);
+                }
+            }
+        }
+        for (CurrencyCode base : bases) {
+            try {
+                service.getRates(base);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Live rates refresh failed for " + base, e);
+            }
+        }
+        for (int pair : pairs) {
+            try {
+                service.getRate(CODES[pair / SIZE], CODES[pair % SIZE]);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Live rates refresh failed for pair " + pair, e);
+            }
+        }
+    }
+
+    /** Encerra as conexões abertas (após os frames já enfileirados) e para as consultas de demanda. */
+    @Override
+    public void close() {
+        service.removeRateListener(this);
+        timer.shutdownNow();
+        List<Subscriber> open;
+        synchronized (this) {
+            closed = true;
+            open = new ArrayList<>(subscribers);
+            for (Subscriber s : open) {
+                // Fila cheia (cliente lento): descarta os pendentes para garantir o fim da conexão
+                if (!s.queue.offer(CLOSE)) {
+                    s.queue.clear();
+                    s.queue.offer(CLOSE);
+                }
+            }
+        }
+        for (Subscriber s : open) {
+            schedule(s);
+        }
+        writers.shutdown();
+    }
+
+    /** Cliente inscrito: tópicos, fila de frames a escrever e a saída (após {@link #start}). */
+    final class Subscriber {
+        final boolean[] bases;
+        final int[] pairs;
+        final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean overflowed;
+        volatile OutputStream out;
+        volatile Runnable disconnect;
+
+        Subscriber(boolean[] bases, int[] pairs) {
+            this.bases = bases;
+            this.pairs = pairs;
+        }
+
+        boolean hasPair(int pair) {
+            for (int p : pairs) {
+                if (p == pair) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Enfileira sem bloquear e agenda a escrita; fila cheia marca o cliente para receber um
+         * snapshot novo.
+         */
+        void offer(byte[] frame) {
+            if (!overflowed && !queue.offer(frame)) {
+                overflowed = true;
+                OVERFLOWS.increment();
+            }
+            schedule(this);
+        }
+    }
+}
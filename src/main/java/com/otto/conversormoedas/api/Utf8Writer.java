@@ -0,0 +1,97 @@
+package com.otto.conversormoedas.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Writer que codifica UTF-8 direto em um buffer de bytes pequeno e o despeja no OutputStream.
+ * Substitui OutputStreamWriter + BufferedWriter nas respostas curtas: sem CharsetEncoder e
+ * sem os buffers de 8 KB alocados por requisição. Não é thread-safe.
+ */
+final class Utf8Writer extends Writer {
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+    private char pendingHigh; // surrogate alto aguardando o par na próxima escrita
+
+    Utf8Writer(OutputStream out, int bufferBytes) {
+        this.out = out;
+        this.buffer = new byte[Math.max(bufferBytes, 8)];
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        writeChar((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            writeChar(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            writeChar(str.charAt(i));
+        }
+    }
+
+    private void writeChar(char c) throws IOException {
+        if (count + 4 > buffer.length) {
+            drain();
+        }
+        if (pendingHigh != 0) {
+            char high = pendingHigh;
+            pendingHigh = 0;
+            if (Character.isLowSurrogate(c)) {
+                int cp = Character.toCodePoint(high, c);
+                buffer[count++] = (byte) (0xF0 | (cp >> 18));
+                buffer[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (cp & 0x3F));
+                return;
+            }
+            buffer[count++] = '?'; // surrogate sem par
+            if (count + 4 > buffer.length) {
+                drain();
+            }
+        }
+        if (c < 0x80) {
+            buffer[count++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[count++] = (byte) (0xC0 | (c >> 6));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            pendingHigh = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer[count++] = '?';
+        } else {
+            buffer[count++] = (byte) (0xE0 | (c >> 12));
+            buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    /** Despeja os bytes acumulados no OutputStream, sem chamar flush nele. */
+    void drain() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+}
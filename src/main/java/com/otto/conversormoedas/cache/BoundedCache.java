@@ -0,0 +1,35 @@
+package com.otto.conversormoedas.cache;
+
+/**
+ * Cache em memória com tamanho máximo, expiração ativa e estatísticas.
+ * Implementações definem a política de despejo (ex.: {@link SegmentedLruCache}).
+ *
+ * @param <K> tipo da chave
+ * @param <V> tipo do valor
+ */
+public interface BoundedCache<K, V> {
+
+    /** Retorna o valor da chave, ou null se ausente/expirado. */
+    V get(K key);
+
+    /** Insere ou substitui o valor, despejando entradas se o limite for excedido. */
+    void put(K key, V value);
+
+    /** Remove a chave, se presente. */
+    void remove(K key);
+
+    /** Remove todas as entradas. */
+    void clear();
+
+    /** Quantidade atual de entradas (pode incluir expiradas ainda não limpas). */
+    int size();
+
+    /** Tamanho máximo configurado. */
+    int maxSize();
+
+    /** Remove ativamente as entradas expiradas. */
+    void cleanUp();
+
+    /** Estatísticas acumuladas (acertos, falhas, despejos e expirações). */
+    CacheStats stats();
+}
@@ -0,0 +1,46 @@
+package com.otto.conversormoedas.cache;
+
+/** Snapshot imutável das estatísticas de um {@link BoundedCache}. */
+public final class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+
+    public CacheStats(long hits, long misses, long evictions, long expirations) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /** Entradas removidas por limite de tamanho. */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /** Entradas removidas por expiração. */
+    public long getExpirations() {
+        return expirations;
+    }
+
+    /** Taxa de acerto (0 a 1); 0 se ainda não houve leituras. */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStats{hits=%d, misses=%d, evictions=%d, expirations=%d, hitRate=%.3f}",
+                hits, misses, evictions, expirations, hitRate());
+    }
+}
@@ -0,0 +1,275 @@
+package com.otto.conversormoedas.cache;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache limitado com política Segmented LRU (SLRU).
+ * - Novas entradas entram no segmento de prova (probation).
+ * - Um segundo acesso promove a entrada para o segmento protegido (80% da capacidade).
+ * - O despejo sai da cauda do segmento de prova: entradas acessadas uma única vez
+ *   (varreduras, chaves aleatórias de clientes) não expulsam as chaves quentes.
+ * Leituras consultam um {@link ConcurrentHashMap} sem bloqueio; a reordenação das listas
+ * usa {@code tryLock} e é descartada sob contenção (perda aceitável de precisão do LRU).
+ * Entradas mais antigas que {@code expireAfterWriteMillis} são tratadas como ausentes e
+ * removidas ativamente a cada {@value #CLEANUP_INTERVAL} escritas ou via {@link #cleanUp()}.
+ */
+public class SegmentedLruCache<K, V> implements BoundedCache<K, V> {
+    private static final int CLEANUP_INTERVAL = 64;
+
+    private final Map<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int maxSize;
+    private final int protectedMaxSize;
+    private final long expireAfterWriteMillis;
+
+    // Listas duplamente encadeadas (cabeça = mais recente); protegidas por lock
+    private final Node<K, V> probation = Node.sentinel();
+    private final Node<K, V> protectedSegment = Node.sentinel();
+    private int protectedSize;
+    private int writesSinceCleanup;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maxSize quantidade máxima de entradas (maior que zero)
+     * @param expireAfterWriteMillis idade máxima de uma entrada; {@code <= 0} desativa a expiração
+     */
+    public SegmentedLruCache(int maxSize, long expireAfterWriteMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize deve ser positivo: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.protectedMaxSize = Math.max(1, (int) (maxSize * 0.8));
+        this.expireAfterWriteMillis = expireAfterWriteMillis;
+    }
+
+    @Override
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(node, System.currentTimeMillis())) {
+            misses.increment();
+            lock.lock();
+            try {
+                if (data.remove(key, node)) {
+                    unlink(node);
+                    expirations.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        }
+        hits.increment();
+        if (lock.tryLock()) {
+            try {
+                // O nó pode ter sido removido entre a leitura e o lock
+                if (node.prev != null) {
+                    onAccess(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Node<K, V> existing = data.get(key);
+            if (existing != null) {
+                // Substituição conta como acesso (mantém a posição conquistada)
+                Node<K, V> replacement = new Node<>(key, value, now);
+                replacement.inProtected = existing.inProtected;
+                linkAfter(existing.prev, replacement);
+                unlinkOnly(existing);
+                data.put(key, replacement);
+                onAccess(replacement);
+            } else {
+                Node<K, V> node = new Node<>(key, value, now);
+                data.put(key, node);
+                linkAfter(probation, node);
+                while (data.size() > maxSize) {
+                    evictOne();
+                }
+            }
+            if (++writesSinceCleanup >= CLEANUP_INTERVAL) {
+                writesSinceCleanup = 0;
+                expireLocked(now);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        lock.lock();
+        try {
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            data.clear();
+            probation.next = probation.prev = probation;
+            protectedSegment.next = protectedSegment.prev = protectedSegment;
+            protectedSize = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public int maxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public void cleanUp() {
+        lock.lock();
+        try {
+            writesSinceCleanup = 0;
+            expireLocked(System.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return expireAfterWriteMillis > 0 && (now - node.writtenAtMillis) >= expireAfterWriteMillis;
+    }
+
+    /** Promove/reordena o nó após um acesso (lock obrigatório). */
+    private void onAccess(Node<K, V> node) {
+        unlinkOnly(node);
+        if (!node.inProtected) {
+            node.inProtected = true;
+            protectedSize++;
+        }
+        linkAfter(protectedSegment, node);
+        // Segmento protegido cheio: rebaixa a entrada menos recente para o de prova
+        while (protectedSize > protectedMaxSize) {
+            Node<K, V> demoted = protectedSegment.prev;
+            unlinkOnly(demoted);
+            demoted.inProtected = false;
+            protectedSize--;
+            linkAfter(probation, demoted);
+        }
+    }
+
+    /** Despeja a entrada menos recente do segmento de prova (ou do protegido, se vazio). */
+    private void evictOne() {
+        Node<K, V> victim = probation.prev != probation ? probation.prev : protectedSegment.prev;
+        if (victim == protectedSegment) {
+            return;
+        }
+        unlink(victim);
+        data.remove(victim.key, victim);
+        evictions.increment();
+    }
+
+    /** Varre os dois segmentos removendo entradas expiradas (lock obrigatório). */
+    private void expireLocked(long now) {
+        if (expireAfterWriteMillis <= 0) {
+            return;
+        }
+        expireSegment(probation, now);
+        expireSegment(protectedSegment, now);
+    }
+
+    private void expireSegment(Node<K, V> head, long now) {
+        Node<K, V> node = head.next;
+        while (node != head) {
+            Node<K, V> next = node.next;
+            if (isExpired(node, now)) {
+                unlink(node);
+                data.remove(node.key, node);
+                expirations.increment();
+            }
+            node = next;
+        }
+    }
+
+    private void linkAfter(Node<K, V> anchor, Node<K, V> node) {
+        node.prev = anchor;
+        node.next = anchor.next;
+        anchor.next.prev = node;
+        anchor.next = node;
+    }
+
+    /** Remove o nó da lista, atualizando a contagem do segmento protegido. */
+    private void unlink(Node<K, V> node) {
+        if (node.prev == null) {
+            return;
+        }
+        if (node.inProtected) {
+            protectedSize--;
+            node.inProtected = false;
+        }
+        unlinkOnly(node);
+    }
+
+    private void unlinkOnly(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    /** Nó das listas intrusivas; {@code prev == null} indica que já saiu do cache. */
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final long writtenAtMillis;
+        Node<K, V> prev;
+        Node<K, V> next;
+        boolean inProtected;
+
+        Node(K key, V value, long writtenAtMillis) {
+            this.key = key;
+            this.value = value;
+            this.writtenAtMillis = writtenAtMillis;
+        }
+
+        static <K, V> Node<K, V> sentinel() {
+            Node<K, V> s = new Node<>(null, null, 0);
+            s.prev = s;
+            s.next = s;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.otto.conversormoedas.client;
+
+import com.otto.conversormoedas.metrics.Counter;
+import com.otto.conversormoedas.metrics.Gauge;
+import com.otto.conversormoedas.metrics.MetricsRegistry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Circuit breaker das chamadas ao upstream, com prazo adaptativo.
+ * <ul>
+ *   <li>CLOSED: chamadas passam; abre após {@code failureThreshold} falhas seguidas (rede, prazo, 5xx)
+ *       ou se o p99 das últimas {@value #WINDOW} latências passar de {@code slowCallThreshold} (só com a
+ *       janela cheia: com menos amostras o p99 é o máximo, e uma única chamada lenta abriria o circuito);</li>
+ *   <li>OPEN: recusa na hora ({@link CircuitOpenException}) por {@code openDuration}, sem esperar o prazo;</li>
+ *   <li>HALF_OPEN: deixa passar uma chamada de teste por vez; sucesso fecha, falha reabre.</li>
+ * </ul>
+ * Prazo das requisições: p99 observado × {@value #TIMEOUT_MULTIPLIER}, entre {@link #MIN_TIMEOUT} e o
+ * prazo máximo (sem amostras suficientes, o máximo).
+ */
+public class CircuitBreaker {
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+    /** Falhas seguidas que abrem o circuito, por padrão. */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    /** p99 acima do qual o circuito abre, por padrão. */
+    public static final Duration DEFAULT_SLOW_CALL_THRESHOLD = Duration.ofSeconds(3);
+    /** Tempo aberto antes da chamada de teste, por padrão. */
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    /** Prazo mínimo de uma requisição. */
+    public static final Duration MIN_TIMEOUT = Duration.ofSeconds(1);
+    static final int WINDOW = 100;
+    static final int MIN_SAMPLES = 20;
+    static final int TIMEOUT_MULTIPLIER = 4;
+
+    /** Estado do circuito. */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String provider;
+    private final Gauge stateGauge;
+    private final Gauge timeoutGauge;
+    private final Counter rejected;
+    private final int failureThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final long maxTimeoutNanos;
+    private final LongSupplier nanoClock;
+
+    // Protegidos por this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean probeInFlight;
+    private final long[] latencies = new long[WINDOW];
+    private int samples;
+    private int next;
+
+    /**
+     * Circuit breaker com os limites padrão e prazo máximo de {@link RateProvider#DEFAULT_TIMEOUT}.
+     * @param provider nome do provedor (rótulo das métricas)
+     */
+    public CircuitBreaker(String provider) {
+        this(provider, DEFAULT_FAILURE_THRESHOLD, DEFAULT_SLOW_CALL_THRESHOLD, DEFAULT_OPEN_DURATION,
+                RateProvider.DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param provider nome do provedor (rótulo das métricas)
+     * @param failureThreshold falhas seguidas que abrem o circuito
+     * @param slowCallThreshold p99 de latência que abre o circuito
+     * @param openDuration tempo aberto até a chamada de teste
+     * @param maxTimeout prazo máximo de uma requisição
+     */
+    public CircuitBreaker(String provider, int failureThreshold, Duration slowCallThreshold, Duration openDuration,
+                          Duration maxTimeout) {
+        this(provider, failureThreshold, slowCallThreshold, openDuration, maxTimeout, System::nanoTime);
+    }
+
+    CircuitBreaker(String provider, int failureThreshold, Duration slowCallThreshold, Duration openDuration,
+                   Duration maxTimeout, LongSupplier nanoClock) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold deve ser positivo: " + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.maxTimeoutNanos = Math.max(maxTimeout.toNanos(), MIN_TIMEOUT.toNanos());
+        this.nanoClock = nanoClock;
+        this.provider = provider;
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        this.stateGauge = metrics.gauge("conversor_upstream_circuit_state",
+                "Estado do circuit breaker do provedor (0 fechado, 1 meio-aberto, 2 aberto)", "provider", provider);
+        this.timeoutGauge = metrics.gauge("conversor_upstream_timeout_seconds",
+                "Prazo adaptativo das requisições ao provedor", "provider", provider);
+        this.rejected = metrics.counter("conversor_upstream_circuit_rejected_total",
+                "Chamadas recusadas com o circuito aberto", "provider", provider);
+        stateGauge.set(0);
+        timeoutGauge.set(maxTimeoutNanos / 1e9);
+    }
+
+    /**
+     * Permissão para uma chamada. Aberto (ou meio-aberto com teste em andamento) recusa na hora.
+     * Toda permissão concedida deve terminar em {@link #onSuccess}, {@link #onFailure} ou {@link #release}.
+     */
+    public synchronized void acquire() throws CircuitOpenException {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAtNanos < openNanos) {
+                reject();
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                reject();
+            }
+            probeInFlight = true;
+        }
+    }
+
+    private void reject() throws CircuitOpenException {
+        rejected.increment();
+        throw new CircuitOpenException(provider + " indisponível (circuito aberto); tente novamente em "
+                + Math.max(1, (openNanos - (nanoClock.getAsLong() - openedAtNanos)) / 1_000_000_000L) + " s");
+    }
+
+    /** A chamada respondeu (qualquer status abaixo de 500). */
+    public synchronized void onSuccess(long latencyNanos) {
+        record(latencyNanos);
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            samples = 0; // latências antigas não reabrem o circuito recém-fechado
+            next = 0;
+            record(latencyNanos);
+            transition(State.CLOSED);
+            return;
+        }
+        if (samples >= WINDOW && percentile(0.99) > slowCallNanos) {
+            LOGGER.warning(provider + " lento (p99 " + percentile(0.99) / 1_000_000 + " ms): abrindo o circuito");
+            open();
+        }
+    }
+
+    /** A chamada falhou (rede, prazo estourado ou 5xx). */
+    public synchronized void onFailure(long latencyNanos) {
+        record(latencyNanos);
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            open();
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            LOGGER.warning(provider + " com " + consecutiveFailures + " falhas seguidas: abrindo o circuito");
+            open();
+        }
+    }
+
+    /** Permissão devolvida sem resultado (ex.: chamada cancelada pelo chamador ou recusada pela cota). */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    /** Prazo adaptativo para a próxima requisição. */
+    public synchronized Duration currentTimeout() {
+        long timeout = maxTimeoutNanos;
+        if (samples >= MIN_SAMPLES) {
+            timeout = Math.max(MIN_TIMEOUT.toNanos(), Math.min(maxTimeoutNanos, percentile(0.99) * TIMEOUT_MULTIPLIER));
+        }
+        timeoutGauge.set(timeout / 1e9);
+        return Duration.ofNanos(timeout);
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openNanos) {
+            return State.HALF_OPEN; // a próxima chamada será o teste
+        }
+        return state;
+    }
+
+    /** p99 das latências recentes, em nanossegundos (0 sem amostras). */
+    public synchronized long getLatencyP99Nanos() {
+        return percentile(0.99);
+    }
+
+    private void open() {
+        openedAtNanos = nanoClock.getAsLong();
+        transition(State.OPEN);
+    }
+
+    private void transition(State to) {
+        if (state != to) {
+            LOGGER.info("Circuit breaker de " + provider + ": " + state + " → " + to);
+        }
+        state = to;
+        stateGauge.set(to == State.CLOSED ? 0 : to == State.HALF_OPEN ? 1 : 2);
+    }
+
+    private void record(long latencyNanos) {
+        latencies[next] = latencyNanos;
+        next = (next + 1) % WINDOW;
+        samples = Math.min(samples + 1, WINDOW);
+    }
+
+    private long percentile(double quantile) {
+        if (samples == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        return sorted[Math.min(samples - 1, (int) Math.ceil(quantile * samples) - 1)];
+    }
+}
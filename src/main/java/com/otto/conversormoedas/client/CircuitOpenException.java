@@ -0,0 +1,11 @@
+package com.otto.conversormoedas.client;
+
+/**
+ * Chamada recusada pelo {@link CircuitBreaker} (upstream considerado fora): falha na hora,
+ * sem ir à rede, para o serviço usar a taxa do cache.
+ */
+public class CircuitOpenException extends ExchangeRateException {
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,26 @@
+package com.otto.conversormoedas.client;
+
+import java.util.Map;
+
+/** Resposta JSON do endpoint /latest da ExchangeRate-API (v6). */
+public class ExchangeLatestResponse {
+    public String result;
+    public String documentation;
+    public String terms_of_use;
+    public long time_last_update_unix;
+    public String time_last_update_utc;
+    public long time_next_update_unix;
+    public String time_next_update_utc;
+    public String base_code;
+    public Map<String, Double> conversion_rates;
+
+    /** Representação resumida. */
+    @Override
+    public String toString() {
+        return "ExchangeLatestResponse{" +
+                "result='" + result + '\'' +
+                ", base='" + base_code + '\'' +
+                ", rates=" + (conversion_rates == null ? 0 : conversion_rates.size()) +
+                '}';
+    }
+}
@@ -6,26 +6,27 @@ import com.google.gson.JsonParser;
 import com.otto.conversormoedas.config.Config;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.Duration;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
- * Cliente HTTP para a ExchangeRate-API (v6).
- * Responsável por: montar requisições, ler API Key (Config), tratar erros HTTP/API
- * e desserializar JSON (Gson) para {@link ExchangePairResponse}.
+ * Cliente HTTP para a ExchangeRate-API (v6), provedor principal de taxas.
+ * Responsável por: montar as URLs, ler API Key (Config), validar o campo result da API
+ * e desserializar JSON (Gson) para {@link ExchangePairResponse} / {@link ExchangeLatestResponse};
+ * requisições, prazos, cota e circuit breaker ficam em {@link HttpRateProvider}.
  * Observação: uso apenas no servidor (API Key nunca vai ao frontend).
+ * Há versões síncronas (send) e assíncronas (sendAsync, {@link CompletableFuture}) das buscas;
+ * as assíncronas aceitam prazo por chamada e podem ser canceladas.
  */
-public class ExchangeRateClient {
-    private static final String BASE_URL = "https://v6.exchangerate-api.com/v6";
-    private static final Logger LOGGER = Logger.getLogger(ExchangeRateClient.class.getName());
+public class ExchangeRateClient extends HttpRateProvider {
+    /** Nome do provedor nas métricas. */
+    public static final String NAME = "exchangerate-api";
+    /** URL base padrão da API. */
+    public static final String DEFAULT_BASE_URL = "https://v6.exchangerate-api.com/v6";
 
+    private final String baseUrl;
     private final String apiKey;
-    private final HttpClient httpClient;
     private final Gson gson = new Gson();
 
     /**
@@ -33,10 +34,54 @@ public class ExchangeRateClient {
      * Lança IllegalStateException se a chave não estiver configurada.
      */
     public ExchangeRateClient() {
-        this.apiKey = Config.getExchangeRateApiKey();
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
+        this(Config.getExchangeRateApiKey());
+    }
+
+    /**
+     * Constrói o cliente com uma API Key explícita (útil para testes e stubs).
+     * @param apiKey chave da ExchangeRate-API
+     */
+    public ExchangeRateClient(String apiKey) {
+        this(apiKey, null);
+    }
+
+    /**
+     * Constrói o cliente usando um executor próprio para o HttpClient
+     * (ex.: virtual threads; null usa o executor padrão do JDK).
+     * @param apiKey chave da ExchangeRate-API
+     * @param executor executor das tarefas internas do HttpClient
+     */
+    public ExchangeRateClient(String apiKey, Executor executor) {
+        this(apiKey, executor, new QuotaGovernor());
+    }
+
+    /**
+     * Constrói o cliente com executor e governador de cota próprios.
+     * @param apiKey chave da ExchangeRate-API
+     * @param executor executor das tarefas internas do HttpClient (null usa o padrão)
+     * @param governor limites de chamadas ao upstream
+     */
+    public ExchangeRateClient(String apiKey, Executor executor, QuotaGovernor governor) {
+        this(apiKey, executor, governor, new CircuitBreaker(NAME));
+    }
+
+    /**
+     * Constrói o cliente apontando para a URL padrão.
+     * @param breaker circuit breaker e prazo adaptativo das chamadas
+     */
+    public ExchangeRateClient(String apiKey, Executor executor, QuotaGovernor governor, CircuitBreaker breaker) {
+        this(DEFAULT_BASE_URL, apiKey, executor, governor, breaker);
+    }
+
+    /**
+     * Construtor completo.
+     * @param baseUrl URL base da API (ex.: um stub local ou proxy)
+     */
+    public ExchangeRateClient(String baseUrl, String apiKey, Executor executor, QuotaGovernor governor,
+                              CircuitBreaker breaker) {
+        super(NAME, executor, governor, breaker);
+        this.baseUrl = stripTrailingSlash(baseUrl);
+        this.apiKey = apiKey;
     }
 
     /**
@@ -44,66 +89,64 @@ public class ExchangeRateClient {
      * Síncrono. Lança IOException/InterruptedException em rede.
      * Lança ExchangeRateException para status != 200 ou erro da API.
      */
+    @Override
     public ExchangePairResponse fetchPair(String from, String to) throws IOException, InterruptedException, ExchangeRateException {
-        String endpoint = String.format("%s/%s/pair/%s/%s", BASE_URL, apiKey, from, to);
-        HttpRequest request = HttpRequest.newBuilder()
-                .GET()
-                .uri(URI.create(endpoint))
-                .timeout(Duration.ofSeconds(10))
-                .header("Accept", "application/json")
-                .header("User-Agent", "conversor-moedas-java-client/0.1")
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        int status = response.statusCode();
-        // Log some useful headers for diagnostics (if present)
-        String requestId = response.headers().firstValue("x-request-id").orElse(null);
-        response.headers().firstValue("rate-limit").ifPresent(h -> LOGGER.fine("rate-limit: " + h));
-        if (requestId != null) {
-            LOGGER.fine("x-request-id: " + requestId);
-        }
+        return get(pairUrl(from, to), from, to, body -> decode(body, ExchangePairResponse.class));
+    }
 
-        String body = response.body();
+    /**
+     * Busca a tabela completa de taxas a partir de uma moeda base (endpoint /latest).
+     * Uma única chamada retorna base→X para todas as moedas suportadas pela API.
+     */
+    @Override
+    public ExchangeLatestResponse fetchLatest(String base) throws IOException, InterruptedException, ExchangeRateException {
+        return get(latestUrl(base), base, null, body -> decode(body, ExchangeLatestResponse.class));
+    }
 
-        if (status != 200) {
-            // Try to extract API error message from body
-            String apiMessage = extractApiErrorMessage(body);
-            String msg = String.format("ExchangeRate API returned HTTP %d. %s", status, apiMessage == null ? "" : apiMessage);
-            throw new ExchangeRateException(msg);
-        }
+    /**
+     * Busca assíncrona de um par (não bloqueia a thread chamadora).
+     * O future falha com {@link ExchangeRateException}, IOException ou TimeoutException (prazo
+     * estourado); cancelá-lo aborta a requisição HTTP em andamento.
+     * @param timeout prazo total da chamada
+     */
+    @Override
+    public CompletableFuture<ExchangePairResponse> fetchPairAsync(String from, String to, Duration timeout) {
+        return getAsync(pairUrl(from, to), from, to, timeout, body -> decode(body, ExchangePairResponse.class));
+    }
 
-        // Faz o parse do JSON e valida o campo de resultado da API, quando presente
-        try {
-            JsonObject json = JsonParser.parseString(body).getAsJsonObject();
-            if (json.has("result")) {
-                String result = json.get("result").getAsString();
-                if (!"success".equalsIgnoreCase(result) && !"ok".equalsIgnoreCase(result)) {
-                    String apiMessage = extractApiErrorMessage(body);
-                    throw new ExchangeRateException("ExchangeRate API error: " + (apiMessage != null ? apiMessage : result));
-                }
-            }
-            ExchangePairResponse pair = gson.fromJson(body, ExchangePairResponse.class);
-            return pair;
-        } catch (com.google.gson.JsonSyntaxException ex) {
-            LOGGER.log(Level.WARNING, "Failed to parse JSON response", ex);
-            throw new ExchangeRateException("Invalid JSON response from ExchangeRate API");
-        }
+    /**
+     * Versão assíncrona de {@link #fetchLatest}; mesmas regras de prazo e cancelamento
+     * de {@link #fetchPairAsync(String, String, Duration)}.
+     */
+    @Override
+    public CompletableFuture<ExchangeLatestResponse> fetchLatestAsync(String base, Duration timeout) {
+        return getAsync(latestUrl(base), base, null, timeout, body -> decode(body, ExchangeLatestResponse.class));
+    }
+
+    private String pairUrl(String from, String to) {
+        return String.format("%s/%s/pair/%s/%s", baseUrl, apiKey, from, to);
+    }
+
+    private String latestUrl(String base) {
+        return String.format("%s/%s/latest/%s", baseUrl, apiKey, base);
     }
 
     /**
-     * Extrai mensagem de erro do JSON (ordem: error-type, error, message).
+     * Valida o campo result da API, quando presente, e desserializa o corpo.
      */
-    private String extractApiErrorMessage(String body) {
-        try {
-            JsonObject json = JsonParser.parseString(body).getAsJsonObject();
-            if (json.has("error-type")) return json.get("error-type").getAsString();
-            if (json.has("error")) return json.get("error").getAsString();
-            if (json.has("message")) return json.get("message").getAsString();
-        } catch (Exception e) {
-            // ignore parsing errors here
+    private <T> T decode(String body, Class<T> responseType) throws ExchangeRateException {
+        JsonObject json = JsonParser.parseString(body).getAsJsonObject();
+        if (json.has("result")) {
+            String result = json.get("result").getAsString();
+            if (!"success".equalsIgnoreCase(result) && !"ok".equalsIgnoreCase(result)) {
+                String apiMessage = extractApiErrorMessage(body);
+                throw new ExchangeRateException("ExchangeRate API error: " + (apiMessage != null ? apiMessage : result));
+            }
         }
-        return null;
+        return gson.fromJson(json, responseType);
     }
-}
 
+    static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,165 @@
+package com.otto.conversormoedas.client;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Provedor de taxas lidas de um arquivo local, no formato do /latest da ExchangeRate-API
+ * ({@code {"base_code":"USD","conversion_rates":{"BRL":5.0,...}}}; basta salvar uma resposta).
+ * Pares e tabelas de outras bases são derivados por taxa cruzada. O arquivo é relido quando a
+ * data de modificação muda. Útil como último recurso (upstreams fora) ou em ambientes sem rede.
+ * As respostas levam a data de publicação do arquivo ({@code time_last_update_unix}, ou a de
+ * modificação) e a validade ({@code time_next_update_unix}, ou um dia depois da publicação): um
+ * arquivo vencido não é tratado como taxa recente pelo serviço.
+ * Sem cota (governador desativado); falhas de leitura contam no {@link CircuitBreaker}.
+ */
+public class FileRateProvider implements RateProvider {
+    /** Nome do provedor nas métricas. */
+    public static final String NAME = "file";
+    /** Validade das taxas do arquivo sem {@code time_next_update_unix}: a publicação diária da API. */
+    static final long DEFAULT_VALIDITY_SECONDS = 24 * 60 * 60;
+
+    private final Path file;
+    private final QuotaGovernor governor = new QuotaGovernor(0, 1, 0);
+    private final CircuitBreaker breaker = new CircuitBreaker(NAME);
+    private final Gson gson = new Gson();
+    private volatile Snapshot snapshot;
+
+    /** Taxas base→X lidas do arquivo e a data de modificação correspondente. */
+    private static final class Snapshot {
+        final long modifiedMillis;
+        final long updatedUnix;
+        final long nextUpdateUnix;
+        final Map<String, Double> rates;
+
+        Snapshot(long modifiedMillis, long updatedUnix, long nextUpdateUnix, Map<String, Double> rates) {
+            this.modifiedMillis = modifiedMillis;
+            this.updatedUnix = updatedUnix;
+            this.nextUpdateUnix = nextUpdateUnix;
+            this.rates = rates;
+        }
+
+        double rate(String code) throws ExchangeRateException {
+            Double rate = rates.get(code);
+            if (rate == null || rate <= 0) {
+                throw new ExchangeRateException("Arquivo de taxas sem cotação para " + code);
+            }
+            return rate;
+        }
+    }
+
+    /**
+     * @param file arquivo JSON com as taxas
+     */
+    public FileRateProvider(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ExchangePairResponse fetchPair(String from, String to) throws ExchangeRateException {
+        Snapshot current = load(from);
+        ExchangePairResponse resp = new ExchangePairResponse();
+        resp.result = "success";
+        resp.base_code = from;
+        resp.target_code = to;
+        resp.conversion_rate = current.rate(to) / current.rate(from);
+        resp.time_last_update_unix = current.updatedUnix;
+        resp.time_next_update_unix = current.nextUpdateUnix;
+        return resp;
+    }
+
+    @Override
+    public ExchangeLatestResponse fetchLatest(String base) throws ExchangeRateException {
+        Snapshot current = load(base);
+        double baseRate = current.rate(base);
+        Map<String, Double> rates = new HashMap<>(current.rates.size() * 2);
+        for (Map.Entry<String, Double> e : current.rates.entrySet()) {
+            rates.put(e.getKey(), e.getValue() / baseRate);
+        }
+        ExchangeLatestResponse resp = new ExchangeLatestResponse();
+        resp.result = "success";
+        resp.base_code = base;
+        resp.conversion_rates = rates;
+        resp.time_last_update_unix = current.updatedUnix;
+        resp.time_next_update_unix = current.nextUpdateUnix;
+        return resp;
+    }
+
+    /** Leitura local: o future já nasce completo (o prazo não se aplica). */
+    @Override
+    public CompletableFuture<ExchangePairResponse> fetchPairAsync(String from, String to, Duration timeout) {
+        try {
+            return CompletableFuture.completedFuture(fetchPair(from, to));
+        } catch (ExchangeRateException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<ExchangeLatestResponse> fetchLatestAsync(String base, Duration timeout) {
+        try {
+            return CompletableFuture.completedFuture(fetchLatest(base));
+        } catch (ExchangeRateException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public QuotaGovernor getGovernor() {
+        return governor;
+    }
+
+    @Override
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    /** Snapshot atual, relendo o arquivo se ele mudou. */
+    private Snapshot load(String code) throws ExchangeRateException {
+        breaker.acquire();
+        long start = System.nanoTime();
+        Snapshot current;
+        try {
+            current = snapshot;
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (current == null || current.modifiedMillis != modified) {
+                current = read(modified);
+                snapshot = current;
+            }
+        } catch (IOException | RuntimeException e) {
+            breaker.onFailure(System.nanoTime() - start);
+            throw new ExchangeRateException("Arquivo de taxas ilegível (" + file + ") ao buscar " + code, e);
+        }
+        breaker.onSuccess(System.nanoTime() - start);
+        return current;
+    }
+
+    private Snapshot read(long modified) throws IOException {
+        ExchangeLatestResponse parsed;
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            parsed = gson.fromJson(in, ExchangeLatestResponse.class);
+        }
+        if (parsed == null || parsed.base_code == null || parsed.conversion_rates == null) {
+            throw new IOException("Formato inválido: esperado base_code e conversion_rates");
+        }
+        Map<String, Double> rates = new HashMap<>(parsed.conversion_rates);
+        rates.put(parsed.base_code, 1.0);
+        long updated = parsed.time_last_update_unix > 0 ? parsed.time_last_update_unix : modified / 1000;
+        long next = parsed.time_next_update_unix > updated ? parsed.time_next_update_unix : updated + DEFAULT_VALIDITY_SECONDS;
+        return new Snapshot(modified, updated, next, Map.copyOf(rates));
+    }
+}
@@ -0,0 +1,116 @@
+package com.otto.conversormoedas.client;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Cliente HTTP da Frankfurter (taxas de referência do Banco Central Europeu), segundo provedor.
+ * Sem API Key; cobre só as ~30 moedas do BCE, atualizadas uma vez por dia útil. Moedas fora da
+ * lista respondem 404 e a busca falha com {@link ExchangeRateException} (o {@link HedgedRateProvider}
+ * passa para o próximo provedor).
+ * Formato: {@code {"amount":1.0,"base":"USD","date":"2024-06-07","rates":{"BRL":5.3}}}, convertido
+ * para {@link ExchangePairResponse} / {@link ExchangeLatestResponse}.
+ */
+public class FrankfurterClient extends HttpRateProvider {
+    /** Nome do provedor nas métricas. */
+    public static final String NAME = "frankfurter";
+    /** URL base padrão da API. */
+    public static final String DEFAULT_BASE_URL = "https://api.frankfurter.app";
+
+    private final String baseUrl;
+
+    /** Cliente com a URL padrão e os limites padrão. */
+    public FrankfurterClient() {
+        this(DEFAULT_BASE_URL, null, new QuotaGovernor(), new CircuitBreaker(NAME));
+    }
+
+    /**
+     * @param baseUrl URL base da API (ex.: instância própria ou stub local)
+     * @param executor executor das tarefas internas do HttpClient (null usa o padrão)
+     * @param governor limites de chamadas ao provedor
+     * @param breaker circuit breaker e prazo adaptativo das chamadas
+     */
+    public FrankfurterClient(String baseUrl, Executor executor, QuotaGovernor governor, CircuitBreaker breaker) {
+        super(NAME, executor, governor, breaker);
+        this.baseUrl = ExchangeRateClient.stripTrailingSlash(baseUrl);
+    }
+
+    @Override
+    public ExchangePairResponse fetchPair(String from, String to) throws IOException, InterruptedException, ExchangeRateException {
+        return get(pairUrl(from, to), from, to, body -> toPair(body, to));
+    }
+
+    @Override
+    public ExchangeLatestResponse fetchLatest(String base) throws IOException, InterruptedException, ExchangeRateException {
+        return get(latestUrl(base), base, null, FrankfurterClient::toLatest);
+    }
+
+    @Override
+    public CompletableFuture<ExchangePairResponse> fetchPairAsync(String from, String to, Duration timeout) {
+        return getAsync(pairUrl(from, to), from, to, timeout, body -> toPair(body, to));
+    }
+
+    @Override
+    public CompletableFuture<ExchangeLatestResponse> fetchLatestAsync(String base, Duration timeout) {
+        return getAsync(latestUrl(base), base, null, timeout, FrankfurterClient::toLatest);
+    }
+
+    private String pairUrl(String from, String to) {
+        return baseUrl + "/latest?from=" + from + "&to=" + to;
+    }
+
+    private String latestUrl(String base) {
+        return baseUrl + "/latest?from=" + base;
+    }
+
+    static ExchangePairResponse toPair(String body, String to) throws ExchangeRateException {
+        JsonObject json = JsonParser.parseString(body).getAsJsonObject();
+        JsonObject rates = json.getAsJsonObject("rates");
+        if (rates == null || !rates.has(to)) {
+            throw new ExchangeRateException("Frankfurter sem cotação para " + to);
+        }
+        ExchangePairResponse resp = new ExchangePairResponse();
+        resp.result = "success";
+        resp.base_code = json.get("base").getAsString();
+        resp.target_code = to;
+        resp.conversion_rate = rates.get(to).getAsDouble();
+        resp.time_last_update_unix = epochSeconds(json);
+        return resp;
+    }
+
+    static ExchangeLatestResponse toLatest(String body) throws ExchangeRateException {
+        JsonObject json = JsonParser.parseString(body).getAsJsonObject();
+        JsonObject rates = json.getAsJsonObject("rates");
+        if (rates == null) {
+            throw new ExchangeRateException("Frankfurter sem tabela de taxas");
+        }
+        ExchangeLatestResponse resp = new ExchangeLatestResponse();
+        resp.result = "success";
+        resp.base_code = json.get("base").getAsString();
+        resp.time_last_update_unix = epochSeconds(json);
+        Map<String, Double> conversionRates = new HashMap<>(rates.size() * 2);
+        for (Map.Entry<String, JsonElement> e : rates.entrySet()) {
+            conversionRates.put(e.getKey(), e.getValue().getAsDouble());
+        }
+        // A Frankfurter omite a própria base; a ExchangeRate-API a inclui com taxa 1
+        conversionRates.put(resp.base_code, 1.0);
+        resp.conversion_rates = conversionRates;
+        return resp;
+    }
+
+    private static long epochSeconds(JsonObject json) {
+        return json.has("date")
+                ? LocalDate.parse(json.get("date").getAsString()).atStartOfDay(ZoneOffset.UTC).toEpochSecond()
+                : 0;
+    }
+}
@@ -0,0 +1,240 @@
+package com.otto.conversormoedas.client;
+
+import com.otto.conversormoedas.metrics.Counter;
+import com.otto.conversormoedas.metrics.LatencyHistogram;
+import com.otto.conversormoedas.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Combina vários provedores com requisições "hedged": a busca vai ao primeiro; se ele não
+ * responder dentro do seu p95 de latência, o seguinte é disparado em paralelo e vale a primeira
+ * resposta bem-sucedida (a outra é cancelada). Se um provedor falhar (erro, cota, circuito aberto,
+ * moeda sem cotação), o seguinte é disparado na hora. Só falha quando todos falham.
+ * Assim a latência de cauda dos misses de cache deixa de depender de um único fornecedor, ao custo
+ * de ~5% de chamadas extras ao segundo provedor.
+ * Até {@value #MIN_SAMPLES} amostras o atraso do hedge é fixo ({@code initialDelay}); chamadas
+ * canceladas contam com o tempo até o cancelamento (limite inferior da latência real).
+ * Cota e circuit breaker expostos ({@link #getGovernor()}, {@link #getCircuitBreaker()}) são os do
+ * provedor principal.
+ */
+public class HedgedRateProvider implements RateProvider {
+    /** Atraso do hedge enquanto não há amostras suficientes, por padrão. */
+    public static final Duration DEFAULT_INITIAL_DELAY = Duration.ofMillis(500);
+    static final int MIN_SAMPLES = 20;
+    static final double HEDGE_QUANTILE = 0.95;
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+    private static final Counter HEDGED = METRICS.counter("conversor_provider_hedged_total",
+            "Buscas que dispararam um provedor adicional");
+
+    private final List<RateProvider> providers;
+    private final long initialDelayNanos;
+    private final LatencyHistogram[] latencies;
+    private final Counter[] wins;
+
+    /**
+     * @param providers provedores em ordem de preferência (o primeiro é o principal)
+     */
+    public HedgedRateProvider(List<RateProvider> providers) {
+        this(providers, DEFAULT_INITIAL_DELAY);
+    }
+
+    /**
+     * @param providers provedores em ordem de preferência (o primeiro é o principal)
+     * @param initialDelay atraso do hedge até haver amostras de latência suficientes
+     */
+    public HedgedRateProvider(List<RateProvider> providers, Duration initialDelay) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um provedor");
+        }
+        this.providers = List.copyOf(providers);
+        this.initialDelayNanos = initialDelay.toNanos();
+        this.latencies = new LatencyHistogram[providers.size()];
+        this.wins = new Counter[providers.size()];
+        for (int i = 0; i < providers.size(); i++) {
+            String name = providers.get(i).getName();
+            latencies[i] = METRICS.histogram("conversor_provider_duration_seconds",
+                    "Latência de cada provedor nas buscas hedged (inclui falhas e cancelamentos)", "provider", name);
+            wins[i] = METRICS.counter("conversor_provider_wins_total",
+                    "Buscas respondidas por cada provedor", "provider", name);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "hedged";
+    }
+
+    /** Provedores em ordem de preferência. */
+    public List<RateProvider> getProviders() {
+        return providers;
+    }
+
+    @Override
+    public ExchangePairResponse fetchPair(String from, String to) throws IOException, InterruptedException, ExchangeRateException {
+        return await(fetchPairAsync(from, to, DEFAULT_TIMEOUT));
+    }
+
+    @Override
+    public ExchangeLatestResponse fetchLatest(String base) throws IOException, InterruptedException, ExchangeRateException {
+        return await(fetchLatestAsync(base, DEFAULT_TIMEOUT));
+    }
+
+    @Override
+    public CompletableFuture<ExchangePairResponse> fetchPairAsync(String from, String to, Duration timeout) {
+        return new Race<ExchangePairResponse>(p -> p.fetchPairAsync(from, to, timeout)).start();
+    }
+
+    @Override
+    public CompletableFuture<ExchangeLatestResponse> fetchLatestAsync(String base, Duration timeout) {
+        return new Race<ExchangeLatestResponse>(p -> p.fetchLatestAsync(base, timeout)).start();
+    }
+
+    @Override
+    public QuotaGovernor getGovernor() {
+        return providers.get(0).getGovernor();
+    }
+
+    @Override
+    public CircuitBreaker getCircuitBreaker() {
+        return providers.get(0).getCircuitBreaker();
+    }
+
+    /** Atraso até disparar o provedor seguinte ao de índice {@code i}: p95 observado de {@code i}. */
+    long hedgeDelayNanos(int i) {
+        LatencyHistogram latency = latencies[i];
+        return latency.getCount() < MIN_SAMPLES ? initialDelayNanos : latency.percentile(HEDGE_QUANTILE);
+    }
+
+    /**
+     * Uma busca disputada entre os provedores. Cada tentativa é disparada no máximo uma vez,
+     * em ordem: pelo atraso do hedge da anterior ou pela falha dela.
+     */
+    private final class Race<T> {
+        private final Function<RateProvider, CompletableFuture<T>> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final CompletableFuture<?>[] attempts = new CompletableFuture<?>[providers.size()];
+        // Protegidos por this
+        private int started;
+        private int failed;
+        private Throwable firstError;
+
+        Race(Function<RateProvider, CompletableFuture<T>> call) {
+            this.call = call;
+        }
+
+        CompletableFuture<T> start() {
+            // Resultado definido (ou cancelado pelo chamador): as tentativas restantes são canceladas
+            result.whenComplete((value, error) -> cancelAttempts());
+            launch(0);
+            return result;
+        }
+
+        private void launch(int i) {
+            synchronized (this) {
+                if (result.isDone() || i != started || i >= attempts.length) {
+                    return;
+                }
+                started++;
+            }
+            if (i > 0) {
+                HEDGED.increment();
+            }
+            long start = System.nanoTime();
+            CompletableFuture<T> attempt;
+            try {
+                attempt = call.apply(providers.get(i));
+            } catch (RuntimeException e) {
+                attempt = CompletableFuture.failedFuture(e);
+            }
+            synchronized (this) {
+                attempts[i] = attempt;
+            }
+            if (result.isDone()) {
+                attempt.cancel(true);
+            }
+            attempt.whenComplete((value, error) -> {
+                latencies[i].record(System.nanoTime() - start);
+                if (error == null) {
+                    if (result.complete(value)) {
+                        wins[i].increment();
+                    }
+                } else {
+                    onFailure(unwrap(error));
+                }
+            });
+            if (!attempt.isDone() && i + 1 < attempts.length) {
+                CompletableFuture.delayedExecutor(hedgeDelayNanos(i), TimeUnit.NANOSECONDS)
+                        .execute(() -> launch(i + 1));
+            }
+        }
+
+        private void onFailure(Throwable error) {
+            int next;
+            synchronized (this) {
+                failed++;
+                if (firstError == null) {
+                    firstError = error;
+                } else if (firstError != error) {
+                    firstError.addSuppressed(error);
+                }
+                if (failed == attempts.length) {
+                    next = -1;
+                } else {
+                    next = started;
+                }
+            }
+            if (next < 0) {
+                result.completeExceptionally(firstError);
+            } else {
+                launch(next);
+            }
+        }
+
+        private void cancelAttempts() {
+            CompletableFuture<?>[] snapshot;
+            synchronized (this) {
+                snapshot = attempts.clone();
+            }
+            for (CompletableFuture<?> attempt : snapshot) {
+                if (attempt != null) {
+                    attempt.cancel(true);
+                }
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /** Aguarda a busca e relança a causa com o tipo original (interrupção cancela a busca). */
+    private static <T> T await(CompletableFuture<T> pending) throws IOException, InterruptedException, ExchangeRateException {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            pending.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof ExchangeRateException) {
+                throw (ExchangeRateException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ExchangeRateException("Nenhum provedor respondeu: " + cause, cause);
+        }
+    }
+}
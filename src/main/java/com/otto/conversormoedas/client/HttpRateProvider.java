@@ -0,0 +1,314 @@
+package com.otto.conversormoedas.client;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.otto.conversormoedas.metrics.Counter;
+import com.otto.conversormoedas.metrics.Gauge;
+import com.otto.conversormoedas.metrics.LatencyHistogram;
+import com.otto.conversormoedas.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Base dos provedores HTTP: requisições síncronas e assíncronas (prazo por chamada, cancelamento),
+ * {@link CircuitBreaker}, {@link QuotaGovernor} e métricas por provedor.
+ * Toda chamada passa antes pelo circuit breaker (provedor fora ou lento: falha na hora) e pelo
+ * governador de cota; recusada, falha com {@link CircuitOpenException} ou {@link QuotaExceededException}
+ * sem ir à rede. O prazo de cada requisição vem da latência observada
+ * ({@link CircuitBreaker#currentTimeout()}), limitado a {@link #DEFAULT_TIMEOUT}.
+ * As subclasses montam as URLs e convertem o corpo de uma resposta 200 ({@link Decoder}).
+ */
+public abstract class HttpRateProvider implements RateProvider {
+    private static final Logger LOGGER = Logger.getLogger(HttpRateProvider.class.getName());
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+    private static final String LATENCY_METRIC = "conversor_upstream_request_duration_seconds";
+    private static final String LATENCY_HELP = "Latência das chamadas aos provedores de taxas";
+    private static final String REQUESTS_METRIC = "conversor_upstream_requests_total";
+    private static final String REQUESTS_HELP = "Chamadas aos provedores de taxas por status";
+
+    /** Converte o corpo de uma resposta 200 no formato comum. */
+    @FunctionalInterface
+    protected interface Decoder<T> {
+        T decode(String body) throws ExchangeRateException;
+    }
+
+    private final String name;
+    private final HttpClient httpClient;
+    private final QuotaGovernor governor;
+    private final CircuitBreaker breaker;
+    private final EndpointMetrics pairMetrics;
+    private final EndpointMetrics latestMetrics;
+    private final Gauge rateLimitRemaining;
+
+    /**
+     * @param name nome do provedor (rótulo "provider" das métricas)
+     * @param executor executor das tarefas internas do HttpClient (null usa o padrão)
+     * @param governor limites de chamadas ao provedor
+     * @param breaker circuit breaker e prazo adaptativo das chamadas
+     */
+    protected HttpRateProvider(String name, Executor executor, QuotaGovernor governor, CircuitBreaker breaker) {
+        this.name = name;
+        this.governor = governor;
+        this.breaker = breaker;
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(DEFAULT_TIMEOUT);
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        this.httpClient = builder.build();
+        this.pairMetrics = new EndpointMetrics(name, "pair");
+        this.latestMetrics = new EndpointMetrics(name, "latest");
+        this.rateLimitRemaining = METRICS.gauge("conversor_upstream_rate_limit_remaining",
+                "Requisições restantes na cota do provedor (cabeçalho de rate limit)", "provider", name);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * GET síncrono: permissão, requisição, métricas e decodificação.
+     * @param to moeda de destino (null: tabela /latest de {@code from})
+     */
+    protected final <T> T get(String url, String from, String to, Decoder<T> decoder)
+            throws IOException, InterruptedException, ExchangeRateException {
+        admit(from, to);
+        EndpointMetrics metrics = to == null ? latestMetrics : pairMetrics;
+        long start = System.nanoTime();
+        HttpResponse<String> response = null;
+        boolean observed = false;
+        try {
+            response = httpClient.send(newRequest(url, breaker.currentTimeout()), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException | InterruptedException e) {
+            observed = true;
+            observe(metrics, start, null, e, false);
+            throw e;
+        } finally {
+            if (!observed && response == null) {
+                // Exceção não verificada antes de haver resposta: devolve a permissão (e o teste meio-aberto)
+                breaker.release();
+            }
+        }
+        observe(metrics, start, response, null, false);
+        return parse(response, decoder);
+    }
+
+    /**
+     * GET assíncrono com prazo total: ao estourar o prazo ou cancelar o future devolvido,
+     * a troca HTTP subjacente também é cancelada. A requisição usa o menor entre o prazo do
+     * chamador e o prazo adaptativo. Estourar o prazo conta como falha no circuit breaker;
+     * o cancelamento pelo chamador (ex.: perdedor de um hedge), não.
+     */
+    protected final <T> CompletableFuture<T> getAsync(String url, String from, String to, Duration timeout,
+                                                      Decoder<T> decoder) {
+        try {
+            admit(from, to);
+        } catch (ExchangeRateException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        EndpointMetrics metrics = to == null ? latestMetrics : pairMetrics;
+        long start = System.nanoTime();
+        Duration adaptive = breaker.currentTimeout();
+        CompletableFuture<HttpResponse<String>> exchange = null;
+        try {
+            exchange = httpClient.sendAsync(newRequest(url, adaptive.compareTo(timeout) < 0 ? adaptive : timeout),
+                    HttpResponse.BodyHandlers.ofString());
+        } finally {
+            if (exchange == null) {
+                breaker.release();
+            }
+        }
+        AtomicBoolean timedOut = new AtomicBoolean();
+        exchange.whenComplete((response, error) -> observe(metrics, start, response, error, timedOut.get()));
+        CompletableFuture<T> result = exchange.thenApply(response -> {
+            try {
+                return parse(response, decoder);
+            } catch (ExchangeRateException e) {
+                throw new CompletionException(e);
+            }
+        });
+        CompletableFuture<HttpResponse<String>> pending = exchange;
+        result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((value, error) -> {
+                    if (error != null) {
+                        // Marcado antes do cancelamento, que completa a troca (e chama observe) na hora
+                        timedOut.set(unwrap(error) instanceof TimeoutException);
+                        pending.cancel(true);
+                    }
+                });
+        return result;
+    }
+
+    /**
+     * Permissão do circuit breaker e do governador de cota ({@code to} null: tabela /latest de {@code from}).
+     */
+    private void admit(String from, String to) throws ExchangeRateException {
+        breaker.acquire();
+        try {
+            if (to == null) {
+                governor.acquireLatest(from);
+            } else {
+                governor.acquirePair(from, to);
+            }
+        } catch (QuotaExceededException e) {
+            breaker.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Métricas de uma chamada (latência, status HTTP ou "error" sem resposta), atualização da
+     * cota no governador e resultado no circuit breaker: rede, prazo (inclusive o do chamador,
+     * {@code timedOut}) e 5xx contam como falha; outro cancelamento pelo chamador (ou interrupção) não conta.
+     */
+    private void observe(EndpointMetrics metrics, long startNanos, HttpResponse<?> response, Throwable error,
+                         boolean timedOut) {
+        long elapsed = System.nanoTime() - startNanos;
+        metrics.latency.record(elapsed);
+        if (response != null) {
+            if (response.statusCode() >= 500) {
+                breaker.onFailure(elapsed);
+            } else {
+                breaker.onSuccess(elapsed);
+            }
+        } else if (!timedOut && (unwrap(error) instanceof CancellationException || error instanceof InterruptedException)) {
+            breaker.release();
+        } else {
+            breaker.onFailure(elapsed);
+        }
+        metrics.counter(response != null ? response.statusCode() : -1).increment();
+        if (response != null) {
+            governor.onResponse(response.statusCode(), response.headers());
+            if (governor.getQuotaRemaining() >= 0) {
+                rateLimitRemaining.set(governor.getQuotaRemaining());
+            }
+        }
+    }
+
+    /**
+     * Séries de um endpoint do provedor, resolvidas uma vez: histograma de latência e contadores
+     * por status HTTP (criados na primeira ocorrência de cada status; -1 = "error", sem resposta).
+     */
+    private static final class EndpointMetrics {
+        private static final int STATUS_LIMIT = 600;
+
+        private final String provider;
+        private final String endpoint;
+        private final LatencyHistogram latency;
+        private final Counter errors;
+        private final AtomicReferenceArray<Counter> byStatus = new AtomicReferenceArray<>(STATUS_LIMIT);
+
+        EndpointMetrics(String provider, String endpoint) {
+            this.provider = provider;
+            this.endpoint = endpoint;
+            this.latency = METRICS.histogram(LATENCY_METRIC, LATENCY_HELP, "provider", provider, "endpoint", endpoint);
+            this.errors = resolve("error");
+        }
+
+        Counter counter(int status) {
+            if (status < 0) {
+                return errors;
+            }
+            if (status >= STATUS_LIMIT) {
+                return resolve(String.valueOf(status));
+            }
+            Counter counter = byStatus.get(status);
+            if (counter == null) {
+                // O registro devolve a mesma instância para a mesma série: corrida inofensiva
+                counter = resolve(String.valueOf(status));
+                byStatus.set(status, counter);
+            }
+            return counter;
+        }
+
+        private Counter resolve(String status) {
+            return METRICS.counter(REQUESTS_METRIC, REQUESTS_HELP,
+                    "provider", provider, "endpoint", endpoint, "status", status);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    @Override
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    @Override
+    public QuotaGovernor getGovernor() {
+        return governor;
+    }
+
+    private static HttpRequest newRequest(String url, Duration timeout) {
+        return HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create(url))
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .header("User-Agent", "conversor-moedas-java-client/0.1")
+                .build();
+    }
+
+    /**
+     * Valida o status HTTP e decodifica o corpo.
+     */
+    private <T> T parse(HttpResponse<String> response, Decoder<T> decoder) throws ExchangeRateException {
+        int status = response.statusCode();
+        // Log some useful headers for diagnostics (if present)
+        String requestId = response.headers().firstValue("x-request-id").orElse(null);
+        if (requestId != null) {
+            LOGGER.fine("x-request-id: " + requestId);
+        }
+
+        String body = response.body();
+
+        if (status != 200) {
+            // Try to extract API error message from body
+            String apiMessage = extractApiErrorMessage(body);
+            String msg = String.format("%s returned HTTP %d. %s", name, status, apiMessage == null ? "" : apiMessage);
+            throw new ExchangeRateException(msg);
+        }
+
+        try {
+            return decoder.decode(body);
+        } catch (RuntimeException ex) {
+            // Corpo fora do formato esperado (JSON inválido, campo ausente ou de outro tipo)
+            LOGGER.log(Level.WARNING, "Failed to parse JSON response", ex);
+            throw new ExchangeRateException("Invalid JSON response from " + name);
+        }
+    }
+
+    /**
+     * Extrai mensagem de erro do JSON (ordem: error-type, error, message).
+     */
+    protected static String extractApiErrorMessage(String body) {
+        try {
+            JsonObject json = JsonParser.parseString(body).getAsJsonObject();
+            if (json.has("error-type")) return json.get("error-type").getAsString();
+            if (json.has("error")) return json.get("error").getAsString();
+            if (json.has("message")) return json.get("message").getAsString();
+        } catch (Exception e) {
+            // ignore parsing errors here
+        }
+        return null;
+    }
+}
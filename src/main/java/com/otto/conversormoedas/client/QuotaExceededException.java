@@ -0,0 +1,30 @@
+package com.otto.conversormoedas.client;
+
+/**
+ * Chamada ao upstream recusada pelo {@link QuotaGovernor} (sem enviar a requisição):
+ * limite de taxa local, cota reservada para pares quentes ou cota esgotada.
+ */
+public class QuotaExceededException extends ExchangeRateException {
+    private final QuotaGovernor.Reason reason;
+    private final long retryAfterMillis;
+
+    public QuotaExceededException(QuotaGovernor.Reason reason, String message) {
+        this(reason, message, -1);
+    }
+
+    /** @param retryAfterMillis espera estimada até a chamada poder passar; -1 se desconhecida */
+    public QuotaExceededException(QuotaGovernor.Reason reason, String message, long retryAfterMillis) {
+        super(message);
+        this.reason = reason;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public QuotaGovernor.Reason getReason() {
+        return reason;
+    }
+
+    /** Espera estimada (ms) até a próxima permissão ou o reset da cota; -1 se desconhecida. */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,441 @@
+package com.otto.conversormoedas.client;
+
+import com.otto.conversormoedas.metrics.Counter;
+import com.otto.conversormoedas.metrics.MetricsRegistry;
+import com.otto.conversormoedas.model.CurrencyCode;
+
+import java.net.http.HttpHeaders;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Governa as chamadas ao upstream para não estourar a cota do plano:
+ * <ul>
+ *   <li>token bucket local: no máximo {@code permitsPerSecond} chamadas/s (fracionário, para cotas
+ *       por dia ou por mês; ver {@link #parseRate}), com rajada de {@code burst};</li>
+ *   <li>lê os cabeçalhos de cota de cada resposta (limite, restante, reset) e o 429;</li>
+ *   <li>com a cota baixa (restante ≤ reserva) só pares quentes e o /latest (uma chamada, todas as
+ *       taxas) passam; os demais são recusados e o serviço serve a taxa do cache;</li>
+ *   <li>com a cota esgotada nada passa até o reset.</li>
+ * </ul>
+ * Recusar não envia a requisição: o cliente lança {@link QuotaExceededException}, com a espera
+ * estimada até a próxima permissão (ou até o reset da cota).
+ * Pares quentes: os 20% mais consultados (contagem por ordinal, reduzida à metade a cada minuto),
+ * informados pelo serviço em {@link #recordDemand}.
+ */
+public class QuotaGovernor {
+    private static final Logger LOGGER = Logger.getLogger(QuotaGovernor.class.getName());
+
+    /** Chamadas por segundo permitidas, por padrão. */
+    public static final double DEFAULT_PERMITS_PER_SECOND = 10;
+    /** Rajada máxima, por padrão. */
+    public static final int DEFAULT_BURST = 20;
+    /** Fração da cota reservada para pares quentes, por padrão. */
+    public static final double DEFAULT_RESERVE_FRACTION = 0.10;
+    /** Espera após um 429 sem indicação de reset. */
+    static final long DEFAULT_BACKOFF_MILLIS = 60_000;
+    static final long DEMAND_WINDOW_MILLIS = 60_000;
+    private static final double HOT_FRACTION = 0.20;
+    private static final long MIN_HOT_DEMAND = 2;
+    private static final int SIZE = CurrencyCode.values().length;
+    private static final long UNKNOWN = -1;
+    private static final double NANOS_PER_SECOND = 1e9;
+    /** Mês de cobrança aproximado (30 dias), em segundos. */
+    private static final long MONTH_SECONDS = 30L * 86_400;
+
+    /** Motivo da recusa. */
+    public enum Reason {
+        /** Token bucket local sem permissões. */
+        RATE_LIMITED,
+        /** Cota baixa, reservada para pares quentes. */
+        RESERVED,
+        /** Cota esgotada até o reset. */
+        EXHAUSTED
+    }
+
+    private final double permitsPerSecond;
+    /** Intervalo entre permissões; 0 sem limite local. */
+    private final double nanosPerPermit;
+    private final double burst;
+    private final double reserveFraction;
+    private final LongSupplier nanoClock;
+
+    // Token bucket (protegido por this)
+    private double tokens;
+    private long lastRefillNanos;
+
+    // Cota informada pelo upstream
+    private volatile long quotaLimit = UNKNOWN;
+    private volatile long quotaRemaining = UNKNOWN;
+    private volatile long resetAtNanos;
+    private volatile boolean resetKnown;
+
+    private final AtomicLongArray demand = new AtomicLongArray(SIZE * SIZE);
+    private final AtomicBoolean decaying = new AtomicBoolean();
+    private volatile long lastDecayNanos;
+    private volatile long hotThreshold = MIN_HOT_DEMAND;
+
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder[] denied = new LongAdder[Reason.values().length];
+    private final Counter[] deniedMetric = new Counter[Reason.values().length];
+
+    /** Governador com os limites padrão. */
+    public QuotaGovernor() {
+        this(DEFAULT_PERMITS_PER_SECOND, DEFAULT_BURST, DEFAULT_RESERVE_FRACTION);
+    }
+
+    /**
+     * @param permitsPerSecond chamadas/s sustentadas, possivelmente fracionárias
+     *        (1500/mês ≈ 0,00058; ≤ 0 desativa o token bucket)
+     * @param burst rajada máxima
+     * @param reserveFraction fração da cota (0 a 1) guardada para pares quentes
+     */
+    public QuotaGovernor(double permitsPerSecond, int burst, double reserveFraction) {
+        this(permitsPerSecond, burst, reserveFraction, System::nanoTime);
+    }
+
+    QuotaGovernor(double permitsPerSecond, int burst, double reserveFraction, LongSupplier nanoClock) {
+        if (reserveFraction < 0 || reserveFraction >= 1) {
+            throw new IllegalArgumentException("reserveFraction deve estar entre 0 e 1: " + reserveFraction);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.nanosPerPermit = permitsPerSecond > 0 ? NANOS_PER_SECOND / permitsPerSecond : 0;
+        this.burst = Math.max(1, burst);
+        this.reserveFraction = reserveFraction;
+        this.nanoClock = nanoClock;
+        this.tokens = this.burst;
+        this.lastRefillNanos = nanoClock.getAsLong();
+        this.lastDecayNanos = lastRefillNanos;
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        for (Reason reason : Reason.values()) {
+            denied[reason.ordinal()] = new LongAdder();
+            deniedMetric[reason.ordinal()] = metrics.counter("conversor_upstream_throttled_total",
+                    "Chamadas ao upstream recusadas pelo governador de cota", "reason", reason.name().toLowerCase());
+        }
+    }
+
+    /**
+     * Taxa de chamadas a partir da configuração: chamadas por segundo ("10", "0.5") ou uma cota por
+     * período ("1500/month", "100/day", "60/h", "5/min", "2/s"); o mês conta como 30 dias.
+     * @return chamadas por segundo
+     * @throws IllegalArgumentException se o texto não estiver em nenhum dos formatos
+     */
+    public static double parseRate(String value) {
+        String text = value.trim().toLowerCase();
+        int slash = text.indexOf('/');
+        double permits;
+        try {
+            permits = Double.parseDouble(slash < 0 ? text : text.substring(0, slash).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Taxa inválida: " + value + " (ex.: 10, 0.5, 1500/month)");
+        }
+        if (slash < 0) {
+            return permits;
+        }
+        long seconds;
+        switch (text.substring(slash + 1).trim()) {
+            case "s":
+            case "sec":
+            case "second":
+                seconds = 1;
+                break;
+            case "min":
+            case "minute":
+                seconds = 60;
+                break;
+            case "h":
+            case "hour":
+                seconds = 3_600;
+                break;
+            case "d":
+            case "day":
+                seconds = 86_400;
+                break;
+            case "mo":
+            case "month":
+                seconds = MONTH_SECONDS;
+                break;
+            default:
+                throw new IllegalArgumentException("Período inválido: " + value + " (use s, min, h, day ou month)");
+        }
+        return permits / seconds;
+    }
+
+    /** Registra uma consulta ao par (define quais pares são quentes). */
+    public void recordDemand(CurrencyCode from, CurrencyCode to) {
+        demand.incrementAndGet(from.ordinal() * SIZE + to.ordinal());
+        maybeDecay();
+    }
+
+    /** true se o par está entre os mais consultados recentemente. */
+    public boolean isHot(CurrencyCode from, CurrencyCode to) {
+        return demand.get(from.ordinal() * SIZE + to.ordinal()) >= hotThreshold;
+    }
+
+    /**
+     * Permissão para buscar um par; pares desconhecidos do enum nunca são quentes.
+     * @throws QuotaExceededException se a chamada não deve ser feita agora
+     */
+    public void acquirePair(String from, String to) throws QuotaExceededException {
+        CurrencyCode fromCode = CurrencyCode.lookup(from);
+        CurrencyCode toCode = CurrencyCode.lookup(to);
+        acquire(fromCode != null && toCode != null && isHot(fromCode, toCode), from + ":" + to);
+    }
+
+    /** Permissão para buscar a tabela completa (/latest): sempre prioritária. */
+    public void acquireLatest(String base) throws QuotaExceededException {
+        acquire(true, base + ":*");
+    }
+
+    private void acquire(boolean priority, String key) throws QuotaExceededException {
+        long now = nanoClock.getAsLong();
+        if (resetKnown && resetAtNanos - now <= 0) {
+            // Passou o reset: a cota anterior não vale mais até a próxima resposta
+            resetKnown = false;
+            quotaRemaining = UNKNOWN;
+        }
+        if (isExhausted(now)) {
+            deny(Reason.EXHAUSTED, "Cota do upstream esgotada até o reset (" + key + ")", resetAtNanos - now);
+        }
+        if (!priority && isBudgetLow()) {
+            long untilReset = resetKnown && resetAtNanos - now > 0 ? resetAtNanos - now : UNKNOWN;
+            deny(Reason.RESERVED, "Cota do upstream baixa, reservada para pares mais usados (" + key + ")", untilReset);
+        }
+        long wait = takeToken(now);
+        if (wait > 0) {
+            deny(Reason.RATE_LIMITED, "Limite local de chamadas ao upstream atingido (" + key + ")", wait);
+        }
+        granted.increment();
+    }
+
+    private void deny(Reason reason, String message, long retryAfterNanos) throws QuotaExceededException {
+        denied[reason.ordinal()].increment();
+        deniedMetric[reason.ordinal()].increment();
+        throw new QuotaExceededException(reason, message,
+                retryAfterNanos < 0 ? UNKNOWN : (retryAfterNanos + 999_999) / 1_000_000);
+    }
+
+    /** Consome uma permissão; 0 se concedida, senão os nanos até a próxima. */
+    private synchronized long takeToken(long now) {
+        if (nanosPerPermit <= 0) {
+            return 0;
+        }
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) / nanosPerPermit);
+        lastRefillNanos = now;
+        if (tokens < 1) {
+            return Math.max(1, (long) Math.ceil((1 - tokens) * nanosPerPermit));
+        }
+        tokens -= 1;
+        return 0;
+    }
+
+    /**
+     * Atualiza a cota a partir de uma resposta do upstream. Um 429 zera a cota restante até o
+     * reset informado ({@code Retry-After} ou cabeçalho de reset) ou por {@link #DEFAULT_BACKOFF_MILLIS}.
+     */
+    public void onResponse(int status, HttpHeaders headers) {
+        long now = nanoClock.getAsLong();
+        long limit = headerValue(headers, "limit");
+        long remaining = headerValue(headers, "remaining");
+        long resetSeconds = resetSeconds(headers);
+        if (limit >= 0) {
+            quotaLimit = limit;
+        }
+        if (remaining >= 0) {
+            quotaRemaining = remaining;
+        }
+        if (resetSeconds >= 0) {
+            setResetAt(now + resetSeconds * 1_000_000_000L);
+        }
+        if (status == 429) {
+            quotaRemaining = 0;
+            if (resetSeconds < 0) {
+                long retryAfter = parseLong(headers.firstValue("retry-after"));
+                setResetAt(now + (retryAfter >= 0 ? retryAfter * 1_000_000_000L : DEFAULT_BACKOFF_MILLIS * 1_000_000L));
+            }
+            LOGGER.warning("Upstream respondeu 429: chamadas suspensas por "
+                    + (resetAtNanos - now) / 1_000_000_000L + " s");
+        } else if (remaining == 0 && resetSeconds < 0 && !(resetKnown && resetAtNanos - now > 0)) {
+            setResetAt(now + DEFAULT_BACKOFF_MILLIS * 1_000_000L);
+        }
+    }
+
+    private void setResetAt(long nanos) {
+        resetAtNanos = nanos;
+        resetKnown = true;
+    }
+
+    /** true se a cota restante está na reserva (só pares quentes passam). */
+    public boolean isBudgetLow() {
+        long limit = quotaLimit;
+        long remaining = quotaRemaining;
+        if (remaining < 0) {
+            return false;
+        }
+        long reserve = limit > 0 ? (long) Math.ceil(limit * reserveFraction) : 0;
+        return remaining <= reserve;
+    }
+
+    /** true se a cota acabou e o reset ainda não chegou. */
+    public boolean isExhausted() {
+        return isExhausted(nanoClock.getAsLong());
+    }
+
+    private boolean isExhausted(long now) {
+        return quotaRemaining == 0 && resetKnown && resetAtNanos - now > 0;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return (int) burst;
+    }
+
+    /** Permissões disponíveis agora no token bucket. */
+    public synchronized double getAvailableTokens() {
+        if (nanosPerPermit <= 0) {
+            return burst;
+        }
+        long now = nanoClock.getAsLong();
+        return Math.min(burst, tokens + (now - lastRefillNanos) / nanosPerPermit);
+    }
+
+    /** Limite da cota informado pelo upstream; -1 se desconhecido. */
+    public long getQuotaLimit() {
+        return quotaLimit;
+    }
+
+    /** Cota restante informada pelo upstream; -1 se desconhecida. */
+    public long getQuotaRemaining() {
+        return quotaRemaining;
+    }
+
+    /** Instante (epoch ms) do próximo reset conhecido; 0 se desconhecido ou já passado. */
+    public long getResetAtMillis() {
+        long remainingNanos = resetAtNanos - nanoClock.getAsLong();
+        return resetKnown && remainingNanos > 0 ? System.currentTimeMillis() + remainingNanos / 1_000_000L : 0;
+    }
+
+    public long getGranted() {
+        return granted.sum();
+    }
+
+    public long getDenied(Reason reason) {
+        return denied[reason.ordinal()].sum();
+    }
+
+    /** Pares quentes (FROM:TO), do mais para o menos consultado. */
+    public List<String> getHotPairs(int max) {
+        CurrencyCode[] codes = CurrencyCode.values();
+        List<long[]> hot = new ArrayList<>();
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            long d = demand.get(i);
+            if (d >= hotThreshold) {
+                hot.add(new long[] {d, i});
+            }
+        }
+        hot.sort((a, b) -> Long.compare(b[0], a[0]));
+        List<String> pairs = new ArrayList<>();
+        for (int i = 0; i < Math.min(max, hot.size()); i++) {
+            int index = (int) hot.get(i)[1];
+            pairs.add(codes[index / SIZE].name() + ":" + codes[index % SIZE].name());
+        }
+        return pairs;
+    }
+
+    /**
+     * A cada janela: recalcula o limiar de "quente" (percentil 80 das contagens não nulas)
+     * e reduz as contagens à metade, para a popularidade acompanhar o tráfego recente.
+     */
+    private void maybeDecay() {
+        long now = nanoClock.getAsLong();
+        if (now - lastDecayNanos < DEMAND_WINDOW_MILLIS * 1_000_000L || !decaying.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long[] counts = new long[SIZE * SIZE];
+            int n = 0;
+            for (int i = 0; i < counts.length; i++) {
+                long d = demand.get(i);
+                if (d > 0) {
+                    counts[n++] = d;
+                }
+            }
+            if (n > 0) {
+                Arrays.sort(counts, 0, n);
+                long threshold = counts[Math.min(n - 1, (int) (n * (1 - HOT_FRACTION)))];
+                hotThreshold = Math.max(MIN_HOT_DEMAND, (threshold + 1) / 2); // já na escala reduzida
+            }
+            for (int i = 0; i < SIZE * SIZE; i++) {
+                long d = demand.get(i);
+                if (d > 0) {
+                    demand.addAndGet(i, -(d / 2 + d % 2));
+                }
+            }
+            lastDecayNanos = now;
+        } finally {
+            decaying.set(false);
+        }
+    }
+
+    /**
+     * Campo de cota nos cabeçalhos: {@code X-RateLimit-<campo>}, {@code RateLimit-<campo>} ou o
+     * cabeçalho combinado {@code RateLimit} / {@code rate-limit} ({@code remaining=N}, {@code r=N}...).
+     * @return o valor, ou -1 se ausente/inválido
+     */
+    static long headerValue(HttpHeaders headers, String field) {
+        long value = parseLong(headers.firstValue("x-ratelimit-" + field));
+        if (value >= 0) {
+            return value;
+        }
+        value = parseLong(headers.firstValue("ratelimit-" + field));
+        if (value >= 0) {
+            return value;
+        }
+        String shortName = field.equals("remaining") ? "r" : field.equals("reset") ? "t" : field;
+        for (String name : new String[] {"ratelimit", "rate-limit"}) {
+            Optional<String> combined = headers.firstValue(name);
+            if (combined.isPresent()) {
+                for (String part : combined.get().split("[,;]")) {
+                    int eq = part.indexOf('=');
+                    if (eq > 0) {
+                        String key = part.substring(0, eq).trim().toLowerCase();
+                        if (key.equals(field) || key.equals(shortName)) {
+                            return parseLong(Optional.of(part.substring(eq + 1)));
+                        }
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Segundos até o reset; valores grandes são tratados como epoch (segundos). */
+    private static long resetSeconds(HttpHeaders headers) {
+        long reset = headerValue(headers, "reset");
+        if (reset > 1_000_000_000L) {
+            reset = Math.max(0, reset - System.currentTimeMillis() / 1000);
+        }
+        return reset;
+    }
+
+    private static long parseLong(Optional<String> value) {
+        if (value.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.get().trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
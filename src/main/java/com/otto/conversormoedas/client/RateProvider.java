@@ -0,0 +1,51 @@
+package com.otto.conversormoedas.client;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fonte de taxas de câmbio usada pelo serviço de conversão.
+ * Implementações: {@link ExchangeRateClient} (ExchangeRate-API), {@link FrankfurterClient}
+ * (taxas do BCE), {@link FileRateProvider} (arquivo local) e {@link HedgedRateProvider}, que
+ * combina várias e dispara a seguinte quando a primeira demora além do p95.
+ * As respostas usam o formato da ExchangeRate-API ({@link ExchangePairResponse} /
+ * {@link ExchangeLatestResponse}); cada provedor converte o seu para ele.
+ */
+public interface RateProvider {
+    /** Prazo padrão de cada chamada ao provedor. */
+    Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    /** Nome curto do provedor (rótulo de métricas e logs). */
+    String getName();
+
+    /**
+     * Taxa de um par (ex.: "USD" → "BRL"). Síncrono.
+     * Lança ExchangeRateException se o provedor recusar ou não cotar o par.
+     */
+    ExchangePairResponse fetchPair(String from, String to) throws IOException, InterruptedException, ExchangeRateException;
+
+    /** Tabela base→X de todas as moedas cotadas pelo provedor (inclui a própria base). */
+    ExchangeLatestResponse fetchLatest(String base) throws IOException, InterruptedException, ExchangeRateException;
+
+    /**
+     * Busca assíncrona de um par; o future falha com ExchangeRateException, IOException ou
+     * TimeoutException (prazo estourado) e cancelá-lo aborta a chamada em andamento.
+     * @param timeout prazo total da chamada
+     */
+    CompletableFuture<ExchangePairResponse> fetchPairAsync(String from, String to, Duration timeout);
+
+    /** Versão assíncrona de {@link #fetchLatest}; mesmas regras de {@link #fetchPairAsync(String, String, Duration)}. */
+    CompletableFuture<ExchangeLatestResponse> fetchLatestAsync(String base, Duration timeout);
+
+    /** Versão assíncrona de {@link #fetchPair} com o prazo padrão. */
+    default CompletableFuture<ExchangePairResponse> fetchPairAsync(String from, String to) {
+        return fetchPairAsync(from, to, DEFAULT_TIMEOUT);
+    }
+
+    /** Governador de cota do provedor (sem cota: limites desativados, só a popularidade dos pares). */
+    QuotaGovernor getGovernor();
+
+    /** Circuit breaker do provedor (estado exposto em /health). */
+    CircuitBreaker getCircuitBreaker();
+}
@@ -30,4 +30,20 @@ public final class Config {
         String key = System.getenv("EXCHANGE_RATE_API_KEY");
         return key != null && !key.isBlank();
     }
+
+    /**
+     * Lê uma variável de ambiente numérica (long).
+     * Retorna {@code defaultValue} se ausente, vazia ou inválida.
+     */
+    public static long getLongEnv(String name, long defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
 }
@@ -0,0 +1,449 @@
+package com.otto.conversormoedas.history;
+
+import com.otto.conversormoedas.metrics.Counter;
+import com.otto.conversormoedas.metrics.MetricsRegistry;
+import com.otto.conversormoedas.model.ConversionHistory;
+import com.otto.conversormoedas.model.HistoryPage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Log de histórico persistente: append-only, segmentado, com registros binários de tamanho fixo.
+ * <p>
+ * Registro (40 bytes, big-endian): instante (epoch millis) | from (4 bytes ASCII) | to (4 bytes ASCII)
+ * | valor | resultado | taxa. Cada segmento ({@code history-<seq inicial>.hlog}) guarda até
+ * {@code segmentRecords} registros; ao encher, o próximo é criado.
+ * <p>
+ * Escrita: {@link #append} apenas enfileira; uma thread grava os registros acumulados em uma
+ * única escrita no {@link FileChannel} e faz um único fsync por lote (group commit). O future
+ * devolvido completa quando o registro está em disco. Nunca bloqueia: com {@value #DEFAULT_MAX_PENDING}
+ * registros pendentes (disco mais lento que as conversões) o registro é descartado, o future falha
+ * e o descarte é contado em {@code conversor_history_log_dropped_total}.
+ * <p>
+ * Leitura: índice esparso em memória (instante de 1 a cada {@value #INDEX_INTERVAL} registros por
+ * segmento, reconstruído na abertura) localiza o início do intervalo por busca binária; a consulta
+ * lê só os registros da página, com leituras posicionais. Os instantes são gravados em ordem
+ * não decrescente, o que permite a busca binária.
+ */
+public class HistoryLog implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(HistoryLog.class.getName());
+
+    /** Tamanho de cada registro em disco. */
+    public static final int RECORD_BYTES = 40;
+    /** Registros por segmento, por padrão (~40 MB). */
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+    static final int INDEX_INTERVAL = 1024;
+    /** Registros aguardando gravação, por padrão, antes de descartar novos. */
+    public static final int DEFAULT_MAX_PENDING = 64 * 1024;
+    private static final int MAX_BATCH = 4096;
+    private static final Counter DROPPED = MetricsRegistry.getDefault().counter(
+        "conversor_history_log_dropped_total", "Registros do histórico descartados com a fila de gravação cheia");
+    private static final int READ_CHUNK = 1024;
+    private static final String PREFIX = "history-";
+    private static final String SUFFIX = ".hlog";
+
+    private final Path dir;
+    private final int segmentRecords;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Pending> queue;
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean closed;
+    private long lastTimestamp; // somente a thread de escrita
+
+    /** Abre (ou cria) o log no diretório, com segmentos do tamanho padrão. */
+    public HistoryLog(Path dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    /**
+     * Abre (ou cria) o log. Um registro incompleto no fim do último segmento (queda durante a
+     * escrita) é descartado.
+     * @param dir diretório dos segmentos
+     * @param segmentRecords registros por segmento
+     */
+    public HistoryLog(Path dir, int segmentRecords) throws IOException {
+        this(dir, segmentRecords, DEFAULT_MAX_PENDING);
+    }
+
+    HistoryLog(Path dir, int segmentRecords, int maxPending) throws IOException {
+        if (segmentRecords <= 0) {
+            throw new IllegalArgumentException("segmentRecords deve ser positivo: " + segmentRecords);
+        }
+        this.dir = dir;
+        this.segmentRecords = segmentRecords;
+        this.queue = new LinkedBlockingQueue<>(maxPending);
+        Files.createDirectories(dir);
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(HistoryLog::baseSeqOf));
+        for (Path file : files) {
+            segments.add(Segment.open(file, baseSeqOf(file), segmentRecords));
+        }
+        if (segments.isEmpty()) {
+            segments.add(Segment.open(segmentPath(0), 0, segmentRecords));
+        }
+        lastTimestamp = last().lastTimestamp;
+
+        writer = new Thread(this::writeLoop, "history-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Enfileira o registro para gravação, sem bloquear.
+     * @return future completado quando o registro estiver em disco; falha se o log estiver
+     *         fechado ou a fila de gravação cheia (registro descartado)
+     */
+    public CompletableFuture<Void> append(ConversionHistory record) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (closed) {
+            done.completeExceptionally(new IllegalStateException("Log de histórico fechado"));
+            return done;
+        }
+        if (!queue.offer(new Pending(record, done))) {
+            dropped.increment();
+            DROPPED.increment();
+            done.completeExceptionally(new IllegalStateException("Fila de gravação do histórico cheia"));
+        }
+        return done;
+    }
+
+    /** Quantidade de registros gravados. */
+    public long size() {
+        Segment last = last();
+        return last.baseSeq + last.records;
+    }
+
+    /** Quantidade de segmentos. */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /** Quantidade de registros descartados com a fila de gravação cheia. */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /** Quantidade de fsyncs (lotes gravados). */
+    public long getCommits() {
+        return commits.sum();
+    }
+
+    /**
+     * Consulta os registros com instante em [{@code fromMillis}, {@code toMillis}], em ordem de gravação.
+     * @param cursor posição devolvida pela página anterior ({@link HistoryPage#getNextCursor()}), ou -1
+     * @param limit tamanho máximo da página
+     */
+    public HistoryPage query(long fromMillis, long toMillis, long cursor, int limit) throws IOException {
+        long seq = cursor >= 0 ? cursor : firstAtOrAfter(fromMillis);
+        List<ConversionHistory> records = new ArrayList<>(Math.min(limit, READ_CHUNK));
+        ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK * RECORD_BYTES);
+        int segmentIndex = segmentIndexOf(seq);
+
+        while (segmentIndex >= 0 && segmentIndex < segments.size()) {
+            Segment segment = segments.get(segmentIndex);
+            int records0 = segment.records;
+            int local = (int) (seq - segment.baseSeq);
+            if (local >= records0) {
+                if (segmentIndex == segments.size() - 1) {
+                    break;
+                }
+                segmentIndex++;
+                seq = segments.get(segmentIndex).baseSeq;
+                continue;
+            }
+            int count = Math.min(records0 - local, READ_CHUNK);
+            buffer.clear().limit(count * RECORD_BYTES);
+            segment.read(buffer, (long) local * RECORD_BYTES);
+            buffer.flip();
+            for (int i = 0; i < count; i++, seq++) {
+                long timestamp = buffer.getLong(i * RECORD_BYTES);
+                if (timestamp < fromMillis) {
+                    continue;
+                }
+                if (timestamp > toMillis) {
+                    return new HistoryPage(records, null);
+                }
+                if (records.size() == limit) {
+                    return new HistoryPage(records, seq);
+                }
+                records.add(decode(buffer, i * RECORD_BYTES));
+            }
+        }
+        return new HistoryPage(records, null);
+    }
+
+    /** Primeira posição cujo instante pode ser >= {@code fromMillis} (via índice esparso). */
+    private long firstAtOrAfter(long fromMillis) {
+        for (Segment segment : segments) {
+            int records = segment.records;
+            if (records == 0 || segment.lastTimestamp < fromMillis) {
+                continue;
+            }
+            int entries = (records + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+            int lo = 0;
+            int hi = entries - 1;
+            int start = 0;
+            // Última entrada do índice com instante < fromMillis
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (segment.sparse[mid] < fromMillis) {
+                    start = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return segment.baseSeq + (long) start * INDEX_INTERVAL;
+        }
+        return size();
+    }
+
+    private int segmentIndexOf(long seq) {
+        int lo = 0;
+        int hi = segments.size() - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segments.get(mid).baseSeq <= seq) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_BATCH * RECORD_BYTES);
+        while (true) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                writeBatch(batch, buffer);
+                for (Pending pending : batch) {
+                    pending.done.complete(null);
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Falha ao gravar o log de histórico", e);
+                for (Pending pending : batch) {
+                    pending.done.completeExceptionally(e);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /** Grava o lote (trocando de segmento quando necessário) com um fsync por segmento tocado. */
+    private void writeBatch(List<Pending> batch, ByteBuffer buffer) throws IOException {
+        int next = 0;
+        while (next < batch.size()) {
+            Segment segment = last();
+            if (segment.records >= segment.capacity) {
+                segment.channel.force(false);
+                segment = Segment.open(segmentPath(segment.baseSeq + segment.records),
+                        segment.baseSeq + segment.records, segmentRecords);
+                segments.add(segment);
+            }
+            int count = Math.min(batch.size() - next, segment.capacity - segment.records);
+            buffer.clear();
+            for (int i = 0; i < count; i++) {
+                long timestamp = Math.max(lastTimestamp, epochMillis(batch.get(next + i).record.getTimestamp()));
+                lastTimestamp = timestamp;
+                int local = segment.records + i;
+                if (local % INDEX_INTERVAL == 0) {
+                    segment.sparse[local / INDEX_INTERVAL] = timestamp;
+                }
+                encode(buffer, batch.get(next + i).record, timestamp);
+            }
+            buffer.flip();
+            long position = (long) segment.records * RECORD_BYTES;
+            while (buffer.hasRemaining()) {
+                position += segment.channel.write(buffer, position);
+            }
+            segment.channel.force(false);
+            commits.increment();
+            segment.lastTimestamp = lastTimestamp;
+            segment.records += count; // publica os registros para leitura
+            next += count;
+        }
+    }
+
+    /** Para de aceitar registros, grava os pendentes e fecha os segmentos. */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Segment segment : segments) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Falha ao fechar segmento " + segment.path, e);
+            }
+        }
+    }
+
+    private Segment last() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private Path segmentPath(long baseSeq) {
+        return dir.resolve(String.format("%s%020d%s", PREFIX, baseSeq, SUFFIX));
+    }
+
+    private static long baseSeqOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static void encode(ByteBuffer buffer, ConversionHistory record, long timestamp) {
+        buffer.putLong(timestamp);
+        putCode(buffer, record.getFromCurrency());
+        putCode(buffer, record.getToCurrency());
+        buffer.putDouble(record.getAmount());
+        buffer.putDouble(record.getResult());
+        buffer.putDouble(record.getExchangeRate());
+    }
+
+    private static ConversionHistory decode(ByteBuffer buffer, int offset) {
+        long timestamp = buffer.getLong(offset);
+        String from = getCode(buffer, offset + 8);
+        String to = getCode(buffer, offset + 12);
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+        return new ConversionHistory(from, to, buffer.getDouble(offset + 16), buffer.getDouble(offset + 24),
+                buffer.getDouble(offset + 32), time);
+    }
+
+    /** Código da moeda em 4 bytes ASCII (completado com zeros). */
+    private static void putCode(ByteBuffer buffer, String code) {
+        for (int i = 0; i < 4; i++) {
+            buffer.put(code != null && i < code.length() ? (byte) code.charAt(i) : 0);
+        }
+    }
+
+    private static String getCode(ByteBuffer buffer, int offset) {
+        int length = 0;
+        while (length < 4 && buffer.get(offset + length) != 0) {
+            length++;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    static long epochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /** Registro aguardando o group commit. */
+    private static final class Pending {
+        final ConversionHistory record;
+        final CompletableFuture<Void> done;
+
+        Pending(ConversionHistory record, CompletableFuture<Void> done) {
+            this.record = record;
+            this.done = done;
+        }
+    }
+
+    /** Arquivo de segmento com seu índice esparso. */
+    private static final class Segment {
+        final Path path;
+        final long baseSeq;
+        final int capacity;
+        final FileChannel channel;
+        final long[] sparse;
+        volatile long lastTimestamp;
+        // Escrito só pela thread de escrita, depois dos dados e do índice (publicação volátil)
+        volatile int records;
+
+        private Segment(Path path, long baseSeq, int capacity, FileChannel channel) {
+            this.path = path;
+            this.baseSeq = baseSeq;
+            this.capacity = capacity;
+            this.channel = channel;
+            this.sparse = new long[(capacity + INDEX_INTERVAL - 1) / INDEX_INTERVAL];
+        }
+
+        /** Abre o segmento, descarta registro incompleto no fim e reconstrói o índice esparso. */
+        static Segment open(Path path, long baseSeq, int segmentRecords) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            long size = channel.size();
+            int records = (int) (size / RECORD_BYTES);
+            if (size % RECORD_BYTES != 0) {
+                LOGGER.warning("Registro incompleto descartado no fim de " + path);
+                channel.truncate((long) records * RECORD_BYTES);
+            }
+            Segment segment = new Segment(path, baseSeq, Math.max(records, segmentRecords), channel);
+            ByteBuffer timestamp = ByteBuffer.allocate(Long.BYTES);
+            for (int local = 0; local < records; local += INDEX_INTERVAL) {
+                segment.sparse[local / INDEX_INTERVAL] = segment.readTimestamp(timestamp, local);
+            }
+            if (records > 0) {
+                segment.lastTimestamp = segment.readTimestamp(timestamp, records - 1);
+            }
+            segment.records = records;
+            return segment;
+        }
+
+        private long readTimestamp(ByteBuffer buffer, int local) throws IOException {
+            buffer.clear();
+            read(buffer, (long) local * RECORD_BYTES);
+            return buffer.getLong(0);
+        }
+
+        /** Leitura posicional até encher o buffer (thread-safe no FileChannel). */
+        void read(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, position);
+                if (n < 0) {
+                    throw new IOException("Fim inesperado do segmento " + path);
+                }
+                position += n;
+            }
+        }
+    }
+}
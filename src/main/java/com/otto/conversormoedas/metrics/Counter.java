@@ -0,0 +1,20 @@
+package com.otto.conversormoedas.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Contador monotônico (LongAdder: incremento barato mesmo com muitas threads). */
+public final class Counter {
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,15 @@
+package com.otto.conversormoedas.metrics;
+
+/** Valor instantâneo (último valor gravado). */
+public final class Gauge {
+    private volatile double value = Double.NaN;
+
+    public void set(double value) {
+        this.value = value;
+    }
+
+    /** Último valor gravado; NaN se nunca foi definido. */
+    public double get() {
+        return value;
+    }
+}
@@ -0,0 +1,121 @@
+package com.otto.conversormoedas.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latência no estilo HDR: baldes log-lineares (8 sub-baldes por potência de 2,
+ * erro relativo de até 12,5%) sobre nanossegundos, de 0 a ~36 min. Gravar é O(1), sem alocação
+ * e sem lock; percentis são calculados só na leitura.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40; // último balde termina em 2^41 ns ≈ 36 min
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT;
+    private static final long MAX_VALUE = upperBound(BUCKETS - 1) - 1;
+
+    /** Limites (segundos) expostos no formato Prometheus; +Inf é implícito. */
+    static final double[] EXPORT_BOUNDS = {
+        0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    /** Registra uma duração em nanossegundos (negativos contam como 0). */
+    public void record(long nanos) {
+        long v = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(index(v));
+        count.increment();
+        sumNanos.add(v);
+    }
+
+    /** Registra o tempo decorrido desde {@code startNanos} ({@link System#nanoTime()}). */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * Percentil aproximado (limite superior do balde que o contém), em nanossegundos.
+     * @param quantile entre 0 e 1 (ex.: 0.99)
+     */
+    public long percentile(double quantile) {
+        long[] snapshot = snapshot();
+        long total = 0;
+        for (long c : snapshot) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return upperBound(i) - 1;
+            }
+        }
+        return MAX_VALUE;
+    }
+
+    /**
+     * Contagens acumuladas para cada limite de {@link #EXPORT_BOUNDS}, mais o total (+Inf) na
+     * última posição. Um balde interno que cruza o limite conta no limite seguinte (estimativa
+     * conservadora).
+     */
+    long[] cumulativeCounts() {
+        long[] snapshot = snapshot();
+        long[] cumulative = new long[EXPORT_BOUNDS.length + 1];
+        int bucket = 0;
+        long seen = 0;
+        for (int b = 0; b < EXPORT_BOUNDS.length; b++) {
+            long boundNanos = (long) (EXPORT_BOUNDS[b] * 1_000_000_000L);
+            while (bucket < BUCKETS && upperBound(bucket) - 1 <= boundNanos) {
+                seen += snapshot[bucket++];
+            }
+            cumulative[b] = seen;
+        }
+        while (bucket < BUCKETS) {
+            seen += snapshot[bucket++];
+        }
+        cumulative[EXPORT_BOUNDS.length] = seen;
+        return cumulative;
+    }
+
+    private long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    static int index(long v) {
+        if (v < SUB_COUNT) {
+            return (int) v;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(v)) - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) ((v >>> shift) - SUB_COUNT);
+    }
+
+    /** Limite superior (exclusivo) do balde. */
+    static long upperBound(int index) {
+        if (index < SUB_COUNT) {
+            return index + 1;
+        }
+        int shift = index / SUB_COUNT - 1;
+        long sub = index % SUB_COUNT + SUB_COUNT;
+        return (sub + 1) << shift;
+    }
+}
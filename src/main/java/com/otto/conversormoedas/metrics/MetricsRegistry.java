@@ -0,0 +1,157 @@
+package com.otto.conversormoedas.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Registro de métricas (contadores, gauges e histogramas de latência) com exposição no
+ * formato texto do Prometheus. Cada série é identificada pelo nome + pares de rótulos;
+ * pedir a mesma série de novo devolve a mesma instância, então o código instrumentado pode
+ * guardar a referência em um campo estático (como faz com o Logger) e só incrementar.
+ */
+public final class MetricsRegistry {
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+    private static final String[] BOUND_LABELS = new String[LatencyHistogram.EXPORT_BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BOUND_LABELS.length; i++) {
+            BOUND_LABELS[i] = number(LatencyHistogram.EXPORT_BOUNDS[i]);
+        }
+    }
+
+    private enum Type {
+        COUNTER("counter"), GAUGE("gauge"), HISTOGRAM("histogram");
+
+        private final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    private static final class Family {
+        private final Type type;
+        private final String help;
+        private final Map<String, Object> series = new ConcurrentHashMap<>();
+
+        private Family(Type type, String help) {
+            this.type = type;
+            this.help = help;
+        }
+    }
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    /** Registro compartilhado pela aplicação (exposto em /metrics). */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param labels pares nome/valor de rótulos (ex.: "route", "/api/rates")
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) series(name, help, Type.COUNTER, labels, Counter::new);
+    }
+
+    public Gauge gauge(String name, String help, String... labels) {
+        return (Gauge) series(name, help, Type.GAUGE, labels, Gauge::new);
+    }
+
+    /** Histograma de latência; exposto em segundos. */
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) series(name, help, Type.HISTOGRAM, labels, LatencyHistogram::new);
+    }
+
+    private Object series(String name, String help, Type type, String[] labels, Supplier<Object> factory) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Rótulos devem ser pares nome/valor: " + name);
+        }
+        Family family = families.computeIfAbsent(name, n -> new Family(type, help));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Métrica " + name + " já registrada como " + family.type.text);
+        }
+        return family.series.computeIfAbsent(labelText(labels), l -> factory.get());
+    }
+
+    /** Todas as séries no formato texto do Prometheus (version 0.0.4). */
+    public void writePrometheus(Writer out) throws IOException {
+        for (Map.Entry<String, Family> f : new TreeMap<>(families).entrySet()) {
+            String name = f.getKey();
+            Family family = f.getValue();
+            out.write("# HELP " + name + " " + family.help + "\n");
+            out.write("# TYPE " + name + " " + family.type.text + "\n");
+            for (Map.Entry<String, Object> s : new TreeMap<>(family.series).entrySet()) {
+                String labels = s.getKey();
+                Object metric = s.getValue();
+                if (metric instanceof Counter) {
+                    out.write(name + braces(labels) + " " + ((Counter) metric).get() + "\n");
+                } else if (metric instanceof Gauge) {
+                    out.write(name + braces(labels) + " " + number(((Gauge) metric).get()) + "\n");
+                } else {
+                    writeHistogram(out, name, labels, (LatencyHistogram) metric);
+                }
+            }
+        }
+    }
+
+    /** Conveniência para testes e depuração. */
+    public String scrape() {
+        StringWriter out = new StringWriter();
+        try {
+            writePrometheus(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static void writeHistogram(Writer out, String name, String labels, LatencyHistogram histogram)
+            throws IOException {
+        long[] cumulative = histogram.cumulativeCounts();
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (int i = 0; i < BOUND_LABELS.length; i++) {
+            out.write(name + "_bucket{" + prefix + "le=\"" + BOUND_LABELS[i] + "\"} " + cumulative[i] + "\n");
+        }
+        long total = cumulative[BOUND_LABELS.length];
+        out.write(name + "_bucket{" + prefix + "le=\"+Inf\"} " + total + "\n");
+        out.write(name + "_sum" + braces(labels) + " " + number(histogram.getSumNanos() / 1e9) + "\n");
+        out.write(name + "_count" + braces(labels) + " " + total + "\n");
+    }
+
+    private static String labelText(String[] labels) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String number(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+}
@@ -8,6 +8,8 @@ import java.time.format.DateTimeFormatter;
  * Armazena informações sobre conversões realizadas.
  */
 public class ConversionHistory {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
     private final String fromCurrency;
     private final String toCurrency;
     private final double amount;
@@ -17,12 +19,20 @@ public class ConversionHistory {
 
     public ConversionHistory(String fromCurrency, String toCurrency, double amount, 
                            double result, double exchangeRate) {
+        this(fromCurrency, toCurrency, amount, result, exchangeRate, LocalDateTime.now());
+    }
+
+    /**
+     * Cria o registro com um instante explícito (ex.: lido do log persistente).
+     */
+    public ConversionHistory(String fromCurrency, String toCurrency, double amount,
+                           double result, double exchangeRate, LocalDateTime timestamp) {
         this.fromCurrency = fromCurrency;
         this.toCurrency = toCurrency;
         this.amount = amount;
         this.result = result;
         this.exchangeRate = exchangeRate;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
     }
 
     public String getFromCurrency() {
@@ -53,8 +63,7 @@ public class ConversionHistory {
      * Formata timestamp para exibição.
      */
     public String getFormattedTimestamp() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
-        return timestamp.format(formatter);
+        return timestamp.format(TIMESTAMP_FORMAT);
     }
 
     /**
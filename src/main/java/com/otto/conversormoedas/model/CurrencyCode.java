@@ -1,5 +1,9 @@
 package com.otto.conversormoedas.model;
 
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+
 /** Enum de moedas suportadas. */
 public enum CurrencyCode {
     // Moedas da América do Sul
@@ -99,10 +103,32 @@ public enum CurrencyCode {
     XAU("Ouro (onça troy)"),
     XAG("Prata (onça troy)");
 
+    private static final Map<String, CurrencyCode> BY_CODE = new HashMap<>();
+
+    static {
+        for (CurrencyCode code : values()) {
+            BY_CODE.put(code.name(), code);
+        }
+    }
+
+    /** Casas decimais de metais (sem unidade menor na ISO 4217): onças com 4 casas. */
+    private static final int METAL_MINOR_UNITS = 4;
+
     private final String description;
+    private final int minorUnits;
 
     CurrencyCode(String description) {
         this.description = description;
+        this.minorUnits = minorUnitsOf(name());
+    }
+
+    private static int minorUnitsOf(String code) {
+        try {
+            int digits = Currency.getInstance(code).getDefaultFractionDigits();
+            return digits >= 0 ? digits : METAL_MINOR_UNITS;
+        } catch (IllegalArgumentException e) {
+            return 2;
+        }
     }
 
     /** Descrição legível. */
@@ -110,6 +136,11 @@ public enum CurrencyCode {
         return description;
     }
 
+    /** Casas decimais da unidade menor (ISO 4217): 2 para BRL, 0 para JPY, 3 para KWD. */
+    public int getMinorUnits() {
+        return minorUnits;
+    }
+
     /** Valida se o código informado existe. */
     public static boolean isValid(String code) {
         if (code == null || code.isBlank()) {
@@ -128,9 +159,23 @@ public enum CurrencyCode {
         if (code == null || code.isBlank()) {
             throw new IllegalArgumentException("Código de moeda não pode ser vazio");
         }
+        // Caminho rápido sem alocação para códigos já em maiúsculas
+        CurrencyCode exact = BY_CODE.get(code);
+        if (exact != null) {
+            return exact;
+        }
         return valueOf(code.toUpperCase());
     }
 
+    /** Busca sem exceção (case-insensitive); retorna null se o código não existir. */
+    public static CurrencyCode lookup(String code) {
+        if (code == null) {
+            return null;
+        }
+        CurrencyCode exact = BY_CODE.get(code);
+        return exact != null ? exact : BY_CODE.get(code.toUpperCase());
+    }
+
     /** Representação amigável. */
     @Override
     public String toString() {
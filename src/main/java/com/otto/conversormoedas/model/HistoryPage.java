@@ -0,0 +1,28 @@
+package com.otto.conversormoedas.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Página de uma consulta ao histórico por intervalo de tempo.
+ * {@code nextCursor} continua a consulta de onde esta página parou (null se não há mais registros).
+ */
+public class HistoryPage {
+    private final List<ConversionHistory> records;
+    private final Long nextCursor;
+
+    public HistoryPage(List<ConversionHistory> records, Long nextCursor) {
+        this.records = Collections.unmodifiableList(records);
+        this.nextCursor = nextCursor;
+    }
+
+    /** Registros da página, do mais antigo para o mais recente. */
+    public List<ConversionHistory> getRecords() {
+        return records;
+    }
+
+    /** Cursor da próxima página, ou null se esta é a última. */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+}
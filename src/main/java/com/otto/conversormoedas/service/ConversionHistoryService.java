@@ -1,71 +1,168 @@
 package com.otto.conversormoedas.service;
 
+import com.otto.conversormoedas.history.HistoryLog;
 import com.otto.conversormoedas.model.ConversionHistory;
+import com.otto.conversormoedas.model.HistoryPage;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Gerencia o histórico de conversões realizadas.
- * Armazena em memória as últimas conversões (limitado a MAX_HISTORY_SIZE).
+ * Buffer circular lock-free de capacidade fixa (potência de 2): cada escrita reserva uma
+ * sequência com um contador atômico e grava no slot {@code seq & mask}; as mais antigas
+ * são sobrescritas. Leituras não bloqueiam escritores: cada slot guarda a sequência que
+ * contém, e entradas sobrescritas ou ainda não publicadas são ignoradas no snapshot.
+ * Com um {@link HistoryLog} configurado, toda conversão também vai para o log persistente
+ * (trilha de auditoria), usado nas consultas por intervalo de tempo ({@link #query}).
  */
 public class ConversionHistoryService {
     private static final Logger LOGGER = Logger.getLogger(ConversionHistoryService.class.getName());
-    private static final int MAX_HISTORY_SIZE = 50; // Limita a 50 últimas conversões
-    
-    private final List<ConversionHistory> history = Collections.synchronizedList(new ArrayList<>());
+    /** Capacidade padrão (últimas conversões mantidas em memória). */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final AtomicReferenceArray<Slot> slots;
+    private final int mask;
+    private final HistoryLog log;
+    private final AtomicLong sequence = new AtomicLong();
+    // Sequências abaixo deste valor foram descartadas por clearHistory()
+    private volatile long clearedBefore;
+
+    /** Cria o histórico com a capacidade padrão. */
+    public ConversionHistoryService() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Cria o histórico com a capacidade informada (arredondada para a próxima potência de 2).
+     * @param capacity quantidade máxima de conversões mantidas
+     */
+    public ConversionHistoryService(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Cria o histórico gravando também no log persistente.
+     * @param capacity quantidade máxima de conversões mantidas em memória
+     * @param log log persistente (null mantém o histórico só em memória)
+     */
+    public ConversionHistoryService(int capacity, HistoryLog log) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.log = log;
+    }
 
     /**
      * Adiciona uma conversão ao histórico.
-     * Remove a mais antiga se atingir o limite.
+     * Sobrescreve a mais antiga quando o buffer está cheio.
      */
-    public void addConversion(String fromCurrency, String toCurrency, 
+    public void addConversion(String fromCurrency, String toCurrency,
                              double amount, double result, double exchangeRate) {
         ConversionHistory record = new ConversionHistory(
             fromCurrency, toCurrency, amount, result, exchangeRate
         );
-        
-        synchronized (history) {
-            // Remove a mais antiga se atingir o limite
-            if (history.size() >= MAX_HISTORY_SIZE) {
-                history.remove(0);
-            }
-            history.add(record);
+
+        long seq = sequence.getAndIncrement();
+        int index = (int) (seq & mask);
+        Slot slot = new Slot(seq, record);
+        // Um escritor atrasado (uma volta inteira atrás) nunca sobrescreve uma entrada mais nova
+        Slot current = slots.get(index);
+        while ((current == null || current.seq < seq) && !slots.compareAndSet(index, current, slot)) {
+            current = slots.get(index);
+        }
+        if (log != null) {
+            // Group commit assíncrono; não bloqueia a conversão (fila cheia: fica só em memória, contado no log)
+            log.append(record);
+        }
+
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("💱 Conversão registrada: " + record);
         }
-        
-        // Log da conversão
-        LOGGER.info(String.format("💱 Conversão registrada: %s", record));
     }
 
     /**
      * Retorna o histórico completo (cópia imutável).
      */
     public List<ConversionHistory> getHistory() {
-        synchronized (history) {
-            return new ArrayList<>(history);
-        }
+        return getLastConversions(capacity());
     }
 
     /**
-     * Retorna as últimas N conversões.
+     * Retorna as últimas N conversões (da mais antiga para a mais recente).
      */
     public List<ConversionHistory> getLastConversions(int limit) {
-        synchronized (history) {
-            int size = history.size();
-            int fromIndex = Math.max(0, size - limit);
-            return new ArrayList<>(history.subList(fromIndex, size));
+        long end = sequence.get();
+        long start = Math.max(Math.max(0, end - capacity()), clearedBefore);
+        List<ConversionHistory> result = new ArrayList<>(Math.max(0, (int) Math.min(limit, end - start)));
+        for (long seq = end - 1; seq >= start && result.size() < limit; seq--) {
+            Slot slot = slots.get((int) (seq & mask));
+            // Slot reservado mas ainda não publicado, ou já sobrescrito: fora do snapshot
+            if (slot != null && slot.seq == seq) {
+                result.add(slot.record);
+            }
         }
+        Collections.reverse(result);
+        return result;
     }
 
     /**
-     * Limpa o histórico.
+     * Consulta as conversões com instante em [{@code fromMillis}, {@code toMillis}], paginadas.
+     * Usa o log persistente, se houver; caso contrário, filtra o buffer em memória
+     * (o cursor é então a posição no resultado filtrado).
+     * @param cursor cursor devolvido pela página anterior, ou -1 para começar do início
      */
-    public void clearHistory() {
-        synchronized (history) {
-            history.clear();
+    public HistoryPage query(long fromMillis, long toMillis, long cursor, int limit) {
+        if (log != null) {
+            try {
+                return log.query(fromMillis, toMillis, cursor, limit);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao ler o log de histórico", e);
+            }
+        }
+        List<ConversionHistory> page = new ArrayList<>();
+        long skip = Math.max(0, cursor);
+        long position = 0;
+        for (ConversionHistory record : getHistory()) {
+            long millis = record.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            if (millis < fromMillis || millis > toMillis) {
+                continue;
+            }
+            if (position++ < skip) {
+                continue;
+            }
+            if (page.size() == limit) {
+                return new HistoryPage(page, position - 1);
+            }
+            page.add(record);
         }
+        return new HistoryPage(page, null);
+    }
+
+    /** Indica se as conversões também são gravadas em um log persistente. */
+    public boolean isPersistent() {
+        return log != null;
+    }
+
+    /**
+     * Limpa o histórico em memória (o log persistente, quando houver, não é alterado).
+     */
+    public void clearHistory() {
+        clearedBefore = sequence.get();
         LOGGER.info("🗑️ Histórico de conversões limpo");
     }
 
@@ -73,6 +170,24 @@ public class ConversionHistoryService {
      * Retorna quantidade de conversões no histórico.
      */
     public int getHistorySize() {
-        return history.size();
+        long end = sequence.get();
+        long start = Math.max(Math.max(0, end - capacity()), clearedBefore);
+        return (int) Math.max(0, end - start);
+    }
+
+    /** Capacidade efetiva do buffer. */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /** Registro imutável associado à sequência que o gravou. */
+    private static final class Slot {
+        final long seq;
+        final ConversionHistory record;
+
+        Slot(long seq, ConversionHistory record) {
+            this.seq = seq;
+            this.record = record;
+        }
     }
 }
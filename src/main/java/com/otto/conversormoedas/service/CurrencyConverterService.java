@@ -1,74 +1,515 @@
 package com.otto.conversormoedas.service;
 
+import com.otto.conversormoedas.cache.BoundedCache;
+import com.otto.conversormoedas.cache.CacheStats;
+import com.otto.conversormoedas.cache.SegmentedLruCache;
+import com.otto.conversormoedas.client.CircuitBreaker;
+import com.otto.conversormoedas.client.ExchangeLatestResponse;
 import com.otto.conversormoedas.client.ExchangePairResponse;
-import com.otto.conversormoedas.client.ExchangeRateClient;
 import com.otto.conversormoedas.client.ExchangeRateException;
+import com.otto.conversormoedas.client.QuotaGovernor;
+import com.otto.conversormoedas.client.RateProvider;
+import com.otto.conversormoedas.metrics.Counter;
+import com.otto.conversormoedas.metrics.MetricsRegistry;
 import com.otto.conversormoedas.model.CurrencyCode;
+import com.otto.conversormoedas.timeseries.RatePoint;
+import com.otto.conversormoedas.timeseries.RateTimeSeries;
 import com.otto.conversormoedas.util.ConversionCalculator;
+import com.otto.conversormoedas.util.FixedPointMoney;
 
 import java.io.IOException;
-import java.time.Instant;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
- * Serviço de conversão que orquestra: chamadas à API, cache com TTL e cálculos.
+ * Serviço de conversão que orquestra: chamadas ao {@link RateProvider}, cache com TTL e cálculos.
  * Cache: chave FROM:TO (ex.: USD:BRL), TTL padrão 5 min, fallback para cache em falha.
+ * O cache é limitado ({@link SegmentedLruCache}); entradas além da retenção máxima
+ * (24h ou o TTL rígido, o maior) deixam de servir de fallback e são removidas.
  * Resiliência: usa cache válido se a API falhar; sem cache válido, lança exceção.
+ * Single-flight: chamadas concorrentes para a mesma chave expirada compartilham
+ * uma única requisição ao upstream (as demais aguardam o mesmo future).
+ * Matriz de taxas: um snapshot /latest/{base} gera todas as taxas cruzadas localmente
+ * ({@link RateMatrix}), consultado antes do cache por par.
+ * Caminho tipado ({@link CurrencyCode}): consulta primeiro o {@link PairRateStore}, indexado por
+ * ordinal, sem alocar chaves String nem timestamps.
+ * Stale-while-revalidate (opcional): após o TTL "suave" a taxa atual é servida na hora e
+ * atualizada em segundo plano ({@link RefreshScheduler}); só o TTL rígido bloqueia o chamador.
+ * API assíncrona: {@link #getRateAsync} e {@link #getRatesAsync} usam a busca não bloqueante do provedor
+ * e compartilham o mesmo single-flight; várias buscas de par disparadas juntas custam uma
+ * ida ao upstream de latência, não N em sequência.
+ * Persistência: {@link RateSnapshotStore} grava e restaura as taxas (partida com cache quente);
+ * se o upstream falhar, a última taxa conhecida do par (ou da matriz) é servida.
+ * Métricas: cada consulta conta como hit, stale (servida e revalidada em segundo plano) ou miss;
+ * dos misses, stale_fallback (upstream falhou, taxa antiga servida) e error (sem taxa).
+ * Cota do upstream: cada consulta alimenta a popularidade dos pares no {@link QuotaGovernor}
+ * (acertos do caminho tipado: no máximo uma por milissegundo por par);
+ * com a cota baixa as buscas de pares pouco usados são recusadas e a taxa do cache é servida.
+ * Histórico: cada taxa obtida do upstream (pares buscados e a linha da base de cada snapshot)
+ * é gravada no {@link RateTimeSeries}, consultado por /api/rates/history e pelas conversões
+ * retroativas ({@link #convertDetailed(CurrencyCode, CurrencyCode, double, long)}), que não vão à rede.
+ * Notificação: {@link RateListener}s registrados recebem cada snapshot e cada taxa de par nova
+ * (usado pelo streaming de taxas ao vivo).
  */
 public class CurrencyConverterService {
-    private final ExchangeRateClient client;
-    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private static final Logger LOGGER = Logger.getLogger(CurrencyConverterService.class.getName());
+
+    private final RateProvider provider;
+    private final QuotaGovernor governor;
+    /** Quantidade máxima padrão de pares no cache. */
+    public static final int DEFAULT_MAX_CACHE_ENTRIES = 10_000;
+    private static final long MAX_FALLBACK_AGE_MILLIS = 24 * 60 * 60 * 1000L;
+    /** Prazo padrão das buscas em paralelo (fan-out). */
+    public static final Duration DEFAULT_FAN_OUT_TIMEOUT = RateProvider.DEFAULT_TIMEOUT;
+
+    private static final String LOOKUPS_METRIC = "conversor_rate_lookups_total";
+    private static final String LOOKUPS_HELP = "Consultas de taxa por resultado";
+    private static final Counter LOOKUP_HIT = lookupCounter("hit");
+    private static final Counter LOOKUP_STALE = lookupCounter("stale");
+    private static final Counter LOOKUP_MISS = lookupCounter("miss");
+    private static final Counter LOOKUP_STALE_FALLBACK = lookupCounter("stale_fallback");
+    private static final Counter LOOKUP_ERROR = lookupCounter("error");
+
+    private final BoundedCache<String, CacheEntry> cache;
+    private final PairRateStore pairRates = new PairRateStore();
+    private final RateTimeSeries timeSeries = new RateTimeSeries();
+    private final List<RateListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, CompletableFuture<Double>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder issuedFetches = new LongAdder();
+    private final LongAdder coalescedFetches = new LongAdder();
+    private final LongAdder rateUpdates = new LongAdder();
+    private final AtomicReference<CompletableFuture<RateMatrix>> matrixInFlight = new AtomicReference<>();
+    private volatile RateMatrix matrix;
+    private volatile CurrencyCode matrixBase;
+    /** Último acerto da matriz pelo caminho rápido (epoch millis), lido pela varredura. */
+    private volatile long matrixAccessedAt;
     private final long ttlMillis;
+    private final long softTtlMillis;
+    private final RefreshScheduler refreshScheduler;
 
     /**
      * Construtor principal permitindo definir um TTL customizado para o cache.
-     * @param client cliente HTTP já configurado (não pode ser null)
+     * @param provider fonte das taxas já configurada (não pode ser null)
      * @param ttlMillis tempo de vida (em milissegundos) de cada taxa armazenada
      */
-    public CurrencyConverterService(ExchangeRateClient client, long ttlMillis) {
-        this.client = Objects.requireNonNull(client);
-        this.ttlMillis = ttlMillis;
+    public CurrencyConverterService(RateProvider provider, long ttlMillis) {
+        this(provider, ttlMillis, ttlMillis, null);
+    }
+
+    /**
+     * Construtor com stale-while-revalidate.
+     * Entre {@code softTtlMillis} e {@code hardTtlMillis} a taxa em cache é servida imediatamente
+     * e atualizada em segundo plano; após {@code hardTtlMillis} a busca volta a ser síncrona.
+     * @param provider fonte das taxas já configurada (não pode ser null)
+     * @param softTtlMillis idade a partir da qual a taxa é atualizada em segundo plano
+     * @param hardTtlMillis idade máxima servida sem bloquear o chamador
+     * @param refreshScheduler agendador das atualizações (null desativa o modo)
+     */
+    public CurrencyConverterService(RateProvider provider, long softTtlMillis, long hardTtlMillis,
+                                    RefreshScheduler refreshScheduler) {
+        this(provider, softTtlMillis, hardTtlMillis, refreshScheduler, DEFAULT_MAX_CACHE_ENTRIES);
+    }
+
+    /**
+     * Construtor completo, incluindo o tamanho máximo do cache de pares.
+     * @param maxCacheEntries quantidade máxima de pares mantidos em memória
+     * @see #CurrencyConverterService(RateProvider, long, long, RefreshScheduler)
+     */
+    public CurrencyConverterService(RateProvider provider, long softTtlMillis, long hardTtlMillis,
+                                    RefreshScheduler refreshScheduler, int maxCacheEntries) {
+        if (softTtlMillis > hardTtlMillis) {
+            throw new IllegalArgumentException("softTtlMillis não pode ser maior que hardTtlMillis");
+        }
+        this.provider = Objects.requireNonNull(provider);
+        this.governor = provider.getGovernor();
+        this.ttlMillis = hardTtlMillis;
+        this.softTtlMillis = refreshScheduler != null ? softTtlMillis : hardTtlMillis;
+        this.refreshScheduler = refreshScheduler;
+        this.cache = new SegmentedLruCache<>(maxCacheEntries, Math.max(hardTtlMillis, MAX_FALLBACK_AGE_MILLIS));
+        if (refreshScheduler != null) {
+            refreshScheduler.start(this::refreshIfStale, this::recentAccess);
+        }
     }
 
     /**
      * Construtor de conveniência usando TTL padrão de 5 minutos.
-     * @param client cliente HTTP já configurado
+     * @param provider fonte das taxas já configurada
      */
-    public CurrencyConverterService(ExchangeRateClient client) {
-        this(client, 5 * 60 * 1000); // default 5 minutes
+    public CurrencyConverterService(RateProvider provider) {
+        this(provider, 5 * 60 * 1000); // default 5 minutes
     }
 
+    private static final String MATRIX_KEY = "*";
+
     private String key(String from, String to) {
         return from.toUpperCase() + ":" + to.toUpperCase();
     }
 
     /**
      * Obtém a taxa (from→to) usando cache com TTL; em falha usa cache válido.
+     * Em cache miss, apenas uma thread por chave chama o upstream; as demais
+     * aguardam o resultado dessa mesma chamada.
      */
     public double getRate(String from, String to) {
+        CurrencyCode fromCode = CurrencyCode.lookup(from);
+        CurrencyCode toCode = CurrencyCode.lookup(to);
+        if (fromCode != null && toCode != null) {
+            governor.recordDemand(fromCode, toCode);
+        }
+        try {
+            return lookupRate(from, to);
+        } catch (RuntimeException e) {
+            LOOKUP_ERROR.increment();
+            throw e;
+        }
+    }
+
+    private static Counter lookupCounter(String result) {
+        return MetricsRegistry.getDefault().counter(LOOKUPS_METRIC, LOOKUPS_HELP, "result", result);
+    }
+
+    /** {@link #getRate(String, String)} sem contar o erro final (o chamador ainda pode ter fallback). */
+    private double lookupRate(String from, String to) {
         String k = key(from, to);
         CacheEntry entry = cache.get(k);
-        long now = Instant.now().toEpochMilli();
-        if (entry != null && (now - entry.fetchedAtMillis) < ttlMillis) {
-            return entry.rate;
+        long now = System.currentTimeMillis();
+        double cached = cachedRate(k, entry, now);
+        if (!Double.isNaN(cached)) {
+            return cached;
+        }
+        LOOKUP_MISS.increment();
+        return loadRate(k, from.toUpperCase(), to.toUpperCase(), entry, now);
+    }
+
+    /**
+     * Taxa servível direto do cache (dentro do TTL suave, ou obsoleta com atualização em
+     * segundo plano agendada); NaN se é preciso buscar no upstream.
+     */
+    private double cachedRate(String k, CacheEntry entry, long now) {
+        if (refreshScheduler != null) {
+            refreshScheduler.touch(k);
+        }
+        if (entry != null) {
+            long age = now - entry.fetchedAtMillis;
+            if (age < softTtlMillis) {
+                LOOKUP_HIT.increment();
+                return entry.rate;
+            }
+            if (age < ttlMillis) {
+                // Stale-while-revalidate: serve a taxa atual e atualiza em segundo plano
+                LOOKUP_STALE.increment();
+                refreshScheduler.requestRefresh(k, () -> refreshPair(k));
+                return entry.rate;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Busca a taxa no upstream como líder single-flight da chave (ou aguarda o líder atual).
+     * @param entry valor anterior do cache, usado como fallback em falha
+     */
+    private double loadRate(String k, String from, String to, CacheEntry entry, long now) {
+        CompletableFuture<Double> mine = new CompletableFuture<>();
+        CompletableFuture<Double> existing = inFlight.putIfAbsent(k, mine);
+        if (existing != null) {
+            coalescedFetches.increment();
+            return awaitInFlight(existing, k, entry);
         }
 
         try {
-            ExchangePairResponse resp = client.fetchPair(from.toUpperCase(), to.toUpperCase());
-            double rate = resp.conversion_rate;
-            cache.put(k, new CacheEntry(rate, now));
+            // Outra thread pode ter concluído a busca entre a leitura do cache e o putIfAbsent
+            CacheEntry current = cache.get(k);
+            if (current != null && (now - current.fetchedAtMillis) < softTtlMillis) {
+                mine.complete(current.rate);
+                return current.rate;
+            }
+
+            issuedFetches.increment();
+            double rate = store(k, from, to, provider.fetchPair(from, to), now);
+            mine.complete(rate);
             return rate;
-        } catch (IOException | InterruptedException | ExchangeRateException e) {
+        } catch (IOException | InterruptedException | ExchangeRateException | RuntimeException e) {
+            mine.completeExceptionally(e);
             // If we have a cached value, return it as a best-effort fallback
             if (entry != null) {
+                LOOKUP_STALE_FALLBACK.increment();
                 return entry.rate;
             }
             throw new RuntimeException("Failed to fetch exchange rate for " + k, e);
+        } finally {
+            inFlight.remove(k, mine);
+        }
+    }
+
+    /**
+     * Versão não bloqueante de {@link #loadRate}: o líder dispara {@code fetchPairAsync} e
+     * completa o future compartilhado no callback. Sem fallback (fica a cargo do chamador).
+     */
+    private CompletableFuture<Double> loadRateAsync(String k, String from, String to, long now) {
+        CompletableFuture<Double> mine = new CompletableFuture<>();
+        CompletableFuture<Double> existing = inFlight.putIfAbsent(k, mine);
+        if (existing != null) {
+            coalescedFetches.increment();
+            return existing;
+        }
+
+        CacheEntry current = cache.get(k);
+        if (current != null && (now - current.fetchedAtMillis) < softTtlMillis) {
+            mine.complete(current.rate);
+            inFlight.remove(k, mine);
+            return mine;
+        }
+
+        issuedFetches.increment();
+        CompletableFuture<ExchangePairResponse> request;
+        try {
+            request = provider.fetchPairAsync(from, to);
+        } catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+        request.whenComplete((resp, error) -> {
+            try {
+                if (error != null) {
+                    mine.completeExceptionally(unwrap(error));
+                } else {
+                    mine.complete(store(k, from, to, resp, now));
+                }
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+            } finally {
+                inFlight.remove(k, mine);
+            }
+        });
+        return mine;
+    }
+
+    /** Grava a resposta do upstream no cache e no armazenamento por ordinal. */
+    private double store(String k, String from, String to, ExchangePairResponse resp, long now) {
+        double rate = resp.conversion_rate;
+        long fetchedAt = fetchedAt(resp.time_last_update_unix, resp.time_next_update_unix, now);
+        CacheEntry previous = cache.get(k);
+        if (previous != null && previous.fetchedAtMillis > fetchedAt) {
+            return previous.rate; // dados vencidos não substituem uma taxa mais nova
+        }
+        cache.put(k, new CacheEntry(rate, fetchedAt));
+        publishPairRate(from, to, rate, fetchedAt, fetchedAt == now);
+        rateUpdates.increment();
+        return rate;
+    }
+
+    /**
+     * Instante atribuído às taxas de uma resposta: o da busca, salvo quando o provedor informa que
+     * os dados já venceram ({@code time_next_update_unix} no passado, ex.: arquivo salvo há dias);
+     * aí vale a publicação, min(agora, {@code time_last_update_unix}), e a taxa nunca passa por
+     * recente: é servida, mas a próxima consulta volta ao upstream.
+     */
+    static long fetchedAt(long lastUpdateUnix, long nextUpdateUnix, long now) {
+        if (nextUpdateUnix <= 0 || nextUpdateUnix * 1000 > now) {
+            return now;
+        }
+        return Math.min(now, lastUpdateUnix > 0 ? lastUpdateUnix * 1000 : nextUpdateUnix * 1000);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Espelha a taxa no armazenamento por ordinal quando ambos os códigos são conhecidos.
+     * @param current false para dados vencidos do provedor: ficam fora do histórico, onde
+     *        seriam datados como o ponto mais recente da série
+     */
+    private void publishPairRate(String from, String to, double rate, long fetchedAt, boolean current) {
+        CurrencyCode fromCode = CurrencyCode.lookup(from);
+        CurrencyCode toCode = CurrencyCode.lookup(to);
+        if (fromCode != null && toCode != null) {
+            pairRates.put(PairRateStore.index(fromCode, toCode), rate, fetchedAt);
+            if (current) {
+                timeSeries.record(fromCode, toCode, rate, fetchedAt);
+            }
+            for (RateListener listener : listeners) {
+                try {
+                    listener.onPairRate(fromCode, toCode, rate, fetchedAt);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Rate listener failed", e);
+                }
+            }
+        }
+    }
+
+    /** Atualização em segundo plano de um par (chave FROM:TO). */
+    private void refreshPair(String k) {
+        int sep = k.indexOf(':');
+        loadRate(k, k.substring(0, sep), k.substring(sep + 1), cache.get(k), System.currentTimeMillis());
+    }
+
+    /**
+     * Acerto do caminho rápido tipado: marca o acesso do par e, no máximo uma vez por milissegundo
+     * por par, alimenta a popularidade no {@link QuotaGovernor} (contador disputado e relógio
+     * monotônico ficam fora da maioria dos acertos).
+     */
+    private void recordHit(CurrencyCode from, CurrencyCode to, int index, long now) {
+        if (pairRates.markAccess(index, now)) {
+            governor.recordDemand(from, to);
+        }
+    }
+
+    private void markMatrixAccess(long now) {
+        if (matrixAccessedAt != now) {
+            matrixAccessedAt = now;
+        }
+    }
+
+    /**
+     * Último acesso da chave pelo caminho rápido tipado, que não passa pelo
+     * {@link RefreshScheduler#touch(String)}; 0 se nunca acessada por ele.
+     */
+    private long recentAccess(String k) {
+        if (MATRIX_KEY.equals(k)) {
+            return matrixAccessedAt;
+        }
+        int sep = k.indexOf(':');
+        CurrencyCode from = CurrencyCode.lookup(k.substring(0, sep));
+        CurrencyCode to = CurrencyCode.lookup(k.substring(sep + 1));
+        return from != null && to != null ? pairRates.accessedAt(PairRateStore.index(from, to)) : 0L;
+    }
+
+    /**
+     * Chamado pela varredura do {@link RefreshScheduler} para cada chave em uso:
+     * agenda atualização das que já passaram do TTL suave. A leitura do cache também promove
+     * no LRU os pares mantidos ativos só por acertos do caminho rápido tipado.
+     */
+    private void refreshIfStale(String k) {
+        long now = System.currentTimeMillis();
+        if (MATRIX_KEY.equals(k)) {
+            RateMatrix m = matrix;
+            CurrencyCode base = matrixBase;
+            if (m != null && base != null && (now - m.getFetchedAtMillis()) >= softTtlMillis) {
+                refreshScheduler.requestRefresh(k, () -> loadMatrix(base, m, System.currentTimeMillis()));
+            }
+            return;
+        }
+        CacheEntry entry = cache.get(k);
+        if (entry != null && (now - entry.fetchedAtMillis) >= softTtlMillis) {
+            refreshScheduler.requestRefresh(k, () -> refreshPair(k));
+        }
+    }
+
+    /**
+     * Aguarda a busca já em andamento para a chave; em falha usa o cache anterior, se houver.
+     */
+    private double awaitInFlight(CompletableFuture<Double> pending, String k, CacheEntry entry) {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (entry != null) {
+                LOOKUP_STALE_FALLBACK.increment();
+                return entry.rate;
+            }
+            throw new RuntimeException("Interrupted while waiting exchange rate for " + k, e);
+        } catch (ExecutionException e) {
+            if (entry != null) {
+                LOOKUP_STALE_FALLBACK.increment();
+                return entry.rate;
+            }
+            throw new RuntimeException("Failed to fetch exchange rate for " + k, e.getCause());
+        }
+    }
+
+    /** Quantidade de taxas publicadas (pares e snapshots) desde a criação; muda a cada atualização. */
+    long getRateUpdates() {
+        return rateUpdates.sum();
+    }
+
+    PairRateStore pairRateStore() {
+        return pairRates;
+    }
+
+    RateMatrix currentMatrix() {
+        return matrix;
+    }
+
+    /**
+     * Restaura uma taxa persistida, mantendo o instante original da captura: fora do TTL ela
+     * não é servida direto, mas serve de fallback se o upstream falhar.
+     */
+    void restorePair(CurrencyCode from, CurrencyCode to, double rate, long fetchedAt) {
+        int index = PairRateStore.index(from, to);
+        if (pairRates.fetchedAt(index) >= fetchedAt) {
+            return;
+        }
+        pairRates.put(index, rate, fetchedAt);
+        cache.put(key(from.name(), to.name()), new CacheEntry(rate, fetchedAt));
+    }
+
+    /** Restaura a matriz persistida, se for mais nova que a atual. */
+    void restoreMatrix(CurrencyCode base, RateMatrix restored) {
+        RateMatrix current = matrix;
+        if (current == null || current.getFetchedAtMillis() < restored.getFetchedAtMillis()) {
+            matrix = restored;
+            matrixBase = base;
         }
     }
 
+    /** Registra um ouvinte das taxas novas obtidas do upstream. */
+    public void addRateListener(RateListener listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeRateListener(RateListener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Histórico das taxas obtidas do upstream. */
+    public RateTimeSeries getTimeSeries() {
+        return timeSeries;
+    }
+
+    /** Estatísticas do cache de pares (acertos, falhas, despejos e expirações). */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /** Circuit breaker do provedor (estado exposto em /health). */
+    public CircuitBreaker getCircuitBreaker() {
+        return provider.getCircuitBreaker();
+    }
+
+    /** Governador de cota do provedor (estado exposto em /api/quota). */
+    public QuotaGovernor getQuotaGovernor() {
+        return governor;
+    }
+
+    /** Quantidade de chamadas efetivamente enviadas ao upstream. */
+    public long getIssuedFetches() {
+        return issuedFetches.sum();
+    }
+
+    /** Quantidade de chamadas que aguardaram uma busca já em andamento (coalescidas). */
+    public long getCoalescedFetches() {
+        return coalescedFetches.sum();
+    }
+
     /**
      * Converte usando taxa atual (getRate) e cálculo (ConversionCalculator).
      */
@@ -86,26 +527,342 @@ public class CurrencyConverterService {
         return new ConversionCalculator.ConversionResult(amount, from, converted, to, rate);
     }
 
+    /**
+     * Converte com a taxa vigente em {@code atMillis} (epoch millis), ex.: reavaliar uma fatura.
+     * @see #convertDetailed(CurrencyCode, CurrencyCode, double, long)
+     */
+    public ConversionCalculator.ConversionResult convertDetailed(double amount, String from, String to, long atMillis) {
+        return convertDetailed(CurrencyCode.fromString(from), CurrencyCode.fromString(to), amount, atMillis);
+    }
+
     /**
      * Sobrecarga que aceita {@link CurrencyCode} em vez de {@link String} para segurança de tipos.
+     * Em acerto (par ou matriz dentro do TTL suave) não aloca: lê arrays primitivos por ordinal.
      * @see #getRate(String, String)
      */
     public double getRate(CurrencyCode from, CurrencyCode to) {
-        return getRate(from.name(), to.name());
+        long now = System.currentTimeMillis();
+        int index = PairRateStore.index(from, to);
+        long fetchedAt = pairRates.fetchedAt(index);
+        if (fetchedAt != PairRateStore.ABSENT && (now - fetchedAt) < softTtlMillis) {
+            LOOKUP_HIT.increment();
+            recordHit(from, to, index, now);
+            return pairRates.rate(index);
+        }
+        RateMatrix m = matrix;
+        if (m != null && (now - m.getFetchedAtMillis()) < softTtlMillis && m.has(from, to)) {
+            LOOKUP_HIT.increment();
+            recordHit(from, to, index, now);
+            markMatrixAccess(now);
+            return m.rate(from, to);
+        }
+        governor.recordDemand(from, to);
+        try {
+            return lookupRate(from.name(), to.name());
+        } catch (RuntimeException e) {
+            // Upstream indisponível e par sem cache: última matriz conhecida, mesmo antiga
+            if (m != null && m.has(from, to)) {
+                LOOKUP_STALE_FALLBACK.increment();
+                return m.rate(from, to);
+            }
+            LOOKUP_ERROR.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Versão assíncrona de {@link #getRate(CurrencyCode, CurrencyCode)}: em acerto devolve um
+     * future já completo; em falha de cache a busca não bloqueia a thread chamadora.
+     * Em erro do upstream usa a taxa anterior do cache, se houver.
+     */
+    public CompletableFuture<Double> getRateAsync(CurrencyCode from, CurrencyCode to) {
+        long now = System.currentTimeMillis();
+        int index = PairRateStore.index(from, to);
+        long fetchedAt = pairRates.fetchedAt(index);
+        if (fetchedAt != PairRateStore.ABSENT && (now - fetchedAt) < softTtlMillis) {
+            LOOKUP_HIT.increment();
+            recordHit(from, to, index, now);
+            return CompletableFuture.completedFuture(pairRates.rate(index));
+        }
+        RateMatrix m = matrix;
+        if (m != null && (now - m.getFetchedAtMillis()) < softTtlMillis && m.has(from, to)) {
+            LOOKUP_HIT.increment();
+            recordHit(from, to, index, now);
+            markMatrixAccess(now);
+            return CompletableFuture.completedFuture(m.rate(from, to));
+        }
+        governor.recordDemand(from, to);
+
+        String k = key(from.name(), to.name());
+        CacheEntry entry = cache.get(k);
+        double cached = cachedRate(k, entry, now);
+        if (!Double.isNaN(cached)) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        // Future próprio do chamador: prazo ou cancelamento não afetam os demais que aguardam a busca
+        LOOKUP_MISS.increment();
+        return loadRateAsync(k, from.name(), to.name(), now).handle((rate, error) -> {
+            if (error == null) {
+                return rate;
+            }
+            if (entry != null) {
+                LOOKUP_STALE_FALLBACK.increment();
+                return entry.rate;
+            }
+            LOOKUP_ERROR.increment();
+            throw new RuntimeException("Failed to fetch exchange rate for " + k, unwrap(error));
+        });
+    }
+
+    /**
+     * {@link #getRateAsync(CurrencyCode, CurrencyCode)} com prazo: o future falha com
+     * TimeoutException ao estourar {@code timeout}. A busca compartilhada continua e
+     * preenche o cache para as próximas chamadas.
+     */
+    public CompletableFuture<Double> getRateAsync(CurrencyCode from, CurrencyCode to, Duration timeout) {
+        return getRateAsync(from, to).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Busca em paralelo as taxas from→X para os destinos informados (fan-out): todas as
+     * buscas são disparadas de uma vez, então o tempo total é o da mais lenta.
+     * Completa com todas as taxas; falha se algum par falhar ou o prazo estourar.
+     * Útil para aquecer o cache.
+     */
+    public CompletableFuture<Map<CurrencyCode, Double>> getRatesAsync(CurrencyCode from,
+                                                                      Collection<CurrencyCode> targets,
+                                                                      Duration timeout) {
+        List<CurrencyCode> codes = new ArrayList<>(targets.size());
+        List<CompletableFuture<Double>> pending = new ArrayList<>(targets.size());
+        for (CurrencyCode to : targets) {
+            if (to != from) {
+                codes.add(to);
+                pending.add(getRateAsync(from, to));
+            }
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(done -> {
+                    Map<CurrencyCode, Double> rates = new EnumMap<>(CurrencyCode.class);
+                    for (int i = 0; i < codes.size(); i++) {
+                        rates.put(codes.get(i), pending.get(i).join());
+                    }
+                    return rates;
+                });
+    }
+
+    /**
+     * Retorna as taxas from→X para todas as moedas suportadas pela API.
+     * Usa um único snapshot /latest/{from} (uma chamada ao upstream) e deriva as taxas
+     * da matriz; moedas ausentes no snapshot são omitidas. Se não houver snapshot
+     * disponível (falha sem cache), recorre às buscas por par, em paralelo.
+     */
+    public Map<CurrencyCode, Double> getRates(CurrencyCode from) {
+        RateMatrix m = getMatrix(from);
+        if (m == null) {
+            try {
+                return getRatesAsync(from, List.of(CurrencyCode.values()), DEFAULT_FAN_OUT_TIMEOUT).join();
+            } catch (CompletionException e) {
+                Throwable cause = unwrap(e);
+                throw cause instanceof RuntimeException
+                        ? (RuntimeException) cause
+                        : new RuntimeException("Failed to fetch exchange rates for " + from, cause);
+            }
+        }
+        Map<CurrencyCode, Double> rates = new EnumMap<>(CurrencyCode.class);
+        for (CurrencyCode to : CurrencyCode.values()) {
+            if (to != from && m.has(from, to)) {
+                rates.put(to, m.rate(from, to));
+            }
+        }
+        return rates;
+    }
+
+    /**
+     * Retorna a matriz atual se válida; caso contrário busca um novo snapshot usando
+     * {@code base} (single-flight). Em falha devolve a matriz anterior (ou null).
+     */
+    private RateMatrix getMatrix(CurrencyCode base) {
+        return awaitMatrix(getMatrixAsync(base), matrix);
+    }
+
+    /**
+     * Versão não bloqueante de {@link #getMatrix}: o future nunca falha, completa com a
+     * matriz nova, ou com a anterior (ou null) se a busca falhar.
+     */
+    CompletableFuture<RateMatrix> getMatrixAsync(CurrencyCode base) {
+        RateMatrix current = matrix;
+        long now = System.currentTimeMillis();
+        if (refreshScheduler != null) {
+            refreshScheduler.touch(MATRIX_KEY);
+        }
+        if (current != null) {
+            long age = now - current.getFetchedAtMillis();
+            if (age < softTtlMillis) {
+                return CompletableFuture.completedFuture(current);
+            }
+            if (age < ttlMillis) {
+                refreshScheduler.requestRefresh(MATRIX_KEY,
+                        () -> loadMatrix(base, current, System.currentTimeMillis()));
+                return CompletableFuture.completedFuture(current);
+            }
+        }
+        return loadMatrixAsync(base, current, now);
+    }
+
+    /** Busca um novo snapshot /latest/{base} e aguarda o resultado (usado pela atualização em segundo plano). */
+    private RateMatrix loadMatrix(CurrencyCode base, RateMatrix current, long now) {
+        return awaitMatrix(loadMatrixAsync(base, current, now), current);
+    }
+
+    /**
+     * Busca um novo snapshot /latest/{base} como líder single-flight (ou reaproveita o líder atual).
+     * Em falha o future completa com {@code current}.
+     */
+    private CompletableFuture<RateMatrix> loadMatrixAsync(CurrencyCode base, RateMatrix current, long now) {
+        CompletableFuture<RateMatrix> mine = new CompletableFuture<>();
+        CompletableFuture<RateMatrix> existing = matrixInFlight.compareAndExchange(null, mine);
+        if (existing != null) {
+            coalescedFetches.increment();
+            return existing.exceptionally(e -> current);
+        }
+
+        issuedFetches.increment();
+        CompletableFuture<ExchangeLatestResponse> request;
+        try {
+            request = provider.fetchLatestAsync(base.name(), RateProvider.DEFAULT_TIMEOUT);
+        } catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+        request.whenComplete((resp, error) -> {
+            try {
+                if (error != null) {
+                    mine.completeExceptionally(unwrap(error));
+                } else if (resp == null || resp.conversion_rates == null) {
+                    mine.completeExceptionally(new ExchangeRateException("Empty rate table for " + base));
+                } else {
+                    long fetchedAt = fetchedAt(resp.time_last_update_unix, resp.time_next_update_unix, now);
+                    RateMatrix previous = matrix;
+                    if (previous != null && previous.getFetchedAtMillis() > fetchedAt) {
+                        mine.complete(previous); // dados vencidos não substituem um snapshot mais novo
+                        return;
+                    }
+                    RateMatrix built = RateMatrix.fromBaseRates(resp.conversion_rates, fetchedAt);
+                    matrix = built;
+                    matrixBase = base;
+                    rateUpdates.increment();
+                    if (fetchedAt == now) {
+                        recordMatrix(base, built);
+                    }
+                    for (RateListener listener : listeners) {
+                        try {
+                            listener.onMatrix(built);
+                        } catch (RuntimeException e) {
+                            LOGGER.log(Level.WARNING, "Rate listener failed", e);
+                        }
+                    }
+                    mine.complete(built);
+                }
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+            } finally {
+                matrixInFlight.compareAndSet(mine, null);
+            }
+        });
+        return mine.exceptionally(e -> current);
+    }
+
+    /**
+     * Grava no histórico a linha da base do snapshot e as taxas cruzadas dos pares que já têm série
+     * (gravar todos os N² pares multiplicaria a memória sem que sejam consultados).
+     */
+    private void recordMatrix(CurrencyCode base, RateMatrix built) {
+        long at = built.getFetchedAtMillis();
+        for (CurrencyCode from : CurrencyCode.values()) {
+            for (CurrencyCode to : CurrencyCode.values()) {
+                if (built.has(from, to) && (from == base || timeSeries.hasSeries(from, to))) {
+                    timeSeries.record(from, to, built.rate(from, to), at);
+                }
+            }
+        }
+    }
+
+    private static RateMatrix awaitMatrix(CompletableFuture<RateMatrix> pending, RateMatrix fallback) {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback;
+        } catch (ExecutionException e) {
+            return fallback;
+        }
     }
 
     /**
      * Sobrecarga typed-safe de {@link #convert(double, String, String)}.
      */
     public double convert(CurrencyCode from, CurrencyCode to, double amount) {
-        return convert(amount, from.name(), to.name());
+        return ConversionCalculator.convert(amount, getRate(from, to));
     }
 
     /**
      * Sobrecarga typed-safe de {@link #convertDetailed(double, String, String)}.
      */
     public ConversionCalculator.ConversionResult convertDetailed(CurrencyCode from, CurrencyCode to, double amount) {
-        return convertDetailed(amount, from.name(), to.name());
+        double rate = getRate(from, to);
+        double converted = ConversionCalculator.convert(amount, rate);
+        return new ConversionCalculator.ConversionResult(amount, from.name(), converted, to.name(), rate);
+    }
+
+    /**
+     * Taxa do par vigente em {@code atMillis}: o último valor obtido do upstream até esse instante,
+     * resolvido no histórico local (busca binária nos blocos do par), sem rede e sem consumir cota.
+     * @throws NoSuchElementException se não houver taxa registrada até o instante
+     */
+    public RatePoint getRateAt(CurrencyCode from, CurrencyCode to, long atMillis) {
+        RatePoint point = timeSeries.rateAt(from, to, atMillis);
+        if (point == null) {
+            throw new NoSuchElementException("No recorded rate for " + from.name() + "->" + to.name() + " at or before " + atMillis);
+        }
+        return point;
+    }
+
+    /**
+     * Converte com a taxa vigente em {@code atMillis} (ver {@link #getRateAt}); não registra demanda
+     * no governador de cota nem busca no upstream, então reavaliações em massa não fazem I/O.
+     * @throws NoSuchElementException se não houver taxa registrada até o instante
+     */
+    public ConversionCalculator.ConversionResult convertDetailed(CurrencyCode from, CurrencyCode to, double amount,
+                                                                 long atMillis) {
+        double rate = getRateAt(from, to, atMillis).getRate();
+        double converted = ConversionCalculator.convert(amount, rate);
+        return new ConversionCalculator.ConversionResult(amount, from.name(), converted, to.name(), rate);
+    }
+
+    /**
+     * Conversão exata em ponto fixo ({@link FixedPointMoney}): resultado na escala da unidade menor
+     * da moeda destino (2 casas para BRL, 0 para JPY) com o arredondamento pedido, sem os artefatos
+     * binários do caminho em double.
+     */
+    public ConversionCalculator.ConversionResult convertExact(CurrencyCode from, CurrencyCode to, BigDecimal amount,
+                                                              RoundingMode rounding) {
+        return exactResult(from, to, amount, getRate(from, to), rounding);
+    }
+
+    /**
+     * Conversão exata com a taxa vigente em {@code atMillis} (ver {@link #getRateAt}).
+     * @throws NoSuchElementException se não houver taxa registrada até o instante
+     */
+    public ConversionCalculator.ConversionResult convertExact(CurrencyCode from, CurrencyCode to, BigDecimal amount,
+                                                              RoundingMode rounding, long atMillis) {
+        return exactResult(from, to, amount, getRateAt(from, to, atMillis).getRate(), rounding);
+    }
+
+    private static ConversionCalculator.ConversionResult exactResult(CurrencyCode from, CurrencyCode to,
+                                                                     BigDecimal amount, double rate,
+                                                                     RoundingMode rounding) {
+        BigDecimal converted = FixedPointMoney.convert(amount, rate, to, rounding);
+        return new ConversionCalculator.ConversionResult(amount, from.name(), converted, to.name(), rate);
     }
 
     /**
@@ -0,0 +1,148 @@
+package com.otto.conversormoedas.service;
+
+import com.otto.conversormoedas.model.CurrencyCode;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache de taxas por par com escopo de um lote/stream, apoiado no {@link CurrencyConverterService}.
+ * Cada par distinto é resolvido no máximo uma vez (indexado por ordinal, sem chaves String);
+ * falhas também são memorizadas, para que um par indisponível não repita a busca a cada linha.
+ * Quando os pares são conhecidos de antemão (lote), {@link #prefetch} os busca em paralelo.
+ * Não é thread-safe: use uma instância por requisição/arquivo.
+ */
+public class PairRateResolver {
+    private static final CurrencyCode[] CODES = CurrencyCode.values();
+    private static final int SIZE = CODES.length;
+
+    private final CurrencyConverterService service;
+    private final double[] rates = new double[SIZE * SIZE];
+    private String[] errors;
+    private int resolvedPairs;
+
+    public PairRateResolver(CurrencyConverterService service) {
+        this.service = service;
+        Arrays.fill(rates, Double.NaN);
+    }
+
+    /**
+     * Taxa from→to, resolvida na primeira chamada do par e reaproveitada nas seguintes.
+     * @return a taxa, ou NaN se o par não pôde ser resolvido (ver {@link #error})
+     */
+    public double rate(CurrencyCode from, CurrencyCode to) {
+        int index = pairIndex(from, to);
+        double rate = rates[index];
+        if (!Double.isNaN(rate) || (errors != null && errors[index] != null)) {
+            return rate;
+        }
+        resolvedPairs++;
+        try {
+            rate = service.getRate(from, to);
+            rates[index] = rate;
+        } catch (RuntimeException e) {
+            recordError(index, e);
+        }
+        return rate;
+    }
+
+    /** Índice do par usado em {@link #prefetch}. */
+    public static int pairIndex(CurrencyCode from, CurrencyCode to) {
+        return from.ordinal() * SIZE + to.ordinal();
+    }
+
+    /**
+     * Resolve de uma vez os pares marcados em {@code pairs} (ver {@link #pairIndex}) que ainda não
+     * foram consultados, via {@link CurrencyConverterService#getRateAsync(CurrencyCode, CurrencyCode)}
+     * com no máximo {@code maxConcurrency} buscas simultâneas. Bloqueia até todas terminarem;
+     * depois {@link #rate} responde desses pares sem ir ao serviço.
+     */
+    public void prefetch(BitSet pairs, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency deve ser positivo: " + maxConcurrency);
+        }
+        int[] targets = new int[pairs.cardinality()];
+        int n = 0;
+        for (int i = pairs.nextSetBit(0); i >= 0; i = pairs.nextSetBit(i + 1)) {
+            if (Double.isNaN(rates[i]) && (errors == null || errors[i] == null)) {
+                targets[n++] = i;
+            }
+        }
+        if (n == 0) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Double>[] results = new CompletableFuture[n];
+        for (int i = 0; i < n; i++) {
+            results[i] = new CompletableFuture<>();
+        }
+        AtomicInteger next = new AtomicInteger();
+        for (int i = 0; i < Math.min(maxConcurrency, n); i++) {
+            launchNext(targets, n, results, next);
+        }
+        try {
+            CompletableFuture.allOf(results).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Falhas ficam registradas par a par abaixo
+        }
+
+        for (int i = 0; i < n; i++) {
+            CompletableFuture<Double> result = results[i];
+            if (!result.isDone()) {
+                continue; // interrompido: rate() buscará o par na primeira consulta
+            }
+            resolvedPairs++;
+            int index = targets[i];
+            try {
+                rates[index] = result.join();
+            } catch (CompletionException e) {
+                recordError(index, e.getCause() != null ? e.getCause() : e);
+            }
+        }
+    }
+
+    /** Dispara a próxima busca da fila; ao terminar, cada busca libera a vaga para a seguinte. */
+    private void launchNext(int[] targets, int n, CompletableFuture<Double>[] results, AtomicInteger next) {
+        int i = next.getAndIncrement();
+        if (i >= n) {
+            return;
+        }
+        CompletableFuture<Double> rate;
+        try {
+            rate = service.getRateAsync(CODES[targets[i] / SIZE], CODES[targets[i] % SIZE]);
+        } catch (RuntimeException e) {
+            rate = CompletableFuture.failedFuture(e);
+        }
+        rate.whenComplete((value, error) -> {
+            if (error != null) {
+                results[i].completeExceptionally(error);
+            } else {
+                results[i].complete(value);
+            }
+            launchNext(targets, n, results, next);
+        });
+    }
+
+    private void recordError(int index, Throwable e) {
+        if (errors == null) {
+            errors = new String[SIZE * SIZE];
+        }
+        errors[index] = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    /** Mensagem de erro do par, ou null se foi resolvido (ou ainda não consultado). */
+    public String error(CurrencyCode from, CurrencyCode to) {
+        return errors == null ? null : errors[pairIndex(from, to)];
+    }
+
+    /** Quantidade de pares distintos consultados no serviço. */
+    public int getResolvedPairs() {
+        return resolvedPairs;
+    }
+}
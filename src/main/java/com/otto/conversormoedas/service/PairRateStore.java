@@ -0,0 +1,65 @@
+package com.otto.conversormoedas.service;
+
+import com.otto.conversormoedas.model.CurrencyCode;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Armazenamento primitivo das taxas por par, indexado por {@code from.ordinal() * N + to.ordinal()}.
+ * Leitura sem alocação: um {@code double[]} de taxas e um {@code long[]} de timestamps.
+ * Publicação: a taxa é gravada antes do timestamp (release); o leitor lê o timestamp (acquire)
+ * e depois a taxa, portanto um timestamp visível nunca é mais novo que a taxa lida.
+ * Um terceiro {@code long[]} guarda o último acesso de cada par, lido pela varredura de atualização.
+ */
+final class PairRateStore {
+    /** Quantidade de moedas (dimensão de cada linha). */
+    static final int SIZE = CurrencyCode.values().length;
+    /** Timestamp que indica slot vazio. */
+    static final long ABSENT = 0L;
+
+    private static final VarHandle RATES = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final VarHandle TIMES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final double[] rates = new double[SIZE * SIZE];
+    private final long[] fetchedAtMillis = new long[SIZE * SIZE];
+    private final long[] accessedAtMillis = new long[SIZE * SIZE];
+
+    /** Índice do par no armazenamento. */
+    static int index(CurrencyCode from, CurrencyCode to) {
+        return from.ordinal() * SIZE + to.ordinal();
+    }
+
+    /** Timestamp da captura do par (epoch millis), ou {@link #ABSENT}. */
+    long fetchedAt(int index) {
+        return (long) TIMES.getAcquire(fetchedAtMillis, index);
+    }
+
+    /** Taxa do par; válida somente se {@link #fetchedAt(int)} != {@link #ABSENT}. */
+    double rate(int index) {
+        return (double) RATES.getOpaque(rates, index);
+    }
+
+    /** Publica a taxa do par com o instante da captura. */
+    void put(int index, double rate, long fetchedAt) {
+        RATES.setOpaque(rates, index, rate);
+        TIMES.setRelease(fetchedAtMillis, index, fetchedAt);
+    }
+
+    /** Último acesso registrado do par (epoch millis), ou {@link #ABSENT}. */
+    long accessedAt(int index) {
+        return (long) TIMES.getOpaque(accessedAtMillis, index);
+    }
+
+    /**
+     * Registra acesso ao par; grava só quando o milissegundo mudou, para não disputar a linha de cache.
+     * @return true se gravou (primeiro acesso do par neste milissegundo, salvo corrida)
+     */
+    boolean markAccess(int index, long now) {
+        if ((long) TIMES.getOpaque(accessedAtMillis, index) == now) {
+            return false;
+        }
+        TIMES.setOpaque(accessedAtMillis, index, now);
+        return true;
+    }
+}
@@ -0,0 +1,271 @@
+package com.otto.conversormoedas.service;
+
+import com.otto.conversormoedas.client.QuotaExceededException;
+import com.otto.conversormoedas.model.CurrencyCode;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolve as taxas from→X de todas as moedas com prazo e concorrência limitada (GET /api/rates).
+ * Fluxo: tenta o snapshot /latest/{from} (uma chamada); se não houver snapshot, dispara as buscas
+ * por par em paralelo, no máximo {@code maxConcurrency} ao mesmo tempo.
+ * Ao estourar o prazo devolve o que já foi resolvido, com o status de cada moeda; as buscas
+ * pendentes continuam e preenchem o cache para as próximas requisições.
+ */
+public class ParallelRatesResolver {
+    /** Buscas por par simultâneas, por padrão. */
+    public static final int DEFAULT_MAX_CONCURRENCY = 8;
+    /** Prazo padrão da resolução completa. */
+    public static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(5);
+    /** {@link Result#getSnapshotVersion()} de resultados sem snapshot. */
+    public static final long NO_SNAPSHOT = 0L;
+
+    /** Situação de cada moeda no resultado. */
+    public enum Status {
+        /** Taxa resolvida. */
+        OK,
+        /** Moeda ausente no snapshot do upstream. */
+        UNAVAILABLE,
+        /** A busca falhou. */
+        ERROR,
+        /** A busca não terminou dentro do prazo. */
+        TIMEOUT
+    }
+
+    /** Resultado (possivelmente parcial) da resolução. */
+    public static final class Result {
+        private final CurrencyCode base;
+        private final Map<CurrencyCode, Double> rates;
+        private final Map<CurrencyCode, Status> statuses;
+        private final Map<CurrencyCode, String> errors;
+        private final long snapshotVersion;
+        private final QuotaExceededException quotaDenial;
+
+        Result(CurrencyCode base, Map<CurrencyCode, Double> rates, Map<CurrencyCode, Status> statuses,
+               Map<CurrencyCode, String> errors) {
+            this(base, rates, statuses, errors, NO_SNAPSHOT, null);
+        }
+
+        Result(CurrencyCode base, Map<CurrencyCode, Double> rates, Map<CurrencyCode, Status> statuses,
+               Map<CurrencyCode, String> errors, long snapshotVersion, QuotaExceededException quotaDenial) {
+            this.base = base;
+            this.rates = Collections.unmodifiableMap(rates);
+            this.statuses = Collections.unmodifiableMap(statuses);
+            this.errors = Collections.unmodifiableMap(errors);
+            this.snapshotVersion = snapshotVersion;
+            this.quotaDenial = quotaDenial;
+        }
+
+        public CurrencyCode getBase() {
+            return base;
+        }
+
+        /** Taxas resolvidas (somente moedas com status OK). */
+        public Map<CurrencyCode, Double> getRates() {
+            return rates;
+        }
+
+        /** Status de cada moeda (exceto a base). */
+        public Map<CurrencyCode, Status> getStatuses() {
+            return statuses;
+        }
+
+        /** Mensagem de erro das moedas com status ERROR. */
+        public Map<CurrencyCode, String> getErrors() {
+            return errors;
+        }
+
+        /**
+         * Versão do snapshot /latest usado (instante de captura, em ms), ou {@link #NO_SNAPSHOT}
+         * quando as taxas vieram de buscas por par. Mesma versão e mesma base = mesmas taxas.
+         */
+        public long getSnapshotVersion() {
+            return snapshotVersion;
+        }
+
+        /**
+         * Recusa do governador de cota que fez alguma busca falhar (a primeira encontrada), ou null.
+         * Permite ao chamador responder 429/503 com Retry-After quando nenhuma taxa foi obtida.
+         */
+        public QuotaExceededException getQuotaDenial() {
+            return quotaDenial;
+        }
+
+        /** true se nenhuma busca falhou nem estourou o prazo. */
+        public boolean isComplete() {
+            return !statuses.containsValue(Status.ERROR) && !statuses.containsValue(Status.TIMEOUT);
+        }
+    }
+
+    private final CurrencyConverterService service;
+    private final int maxConcurrency;
+
+    public ParallelRatesResolver(CurrencyConverterService service) {
+        this(service, DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * @param service serviço de conversão
+     * @param maxConcurrency máximo de buscas por par simultâneas
+     */
+    public ParallelRatesResolver(CurrencyConverterService service, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency deve ser positivo: " + maxConcurrency);
+        }
+        this.service = service;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Resolve as taxas from→X, bloqueando no máximo até {@code deadline}.
+     */
+    public Result resolve(CurrencyCode from, Duration deadline) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        CurrencyCode[] codes = CurrencyCode.values();
+        Map<CurrencyCode, Double> rates = new EnumMap<>(CurrencyCode.class);
+        Map<CurrencyCode, Status> statuses = new EnumMap<>(CurrencyCode.class);
+        Map<CurrencyCode, String> errors = new EnumMap<>(CurrencyCode.class);
+
+        RateMatrix m;
+        try {
+            m = await(service.getMatrixAsync(from), deadlineNanos);
+        } catch (TimeoutException e) {
+            for (CurrencyCode to : codes) {
+                if (to != from) {
+                    statuses.put(to, Status.TIMEOUT);
+                }
+            }
+            return new Result(from, rates, statuses, errors);
+        }
+        if (m != null) {
+            for (CurrencyCode to : codes) {
+                if (to == from) {
+                    continue;
+                }
+                if (m.has(from, to)) {
+                    rates.put(to, m.rate(from, to));
+                    statuses.put(to, Status.OK);
+                } else {
+                    statuses.put(to, Status.UNAVAILABLE);
+                }
+            }
+            return new Result(from, rates, statuses, errors, m.getFetchedAtMillis(), null);
+        }
+
+        // Sem snapshot: buscas por par com concorrência limitada
+        CurrencyCode[] targets = new CurrencyCode[codes.length - 1];
+        int n = 0;
+        for (CurrencyCode to : codes) {
+            if (to != from) {
+                targets[n++] = to;
+            }
+        }
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Double>[] results = new CompletableFuture[n];
+        for (int i = 0; i < n; i++) {
+            results[i] = new CompletableFuture<>();
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean expired = new AtomicBoolean();
+        for (int i = 0; i < Math.min(maxConcurrency, n); i++) {
+            launchNext(from, targets, results, next, expired);
+        }
+        try {
+            await(CompletableFuture.allOf(results), deadlineNanos);
+        } catch (TimeoutException e) {
+            expired.set(true); // as que ainda não começaram não são mais disparadas
+        }
+
+        QuotaExceededException quotaDenial = null;
+        for (int i = 0; i < n; i++) {
+            CompletableFuture<Double> result = results[i];
+            if (!result.isDone()) {
+                statuses.put(targets[i], Status.TIMEOUT);
+            } else if (result.isCompletedExceptionally()) {
+                statuses.put(targets[i], Status.ERROR);
+                errors.put(targets[i], errorMessage(result));
+                if (quotaDenial == null) {
+                    quotaDenial = quotaCause(result);
+                }
+            } else {
+                rates.put(targets[i], result.join());
+                statuses.put(targets[i], Status.OK);
+            }
+        }
+        return new Result(from, rates, statuses, errors, NO_SNAPSHOT, quotaDenial);
+    }
+
+    /** Dispara a próxima busca da fila; ao terminar, cada busca libera a vaga para a seguinte. */
+    private void launchNext(CurrencyCode from, CurrencyCode[] targets, CompletableFuture<Double>[] results,
+                            AtomicInteger next, AtomicBoolean expired) {
+        if (expired.get()) {
+            return;
+        }
+        int i = next.getAndIncrement();
+        if (i >= targets.length) {
+            return;
+        }
+        CompletableFuture<Double> rate;
+        try {
+            rate = service.getRateAsync(from, targets[i]);
+        } catch (RuntimeException e) {
+            rate = CompletableFuture.failedFuture(e);
+        }
+        rate.whenComplete((value, error) -> {
+            if (error != null) {
+                results[i].completeExceptionally(error);
+            } else {
+                results[i].complete(value);
+            }
+            launchNext(from, targets, results, next, expired);
+        });
+    }
+
+    private static <T> T await(CompletableFuture<T> future, long deadlineNanos) throws TimeoutException {
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrompido");
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private static QuotaExceededException quotaCause(CompletableFuture<Double> failed) {
+        try {
+            failed.join();
+            return null;
+        } catch (CompletionException e) {
+            Throwable error = e;
+            for (int depth = 0; error != null && depth < 8; depth++, error = error.getCause()) {
+                if (error instanceof QuotaExceededException) {
+                    return (QuotaExceededException) error;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static String errorMessage(CompletableFuture<Double> failed) {
+        try {
+            failed.join();
+            return null;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            // "Failed to fetch exchange rate for X" + causa original
+            Throwable root = cause.getCause() != null ? cause.getCause() : cause;
+            return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.otto.conversormoedas.service;
+
+import com.otto.conversormoedas.model.CurrencyCode;
+
+/**
+ * Recebe as taxas novas obtidas do upstream ({@link CurrencyConverterService#addRateListener}).
+ * Chamado na thread que completou a busca: a implementação não deve bloquear.
+ */
+public interface RateListener {
+    /** Novo snapshot /latest: todas as taxas cruzadas. */
+    void onMatrix(RateMatrix matrix);
+
+    /** Nova taxa de um par buscado individualmente. */
+    void onPairRate(CurrencyCode from, CurrencyCode to, double rate, long fetchedAtMillis);
+}
@@ -0,0 +1,63 @@
+package com.otto.conversormoedas.service;
+
+import com.otto.conversormoedas.model.CurrencyCode;
+
+import java.util.Map;
+
+/**
+ * Matriz densa de taxas cruzadas derivada de um único snapshot de moeda base.
+ * Indexada por {@link CurrencyCode#ordinal()}: taxa(from→to) = base→to / base→from.
+ * Imutável após construção; pares sem cotação na API ficam como NaN.
+ */
+public final class RateMatrix {
+    private static final CurrencyCode[] CODES = CurrencyCode.values();
+    /** Quantidade de moedas (dimensão da matriz). */
+    public static final int SIZE = CODES.length;
+
+    private final double[] rates;
+    private final long fetchedAtMillis;
+
+    private RateMatrix(double[] rates, long fetchedAtMillis) {
+        this.rates = rates;
+        this.fetchedAtMillis = fetchedAtMillis;
+    }
+
+    /**
+     * Constrói a matriz a partir das taxas base→X retornadas pelo endpoint /latest.
+     * @param baseRates mapa código→taxa relativo à moeda base do snapshot
+     * @param fetchedAtMillis instante da captura (epoch millis)
+     */
+    public static RateMatrix fromBaseRates(Map<String, Double> baseRates, long fetchedAtMillis) {
+        double[] base = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            Double value = baseRates.get(CODES[i].name());
+            base[i] = (value != null && value > 0) ? value : Double.NaN;
+        }
+
+        double[] rates = new double[SIZE * SIZE];
+        for (int from = 0; from < SIZE; from++) {
+            int row = from * SIZE;
+            double fromRate = base[from];
+            for (int to = 0; to < SIZE; to++) {
+                // NaN se propaga naturalmente para pares sem cotação
+                rates[row + to] = (from == to) ? 1.0 : base[to] / fromRate;
+            }
+        }
+        return new RateMatrix(rates, fetchedAtMillis);
+    }
+
+    /** Taxa from→to, ou NaN se alguma das moedas não estiver no snapshot. */
+    public double rate(CurrencyCode from, CurrencyCode to) {
+        return rates[from.ordinal() * SIZE + to.ordinal()];
+    }
+
+    /** Indica se o snapshot contém cotação para o par. */
+    public boolean has(CurrencyCode from, CurrencyCode to) {
+        return !Double.isNaN(rate(from, to));
+    }
+
+    /** Instante da captura do snapshot (epoch millis). */
+    public long getFetchedAtMillis() {
+        return fetchedAtMillis;
+    }
+}
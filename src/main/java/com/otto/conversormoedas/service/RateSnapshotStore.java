@@ -0,0 +1,220 @@
+package com.otto.conversormoedas.service;
+
+import com.otto.conversormoedas.model.CurrencyCode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistência das taxas em um arquivo binário compacto, para partir com o cache "quente"
+ * após um restart/deploy e servir as últimas taxas conhecidas se o upstream estiver fora.
+ * <p>
+ * Formato (big-endian, tamanho fixo):
+ * <pre>
+ * cabeçalho (40 bytes): magic "CMRS" | versão | nº de moedas | hash dos códigos |
+ *                       salvo em (long) | matriz capturada em (long) | base da matriz | reservado
+ * pares  (N*N x 16 bytes): taxa (double) | capturada em (long, 0 = ausente), índice from*N + to
+ * matriz (N x 8 bytes): taxas base→X do snapshot /latest (NaN = ausente)
+ * </pre>
+ * Indexado por {@link CurrencyCode#ordinal()}; o hash dos códigos invalida o arquivo se o enum mudar.
+ * A leitura usa o arquivo mapeado em memória; a escrita grava um temporário e o renomeia
+ * atomicamente, então um arquivo lido nunca está pela metade.
+ */
+public class RateSnapshotStore implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(RateSnapshotStore.class.getName());
+
+    static final int MAGIC = 0x434D5253; // "CMRS"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 40;
+    static final int PAIR_RECORD_BYTES = 16;
+    private static final CurrencyCode[] CODES = CurrencyCode.values();
+    private static final int SIZE = CODES.length;
+    static final int FILE_BYTES = HEADER_BYTES + SIZE * SIZE * PAIR_RECORD_BYTES + SIZE * Double.BYTES;
+    private static final int NO_BASE = -1;
+
+    private final Path file;
+    private final long flushPeriodMillis;
+    private final ScheduledExecutorService executor;
+    private CurrencyConverterService service;
+    private long savedUpdates = -1;
+
+    /**
+     * @param file caminho do arquivo de snapshot
+     * @param flushPeriodMillis intervalo entre gravações (só grava se houver taxas novas)
+     */
+    public RateSnapshotStore(Path file, long flushPeriodMillis) {
+        this.file = file;
+        this.flushPeriodMillis = flushPeriodMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rate-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Carrega o snapshot no serviço (pares e matriz). Arquivo ausente, de outra versão ou
+     * corrompido é ignorado: o serviço apenas começa frio.
+     * @return quantidade de pares restaurados
+     */
+    public int restore(CurrencyConverterService service) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != FILE_BYTES) {
+                LOGGER.warning("Snapshot de taxas ignorado (tamanho inesperado): " + file);
+                return 0;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_BYTES);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getInt() != SIZE || buffer.getInt() != codesHash()) {
+                LOGGER.warning("Snapshot de taxas ignorado (formato ou moedas diferentes): " + file);
+                return 0;
+            }
+            buffer.getLong(); // salvo em
+            long matrixFetchedAt = buffer.getLong();
+            int matrixBase = buffer.getInt();
+            buffer.getInt(); // reservado
+
+            int restored = 0;
+            for (int from = 0; from < SIZE; from++) {
+                for (int to = 0; to < SIZE; to++) {
+                    double rate = buffer.getDouble();
+                    long fetchedAt = buffer.getLong();
+                    if (fetchedAt != PairRateStore.ABSENT && rate > 0) {
+                        service.restorePair(CODES[from], CODES[to], rate, fetchedAt);
+                        restored++;
+                    }
+                }
+            }
+            if (matrixFetchedAt != PairRateStore.ABSENT && matrixBase >= 0 && matrixBase < SIZE) {
+                Map<String, Double> baseRates = new HashMap<>();
+                for (int to = 0; to < SIZE; to++) {
+                    double rate = buffer.getDouble();
+                    if (!Double.isNaN(rate)) {
+                        baseRates.put(CODES[to].name(), rate);
+                    }
+                }
+                service.restoreMatrix(CODES[matrixBase], RateMatrix.fromBaseRates(baseRates, matrixFetchedAt));
+            }
+            savedUpdates = service.getRateUpdates();
+            LOGGER.info("💾 Snapshot de taxas carregado: " + restored + " pares"
+                    + (matrixFetchedAt != PairRateStore.ABSENT ? " + tabela completa" : "") + " (" + file + ")");
+            return restored;
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Falha ao ler o snapshot de taxas " + file, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Inicia a gravação periódica das taxas do serviço (somente quando mudaram).
+     */
+    public void start(CurrencyConverterService service) {
+        this.service = service;
+        executor.scheduleWithFixedDelay(this::saveIfChanged, flushPeriodMillis, flushPeriodMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void saveIfChanged() {
+        try {
+            if (service.getRateUpdates() != savedUpdates) {
+                save(service);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Falha ao gravar o snapshot de taxas " + file, e);
+        }
+    }
+
+    /**
+     * Grava as taxas atuais do serviço (temporário + rename atômico).
+     */
+    public synchronized void save(CurrencyConverterService service) throws IOException {
+        long updates = service.getRateUpdates();
+        ByteBuffer buffer = ByteBuffer.allocate(FILE_BYTES);
+        RateMatrix m = service.currentMatrix();
+        int base = m != null ? matrixRow(m) : NO_BASE;
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(SIZE).putInt(codesHash())
+                .putLong(System.currentTimeMillis())
+                .putLong(base != NO_BASE ? m.getFetchedAtMillis() : PairRateStore.ABSENT)
+                .putInt(base)
+                .putInt(0);
+
+        PairRateStore pairs = service.pairRateStore();
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            long fetchedAt = pairs.fetchedAt(i);
+            buffer.putDouble(fetchedAt != PairRateStore.ABSENT ? pairs.rate(i) : 0.0).putLong(fetchedAt);
+        }
+        for (int to = 0; to < SIZE; to++) {
+            buffer.putDouble(base != NO_BASE ? m.rate(CODES[base], CODES[to]) : Double.NaN);
+        }
+        buffer.flip();
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        savedUpdates = updates;
+        LOGGER.fine("Snapshot de taxas gravado em " + file);
+    }
+
+    /** Para a gravação periódica e grava uma última vez, se houver taxas novas. */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        if (service != null) {
+            saveIfChanged();
+        }
+    }
+
+    /**
+     * Linha da matriz usada como base no arquivo: qualquer moeda presente no snapshot
+     * reconstrói a mesma matriz (as taxas cruzadas são razões entre colunas da linha).
+     */
+    private static int matrixRow(RateMatrix m) {
+        for (int from = 0; from < SIZE; from++) {
+            for (int to = 0; to < SIZE; to++) {
+                if (to != from && m.has(CODES[from], CODES[to])) {
+                    return from;
+                }
+            }
+        }
+        return NO_BASE;
+    }
+
+    private static int codesHash() {
+        int hash = 1;
+        for (CurrencyCode code : CODES) {
+            hash = 31 * hash + code.name().hashCode();
+        }
+        return hash;
+    }
+}
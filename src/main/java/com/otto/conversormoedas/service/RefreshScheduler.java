@@ -0,0 +1,132 @@
+package com.otto.conversormoedas.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Agendador de atualização em segundo plano (stale-while-revalidate) do cache de taxas.
+ * - Registra quais chaves estão em uso ({@link #touch(String)}); chaves ociosas são esquecidas
+ *   e deixam de ser atualizadas (não consomem cota do upstream).
+ * - Deduplica atualizações: no máximo uma tarefa pendente por chave.
+ * - Varredura periódica entrega as chaves ativas ao serviço, que decide se estão obsoletas.
+ */
+public class RefreshScheduler implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(RefreshScheduler.class.getName());
+
+    private final ScheduledExecutorService executor;
+    private final long idleMillis;
+    private final long sweepPeriodMillis;
+    private final Map<String, Long> lastAccess = new ConcurrentHashMap<>();
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final LongAdder backgroundRefreshes = new LongAdder();
+    private volatile ToLongFunction<String> recentAccess = k -> 0L;
+
+    /**
+     * @param idleMillis tempo sem acesso após o qual a chave deixa de ser atualizada
+     * @param sweepPeriodMillis intervalo entre varreduras das chaves ativas
+     */
+    public RefreshScheduler(long idleMillis, long sweepPeriodMillis) {
+        this.idleMillis = idleMillis;
+        this.sweepPeriodMillis = sweepPeriodMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rate-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Inicia a varredura periódica; {@code sweeper} recebe cada chave ainda ativa.
+     */
+    void start(Consumer<String> sweeper) {
+        start(sweeper, k -> 0L);
+    }
+
+    /**
+     * Como {@link #start(Consumer)}, mas consulta {@code recentAccess} antes de esquecer uma chave:
+     * acessos registrados fora do {@link #touch(String)} (ex.: array por ordinal no caminho rápido)
+     * também a mantêm ativa.
+     * @param recentAccess último acesso conhecido da chave (epoch millis), ou 0
+     */
+    void start(Consumer<String> sweeper, ToLongFunction<String> recentAccess) {
+        this.recentAccess = recentAccess;
+        executor.scheduleWithFixedDelay(() -> sweep(sweeper),
+                sweepPeriodMillis, sweepPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Marca a chave como em uso agora. */
+    public void touch(String key) {
+        lastAccess.put(key, System.currentTimeMillis());
+    }
+
+    /**
+     * Agenda a atualização da chave, se ainda não houver uma pendente.
+     * @return true se uma nova tarefa foi agendada
+     */
+    public boolean requestRefresh(String key, Runnable refresh) {
+        if (!pending.add(key)) {
+            return false;
+        }
+        backgroundRefreshes.increment();
+        try {
+            executor.execute(() -> {
+                try {
+                    refresh.run();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.FINE, "Background refresh failed for " + key, e);
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Executor encerrado: a próxima leitura após o TTL rígido faz a busca síncrona
+            pending.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    /** Quantidade de chaves atualmente consideradas em uso. */
+    public int getActiveKeyCount() {
+        return lastAccess.size();
+    }
+
+    /** Quantidade de atualizações em segundo plano agendadas. */
+    public long getBackgroundRefreshes() {
+        return backgroundRefreshes.sum();
+    }
+
+    private void sweep(Consumer<String> sweeper) {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Long> e : lastAccess.entrySet()) {
+            if (now - e.getValue() > idleMillis) {
+                long recent = recentAccess.applyAsLong(e.getKey());
+                if (now - recent > idleMillis) {
+                    lastAccess.remove(e.getKey(), e.getValue());
+                    continue;
+                }
+                lastAccess.replace(e.getKey(), e.getValue(), recent);
+            }
+            try {
+                sweeper.accept(e.getKey());
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.FINE, "Refresh sweep failed for " + e.getKey(), ex);
+            }
+        }
+    }
+
+    /** Encerra o executor de atualização. */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
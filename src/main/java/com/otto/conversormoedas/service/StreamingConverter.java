@@ -0,0 +1,344 @@
+package com.otto.conversormoedas.service;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.otto.conversormoedas.model.CurrencyCode;
+import com.otto.conversormoedas.util.ConversionCalculator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Conversão em streaming de arquivos grandes (CSV ou NDJSON), linha a linha.
+ * Memória constante: lê uma linha, resolve a taxa no {@link PairRateResolver} do stream
+ * (cada par distinto consulta o serviço uma única vez) e escreve o resultado imediatamente.
+ * - CSV: cabeçalho opcional com colunas from/to/amount (sem cabeçalho: três primeiras colunas);
+ *   separador ';' se aparecer fora de aspas na primeira linha (valores com vírgula decimal), senão ',';
+ *   a saída repete a linha original e acrescenta as colunas result, rate e error.
+ * - NDJSON: um objeto {from, to, amount} por linha; saída com um objeto de resultado por linha.
+ * Erros por linha não interrompem o stream.
+ */
+public class StreamingConverter {
+
+    /** Formatos suportados. */
+    public enum Format {
+        CSV, NDJSON;
+
+        /** Detecta pelo Content-Type (null se não suportado). */
+        public static Format fromContentType(String contentType) {
+            if (contentType == null) {
+                return null;
+            }
+            String type = contentType.toLowerCase(Locale.ROOT);
+            if (type.startsWith("text/csv")) {
+                return CSV;
+            }
+            if (type.startsWith("application/x-ndjson") || type.startsWith("application/ndjson")) {
+                return NDJSON;
+            }
+            return null;
+        }
+
+        /** Detecta pela extensão do arquivo (.csv, .ndjson, .jsonl); null se não suportado. */
+        public static Format fromFileName(String fileName) {
+            String name = fileName.toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                return NDJSON;
+            }
+            return null;
+        }
+    }
+
+    /** Resumo de um stream convertido. */
+    public static final class Summary {
+        private final long lines;
+        private final long converted;
+        private final int distinctPairs;
+
+        Summary(long lines, long converted, int distinctPairs) {
+            this.lines = lines;
+            this.converted = converted;
+            this.distinctPairs = distinctPairs;
+        }
+
+        /** Linhas de dados processadas (sem cabeçalho e linhas vazias). */
+        public long getLines() {
+            return lines;
+        }
+
+        public long getConverted() {
+            return converted;
+        }
+
+        public long getFailed() {
+            return lines - converted;
+        }
+
+        /** Pares distintos consultados no serviço. */
+        public int getDistinctPairs() {
+            return distinctPairs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d linhas, %d convertidas, %d com erro, %d pares distintos",
+                lines, converted, getFailed(), distinctPairs);
+        }
+    }
+
+    private final CurrencyConverterService service;
+
+    public StreamingConverter(CurrencyConverterService service) {
+        this.service = service;
+    }
+
+    /**
+     * Converte {@code in} em {@code out} no formato informado. Não fecha os streams.
+     */
+    public Summary convert(Reader in, Writer out, Format format) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        PairRateResolver resolver = new PairRateResolver(service);
+        Summary summary = format == Format.CSV
+            ? convertCsv(reader, out, resolver)
+            : convertNdjson(reader, out, resolver);
+        out.flush();
+        return summary;
+    }
+
+    private Summary convertCsv(BufferedReader reader, Writer out, PairRateResolver resolver) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return new Summary(0, 0, 0);
+        }
+        char delimiter = detectDelimiter(line);
+        int fromCol = 0;
+        int toCol = 1;
+        int amountCol = 2;
+
+        List<String> fields = new ArrayList<>();
+        splitCsv(line, delimiter, fields);
+        int headerFrom = indexOfIgnoreCase(fields, "from");
+        int headerTo = indexOfIgnoreCase(fields, "to");
+        int headerAmount = indexOfIgnoreCase(fields, "amount");
+        if (headerFrom >= 0 && headerTo >= 0 && headerAmount >= 0) {
+            fromCol = headerFrom;
+            toCol = headerTo;
+            amountCol = headerAmount;
+            out.write(line);
+            out.write(delimiter + "result" + delimiter + "rate" + delimiter + "error\n");
+            line = reader.readLine();
+        }
+
+        long lines = 0;
+        long converted = 0;
+        for (; line != null; line = reader.readLine()) {
+            if (line.isBlank()) {
+                continue;
+            }
+            lines++;
+            splitCsv(line, delimiter, fields);
+            String error;
+            double rate = Double.NaN;
+            double result = Double.NaN;
+            int maxCol = Math.max(fromCol, Math.max(toCol, amountCol));
+            if (fields.size() <= maxCol) {
+                error = "Colunas insuficientes";
+            } else {
+                CurrencyCode from = CurrencyCode.lookup(fields.get(fromCol).trim());
+                CurrencyCode to = CurrencyCode.lookup(fields.get(toCol).trim());
+                double amount = parseAmount(fields.get(amountCol));
+                error = validate(from, to, amount);
+                if (error == null) {
+                    rate = resolver.rate(from, to);
+                    if (Double.isNaN(rate)) {
+                        error = "Taxa indisponível: " + resolver.error(from, to);
+                    } else {
+                        result = ConversionCalculator.convert(amount, rate);
+                    }
+                }
+            }
+
+            out.write(line);
+            out.write(delimiter);
+            if (error == null) {
+                converted++;
+                out.write(Double.toString(result));
+                out.write(delimiter);
+                out.write(Double.toString(rate));
+                out.write(delimiter);
+            } else {
+                out.write(delimiter);
+                out.write(delimiter);
+                out.write(quoteCsv(error, delimiter));
+            }
+            out.write('\n');
+        }
+        return new Summary(lines, converted, resolver.getResolvedPairs());
+    }
+
+    private Summary convertNdjson(BufferedReader reader, Writer out, PairRateResolver resolver) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.setLenient(true); // vários valores de topo, separados por '\n'
+        long lines = 0;
+        long converted = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            lines++;
+            String rawFrom = null;
+            String rawTo = null;
+            CurrencyCode from = null;
+            CurrencyCode to = null;
+            double amount = Double.NaN;
+            String error = null;
+            try {
+                JsonElement element = JsonParser.parseString(line);
+                if (element.isJsonObject()) {
+                    JsonObject obj = element.getAsJsonObject();
+                    rawFrom = stringField(obj, "from");
+                    rawTo = stringField(obj, "to");
+                    String rawAmount = stringField(obj, "amount");
+                    from = CurrencyCode.lookup(rawFrom);
+                    to = CurrencyCode.lookup(rawTo);
+                    amount = rawAmount == null ? Double.NaN : parseAmount(rawAmount);
+                    error = validate(from, to, amount);
+                } else {
+                    error = "Linha deve ser um objeto {from, to, amount}";
+                }
+            } catch (JsonParseException e) {
+                error = "JSON inválido na linha";
+            }
+
+            double rate = Double.NaN;
+            if (error == null) {
+                rate = resolver.rate(from, to);
+                if (Double.isNaN(rate)) {
+                    error = "Taxa indisponível: " + resolver.error(from, to);
+                }
+            }
+
+            writer.beginObject();
+            writer.name("line").value(lineNumber);
+            if (error == null) {
+                converted++;
+                writer.name("from").value(from.name());
+                writer.name("to").value(to.name());
+                writer.name("amount").value(amount);
+                writer.name("result").value(ConversionCalculator.convert(amount, rate));
+                writer.name("rate").value(rate);
+            } else {
+                if (rawFrom != null) writer.name("from").value(rawFrom);
+                if (rawTo != null) writer.name("to").value(rawTo);
+                writer.name("error").value(error);
+            }
+            writer.endObject();
+            writer.flush();
+            out.write('\n');
+        }
+        return new Summary(lines, converted, resolver.getResolvedPairs());
+    }
+
+    private static String validate(CurrencyCode from, CurrencyCode to, double amount) {
+        if (from == null || to == null) {
+            return "Código de moeda inválido";
+        }
+        if (!(amount > 0) || Double.isInfinite(amount)) {
+            return "Valor deve ser um número positivo";
+        }
+        return null;
+    }
+
+    private static double parseAmount(String raw) {
+        try {
+            return Double.parseDouble(raw.trim().replace(",", "."));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static String stringField(JsonObject obj, String name) {
+        JsonElement value = obj.get(name);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+
+    private static int indexOfIgnoreCase(List<String> fields, String name) {
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).trim().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Separador do arquivo pela primeira linha: ';' se aparecer fora de aspas, senão ','.
+     * Assim {@code USD;BRL;100,50} usa ';' mesmo com a vírgula decimal.
+     */
+    static char detectDelimiter(String firstLine) {
+        boolean quoted = false;
+        for (int i = 0; i < firstLine.length(); i++) {
+            char c = firstLine.charAt(i);
+            if (c == '"') {
+                quoted = !quoted; // "" escapado alterna duas vezes: sem efeito
+            } else if (c == ';' && !quoted) {
+                return ';';
+            }
+        }
+        return ',';
+    }
+
+    /**
+     * Divide uma linha CSV (aspas duplas com escape "" suportadas; sem campos multilinha).
+     * Reaproveita a lista recebida para evitar alocação por linha.
+     */
+    static void splitCsv(String line, char delimiter, List<String> fields) {
+        fields.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+    }
+
+    private static String quoteCsv(String value, char delimiter) {
+        if (value.indexOf(delimiter) < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
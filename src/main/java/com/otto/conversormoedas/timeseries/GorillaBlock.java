@@ -0,0 +1,218 @@
+package com.otto.conversormoedas.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Bloco comprimido de pontos (instante, taxa) no formato do Gorilla (Pelkonen et al., VLDB 2015):
+ * <ul>
+ *   <li>instantes (epoch millis) por delta-of-delta: '0' se o intervalo se repete, senão um prefixo
+ *       de 2 a 5 bits seguido de 7, 12, 20, 32 ou 64 bits;</li>
+ *   <li>taxas por XOR com a anterior: '0' se igual; '10' + bits significativos se cabem na janela
+ *       anterior; '11' + 5 bits de zeros à esquerda + 6 bits de tamanho + bits significativos.</li>
+ * </ul>
+ * Taxas que mudam pouco entre buscas custam poucos bits por ponto. Instantes não decrescentes;
+ * até {@value #MAX_POINTS} pontos por bloco. Não é thread-safe (a série sincroniza o acesso).
+ */
+final class GorillaBlock {
+    static final int MAX_POINTS = 1024;
+
+    /** Faixas do delta-of-delta: bits do valor para cada prefixo ('10', '110', '1110', '11110'). */
+    private static final int[] DOD_BITS = {7, 12, 20, 32};
+
+    private long[] words = new long[8];
+    private int bitLength;
+    private int count;
+    private final long firstTimestamp;
+    private long lastTimestamp;
+    private long lastDelta;
+    private long lastValueBits;
+    private int lastLeading = -1;
+    private int lastTrailing;
+
+    GorillaBlock(long timestamp, double value) {
+        this.firstTimestamp = timestamp;
+        this.lastTimestamp = timestamp;
+        this.lastValueBits = Double.doubleToRawLongBits(value);
+        writeBits(lastValueBits, 64);
+        count = 1;
+    }
+
+    /** Acrescenta um ponto; {@code timestamp} não pode ser menor que o último. */
+    void append(long timestamp, double value) {
+        long delta = timestamp - lastTimestamp;
+        long dod = delta - lastDelta;
+        if (dod == 0) {
+            writeBits(0, 1);
+        } else {
+            int tier = 0;
+            while (tier < DOD_BITS.length && !fits(dod, DOD_BITS[tier])) {
+                tier++;
+            }
+            // Prefixo: tier+1 uns seguidos de um zero ('10', '110', ...); a última faixa são 5 uns
+            if (tier < DOD_BITS.length) {
+                writeBits((1L << (tier + 2)) - 2, tier + 2);
+                writeBits(dod + bias(DOD_BITS[tier]), DOD_BITS[tier]);
+            } else {
+                writeBits(0b11111, 5);
+                writeBits(dod, 64);
+            }
+        }
+        lastDelta = delta;
+        lastTimestamp = timestamp;
+
+        long bits = Double.doubleToRawLongBits(value);
+        long xor = bits ^ lastValueBits;
+        if (xor == 0) {
+            writeBits(0, 1);
+        } else {
+            int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (lastLeading >= 0 && leading >= lastLeading && trailing >= lastTrailing) {
+                writeBits(0b10, 2);
+                writeBits(xor >>> lastTrailing, 64 - lastLeading - lastTrailing);
+            } else {
+                int significant = 64 - leading - trailing;
+                writeBits(0b11, 2);
+                writeBits(leading, 5);
+                writeBits(significant - 1, 6);
+                writeBits(xor >>> trailing, significant);
+                lastLeading = leading;
+                lastTrailing = trailing;
+            }
+        }
+        lastValueBits = bits;
+        count++;
+    }
+
+    boolean isFull() {
+        return count >= MAX_POINTS;
+    }
+
+    /** Libera a folga do buffer (bloco cheio não recebe mais pontos). */
+    void seal() {
+        words = Arrays.copyOf(words, (bitLength + 63) >>> 6);
+    }
+
+    int count() {
+        return count;
+    }
+
+    long firstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /** Bytes ocupados pelos pontos comprimidos. */
+    int compressedBytes() {
+        return (bitLength + 7) >>> 3;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    private static boolean fits(long dod, int bits) {
+        long bias = bias(bits);
+        return dod >= -bias && dod <= bias + 1;
+    }
+
+    private static long bias(int bits) {
+        return (1L << (bits - 1)) - 1;
+    }
+
+    private static long mask(int bits) {
+        return bits == 64 ? -1L : (1L << bits) - 1;
+    }
+
+    /** Grava os {@code n} bits menos significativos de {@code value}, do mais alto para o mais baixo. */
+    private void writeBits(long value, int n) {
+        int needed = (bitLength + n + 63) >>> 6;
+        if (needed > words.length) {
+            words = Arrays.copyOf(words, Math.max(needed, words.length * 2));
+        }
+        int word = bitLength >>> 6;
+        int free = 64 - (bitLength & 63);
+        if (n <= free) {
+            words[word] |= (value & mask(n)) << (free - n);
+        } else {
+            int rest = n - free;
+            words[word] |= (value >>> rest) & mask(free);
+            words[word + 1] |= (value & mask(rest)) << (64 - rest);
+        }
+        bitLength += n;
+    }
+
+    /** Leitura sequencial dos pontos do bloco. */
+    final class Cursor {
+        private int position;
+        private int read;
+        private long timestamp;
+        private long delta;
+        private long valueBits;
+        private int leading = -1;
+        private int trailing;
+
+        /** Avança para o próximo ponto; false no fim do bloco. */
+        boolean next() {
+            if (read == count) {
+                return false;
+            }
+            if (read == 0) {
+                timestamp = firstTimestamp;
+                valueBits = readBits(64);
+                read++;
+                return true;
+            }
+            long dod;
+            if (readBits(1) == 0) {
+                dod = 0;
+            } else {
+                int tier = 0;
+                while (tier < DOD_BITS.length && readBits(1) == 1) {
+                    tier++;
+                }
+                dod = tier < DOD_BITS.length
+                        ? readBits(DOD_BITS[tier]) - bias(DOD_BITS[tier])
+                        : readBits(64);
+            }
+            delta += dod;
+            timestamp += delta;
+
+            if (readBits(1) == 1) {
+                if (readBits(1) == 1) {
+                    leading = (int) readBits(5);
+                    int significant = (int) readBits(6) + 1;
+                    trailing = 64 - leading - significant;
+                }
+                valueBits ^= readBits(64 - leading - trailing) << trailing;
+            }
+            read++;
+            return true;
+        }
+
+        long timestamp() {
+            return timestamp;
+        }
+
+        double value() {
+            return Double.longBitsToDouble(valueBits);
+        }
+
+        private long readBits(int n) {
+            int word = position >>> 6;
+            int free = 64 - (position & 63);
+            long result;
+            if (n <= free) {
+                result = (words[word] >>> (free - n)) & mask(n);
+            } else {
+                int rest = n - free;
+                result = ((words[word] & mask(free)) << rest) | (words[word + 1] >>> (64 - rest));
+            }
+            position += n;
+            return result;
+        }
+    }
+}
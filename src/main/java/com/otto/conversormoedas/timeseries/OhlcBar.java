@@ -0,0 +1,52 @@
+package com.otto.conversormoedas.timeseries;
+
+/**
+ * Barra OHLC de um intervalo da série: taxa de abertura, máxima, mínima e fechamento, e a
+ * quantidade de pontos agregados. {@code time} é o início do intervalo (epoch millis, UTC).
+ */
+public final class OhlcBar {
+    private final long time;
+    private final double open;
+    private final double high;
+    private final double low;
+    private final double close;
+    private final int count;
+
+    public OhlcBar(long time, double open, double high, double low, double close, int count) {
+        this.time = time;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.count = count;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public double getOpen() {
+        return open;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public double getClose() {
+        return close;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /** Barra do par inverso (1/taxa): máxima e mínima trocam de lugar. */
+    OhlcBar inverse() {
+        return new OhlcBar(time, 1.0 / open, 1.0 / low, 1.0 / high, 1.0 / close, count);
+    }
+}
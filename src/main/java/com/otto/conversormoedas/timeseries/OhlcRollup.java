@@ -0,0 +1,142 @@
+package com.otto.conversormoedas.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Agregados OHLC (abertura, máxima, mínima, fechamento e contagem) de uma série em baldes de
+ * tamanho fixo, alinhados ao epoch (UTC). Só baldes com dados ocupam espaço; guarda no máximo
+ * {@code maxBuckets} (buffer circular: o mais antigo sai quando enche). Pontos chegam em ordem.
+ * Não é thread-safe (a série sincroniza o acesso).
+ */
+final class OhlcRollup {
+    private static final int INITIAL_CAPACITY = 16;
+
+    final long resolutionMillis;
+    private final int maxBuckets;
+    private long[] starts;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private int[] counts;
+    /** Posição física do balde mais antigo. */
+    private int head;
+    private int size;
+    private boolean wrapped;
+
+    OhlcRollup(long resolutionMillis, int maxBuckets) {
+        this.resolutionMillis = resolutionMillis;
+        this.maxBuckets = maxBuckets;
+        int capacity = Math.min(INITIAL_CAPACITY, maxBuckets);
+        starts = new long[capacity];
+        open = new double[capacity];
+        high = new double[capacity];
+        low = new double[capacity];
+        close = new double[capacity];
+        counts = new int[capacity];
+    }
+
+    void add(long timestamp, double value) {
+        long bucket = Math.floorDiv(timestamp, resolutionMillis) * resolutionMillis;
+        if (size > 0) {
+            int last = physical(size - 1);
+            if (starts[last] == bucket) {
+                high[last] = Math.max(high[last], value);
+                low[last] = Math.min(low[last], value);
+                close[last] = value;
+                counts[last]++;
+                return;
+            }
+        }
+        if (size == starts.length) {
+            if (size < maxBuckets) {
+                grow(); // head é 0 enquanto o buffer não atinge o máximo
+            } else {
+                head = (head + 1) % size;
+                size--;
+                wrapped = true;
+            }
+        }
+        int p = physical(size);
+        starts[p] = bucket;
+        open[p] = value;
+        high[p] = value;
+        low[p] = value;
+        close[p] = value;
+        counts[p] = 1;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Se algum balde já foi descartado (o rollup não contém mais toda a história). */
+    boolean wrapped() {
+        return wrapped;
+    }
+
+    /** Início do balde mais antigo retido (Long.MAX_VALUE se vazio). */
+    long oldestStart() {
+        return size == 0 ? Long.MAX_VALUE : starts[head];
+    }
+
+    /** Índice lógico do primeiro balde que começa em {@code time} ou depois (binária). */
+    int firstAtOrAfter(long time) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[physical(mid)] < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    long start(int i) {
+        return starts[physical(i)];
+    }
+
+    double open(int i) {
+        return open[physical(i)];
+    }
+
+    double high(int i) {
+        return high[physical(i)];
+    }
+
+    double low(int i) {
+        return low[physical(i)];
+    }
+
+    double close(int i) {
+        return close[physical(i)];
+    }
+
+    int count(int i) {
+        return counts[physical(i)];
+    }
+
+    /** Bytes ocupados pelos arrays (capacidade alocada). */
+    long allocatedBytes() {
+        return (long) starts.length * (8 * 5 + 4);
+    }
+
+    private int physical(int i) {
+        int p = head + i;
+        return p < starts.length ? p : p - starts.length;
+    }
+
+    private void grow() {
+        int capacity = Math.min(maxBuckets, starts.length * 2);
+        starts = Arrays.copyOf(starts, capacity);
+        open = Arrays.copyOf(open, capacity);
+        high = Arrays.copyOf(high, capacity);
+        low = Arrays.copyOf(low, capacity);
+        close = Arrays.copyOf(close, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+    }
+}
@@ -0,0 +1,256 @@
+package com.otto.conversormoedas.timeseries;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Série de um par: pontos brutos em blocos {@link GorillaBlock} (o último aberto, os demais
+ * selados) e rollups OHLC por minuto, hora e dia. Blocos brutos mais antigos que a retenção
+ * (ou além de {@code maxBlocks}) são descartados; cada rollup guarda um número fixo de baldes.
+ * Assim a memória por par é limitada independentemente da frequência das buscas.
+ * Acesso sincronizado: gravações são raras (uma por busca ao upstream) e consultas são curtas.
+ */
+final class PairSeries {
+    static final long MINUTE = 60_000L;
+    static final long HOUR = 60 * MINUTE;
+    static final long DAY = 24 * HOUR;
+    private static final String[] ROLLUP_NAMES = {"day", "hour", "minute"};
+
+    private final long rawRetentionMillis;
+    private final int maxBlocks;
+    private final List<GorillaBlock> blocks = new ArrayList<>();
+    /** Rollups do mais grosso ao mais fino. */
+    private final OhlcRollup[] rollups;
+    private boolean rawTruncated;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private double lastValue = Double.NaN;
+    private long pointCount;
+
+    PairSeries(long rawRetentionMillis, int maxBlocks, int minuteBuckets, int hourBuckets, int dayBuckets) {
+        this.rawRetentionMillis = rawRetentionMillis;
+        this.maxBlocks = maxBlocks;
+        this.rollups = new OhlcRollup[]{
+                new OhlcRollup(DAY, dayBuckets),
+                new OhlcRollup(HOUR, hourBuckets),
+                new OhlcRollup(MINUTE, minuteBuckets)};
+    }
+
+    /**
+     * Acrescenta um ponto. Instantes fora de ordem são ajustados para o último gravado (a série
+     * não reordena); um ponto idêntico ao último é ignorado.
+     */
+    synchronized void append(long timestamp, double value) {
+        long ts = Math.max(timestamp, lastTimestamp);
+        if (ts == lastTimestamp && value == lastValue) {
+            return;
+        }
+        GorillaBlock open = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        if (open == null || open.isFull()) {
+            if (open != null) {
+                open.seal();
+            }
+            blocks.add(new GorillaBlock(ts, value));
+            evictRaw(ts);
+        } else {
+            open.append(ts, value);
+        }
+        for (OhlcRollup rollup : rollups) {
+            rollup.add(ts, value);
+        }
+        lastTimestamp = ts;
+        lastValue = value;
+        pointCount++;
+    }
+
+    /** Descarta blocos inteiros fora da retenção (o bloco aberto nunca sai). */
+    private void evictRaw(long newest) {
+        int drop = 0;
+        while (drop < blocks.size() - 1
+                && (blocks.size() - drop > maxBlocks || blocks.get(drop).lastTimestamp() < newest - rawRetentionMillis)) {
+            drop++;
+        }
+        if (drop > 0) {
+            blocks.subList(0, drop).clear();
+            rawTruncated = true;
+        }
+    }
+
+    /**
+     * Barras OHLC de [start, end) com o passo pedido, alinhadas ao epoch. Usa o rollup mais grosso
+     * cujo balde divide o passo e que ainda cobre {@code start}; senão os pontos brutos; se nem eles
+     * cobrem, o rollup diário com o passo arredondado para dias inteiros.
+     */
+    synchronized RateBars query(long start, long end, long stepMillis) {
+        for (int i = 0; i < rollups.length; i++) {
+            OhlcRollup rollup = rollups[i];
+            if (stepMillis % rollup.resolutionMillis == 0 && covers(rollup, start)) {
+                return new RateBars(fromRollup(rollup, start, end, stepMillis), stepMillis, ROLLUP_NAMES[i]);
+            }
+        }
+        if (!rawTruncated || (!blocks.isEmpty() && blocks.get(0).firstTimestamp() <= start)) {
+            return new RateBars(fromRaw(start, end, stepMillis), stepMillis, "raw");
+        }
+        long step = Math.max(DAY, (stepMillis + DAY - 1) / DAY * DAY);
+        return new RateBars(fromRollup(rollups[0], start, end, step), step, ROLLUP_NAMES[0]);
+    }
+
+    private static boolean covers(OhlcRollup rollup, long start) {
+        // Buffer ainda não circulou: contém toda a história do par
+        return rollup.oldestStart() <= start || !rollup.wrapped();
+    }
+
+    private static List<OhlcBar> fromRollup(OhlcRollup rollup, long start, long end, long step) {
+        BarAccumulator bars = new BarAccumulator(step);
+        for (int i = rollup.firstAtOrAfter(Math.floorDiv(start, step) * step); i < rollup.size(); i++) {
+            long t = rollup.start(i);
+            if (t >= end) {
+                break;
+            }
+            bars.add(t, rollup.open(i), rollup.high(i), rollup.low(i), rollup.close(i), rollup.count(i));
+        }
+        return bars.finish();
+    }
+
+    private List<OhlcBar> fromRaw(long start, long end, long step) {
+        BarAccumulator bars = new BarAccumulator(step);
+        long from = Math.floorDiv(start, step) * step;
+        for (int b = firstBlockFor(from); b < blocks.size(); b++) {
+            GorillaBlock block = blocks.get(b);
+            if (block.firstTimestamp() >= end) {
+                break;
+            }
+            GorillaBlock.Cursor cursor = block.cursor();
+            while (cursor.next()) {
+                long t = cursor.timestamp();
+                if (t >= end) {
+                    break;
+                }
+                if (t >= from) {
+                    double v = cursor.value();
+                    bars.add(t, v, v, v, v, 1);
+                }
+            }
+        }
+        return bars.finish();
+    }
+
+    /**
+     * Taxa vigente em {@code at}: o último ponto gravado até esse instante, ou null se não houver.
+     * Binária sobre o primeiro instante de cada bloco e varredura dentro do bloco (até
+     * {@value GorillaBlock#MAX_POINTS} pontos). Antes do ponto bruto mais antigo retido, usa o
+     * fechamento do último balde completo do rollup mais fino que ainda o tenha.
+     */
+    synchronized RatePoint rateAt(long at) {
+        if (!blocks.isEmpty() && blocks.get(0).firstTimestamp() <= at) {
+            GorillaBlock.Cursor cursor = blocks.get(firstBlockFor(at)).cursor();
+            long time = Long.MIN_VALUE;
+            double value = Double.NaN;
+            while (cursor.next() && cursor.timestamp() <= at) {
+                time = cursor.timestamp();
+                value = cursor.value();
+            }
+            return new RatePoint(time, value);
+        }
+        if (!rawTruncated) {
+            return null;
+        }
+        for (int i = rollups.length - 1; i >= 0; i--) {
+            OhlcRollup rollup = rollups[i];
+            int b = rollup.firstAtOrAfter(at + 1) - 1;
+            if (b >= 0 && rollup.start(b) + rollup.resolutionMillis > at) {
+                b--; // balde que contém o instante: só o anterior está inteiro antes dele
+            }
+            if (b >= 0) {
+                return new RatePoint(rollup.start(b) + rollup.resolutionMillis, rollup.close(b));
+            }
+        }
+        return null;
+    }
+
+    /** Índice do último bloco que começa em {@code time} ou antes (binária sobre os primeiros instantes). */
+    private int firstBlockFor(long time) {
+        int lo = 0;
+        int hi = blocks.size() - 1;
+        int found = 0;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (blocks.get(mid).firstTimestamp() <= time) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    synchronized long pointCount() {
+        return pointCount;
+    }
+
+    synchronized long retainedRawPoints() {
+        long total = 0;
+        for (GorillaBlock block : blocks) {
+            total += block.count();
+        }
+        return total;
+    }
+
+    /** Bytes dos pontos brutos comprimidos mais os arrays dos rollups. */
+    synchronized long memoryBytes() {
+        long total = 0;
+        for (GorillaBlock block : blocks) {
+            total += block.compressedBytes();
+        }
+        for (OhlcRollup rollup : rollups) {
+            total += rollup.allocatedBytes();
+        }
+        return total;
+    }
+
+    /** Agrupa pontos ou baldes (em ordem) em barras de {@code step}. */
+    private static final class BarAccumulator {
+        private final long step;
+        private final List<OhlcBar> bars = new ArrayList<>();
+        private long time = Long.MIN_VALUE;
+        private double open;
+        private double high;
+        private double low;
+        private double close;
+        private int count;
+
+        BarAccumulator(long step) {
+            this.step = step;
+        }
+
+        void add(long t, double o, double h, double l, double c, int n) {
+            long bar = Math.floorDiv(t, step) * step;
+            if (count > 0 && bar == time) {
+                high = Math.max(high, h);
+                low = Math.min(low, l);
+                close = c;
+                count += n;
+                return;
+            }
+            flush();
+            time = bar;
+            open = o;
+            high = h;
+            low = l;
+            close = c;
+            count = n;
+        }
+
+        List<OhlcBar> finish() {
+            flush();
+            return bars;
+        }
+
+        private void flush() {
+            if (count > 0) {
+                bars.add(new OhlcBar(time, open, high, low, close, count));
+                count = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.otto.conversormoedas.timeseries;
+
+import java.util.List;
+
+/**
+ * Resultado de uma consulta à série: barras em ordem cronológica (intervalos sem dados são omitidos),
+ * o passo efetivo e a origem dos dados ("raw", "minute", "hour" ou "day").
+ * O passo pode ser maior que o pedido quando só um rollup mais grosso cobre o início do período.
+ */
+public final class RateBars {
+    private final List<OhlcBar> bars;
+    private final long stepMillis;
+    private final String source;
+
+    public RateBars(List<OhlcBar> bars, long stepMillis, String source) {
+        this.bars = bars;
+        this.stepMillis = stepMillis;
+        this.source = source;
+    }
+
+    public List<OhlcBar> getBars() {
+        return bars;
+    }
+
+    public long getStepMillis() {
+        return stepMillis;
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
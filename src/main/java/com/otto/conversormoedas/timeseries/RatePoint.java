@@ -0,0 +1,23 @@
+package com.otto.conversormoedas.timeseries;
+
+/**
+ * Taxa vigente em um instante: o valor e o instante (epoch millis) em que foi obtida do upstream.
+ * Quando a taxa vem de um rollup (pontos brutos fora da retenção), o instante é o fim do balde.
+ */
+public final class RatePoint {
+    private final long timestamp;
+    private final double rate;
+
+    public RatePoint(long timestamp, double rate) {
+        this.timestamp = timestamp;
+        this.rate = rate;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+}
@@ -0,0 +1,181 @@
+package com.otto.conversormoedas.timeseries;
+
+import com.otto.conversormoedas.model.CurrencyCode;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Histórico das taxas por par, em memória: cada taxa obtida do upstream vira um ponto
+ * (instante da busca, taxa) comprimido no formato do Gorilla ({@link GorillaBlock}), com rollups
+ * OHLC por minuto, hora e dia para consultas longas sem descomprimir os pontos brutos.
+ * Memória limitada por par: pontos brutos pela retenção (padrão {@link #DEFAULT_RAW_RETENTION}),
+ * rollups por quantidade fixa de baldes (7 dias por minuto, 400 dias por hora, 10 anos por dia).
+ * Pares indexados por {@code from.ordinal() * N + to.ordinal()}; a série de um par é criada na
+ * primeira gravação. Sem série direta, a consulta usa a do par inverso (taxas invertidas).
+ * {@link #rateAt} resolve a taxa vigente em um instante passado (conversão retroativa) sem rede.
+ */
+public class RateTimeSeries {
+    /** Retenção padrão dos pontos brutos. */
+    public static final Duration DEFAULT_RAW_RETENTION = Duration.ofDays(400);
+    /** Limite de barras por consulta. */
+    public static final int MAX_BARS = 10_000;
+
+    static final int MINUTE_BUCKETS = 7 * 24 * 60;
+    static final int HOUR_BUCKETS = 400 * 24;
+    static final int DAY_BUCKETS = 10 * 366;
+    /** Até ~1M pontos brutos por par, mesmo com buscas muito frequentes. */
+    static final int MAX_RAW_BLOCKS = 1024;
+
+    private static final int SIZE = CurrencyCode.values().length;
+
+    private final long rawRetentionMillis;
+    private final int maxRawBlocks;
+    private final AtomicReferenceArray<PairSeries> series = new AtomicReferenceArray<>(SIZE * SIZE);
+
+    public RateTimeSeries() {
+        this(DEFAULT_RAW_RETENTION, MAX_RAW_BLOCKS);
+    }
+
+    /**
+     * @param rawRetention por quanto tempo os pontos brutos são mantidos
+     * @param maxRawBlocks blocos brutos por par (cada um com até {@value GorillaBlock#MAX_POINTS} pontos)
+     */
+    public RateTimeSeries(Duration rawRetention, int maxRawBlocks) {
+        this.rawRetentionMillis = rawRetention.toMillis();
+        this.maxRawBlocks = maxRawBlocks;
+    }
+
+    private static int index(CurrencyCode from, CurrencyCode to) {
+        return from.ordinal() * SIZE + to.ordinal();
+    }
+
+    /**
+     * Grava a taxa do par no instante informado (epoch millis). Pares de mesma moeda e taxas
+     * inválidas (não positivas, NaN ou infinitas) são ignorados.
+     */
+    public void record(CurrencyCode from, CurrencyCode to, double rate, long timestampMillis) {
+        if (from == to || !(rate > 0) || Double.isInfinite(rate)) {
+            return;
+        }
+        int i = index(from, to);
+        PairSeries s = series.get(i);
+        if (s == null) {
+            PairSeries created = new PairSeries(rawRetentionMillis, maxRawBlocks,
+                    MINUTE_BUCKETS, HOUR_BUCKETS, DAY_BUCKETS);
+            s = series.compareAndExchange(i, null, created);
+            if (s == null) {
+                s = created;
+            }
+        }
+        s.append(timestampMillis, rate);
+    }
+
+    /** Se há histórico gravado diretamente para o par (sem contar o inverso). */
+    public boolean hasSeries(CurrencyCode from, CurrencyCode to) {
+        return series.get(index(from, to)) != null;
+    }
+
+    /**
+     * Barras OHLC do par em [start, end) com o passo pedido, alinhadas ao epoch (UTC).
+     * Sem série do par, usa a do inverso; sem nenhuma, devolve lista vazia.
+     *
+     * @throws IllegalArgumentException se o intervalo ou o passo forem inválidos, ou o período
+     *         exigir mais de {@value #MAX_BARS} barras
+     */
+    public RateBars query(CurrencyCode from, CurrencyCode to, long startMillis, long endMillis, long stepMillis) {
+        if (stepMillis <= 0) {
+            throw new IllegalArgumentException("step must be positive");
+        }
+        if (endMillis <= startMillis) {
+            throw new IllegalArgumentException("end must be after start");
+        }
+        long first = Math.floorDiv(startMillis, stepMillis) * stepMillis;
+        if ((endMillis - first) / stepMillis >= MAX_BARS) {
+            throw new IllegalArgumentException("Too many points: at most " + MAX_BARS + " per query, increase step");
+        }
+        PairSeries direct = series.get(index(from, to));
+        if (direct != null) {
+            return direct.query(startMillis, endMillis, stepMillis);
+        }
+        PairSeries inverse = series.get(index(to, from));
+        if (inverse == null) {
+            return new RateBars(List.of(), stepMillis, "none");
+        }
+        RateBars bars = inverse.query(startMillis, endMillis, stepMillis);
+        List<OhlcBar> inverted = new ArrayList<>(bars.getBars().size());
+        for (OhlcBar bar : bars.getBars()) {
+            inverted.add(bar.inverse());
+        }
+        return new RateBars(inverted, bars.getStepMillis(), bars.getSource());
+    }
+
+    /**
+     * Taxa do par vigente em {@code atMillis} (o último ponto gravado até esse instante), sem rede.
+     * Sem série direta usa a do par inverso; sem nenhuma das duas, cruza pelas séries de uma moeda
+     * em comum (ex.: linhas USD→EUR e USD→BRL de snapshots para EUR→BRL), valendo o instante mais
+     * antigo das duas. Null se não houver taxa registrada até o instante.
+     */
+    public RatePoint rateAt(CurrencyCode from, CurrencyCode to, long atMillis) {
+        if (from == to) {
+            return new RatePoint(atMillis, 1.0);
+        }
+        RatePoint direct = pointAt(from, to, atMillis);
+        if (direct != null) {
+            return direct;
+        }
+        for (CurrencyCode pivot : CurrencyCode.values()) {
+            if (pivot == from || pivot == to) {
+                continue;
+            }
+            RatePoint pivotFrom = pointAt(pivot, from, atMillis);
+            if (pivotFrom == null) {
+                continue;
+            }
+            RatePoint pivotTo = pointAt(pivot, to, atMillis);
+            if (pivotTo != null) {
+                return new RatePoint(Math.min(pivotFrom.getTimestamp(), pivotTo.getTimestamp()),
+                        pivotTo.getRate() / pivotFrom.getRate());
+            }
+        }
+        return null;
+    }
+
+    /** Ponto da série direta ou, sem ela, da inversa (taxa invertida). */
+    private RatePoint pointAt(CurrencyCode from, CurrencyCode to, long atMillis) {
+        PairSeries direct = series.get(index(from, to));
+        RatePoint point = direct != null ? direct.rateAt(atMillis) : null;
+        if (point != null) {
+            return point;
+        }
+        PairSeries inverse = series.get(index(to, from));
+        point = inverse != null ? inverse.rateAt(atMillis) : null;
+        return point != null ? new RatePoint(point.getTimestamp(), 1.0 / point.getRate()) : null;
+    }
+
+    /** Quantidade de pontos gravados em todos os pares desde a criação. */
+    public long getPointCount() {
+        long total = 0;
+        for (int i = 0; i < series.length(); i++) {
+            PairSeries s = series.get(i);
+            if (s != null) {
+                total += s.pointCount();
+            }
+        }
+        return total;
+    }
+
+    /** Bytes ocupados pelos pontos comprimidos e pelos rollups de todos os pares. */
+    public long getMemoryBytes() {
+        long total = 0;
+        for (int i = 0; i < series.length(); i++) {
+            PairSeries s = series.get(i);
+            if (s != null) {
+                total += s.memoryBytes();
+            }
+        }
+        return total;
+    }
+}
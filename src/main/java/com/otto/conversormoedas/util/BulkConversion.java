@@ -0,0 +1,97 @@
+package com.otto.conversormoedas.util;
+
+/**
+ * Conversões em massa: multiplica arrays de valores pelas taxas de uma vez. O lote
+ * (/api/convert/batch) usa a variante com taxas reunidas pelo índice do par depois de resolver os
+ * pares distintos; a conversão de arquivos continua item a item, pois escreve cada linha assim que é lida.
+ * Usa a Vector API ({@code jdk.incubator.vector}) quando o núcleo vetorial foi compilado (perfil Maven
+ * {@code vector}) e o módulo está disponível (JVM iniciada com {@code --add-modules jdk.incubator.vector});
+ * senão, um laço escalar que o JIT vetoriza sozinho.
+ * A validação é em bloco, junto com a multiplicação (sem teste e exceção por elemento): um valor ou
+ * taxa negativo ou NaN é reportado pelo primeiro índice em que aparece. Diferente de
+ * {@link ConversionCalculator#convert}, que só recusa negativos, NaN também é recusado: num lote, um
+ * NaN viraria um valor convertido NaN sem aviso. A validação vem depois da multiplicação, então uma
+ * exceção deixa {@code out} parcialmente escrito.
+ */
+public final class BulkConversion {
+    static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final ConversionKernel KERNEL = loadKernel();
+
+    private BulkConversion() {}
+
+    /** Indica se as conversões em massa usam a Vector API. */
+    public static boolean isVectorized() {
+        return !(KERNEL instanceof ScalarConversionKernel);
+    }
+
+    /**
+     * {@code out[i] = amounts[i] * rates[i]}: o mesmo produto de {@link ConversionCalculator#convert},
+     * recusando também NaN.
+     *
+     * @throws IllegalArgumentException se os arrays tiverem tamanhos diferentes, ou se algum valor ou
+     *         taxa for negativo ou NaN (nesse caso {@code out} pode ter sido parcialmente escrito)
+     */
+    public static void convertAll(double[] amounts, double[] rates, double[] out) {
+        convertAll(KERNEL, amounts, rates, out);
+    }
+
+    /**
+     * {@code out[i] = amounts[i] * rateTable[pairs[i]]}: taxas reunidas pelo índice do par, no formato
+     * {@code from.ordinal() * N + to.ordinal()} da matriz de taxas.
+     *
+     * @throws IllegalArgumentException se {@code amounts}, {@code pairs} e {@code out} tiverem tamanhos
+     *         diferentes, ou se algum valor ou taxa usada for negativo ou NaN (nesse caso {@code out}
+     *         pode ter sido parcialmente escrito)
+     * @throws IndexOutOfBoundsException se algum índice estiver fora de {@code rateTable}
+     */
+    public static void convertAll(double[] amounts, int[] pairs, double[] rateTable, double[] out) {
+        convertAll(KERNEL, amounts, pairs, rateTable, out);
+    }
+
+    static void convertAll(ConversionKernel kernel, double[] amounts, double[] rates, double[] out) {
+        int length = amounts.length;
+        if (rates.length != length || out.length != length) {
+            throw new IllegalArgumentException("Arrays de tamanhos diferentes: amounts=" + length
+                + ", rates=" + rates.length + ", out=" + out.length);
+        }
+        int invalid = kernel.multiply(amounts, rates, out, length);
+        if (invalid >= 0) {
+            validate(amounts[invalid], "amounts", invalid);
+            validate(rates[invalid], "rates", invalid);
+        }
+    }
+
+    static void convertAll(ConversionKernel kernel, double[] amounts, int[] pairs, double[] rateTable,
+                           double[] out) {
+        int length = amounts.length;
+        if (pairs.length != length || out.length != length) {
+            throw new IllegalArgumentException("Arrays de tamanhos diferentes: amounts=" + length
+                + ", pairs=" + pairs.length + ", out=" + out.length);
+        }
+        int invalid = kernel.gatherMultiply(amounts, pairs, rateTable, out, length);
+        if (invalid >= 0) {
+            validate(amounts[invalid], "amounts", invalid);
+            validate(rateTable[pairs[invalid]], "rateTable", pairs[invalid]);
+        }
+    }
+
+    private static void validate(double value, String array, int index) {
+        if (!(value >= 0)) {
+            throw new IllegalArgumentException(array + "[" + index + "] inválido: " + value);
+        }
+    }
+
+    /** Núcleo vetorial se o módulo da Vector API foi resolvido na inicialização da JVM. */
+    static ConversionKernel loadKernel() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (ConversionKernel) Class.forName(BulkConversion.class.getPackageName() + ".VectorConversionKernel")
+                    .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Build sem o perfil vector, ou módulo incompatível: segue no laço escalar
+            }
+        }
+        return new ScalarConversionKernel();
+    }
+}
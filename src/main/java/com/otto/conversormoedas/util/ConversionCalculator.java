@@ -1,5 +1,7 @@
 package com.otto.conversormoedas.util;
 
+import java.math.BigDecimal;
+
 /** Utilitário de cálculos de conversão. */
 public class ConversionCalculator {
 
@@ -45,7 +47,7 @@ public class ConversionCalculator {
         return 1.0 / exchangeRate;
     }
 
-    /** Arredonda para N casas decimais. */
+    /** Arredonda para N casas decimais (em double; para valores monetários exatos, ver {@link FixedPointMoney}). */
     public static double round(double value, int decimalPlaces) {
         if (decimalPlaces < 0) {
             throw new IllegalArgumentException("Casas decimais não pode ser negativo");
@@ -70,17 +72,35 @@ public class ConversionCalculator {
         private final String toCurrency;
         private final double exchangeRate;
         private final double inverseRate;
+        private final BigDecimal exactOriginalAmount;
+        private final BigDecimal exactConvertedAmount;
 
         /** Construtor principal. */
         public ConversionResult(double originalAmount, String fromCurrency,
                                 double convertedAmount, String toCurrency,
                                 double exchangeRate) {
+            this(originalAmount, fromCurrency, convertedAmount, toCurrency, exchangeRate, null, null);
+        }
+
+        /** Resultado exato ({@link FixedPointMoney}): valores decimais preservados além dos doubles. */
+        public ConversionResult(BigDecimal originalAmount, String fromCurrency,
+                                BigDecimal convertedAmount, String toCurrency,
+                                double exchangeRate) {
+            this(originalAmount.doubleValue(), fromCurrency, convertedAmount.doubleValue(), toCurrency,
+                exchangeRate, originalAmount, convertedAmount);
+        }
+
+        private ConversionResult(double originalAmount, String fromCurrency,
+                                 double convertedAmount, String toCurrency, double exchangeRate,
+                                 BigDecimal exactOriginalAmount, BigDecimal exactConvertedAmount) {
             this.originalAmount = originalAmount;
             this.fromCurrency = fromCurrency;
             this.convertedAmount = convertedAmount;
             this.toCurrency = toCurrency;
             this.exchangeRate = exchangeRate;
             this.inverseRate = ConversionCalculator.getInverseRate(exchangeRate);
+            this.exactOriginalAmount = exactOriginalAmount;
+            this.exactConvertedAmount = exactConvertedAmount;
         }
 
         /** Valor original. */
@@ -113,6 +133,21 @@ public class ConversionCalculator {
             return inverseRate;
         }
 
+        /** Se a conversão foi exata (ponto fixo). */
+        public boolean isExact() {
+            return exactConvertedAmount != null;
+        }
+
+        /** Valor original exato (null se a conversão foi em double). */
+        public BigDecimal getExactOriginalAmount() {
+            return exactOriginalAmount;
+        }
+
+        /** Valor convertido exato, na escala da moeda destino (null se a conversão foi em double). */
+        public BigDecimal getExactConvertedAmount() {
+            return exactConvertedAmount;
+        }
+
         /** String amigável. */
         @Override
         public String toString() {
@@ -0,0 +1,15 @@
+package com.otto.conversormoedas.util;
+
+/**
+ * Núcleo das conversões em massa ({@link BulkConversion}): escreve {@code out[i] = amount × taxa} e
+ * valida as entradas em bloco, devolvendo o primeiro índice com valor ou taxa negativo ou NaN
+ * (-1 se todas forem válidas).
+ */
+interface ConversionKernel {
+
+    /** {@code out[i] = amounts[i] * rates[i]} para i em [0, length). */
+    int multiply(double[] amounts, double[] rates, double[] out, int length);
+
+    /** {@code out[i] = amounts[i] * rateTable[pairs[i]]} para i em [0, length). */
+    int gatherMultiply(double[] amounts, int[] pairs, double[] rateTable, double[] out, int length);
+}
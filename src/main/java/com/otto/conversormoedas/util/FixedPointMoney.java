@@ -0,0 +1,306 @@
+package com.otto.conversormoedas.util;
+
+import com.otto.conversormoedas.model.CurrencyCode;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversão monetária exata em ponto fixo, sem os artefatos binários de {@code double}
+ * (ex.: {@code ConversionCalculator.round(1.005, 2)} dá 1.0).
+ * O valor é um long escalado (ex.: centavos) e a taxa vira decimal com até 15 dígitos significativos
+ * ({@link #rate(double)}); o produto de 128 bits é dividido pela potência de 10 da escala do resultado
+ * com o arredondamento pedido (padrão bancário, {@link RoundingMode#HALF_EVEN}), sem alocar.
+ * Se o resultado não couber em long, cai em {@link BigDecimal} com a mesma taxa decimal: os dois
+ * caminhos dão sempre o mesmo resultado. Em conversões em massa, derive a {@link Rate} uma vez.
+ */
+public final class FixedPointMoney {
+    /** Arredondamento padrão (bancário). */
+    public static final RoundingMode DEFAULT_ROUNDING = RoundingMode.HALF_EVEN;
+    /** Maior escala da taxa decimal (taxas pequenas, ex.: JPY→XAU). */
+    static final int MAX_RATE_SCALE = 18;
+
+    /** Dígitos significativos da taxa: os que um double preserva com folga (upstreams publicam menos). */
+    private static final double RATE_LIMIT = 1e15;
+    private static final double MAX_RATE = 1e18;
+    /** Resultados são não negativos: -1 sinaliza que o caminho em long não serve. */
+    private static final long OVERFLOW = -1;
+
+    private static final long[] POW10 = new long[19];
+    private static final double[] POW10_DOUBLE = new double[19];
+
+    static {
+        long power = 1;
+        for (int i = 0; i < POW10.length; i++) {
+            POW10[i] = power;
+            POW10_DOUBLE[i] = power;
+            power *= 10;
+        }
+    }
+
+    private FixedPointMoney() {}
+
+    /**
+     * Taxa como decimal exato: o double arredondado para até 15 dígitos significativos, sem zeros à
+     * direita (ex.: 5.0551 e não 5.05509999999999948..., 0.1 + 0.2 vira 0.3).
+     */
+    public static Rate rate(double rate) {
+        validateRate(rate);
+        // floor(log10(2) × expoente binário) estima a escala; o laço corrige o excesso
+        int scale = Math.max(0, Math.min(MAX_RATE_SCALE, 15 - ((Math.getExponent(rate) * 1233) >> 12)));
+        while (scale > 0 && rate * POW10_DOUBLE[scale] >= RATE_LIMIT) {
+            scale--;
+        }
+        long unscaled = Math.round(rate * POW10_DOUBLE[scale]);
+        // Zeros à direita (5.0551 vira 50551E-4): o produto das taxas publicadas cabe em 64 bits
+        if (scale >= 8 && unscaled % 100_000_000L == 0) {
+            unscaled /= 100_000_000L;
+            scale -= 8;
+        }
+        if (scale >= 4 && unscaled % 10_000L == 0) {
+            unscaled /= 10_000L;
+            scale -= 4;
+        }
+        if (scale >= 2 && unscaled % 100L == 0) {
+            unscaled /= 100L;
+            scale -= 2;
+        }
+        if (scale >= 1 && unscaled % 10L == 0) {
+            unscaled /= 10L;
+            scale -= 1;
+        }
+        return new Rate(unscaled, scale);
+    }
+
+    /** {@link #rate(double)} como BigDecimal. */
+    public static BigDecimal decimalRate(double rate) {
+        return rate(rate).toBigDecimal();
+    }
+
+    /**
+     * Converte {@code amountUnscaled × 10^-amountScale} pela taxa e devolve o resultado em unidades de
+     * {@code 10^-resultScale} (ex.: centavos com resultScale 2), sem alocar.
+     *
+     * @throws ArithmeticException se o resultado não couber em long (use
+     *         {@link #convert(BigDecimal, Rate, int, RoundingMode)}) ou se {@code rounding} for
+     *         UNNECESSARY e o resultado não for exato
+     */
+    public static long convert(long amountUnscaled, int amountScale, Rate rate, int resultScale,
+                               RoundingMode rounding) {
+        if (amountUnscaled < 0) {
+            throw new IllegalArgumentException("amount não pode ser negativo: " + amountUnscaled);
+        }
+        long result = tryConvert(amountUnscaled, amountScale, rate, resultScale, rounding);
+        if (result == OVERFLOW) {
+            throw new ArithmeticException("Resultado não cabe em long: " + amountUnscaled + "E-" + amountScale
+                + " * " + rate);
+        }
+        return result;
+    }
+
+    /** Sobrecarga que deriva a taxa decimal a cada chamada. */
+    public static long convert(long amountUnscaled, int amountScale, double rate, int resultScale,
+                               RoundingMode rounding) {
+        return convert(amountUnscaled, amountScale, rate(rate), resultScale, rounding);
+    }
+
+    /** Converte para a escala da unidade menor da moeda destino ({@link CurrencyCode#getMinorUnits()}). */
+    public static BigDecimal convert(BigDecimal amount, double rate, CurrencyCode to, RoundingMode rounding) {
+        return convert(amount, rate(rate), to.getMinorUnits(), rounding);
+    }
+
+    /** Sobrecarga que deriva a taxa decimal a cada chamada. */
+    public static BigDecimal convert(BigDecimal amount, double rate, int resultScale, RoundingMode rounding) {
+        return convert(amount, rate(rate), resultScale, rounding);
+    }
+
+    /**
+     * Converte {@code amount} pela taxa com {@code resultScale} casas.
+     * Em long quando o valor tem até 18 dígitos e o resultado cabe; senão em BigDecimal.
+     */
+    public static BigDecimal convert(BigDecimal amount, Rate rate, int resultScale, RoundingMode rounding) {
+        if (amount.signum() < 0) {
+            throw new IllegalArgumentException("amount não pode ser negativo: " + amount);
+        }
+        BigDecimal normalized = amount.scale() < 0 ? amount.setScale(0) : amount;
+        if (normalized.precision() <= 18) {
+            long result = tryConvert(normalized.unscaledValue().longValue(), normalized.scale(), rate,
+                resultScale, rounding);
+            if (result != OVERFLOW) {
+                return BigDecimal.valueOf(result, resultScale);
+            }
+        }
+        return normalized.multiply(rate.toBigDecimal()).setScale(resultScale, rounding);
+    }
+
+    private static long tryConvert(long amount, int amountScale, Rate rate, int resultScale, RoundingMode rounding) {
+        long shift = (long) amountScale + rate.scale - resultScale;
+        long high = Math.multiplyHigh(amount, rate.unscaled);
+        long low = amount * rate.unscaled;
+
+        if (shift <= 0) {
+            if (shift < -18 || high != 0 || low < 0) {
+                return OVERFLOW;
+            }
+            long factor = POW10[(int) -shift];
+            long scaled = low * factor;
+            return Math.multiplyHigh(low, factor) != 0 || scaled < 0 ? OVERFLOW : scaled;
+        }
+        if (shift > 18) {
+            return OVERFLOW;
+        }
+        int k = (int) shift;
+        long divisor = POW10[k];
+        long quotient;
+        // Operandos não negativos: high é a parte alta sem sinal do produto
+        if (high >>> (k - 1) == 0) {
+            // P / 10^k = (P >> k) / 5^k: produtos abaixo de 2^(63+k) cabem em 64 bits, com divisor constante
+            quotient = dividePow5((high << (64 - k)) | (low >>> k), k);
+        } else {
+            // Quociente < 2^64 exige high < divisor
+            if (high >= divisor) {
+                return OVERFLOW;
+            }
+            quotient = divideUnsigned128(high, low, divisor);
+            if (quotient < 0) {
+                return OVERFLOW;
+            }
+        }
+        // Resto real < divisor < 2^63: a subtração módulo 2^64 dá o valor exato
+        long remainder = low - quotient * divisor;
+        return round(quotient, remainder, divisor, rounding);
+    }
+
+    /** Arredonda quotient + remainder/divisor (não negativos) conforme o modo. */
+    private static long round(long quotient, long remainder, long divisor, RoundingMode rounding) {
+        if (remainder == 0) {
+            return quotient;
+        }
+        long toNext = divisor - remainder;
+        boolean up;
+        switch (rounding) {
+            case UP:
+            case CEILING:
+                up = true;
+                break;
+            case DOWN:
+            case FLOOR:
+                up = false;
+                break;
+            case HALF_UP:
+                up = remainder >= toNext;
+                break;
+            case HALF_DOWN:
+                up = remainder > toNext;
+                break;
+            case HALF_EVEN:
+                up = remainder > toNext || (remainder == toNext && (quotient & 1) != 0);
+                break;
+            default:
+                throw new ArithmeticException("Rounding necessary");
+        }
+        if (!up) {
+            return quotient;
+        }
+        return quotient == Long.MAX_VALUE ? OVERFLOW : quotient + 1;
+    }
+
+    /** x / 5^k (x não negativo, k de 1 a 18) com divisores constantes, que o JIT troca por multiplicação. */
+    private static long dividePow5(long x, int k) {
+        switch (k) {
+            case 1: return x / 5L;
+            case 2: return x / 25L;
+            case 3: return x / 125L;
+            case 4: return x / 625L;
+            case 5: return x / 3_125L;
+            case 6: return x / 15_625L;
+            case 7: return x / 78_125L;
+            case 8: return x / 390_625L;
+            case 9: return x / 1_953_125L;
+            case 10: return x / 9_765_625L;
+            case 11: return x / 48_828_125L;
+            case 12: return x / 244_140_625L;
+            case 13: return x / 1_220_703_125L;
+            case 14: return x / 6_103_515_625L;
+            case 15: return x / 30_517_578_125L;
+            case 16: return x / 152_587_890_625L;
+            case 17: return x / 762_939_453_125L;
+            default: return x / 3_814_697_265_625L;
+        }
+    }
+
+    /**
+     * Divide o inteiro sem sinal de 128 bits (high, low) por divisor, com high < divisor (quociente
+     * cabe em 64 bits). Algoritmo divlu de Hacker's Delight (divisão longa em dígitos de 32 bits).
+     */
+    static long divideUnsigned128(long high, long low, long divisor) {
+        final long base = 1L << 32;
+        int shift = Long.numberOfLeadingZeros(divisor);
+        long v = divisor << shift;
+        long vn1 = v >>> 32;
+        long vn0 = v & 0xFFFFFFFFL;
+        long un32 = shift == 0 ? high : (high << shift) | (low >>> (64 - shift));
+        long un10 = low << shift;
+        long un1 = un10 >>> 32;
+        long un0 = un10 & 0xFFFFFFFFL;
+
+        long q1 = Long.divideUnsigned(un32, vn1);
+        long rhat = un32 - q1 * vn1;
+        while (Long.compareUnsigned(q1, base) >= 0 || Long.compareUnsigned(q1 * vn0, (rhat << 32) + un1) > 0) {
+            q1--;
+            rhat += vn1;
+            if (Long.compareUnsigned(rhat, base) >= 0) {
+                break;
+            }
+        }
+
+        long un21 = (un32 << 32) + un1 - q1 * v;
+        long q0 = Long.divideUnsigned(un21, vn1);
+        rhat = un21 - q0 * vn1;
+        while (Long.compareUnsigned(q0, base) >= 0 || Long.compareUnsigned(q0 * vn0, (rhat << 32) + un0) > 0) {
+            q0--;
+            rhat += vn1;
+            if (Long.compareUnsigned(rhat, base) >= 0) {
+                break;
+            }
+        }
+        return (q1 << 32) + q0;
+    }
+
+    private static void validateRate(double rate) {
+        if (!(rate > 0) || !(rate < MAX_RATE)) {
+            throw new IllegalArgumentException("exchangeRate inválida: " + rate);
+        }
+    }
+
+    /** Taxa decimal em ponto fixo ({@code unscaled × 10^-scale}). */
+    public static final class Rate {
+        private final long unscaled;
+        private final int scale;
+
+        private Rate(long unscaled, int scale) {
+            this.unscaled = unscaled;
+            this.scale = scale;
+        }
+
+        /** Dígitos da taxa sem a vírgula (50551 para 5.0551). */
+        public long getUnscaled() {
+            return unscaled;
+        }
+
+        /** Casas decimais da taxa (4 para 5.0551). */
+        public int getScale() {
+            return scale;
+        }
+
+        /** Valor decimal exato da taxa. */
+        public BigDecimal toBigDecimal() {
+            return BigDecimal.valueOf(unscaled, scale);
+        }
+
+        @Override
+        public String toString() {
+            return toBigDecimal().toPlainString();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.otto.conversormoedas.util;
+
+/**
+ * Núcleo escalar, usado quando a Vector API não está disponível: a multiplicação é um laço simples,
+ * sem dependências entre iterações, que o JIT (C2) vetoriza sozinho; a validação fica numa varredura
+ * à parte (uma redução no mesmo laço impediria a vetorização).
+ */
+final class ScalarConversionKernel implements ConversionKernel {
+
+    @Override
+    public int multiply(double[] amounts, double[] rates, double[] out, int length) {
+        for (int i = 0; i < length; i++) {
+            out[i] = amounts[i] * rates[i];
+        }
+        return firstInvalid(amounts, rates, 0, length);
+    }
+
+    @Override
+    public int gatherMultiply(double[] amounts, int[] pairs, double[] rateTable, double[] out, int length) {
+        for (int i = 0; i < length; i++) {
+            out[i] = amounts[i] * rateTable[pairs[i]];
+        }
+        return firstInvalid(amounts, pairs, rateTable, 0, length);
+    }
+
+    /** Primeiro índice em [from, to) com valor ou taxa negativo ou NaN; -1 se nenhum. */
+    static int firstInvalid(double[] amounts, double[] rates, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!(amounts[i] >= 0) || !(rates[i] >= 0)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Como {@link #firstInvalid(double[], double[], int, int)}, com as taxas reunidas pelo par. */
+    static int firstInvalid(double[] amounts, int[] pairs, double[] rateTable, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!(amounts[i] >= 0) || !(rateTable[pairs[i]] >= 0)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,51 @@
+package com.otto.conversormoedas.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Acesso a virtual threads (JDK 21+) sem exigir JDK 21 na compilação (o projeto compila com release 17).
+ * Em runtimes sem suporte, {@link #isAvailable()} retorna false e o chamador usa o pool atual.
+ */
+public final class VirtualThreads {
+    private static final Method NEW_EXECUTOR = findExecutorFactory();
+
+    private VirtualThreads() {}
+
+    /** Indica se o runtime atual suporta virtual threads. */
+    public static boolean isAvailable() {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     * Cria um executor com uma virtual thread por tarefa
+     * ({@code Executors.newVirtualThreadPerTaskExecutor()}).
+     * Lança UnsupportedOperationException se o runtime não suportar virtual threads.
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (NEW_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads exigem JDK 21+ (runtime: "
+                + System.getProperty("java.version") + ")");
+        }
+        try {
+            return (ExecutorService) NEW_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Falha ao criar executor de virtual threads", e);
+        }
+    }
+
+    /**
+     * No JDK 19/20 o método existe, mas é preview: sem {@code --enable-preview} lança na chamada.
+     * Por isso a versão do runtime é conferida antes de procurar o método.
+     */
+    private static Method findExecutorFactory() {
+        if (Runtime.version().feature() < 21) {
+            return null;
+        }
+        try {
+            return java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.otto.conversormoedas.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do parâmetro de tempo aceito por /api/convert?at=, /api/rates/history e /api/history.
+ */
+public class ApiServerTest {
+    private static final long NOON_UTC = Instant.parse("2024-03-15T12:00:00Z").toEpochMilli();
+
+    @Test
+    void parseTime_acceptsAnyIsoOffset() {
+        assertEquals(NOON_UTC, ApiServer.parseTime("2024-03-15T12:00:00Z", 0));
+        assertEquals(NOON_UTC, ApiServer.parseTime("2024-03-15T09:00:00-03:00", 0));
+        assertEquals(NOON_UTC, ApiServer.parseTime("2024-03-15T14:00:00+02:00", 0));
+        assertEquals(NOON_UTC, ApiServer.parseTime("2024-03-15T09:00:00-03:00[America/Sao_Paulo]", 0));
+    }
+
+    @Test
+    void parseTime_positiveOffsetDecodedAsSpace() {
+        // "+02:00" sem codificar na query string chega como " 02:00"
+        assertEquals(NOON_UTC, ApiServer.parseTime("2024-03-15T14:00:00 02:00", 0));
+    }
+
+    @Test
+    void parseTime_localFormsUseSystemZone() {
+        ZoneId zone = ZoneId.systemDefault();
+        assertEquals(LocalDateTime.parse("2024-03-15T12:00:00").atZone(zone).toInstant().toEpochMilli(),
+            ApiServer.parseTime("2024-03-15T12:00:00", 0));
+        assertEquals(LocalDate.parse("2024-03-15").atStartOfDay(zone).toInstant().toEpochMilli(),
+            ApiServer.parseTime("2024-03-15", 0));
+        assertEquals(NOON_UTC, ApiServer.parseTime(String.valueOf(NOON_UTC), 0));
+        assertEquals(42, ApiServer.parseTime(" ", 42));
+        assertThrows(DateTimeParseException.class, () -> ApiServer.parseTime("15/03/2024", 0));
+    }
+}
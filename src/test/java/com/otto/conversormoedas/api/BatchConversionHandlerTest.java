@@ -0,0 +1,174 @@
+package com.otto.conversormoedas.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.otto.conversormoedas.client.ExchangePairResponse;
+import com.otto.conversormoedas.client.ExchangeRateClient;
+import com.otto.conversormoedas.service.ConversionHistoryService;
+import com.otto.conversormoedas.service.CurrencyConverterService;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do lote: deduplicação de pares, ordem dos resultados e erros por item.
+ */
+public class BatchConversionHandlerTest {
+    // Uma thread por busca assíncrona, para que buscas paralelas realmente se sobreponham
+    private static final ExecutorService ASYNC = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "stub-client");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private volatile long latencyMillis;
+    private final ConversionHistoryService history = new ConversionHistoryService(16);
+    private final BatchConversionHandler handler = new BatchConversionHandler(
+        new CurrencyConverterService(new ExchangeRateClient("test-key") {
+            @Override
+            public ExchangePairResponse fetchPair(String from, String to) {
+                upstreamCalls.incrementAndGet();
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    if (latencyMillis > 0) {
+                        Thread.sleep(latencyMillis);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    active.decrementAndGet();
+                }
+                ExchangePairResponse resp = new ExchangePairResponse();
+                resp.conversion_rate = "BRL".equals(to) ? 5.0 : 0.9;
+                return resp;
+            }
+
+            @Override
+            public CompletableFuture<ExchangePairResponse> fetchPairAsync(String from, String to, Duration timeout) {
+                return CompletableFuture.supplyAsync(() -> fetchPair(from, to), ASYNC);
+            }
+        }),
+        history
+    );
+
+    @Test
+    void convert_jsonArray_deduplicatesPairsAndKeepsOrder() throws Exception {
+        String body = """
+            [
+              {"from": "USD", "to": "BRL", "amount": 100},
+              {"from": "USD", "to": "EUR", "amount": "10,5"},
+              {"from": "usd", "to": "brl", "amount": 2},
+              {"from": "USD", "to": "XYZ", "amount": 1},
+              {"from": "USD", "to": "BRL", "amount": -3}
+            ]
+            """;
+        List<BatchConversionHandler.BatchItem> items = handler.parseJsonArray(new StringReader(body));
+        StringWriter out = new StringWriter();
+
+        handler.convert(items, false, out);
+
+        JsonArray results = JsonParser.parseString(out.toString()).getAsJsonArray();
+        assertEquals(5, results.size());
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(500.0, results.get(0).getAsJsonObject().get("result").getAsDouble(), 0.0001);
+        assertEquals(9.45, results.get(1).getAsJsonObject().get("result").getAsDouble(), 0.0001);
+        assertEquals(10.0, results.get(2).getAsJsonObject().get("result").getAsDouble(), 0.0001);
+        assertTrue(results.get(3).getAsJsonObject().has("error"));
+        assertTrue(results.get(4).getAsJsonObject().has("error"));
+        assertEquals(4, results.get(4).getAsJsonObject().get("index").getAsInt());
+        assertEquals(3, history.getHistorySize());
+    }
+
+    @Test
+    void convert_distinctPairs_areFetchedConcurrently() throws Exception {
+        latencyMillis = 100;
+        String body = """
+            [
+              {"from": "USD", "to": "BRL", "amount": 1},
+              {"from": "USD", "to": "EUR", "amount": 1},
+              {"from": "EUR", "to": "BRL", "amount": 1},
+              {"from": "BRL", "to": "JPY", "amount": 1}
+            ]
+            """;
+        List<BatchConversionHandler.BatchItem> items = handler.parseJsonArray(new StringReader(body));
+        StringWriter out = new StringWriter();
+
+        handler.convert(items, false, out);
+
+        assertEquals(4, upstreamCalls.get());
+        assertTrue(maxActive.get() > 1, "pares buscados em série");
+        assertEquals(4, JsonParser.parseString(out.toString()).getAsJsonArray().size());
+    }
+
+    @Test
+    void convert_ndjson_writesOneResultPerLineWithInlineErrors() throws Exception {
+        String body = "{\"from\":\"USD\",\"to\":\"BRL\",\"amount\":1}\n"
+            + "not json\n"
+            + "\n"
+            + "{\"from\":\"USD\",\"to\":\"BRL\",\"amount\":3}\n";
+        List<BatchConversionHandler.BatchItem> items = handler.parseNdjson(new StringReader(body));
+        StringWriter out = new StringWriter();
+
+        handler.convert(items, true, out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(3, lines.length);
+        JsonObject first = JsonParser.parseString(lines[0]).getAsJsonObject();
+        JsonObject second = JsonParser.parseString(lines[1]).getAsJsonObject();
+        JsonObject third = JsonParser.parseString(lines[2]).getAsJsonObject();
+        assertEquals(5.0, first.get("result").getAsDouble(), 0.0001);
+        assertTrue(second.has("error"));
+        assertEquals(15.0, third.get("result").getAsDouble(), 0.0001);
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void convert_itemsWithAt_useRecordedRatesWithoutUpstream() throws Exception {
+        handler.convert(handler.parseJsonArray(new StringReader("[{\"from\":\"USD\",\"to\":\"BRL\",\"amount\":1}]")),
+            false, new StringWriter());
+        long now = System.currentTimeMillis();
+        String body = "{\"from\":\"USD\",\"to\":\"BRL\",\"amount\":10,\"at\":" + now + "}\n"
+            + "{\"from\":\"BRL\",\"to\":\"USD\",\"amount\":10,\"at\":\"" + Instant.ofEpochMilli(now) + "\"}\n"
+            + "{\"from\":\"USD\",\"to\":\"BRL\",\"amount\":10,\"at\":\"2001-01-01\"}\n"
+            + "{\"from\":\"USD\",\"to\":\"BRL\",\"amount\":10,\"at\":\"ontem\"}\n";
+        StringWriter out = new StringWriter();
+
+        handler.convert(handler.parseNdjson(new StringReader(body)), true, out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(50.0, JsonParser.parseString(lines[0]).getAsJsonObject().get("result").getAsDouble(), 0.0001);
+        assertEquals(now, JsonParser.parseString(lines[0]).getAsJsonObject().get("at").getAsLong());
+        assertEquals(2.0, JsonParser.parseString(lines[1]).getAsJsonObject().get("result").getAsDouble(), 0.0001);
+        assertTrue(JsonParser.parseString(lines[2]).getAsJsonObject().get("error").getAsString().contains("histórica"));
+        assertTrue(JsonParser.parseString(lines[3]).getAsJsonObject().has("error"));
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1, history.getHistorySize(), "reavaliações não entram no histórico");
+    }
+
+    @Test
+    void parseJsonArray_nonArrayBody_throws() {
+        assertThrows(IllegalArgumentException.class,
+            () -> handler.parseJsonArray(new StringReader("{\"from\":\"USD\"}")));
+    }
+
+    @Test
+    void isNdjson_detectsContentType() {
+        assertTrue(BatchConversionHandler.isNdjson("application/x-ndjson; charset=utf-8"));
+        assertFalse(BatchConversionHandler.isNdjson("application/json"));
+        assertFalse(BatchConversionHandler.isNdjson(null));
+    }
+}
@@ -0,0 +1,58 @@
+package com.otto.conversormoedas.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da resposta pré-serializada: gzip equivalente, ETag estável e negociação de cabeçalhos.
+ */
+public class CachedResponseTest {
+
+    private static CachedResponse response(String value) {
+        return CachedResponse.of("no-cache", 1L, json -> json.beginObject().name("value").value(value).endObject());
+    }
+
+    @Test
+    void of_gzipBodyDecompressesToSameBytes() throws Exception {
+        CachedResponse response = response("São Paulo");
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getGzipBody()))) {
+            assertArrayEquals(response.getBody(), in.readAllBytes());
+        }
+        assertEquals("{\"value\":\"São Paulo\"}", new String(response.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void etag_dependsOnlyOnContent() {
+        assertEquals(response("a").getEtag(), response("a").getEtag());
+        assertNotEquals(response("a").getEtag(), response("b").getEtag());
+    }
+
+    @Test
+    void matches_acceptsListsWeakPrefixAndGzipVariant() {
+        CachedResponse response = response("a");
+        String etag = response.getEtag();
+        String gzipEtag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+
+        assertTrue(response.matches(etag));
+        assertTrue(response.matches("\"other\", W/" + etag));
+        assertTrue(response.matches(gzipEtag));
+        assertTrue(response.matches("*"));
+        assertFalse(response.matches("\"other\""));
+        assertFalse(response.matches(null));
+    }
+
+    @Test
+    void acceptsGzip_honorsZeroQuality() {
+        assertTrue(CachedResponse.acceptsGzip("gzip, deflate, br"));
+        assertTrue(CachedResponse.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertFalse(CachedResponse.acceptsGzip("gzip;q=0"));
+        assertFalse(CachedResponse.acceptsGzip("identity"));
+        assertFalse(CachedResponse.acceptsGzip(null));
+    }
+}
@@ -0,0 +1,30 @@
+package com.otto.conversormoedas.api;
+
+import com.otto.conversormoedas.metrics.MetricsRegistry;
+import io.javalin.http.HandlerType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes das métricas por requisição: séries por rota, método e status, resolvidas uma vez.
+ */
+public class HttpMetricsTest {
+
+    @Test
+    void record_countsPerRouteMethodAndStatus() {
+        MetricsRegistry registry = new MetricsRegistry();
+        HttpMetrics metrics = new HttpMetrics(registry);
+
+        metrics.record("/api/rates", HandlerType.GET, 200, 2_000_000L);
+        metrics.record("/api/rates", HandlerType.GET, 200, 3_000_000L);
+        metrics.record("/api/rates", HandlerType.GET, 503, 1_000_000L);
+        metrics.record("/api/batch", HandlerType.POST, 200, 1_000_000L);
+
+        String text = registry.scrape();
+        assertTrue(text.contains("conversor_http_requests_total{route=\"/api/rates\",method=\"GET\",status=\"200\"} 2\n"), text);
+        assertTrue(text.contains("conversor_http_requests_total{route=\"/api/rates\",method=\"GET\",status=\"503\"} 1\n"), text);
+        assertTrue(text.contains("conversor_http_requests_total{route=\"/api/batch\",method=\"POST\",status=\"200\"} 1\n"), text);
+        assertTrue(text.contains("conversor_http_request_duration_seconds_count{route=\"/api/rates\",method=\"GET\"} 3\n"), text);
+    }
+}
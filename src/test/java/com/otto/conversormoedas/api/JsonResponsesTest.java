@@ -0,0 +1,60 @@
+package com.otto.conversormoedas.api;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.otto.conversormoedas.model.ConversionHistory;
+import com.otto.conversormoedas.util.ConversionCalculator;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da escrita JSON em streaming: saída compacta, UTF-8 e respostas maiores que o buffer.
+ */
+public class JsonResponsesTest {
+
+    @Test
+    void write_conversion_isCompactJson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        var result = new ConversionCalculator.ConversionResult(100.0, "USD", 505.5, "BRL", 5.055);
+
+        JsonResponses.write(out, false, json -> {
+            json.beginObject();
+            JsonResponses.conversionFields(json, result);
+            json.endObject();
+        });
+
+        assertEquals("{\"from\":\"USD\",\"to\":\"BRL\",\"amount\":100.0,\"result\":505.5,\"rate\":5.055}",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void write_nonAsciiAndLongBody_encodesUtf8AcrossBufferBoundaries() throws Exception {
+        String text = "Real brasileiro – São Paulo 💱 ".repeat(100);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        JsonResponses.write(out, true, json -> json.beginObject().name("description").value(text).endObject());
+
+        byte[] bytes = out.toByteArray();
+        assertTrue(bytes.length > JsonResponses.BUFFER_BYTES);
+        JsonObject parsed = JsonParser.parseString(new String(bytes, StandardCharsets.UTF_8)).getAsJsonObject();
+        assertEquals(text, parsed.get("description").getAsString());
+    }
+
+    @Test
+    void history_writesFormattedTimestamp() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        var record = new ConversionHistory("EUR", "JPY", 2.0, 320.0, 160.0, LocalDateTime.of(2026, 3, 4, 5, 6, 7));
+
+        JsonResponses.write(out, false, json -> JsonResponses.history(json, record));
+
+        JsonObject parsed = JsonParser.parseString(out.toString(StandardCharsets.UTF_8)).getAsJsonObject();
+        assertEquals("EUR", parsed.get("from").getAsString());
+        assertEquals(320.0, parsed.get("result").getAsDouble(), 0.0);
+        assertEquals("04/03/2026 05:06:07", parsed.get("timestamp").getAsString());
+    }
+}
@@ -0,0 +1,159 @@
+package com.otto.conversormoedas.api;
+
+import com.otto.conversormoedas.client.ExchangePairResponse;
+import com.otto.conversormoedas.client.ExchangeRateClient;
+import com.otto.conversormoedas.model.CurrencyCode;
+import com.otto.conversormoedas.service.CurrencyConverterService;
+import com.otto.conversormoedas.service.RateMatrix;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do streaming de taxas: deltas por tópico, frame compartilhado e cliente lento.
+ */
+public class LiveRatesBroadcasterTest {
+    private static final int SIZE = CurrencyCode.values().length;
+
+    private final LiveRatesBroadcaster broadcaster = new LiveRatesBroadcaster(
+        new CurrencyConverterService(new ExchangeRateClient("test-key") {
+            @Override
+            public ExchangePairResponse fetchPair(String from, String to) {
+                throw new AssertionError("sem upstream nos testes");
+            }
+        }),
+        Duration.ZERO
+    );
+
+    @AfterEach
+    void close() {
+        broadcaster.close();
+    }
+
+    private static boolean[] bases(CurrencyCode... codes) {
+        boolean[] bases = new boolean[SIZE];
+        for (CurrencyCode code : codes) {
+            bases[code.ordinal()] = true;
+        }
+        return bases;
+    }
+
+    private static String text(byte[] frame) {
+        return new String(frame, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void onMatrix_sendsOnlyChangedRatesAndSharesFrameAcrossSubscribers() throws Exception {
+        LiveRatesBroadcaster.Subscriber first = broadcaster.subscribe(bases(CurrencyCode.USD), new int[0]);
+        LiveRatesBroadcaster.Subscriber second = broadcaster.subscribe(bases(CurrencyCode.USD), new int[0]);
+        LiveRatesBroadcaster.Subscriber pair = broadcaster.subscribe(bases(),
+            LiveRatesBroadcaster.parsePairs("EUR:BRL"));
+        assertNull(broadcaster.nextFrame(first, 0), "sem taxas conhecidas: snapshot vazio");
+
+        broadcaster.onMatrix(RateMatrix.fromBaseRates(Map.of("USD", 1.0, "BRL", 5.0, "EUR", 0.5), 1_000));
+        byte[] full = broadcaster.nextFrame(first, 0);
+        assertSame(full, broadcaster.nextFrame(second, 0), "um frame codificado para todos os inscritos");
+        assertEquals("event: rates\ndata: {\"base\":\"USD\",\"rates\":{\"BRL\":5.0,\"EUR\":0.5},\"timestamp\":1000}\n\n",
+            text(full));
+        assertTrue(text(broadcaster.nextFrame(pair, 0)).contains("\"from\":\"EUR\",\"to\":\"BRL\",\"rate\":10.0"));
+
+        broadcaster.onMatrix(RateMatrix.fromBaseRates(Map.of("USD", 1.0, "BRL", 5.1, "EUR", 0.5), 2_000));
+        assertEquals("event: rates\ndata: {\"base\":\"USD\",\"rates\":{\"BRL\":5.1},\"timestamp\":2000}\n\n",
+            text(broadcaster.nextFrame(first, 0)));
+
+        broadcaster.onMatrix(RateMatrix.fromBaseRates(Map.of("USD", 1.0, "BRL", 5.1, "EUR", 0.5), 3_000));
+        assertNull(broadcaster.nextFrame(first, 0), "nada mudou: nenhum frame");
+
+        LiveRatesBroadcaster.Subscriber late = broadcaster.subscribe(bases(CurrencyCode.USD), new int[0]);
+        String snapshot = text(broadcaster.nextFrame(late, 0));
+        assertTrue(snapshot.contains("\"BRL\":5.1") && snapshot.contains("\"EUR\":0.5") && snapshot.contains("\"snapshot\":true"));
+    }
+
+    @Test
+    void slowSubscriber_doesNotBlockPublisherAndResyncsWithSnapshot() throws Exception {
+        LiveRatesBroadcaster.Subscriber slow = broadcaster.subscribe(bases(),
+            LiveRatesBroadcaster.parsePairs("USD:BRL"));
+        LiveRatesBroadcaster.Subscriber fast = broadcaster.subscribe(bases(),
+            LiveRatesBroadcaster.parsePairs("USD:BRL"));
+
+        int updates = LiveRatesBroadcaster.QUEUE_CAPACITY * 4;
+        long start = System.nanoTime();
+        for (int i = 1; i <= updates; i++) {
+            broadcaster.onPairRate(CurrencyCode.USD, CurrencyCode.BRL, 5.0 + i / 1_000.0, i);
+            if (i % 2 == 0) {
+                while (broadcaster.nextFrame(fast, 0) != null) {
+                    // consumidor rápido acompanha
+                }
+            }
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "publicador não bloqueou");
+
+        String resync = text(broadcaster.nextFrame(slow, 0));
+        assertTrue(resync.contains("\"rate\":" + (5.0 + updates / 1_000.0)), resync);
+        assertTrue(resync.contains("\"snapshot\":true"));
+        assertNull(broadcaster.nextFrame(slow, 0), "deltas antigos descartados");
+    }
+
+    @Test
+    void start_drainsFramesOnWriterAndDisconnectsOnClose() throws Exception {
+        LiveRatesBroadcaster.Subscriber subscriber = broadcaster.subscribe(bases(CurrencyCode.EUR), new int[0]);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CountDownLatch disconnected = new CountDownLatch(1);
+        broadcaster.start(subscriber, out, disconnected::countDown);
+
+        broadcaster.onMatrix(RateMatrix.fromBaseRates(Map.of("USD", 1.0, "EUR", 0.5), 1_000));
+        broadcaster.close();
+
+        assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("\"base\":\"EUR\",\"rates\":{\"USD\":2.0}"));
+    }
+
+    @Test
+    void start_writeFailureUnsubscribesAndDisconnects() throws Exception {
+        LiveRatesBroadcaster.Subscriber subscriber = broadcaster.subscribe(bases(), LiveRatesBroadcaster.parsePairs("USD:BRL"));
+        CountDownLatch disconnected = new CountDownLatch(1);
+        broadcaster.start(subscriber, new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("conexão encerrada");
+            }
+        }, disconnected::countDown);
+
+        broadcaster.onPairRate(CurrencyCode.USD, CurrencyCode.BRL, 5.0, 1_000);
+
+        assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+        // Inscrição removida: novas taxas não chegam mais à fila
+        broadcaster.onPairRate(CurrencyCode.USD, CurrencyCode.BRL, 5.1, 2_000);
+        assertNull(broadcaster.nextFrame(subscriber, 0));
+    }
+
+    @Test
+    void snapshot_usesFetchTimeOfRates() throws Exception {
+        broadcaster.onPairRate(CurrencyCode.USD, CurrencyCode.BRL, 5.0, 1_000);
+        broadcaster.onPairRate(CurrencyCode.USD, CurrencyCode.EUR, 0.5, 3_000);
+
+        LiveRatesBroadcaster.Subscriber base = broadcaster.subscribe(bases(CurrencyCode.USD), new int[0]);
+        LiveRatesBroadcaster.Subscriber pair = broadcaster.subscribe(bases(), LiveRatesBroadcaster.parsePairs("USD:EUR"));
+
+        assertTrue(text(broadcaster.nextFrame(base, 0)).contains("\"timestamp\":1000"));
+        assertTrue(text(broadcaster.nextFrame(pair, 0)).contains("\"timestamp\":3000"));
+    }
+
+    @Test
+    void parseTopics_rejectsInvalidCodes() {
+        assertThrows(IllegalArgumentException.class, () -> LiveRatesBroadcaster.parseBases("USD,XYZ"));
+        assertThrows(IllegalArgumentException.class, () -> LiveRatesBroadcaster.parsePairs("USDBRL"));
+        assertThrows(IllegalArgumentException.class, () -> LiveRatesBroadcaster.parsePairs("USD:USD"));
+        assertThrows(IllegalArgumentException.class, () -> broadcaster.subscribe(bases(), new int[0]));
+    }
+}
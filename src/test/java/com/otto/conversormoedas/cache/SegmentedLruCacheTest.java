@@ -0,0 +1,91 @@
+package com.otto.conversormoedas.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da política SLRU, expiração e estatísticas do SegmentedLruCache.
+ */
+public class SegmentedLruCacheTest {
+
+    @Test
+    void put_beyondMaxSize_evictsAndStaysBounded() {
+        SegmentedLruCache<String, Integer> cache = new SegmentedLruCache<>(10, 0);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("k" + i, i);
+        }
+
+        assertEquals(10, cache.size());
+        assertEquals(90, cache.stats().getEvictions());
+        assertNull(cache.get("k0"));
+        assertEquals(99, cache.get("k99"));
+    }
+
+    @Test
+    void put_scanOfOneHitKeys_doesNotEvictHotKeys() {
+        SegmentedLruCache<String, Integer> cache = new SegmentedLruCache<>(10, 0);
+        cache.put("USD:BRL", 1);
+        cache.put("EUR:BRL", 2);
+        // Segundo acesso promove para o segmento protegido
+        cache.get("USD:BRL");
+        cache.get("EUR:BRL");
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put("scan" + i, i);
+        }
+
+        assertEquals(1, cache.get("USD:BRL"));
+        assertEquals(2, cache.get("EUR:BRL"));
+    }
+
+    @Test
+    void get_expiredEntry_returnsNullAndCountsExpiration() throws InterruptedException {
+        SegmentedLruCache<String, Integer> cache = new SegmentedLruCache<>(10, 1);
+        cache.put("USD:BRL", 5);
+        Thread.sleep(5);
+
+        assertNull(cache.get("USD:BRL"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.stats().getExpirations());
+    }
+
+    @Test
+    void cleanUp_removesExpiredEntriesWithoutReads() throws InterruptedException {
+        SegmentedLruCache<String, Integer> cache = new SegmentedLruCache<>(10, 1);
+        for (int i = 0; i < 5; i++) {
+            cache.put("k" + i, i);
+        }
+        Thread.sleep(5);
+
+        cache.cleanUp();
+
+        assertEquals(0, cache.size());
+        assertEquals(5, cache.stats().getExpirations());
+    }
+
+    @Test
+    void stats_countsHitsAndMisses() {
+        SegmentedLruCache<String, Integer> cache = new SegmentedLruCache<>(10, 0);
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(2.0 / 3.0, stats.hitRate(), 0.0001);
+    }
+
+    @Test
+    void put_existingKey_replacesValue() {
+        SegmentedLruCache<String, Integer> cache = new SegmentedLruCache<>(2, 0);
+        cache.put("a", 1);
+        cache.put("a", 2);
+
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.get("a"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.otto.conversormoedas.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do circuit breaker: abertura por falhas e por lentidão, teste meio-aberto e prazo adaptativo.
+ */
+public class CircuitBreakerTest {
+    private static final long MS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000 * MS);
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofMillis(500), Duration.ofSeconds(30),
+            Duration.ofSeconds(10), clock::get);
+
+    @Test
+    void consecutiveFailures_openThenHalfOpenProbeCloses() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            breaker.acquire();
+            breaker.onFailure(100 * MS);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(CircuitOpenException.class, breaker::acquire);
+
+        clock.addAndGet(30_000 * MS);
+        breaker.acquire(); // chamada de teste
+        assertThrows(CircuitOpenException.class, breaker::acquire, "só um teste por vez");
+        breaker.onSuccess(50 * MS);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.acquire();
+    }
+
+    @Test
+    void halfOpenProbeFailure_reopens() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            breaker.acquire();
+            breaker.onFailure(100 * MS);
+        }
+        clock.addAndGet(30_000 * MS);
+        breaker.acquire();
+        breaker.onFailure(100 * MS);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(CircuitOpenException.class, breaker::acquire);
+    }
+
+    @Test
+    void slowP99_opensCircuit() throws Exception {
+        for (int i = 0; i < CircuitBreaker.WINDOW - 1; i++) {
+            breaker.acquire();
+            breaker.onSuccess(i == 50 ? 2_000 * MS : 20 * MS);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.acquire();
+        breaker.onSuccess(2_000 * MS); // 2 lentas em 100: p99 lento
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void singleSlowOutlier_keepsCircuitClosed() throws Exception {
+        for (int i = 0; i < CircuitBreaker.MIN_SAMPLES; i++) {
+            breaker.acquire();
+            breaker.onSuccess(20 * MS);
+        }
+        breaker.acquire();
+        breaker.onSuccess(2_000 * MS);
+        for (int i = 0; i < CircuitBreaker.WINDOW; i++) {
+            breaker.acquire();
+            breaker.onSuccess(i == 0 ? 20 * MS : 30 * MS);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void currentTimeout_followsObservedLatencyWithinBounds() throws Exception {
+        assertEquals(Duration.ofSeconds(10), breaker.currentTimeout(), "sem amostras: prazo máximo");
+
+        for (int i = 0; i < CircuitBreaker.MIN_SAMPLES; i++) {
+            breaker.acquire();
+            breaker.onSuccess(400 * MS);
+        }
+        assertEquals(Duration.ofMillis(400 * CircuitBreaker.TIMEOUT_MULTIPLIER), breaker.currentTimeout());
+
+        for (int i = 0; i < CircuitBreaker.WINDOW; i++) {
+            breaker.acquire();
+            breaker.onSuccess(10 * MS);
+        }
+        assertEquals(CircuitBreaker.MIN_TIMEOUT, breaker.currentTimeout());
+    }
+
+    @Test
+    void release_freesHalfOpenProbeWithoutOutcome() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            breaker.acquire();
+            breaker.onFailure(100 * MS);
+        }
+        clock.addAndGet(30_000 * MS);
+        breaker.acquire();
+        breaker.release();
+
+        breaker.acquire(); // novo teste permitido
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+}
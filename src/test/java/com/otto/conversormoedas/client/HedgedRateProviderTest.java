@@ -0,0 +1,140 @@
+package com.otto.conversormoedas.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes das buscas hedged: hedge após o atraso, failover imediato e cancelamento do perdedor.
+ */
+public class HedgedRateProviderTest {
+    private static final AtomicInteger IDS = new AtomicInteger();
+
+    /** Provedor stub com latência e falha configuráveis (nome único: métricas são globais). */
+    static final class StubProvider implements RateProvider {
+        final String name = "stub-" + IDS.incrementAndGet();
+        final double rate;
+        final long latencyMillis;
+        final boolean fail;
+        final AtomicInteger calls = new AtomicInteger();
+        volatile boolean cancelled;
+
+        StubProvider(double rate, long latencyMillis, boolean fail) {
+            this.rate = rate;
+            this.latencyMillis = latencyMillis;
+            this.fail = fail;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public ExchangePairResponse fetchPair(String from, String to) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ExchangeLatestResponse fetchLatest(String base) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<ExchangePairResponse> fetchPairAsync(String from, String to, Duration timeout) {
+            calls.incrementAndGet();
+            if (fail) {
+                return CompletableFuture.failedFuture(new ExchangeRateException(name + " fora"));
+            }
+            CompletableFuture<ExchangePairResponse> future = new CompletableFuture<>();
+            future.whenComplete((value, error) -> cancelled = error instanceof CancellationException);
+            CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS).execute(() -> {
+                ExchangePairResponse resp = new ExchangePairResponse();
+                resp.result = "success";
+                resp.base_code = from;
+                resp.target_code = to;
+                resp.conversion_rate = rate;
+                future.complete(resp);
+            });
+            return future;
+        }
+
+        @Override
+        public CompletableFuture<ExchangeLatestResponse> fetchLatestAsync(String base, Duration timeout) {
+            return CompletableFuture.failedFuture(new ExchangeRateException("sem tabela"));
+        }
+
+        @Override
+        public QuotaGovernor getGovernor() {
+            return null;
+        }
+
+        @Override
+        public CircuitBreaker getCircuitBreaker() {
+            return null;
+        }
+    }
+
+    @Test
+    void fastPrimary_secondaryNeverCalled() throws Exception {
+        StubProvider primary = new StubProvider(5.0, 0, false);
+        StubProvider secondary = new StubProvider(6.0, 0, false);
+        HedgedRateProvider hedged = new HedgedRateProvider(List.of(primary, secondary), Duration.ofSeconds(5));
+
+        assertEquals(5.0, hedged.fetchPair("USD", "BRL").conversion_rate);
+        assertEquals(0, secondary.calls.get());
+    }
+
+    @Test
+    void slowPrimary_hedgeAnswersAndPrimaryIsCancelled() throws Exception {
+        StubProvider primary = new StubProvider(5.0, 5_000, false);
+        StubProvider secondary = new StubProvider(6.0, 0, false);
+        HedgedRateProvider hedged = new HedgedRateProvider(List.of(primary, secondary), Duration.ofMillis(50));
+
+        long start = System.nanoTime();
+        assertEquals(6.0, hedged.fetchPair("USD", "BRL").conversion_rate);
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "não esperou o primário");
+        assertTrue(primary.cancelled, "primário cancelado após o hedge responder");
+    }
+
+    @Test
+    void failingPrimary_failsOverWithoutWaitingForHedgeDelay() throws Exception {
+        StubProvider primary = new StubProvider(5.0, 0, true);
+        StubProvider secondary = new StubProvider(6.0, 0, false);
+        HedgedRateProvider hedged = new HedgedRateProvider(List.of(primary, secondary), Duration.ofSeconds(30));
+
+        assertEquals(6.0, hedged.fetchPairAsync("USD", "BRL").get(2, TimeUnit.SECONDS).conversion_rate);
+    }
+
+    @Test
+    void allProvidersFail_throwsFirstErrorWithOthersSuppressed() {
+        StubProvider primary = new StubProvider(5.0, 0, true);
+        StubProvider secondary = new StubProvider(6.0, 0, true);
+        HedgedRateProvider hedged = new HedgedRateProvider(List.of(primary, secondary));
+
+        ExchangeRateException e = assertThrows(ExchangeRateException.class, () -> hedged.fetchPair("USD", "BRL"));
+        assertTrue(e.getMessage().contains(primary.name));
+        assertEquals(1, e.getSuppressed().length);
+    }
+
+    @Test
+    void hedgeDelay_followsObservedP95() throws Exception {
+        StubProvider primary = new StubProvider(5.0, 0, false);
+        HedgedRateProvider hedged = new HedgedRateProvider(List.of(primary, new StubProvider(6.0, 0, false)),
+                Duration.ofSeconds(5));
+        assertEquals(Duration.ofSeconds(5).toNanos(), hedged.hedgeDelayNanos(0));
+
+        for (int i = 0; i < HedgedRateProvider.MIN_SAMPLES; i++) {
+            hedged.fetchPair("USD", "BRL");
+        }
+        assertTrue(hedged.hedgeDelayNanos(0) < TimeUnit.SECONDS.toNanos(1), "p95 de chamadas imediatas");
+    }
+}
@@ -0,0 +1,122 @@
+package com.otto.conversormoedas.client;
+
+import com.otto.conversormoedas.model.CurrencyCode;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do governador de cota: token bucket, reserva para pares quentes e suspensão após 429.
+ */
+public class QuotaGovernorTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+
+    private static HttpHeaders headers(String... pairs) {
+        Map<String, List<String>> map = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            map.put(pairs[i], List.of(pairs[i + 1]));
+        }
+        return HttpHeaders.of(map, (name, value) -> true);
+    }
+
+    private static QuotaGovernor.Reason denial(ThrowingCall call) {
+        QuotaExceededException e = assertThrows(QuotaExceededException.class, call::run);
+        return e.getReason();
+    }
+
+    @FunctionalInterface
+    private interface ThrowingCall {
+        void run() throws Exception;
+    }
+
+    @Test
+    void acquire_tokenBucketLimitsBurstAndRefills() throws Exception {
+        QuotaGovernor governor = new QuotaGovernor(1, 2, 0.1, clock::get);
+
+        governor.acquirePair("USD", "BRL");
+        governor.acquirePair("USD", "EUR");
+        assertEquals(QuotaGovernor.Reason.RATE_LIMITED, denial(() -> governor.acquirePair("USD", "JPY")));
+
+        clock.addAndGet(SECOND);
+        governor.acquirePair("USD", "JPY");
+        assertEquals(3, governor.getGranted());
+        assertEquals(1, governor.getDenied(QuotaGovernor.Reason.RATE_LIMITED));
+    }
+
+    @Test
+    void acquire_monthlyQuota_spacesCallsAndReportsRetryAfter() throws Exception {
+        double perSecond = QuotaGovernor.parseRate("1500/month");
+        assertEquals(1500.0 / (30 * 86_400), perSecond, 1e-12);
+        QuotaGovernor governor = new QuotaGovernor(perSecond, 1, 0.1, clock::get);
+
+        governor.acquirePair("USD", "BRL");
+        QuotaExceededException denied = assertThrows(QuotaExceededException.class,
+            () -> governor.acquirePair("USD", "EUR"));
+        assertEquals(QuotaGovernor.Reason.RATE_LIMITED, denied.getReason());
+        assertEquals(1_728_000, denied.getRetryAfterMillis()); // 30 dias / 1500 = 28,8 min
+
+        clock.addAndGet(1_728 * SECOND);
+        governor.acquirePair("USD", "EUR");
+    }
+
+    @Test
+    void parseRate_acceptsFractionsAndPeriods() {
+        assertEquals(10, QuotaGovernor.parseRate("10"));
+        assertEquals(0.5, QuotaGovernor.parseRate(" 0.5 "));
+        assertEquals(100.0 / 86_400, QuotaGovernor.parseRate("100/day"));
+        assertEquals(1, QuotaGovernor.parseRate("60/min"));
+        assertThrows(IllegalArgumentException.class, () -> QuotaGovernor.parseRate("10/week"));
+        assertThrows(IllegalArgumentException.class, () -> QuotaGovernor.parseRate("muitos"));
+    }
+
+    @Test
+    void acquire_lowBudget_onlyHotPairsAndLatestPass() throws Exception {
+        QuotaGovernor governor = new QuotaGovernor(0, 1, 0.1, clock::get);
+        governor.recordDemand(CurrencyCode.USD, CurrencyCode.BRL);
+        governor.recordDemand(CurrencyCode.USD, CurrencyCode.BRL);
+        governor.recordDemand(CurrencyCode.USD, CurrencyCode.JPY);
+
+        governor.onResponse(200, headers("X-RateLimit-Limit", "100", "X-RateLimit-Remaining", "8"));
+
+        assertTrue(governor.isBudgetLow());
+        assertTrue(governor.isHot(CurrencyCode.USD, CurrencyCode.BRL));
+        governor.acquirePair("USD", "BRL");
+        governor.acquireLatest("USD");
+        assertEquals(QuotaGovernor.Reason.RESERVED, denial(() -> governor.acquirePair("USD", "JPY")));
+        assertEquals(List.of("USD:BRL"), governor.getHotPairs(10));
+    }
+
+    @Test
+    void onResponse_429_suspendsUntilRetryAfter() throws Exception {
+        QuotaGovernor governor = new QuotaGovernor(0, 1, 0.1, clock::get);
+
+        governor.onResponse(429, headers("Retry-After", "30"));
+
+        assertTrue(governor.isExhausted());
+        assertEquals(QuotaGovernor.Reason.EXHAUSTED, denial(() -> governor.acquireLatest("USD")));
+
+        clock.addAndGet(31 * SECOND);
+        assertFalse(governor.isExhausted());
+        governor.acquirePair("USD", "JPY");
+        assertEquals(-1, governor.getQuotaRemaining());
+    }
+
+    @Test
+    void headerValue_readsSeparateAndCombinedForms() {
+        assertEquals(42, QuotaGovernor.headerValue(headers("ratelimit-remaining", "42"), "remaining"));
+        HttpHeaders combined = headers("RateLimit", "limit=1500, remaining=7, reset=3600");
+        assertEquals(1500, QuotaGovernor.headerValue(combined, "limit"));
+        assertEquals(7, QuotaGovernor.headerValue(combined, "remaining"));
+        assertEquals(3600, QuotaGovernor.headerValue(combined, "reset"));
+        assertEquals(5, QuotaGovernor.headerValue(headers("RateLimit", "\"default\";r=5;t=30"), "remaining"));
+        assertEquals(-1, QuotaGovernor.headerValue(headers("x-other", "1"), "remaining"));
+    }
+}
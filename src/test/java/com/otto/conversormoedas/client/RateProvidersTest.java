@@ -0,0 +1,182 @@
+package com.otto.conversormoedas.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes dos provedores de taxas contra servidores HTTP locais (stubs) e um arquivo temporário.
+ */
+public class RateProvidersTest {
+    /** Respostas do stub por caminho + query: status e corpo. */
+    private final Map<String, Object[]> routes = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+    private String baseUrl;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            Object[] route = routes.getOrDefault(exchange.getRequestURI().toString(),
+                    new Object[]{404, "{\"message\":\"not found\"}"});
+            byte[] body = ((String) route[1]).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders((Integer) route[0], body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        executor = Executors.newCachedThreadPool(); // o stub lento não bloqueia os demais
+        server.setExecutor(executor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static CircuitBreaker breaker() {
+        return new CircuitBreaker("test");
+    }
+
+    @Test
+    void exchangeRateClient_usesConfiguredBaseUrl() throws Exception {
+        routes.put("/v6/k/pair/USD/BRL", new Object[]{200,
+                "{\"result\":\"success\",\"base_code\":\"USD\",\"target_code\":\"BRL\",\"conversion_rate\":5.25}"});
+        routes.put("/v6/k/pair/USD/EUR", new Object[]{200,
+                "{\"result\":\"error\",\"error-type\":\"unsupported-code\"}"});
+        ExchangeRateClient client = new ExchangeRateClient(baseUrl + "/v6/", "k", null, new QuotaGovernor(), breaker());
+
+        assertEquals(5.25, client.fetchPair("USD", "BRL").conversion_rate);
+        assertEquals(5.25, client.fetchPairAsync("USD", "BRL").get(5, TimeUnit.SECONDS).conversion_rate);
+        ExchangeRateException e = assertThrows(ExchangeRateException.class, () -> client.fetchPair("USD", "EUR"));
+        assertTrue(e.getMessage().contains("unsupported-code"));
+    }
+
+    @Test
+    void frankfurterClient_mapsResponsesToCommonFormat() throws Exception {
+        routes.put("/latest?from=USD&to=BRL", new Object[]{200,
+                "{\"amount\":1.0,\"base\":\"USD\",\"date\":\"2024-06-07\",\"rates\":{\"BRL\":5.3}}"});
+        routes.put("/latest?from=USD", new Object[]{200,
+                "{\"amount\":1.0,\"base\":\"USD\",\"date\":\"2024-06-07\",\"rates\":{\"BRL\":5.3,\"EUR\":0.92}}"});
+        FrankfurterClient client = new FrankfurterClient(baseUrl, null, new QuotaGovernor(), breaker());
+
+        ExchangePairResponse pair = client.fetchPair("USD", "BRL");
+        assertEquals(5.3, pair.conversion_rate);
+        assertEquals(1717718400L, pair.time_last_update_unix);
+
+        ExchangeLatestResponse latest = client.fetchLatestAsync("USD", RateProvider.DEFAULT_TIMEOUT).get(5, TimeUnit.SECONDS);
+        assertEquals(Map.of("USD", 1.0, "BRL", 5.3, "EUR", 0.92), latest.conversion_rates);
+
+        assertThrows(ExchangeRateException.class, () -> client.fetchPair("USD", "VES"), "moeda fora do BCE: 404");
+    }
+
+    @Test
+    void hedged_slowPrimaryServer_secondaryServerAnswers() throws Exception {
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(3_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        routes.put("/latest?from=USD&to=BRL", new Object[]{200,
+                "{\"amount\":1.0,\"base\":\"USD\",\"date\":\"2024-06-07\",\"rates\":{\"BRL\":5.3}}"});
+        ExchangeRateClient primary = new ExchangeRateClient(baseUrl + "/slow", "k", null, new QuotaGovernor(), breaker());
+        FrankfurterClient secondary = new FrankfurterClient(baseUrl, null, new QuotaGovernor(), breaker());
+        HedgedRateProvider hedged = new HedgedRateProvider(List.of(primary, secondary), Duration.ofMillis(100));
+
+        long start = System.nanoTime();
+        assertEquals(5.3, hedged.fetchPair("USD", "BRL").conversion_rate);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2_000));
+    }
+
+    @Test
+    void callerTimeout_countsAsCircuitFailure() throws Exception {
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(3_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofSeconds(3), Duration.ofSeconds(30),
+                Duration.ofSeconds(10));
+        ExchangeRateClient client = new ExchangeRateClient(baseUrl + "/slow", "k", null, new QuotaGovernor(), breaker);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> client.fetchLatestAsync("USD", Duration.ofMillis(200)).get(5, TimeUnit.SECONDS));
+        // O prazo da própria requisição é o mesmo do chamador: qualquer um dos dois pode vencer
+        assertTrue(e.getCause() instanceof TimeoutException || e.getCause() instanceof HttpTimeoutException,
+                String.valueOf(e.getCause()));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (breaker.getState() != CircuitBreaker.State.OPEN && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void uncheckedErrorBeforeRequest_releasesHalfOpenProbe() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofSeconds(3), Duration.ZERO,
+                Duration.ofSeconds(10));
+        breaker.acquire();
+        breaker.onFailure(1);
+        ExchangeRateClient client = new ExchangeRateClient(baseUrl + "/url inválida", "k", null,
+                new QuotaGovernor(), breaker);
+
+        assertThrows(IllegalArgumentException.class, () -> client.fetchPair("USD", "BRL"));
+        breaker.acquire(); // o teste meio-aberto foi devolvido
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void fileProvider_crossRatesAndReloadOnChange(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("rates.json");
+        Files.writeString(file, "{\"base_code\":\"USD\",\"conversion_rates\":{\"BRL\":5.0,\"EUR\":0.5}}");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000));
+        FileRateProvider provider = new FileRateProvider(file);
+
+        ExchangePairResponse pair = provider.fetchPair("EUR", "BRL");
+        assertEquals(10.0, pair.conversion_rate, 1e-12);
+        // Sem datas no arquivo: publicação = modificação, validade de um dia
+        assertEquals(1_000, pair.time_last_update_unix);
+        assertEquals(1_000 + FileRateProvider.DEFAULT_VALIDITY_SECONDS, pair.time_next_update_unix);
+        assertEquals(2.0, provider.fetchLatest("EUR").conversion_rates.get("USD"), 1e-12);
+
+        Files.writeString(file, "{\"base_code\":\"USD\",\"conversion_rates\":{\"BRL\":6.0,\"EUR\":0.5}}");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(2_000_000));
+        assertEquals(12.0, provider.fetchPairAsync("EUR", "BRL").get().conversion_rate, 1e-12);
+
+        assertThrows(ExchangeRateException.class, () -> provider.fetchPair("USD", "JPY"));
+    }
+}
@@ -0,0 +1,130 @@
+package com.otto.conversormoedas.history;
+
+import com.otto.conversormoedas.model.ConversionHistory;
+import com.otto.conversormoedas.model.HistoryPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do HistoryLog (segmentos, reabertura, consulta por intervalo e paginação).
+ */
+public class HistoryLogTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @TempDir
+    Path dir;
+
+    /** Grava {@code count} registros, um por minuto a partir de START, e aguarda o fsync. */
+    private static void appendMinutes(HistoryLog log, int count) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            pending.add(log.append(new ConversionHistory("USD", "BRL", i + 1, (i + 1) * 5.0, 5.0, START.plusMinutes(i))));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private static long millis(LocalDateTime time) {
+        return HistoryLog.epochMillis(time);
+    }
+
+    @Test
+    void append_rollsSegmentsAndSurvivesReopen() throws Exception {
+        try (HistoryLog log = new HistoryLog(dir, 1000)) {
+            appendMinutes(log, 2500);
+            assertEquals(2500, log.size());
+            assertEquals(3, log.getSegmentCount());
+            assertTrue(log.getCommits() <= 2500);
+        }
+
+        try (HistoryLog reopened = new HistoryLog(dir, 1000)) {
+            assertEquals(2500, reopened.size());
+            HistoryPage page = reopened.query(millis(START.plusMinutes(1999)), millis(START.plusMinutes(2001)), -1, 10);
+            assertEquals(3, page.getRecords().size());
+            ConversionHistory first = page.getRecords().get(0);
+            assertEquals(2000.0, first.getAmount(), 0.0);
+            assertEquals("USD", first.getFromCurrency());
+            assertEquals("BRL", first.getToCurrency());
+            assertEquals(START.plusMinutes(1999), first.getTimestamp());
+            assertNull(page.getNextCursor());
+        }
+    }
+
+    @Test
+    void query_paginatesWithCursorOverWholeRange() throws Exception {
+        try (HistoryLog log = new HistoryLog(dir, 700)) {
+            appendMinutes(log, 3000);
+            long from = millis(START.plusMinutes(100));
+            long to = millis(START.plusMinutes(2599));
+
+            long cursor = -1;
+            int total = 0;
+            double expectedAmount = 101;
+            do {
+                HistoryPage page = log.query(from, to, cursor, 333);
+                for (ConversionHistory record : page.getRecords()) {
+                    assertEquals(expectedAmount++, record.getAmount(), 0.0);
+                }
+                total += page.getRecords().size();
+                cursor = page.getNextCursor() != null ? page.getNextCursor() : -1;
+            } while (cursor >= 0);
+            assertEquals(2500, total);
+        }
+    }
+
+    @Test
+    void open_discardsTornRecordAtTail() throws Exception {
+        try (HistoryLog log = new HistoryLog(dir, 1000)) {
+            appendMinutes(log, 10);
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[HistoryLog.RECORD_BYTES / 2]));
+        }
+
+        try (HistoryLog reopened = new HistoryLog(dir, 1000)) {
+            assertEquals(10, reopened.size());
+            appendMinutes(reopened, 1);
+            assertEquals(11, reopened.query(Long.MIN_VALUE, Long.MAX_VALUE, -1, 100).getRecords().size());
+        }
+    }
+
+    @Test
+    void append_fullQueue_failsFutureInsteadOfBlocking() throws Exception {
+        try (HistoryLog log = new HistoryLog(dir, 1024, 1)) {
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                pending.add(log.append(new ConversionHistory("USD", "BRL", 1, 5.0, 5.0, START.plusMinutes(i))));
+            }
+            long failed = 0;
+            for (CompletableFuture<Void> f : pending) {
+                try {
+                    f.join();
+                } catch (CompletionException e) {
+                    assertInstanceOf(IllegalStateException.class, e.getCause());
+                    failed++;
+                }
+            }
+            assertTrue(failed > 0);
+            assertEquals(failed, log.getDropped());
+            assertEquals(10_000 - failed, log.size());
+        }
+    }
+}
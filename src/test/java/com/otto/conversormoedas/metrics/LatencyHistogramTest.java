@@ -0,0 +1,50 @@
+package com.otto.conversormoedas.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do histograma log-linear: baldes consistentes, percentis dentro do erro e exportação acumulada.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    void index_valuesFallInsideTheirBucket() {
+        for (long v = 0; v < 1L << 41; v = v * 3 / 2 + 1) {
+            int i = LatencyHistogram.index(v);
+            assertTrue(i < LatencyHistogram.BUCKETS, "índice fora da faixa para " + v);
+            assertTrue(v < LatencyHistogram.upperBound(i), "limite superior para " + v);
+            assertTrue(i == 0 || v >= LatencyHistogram.upperBound(i - 1), "limite inferior para " + v);
+        }
+    }
+
+    @Test
+    void percentile_withinRelativeErrorOfBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 1000; ms++) {
+            histogram.record(ms * 1_000_000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500, histogram.percentile(0.50) / 1_000_000.0, 500 * 0.125);
+        assertEquals(990, histogram.percentile(0.99) / 1_000_000.0, 990 * 0.125);
+        assertTrue(histogram.percentile(1.0) >= 1000 * 1_000_000L);
+    }
+
+    @Test
+    void cumulativeCounts_areMonotonicAndEndWithTotal() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(200_000L);        // 0.2 ms
+        histogram.record(3_000_000L);      // 3 ms
+        histogram.record(60_000_000_000L); // 60 s, acima do último limite
+
+        long[] cumulative = histogram.cumulativeCounts();
+        assertEquals(1, cumulative[0]); // le=0.0005
+        assertEquals(2, cumulative[LatencyHistogram.EXPORT_BOUNDS.length - 1]); // le=10
+        assertEquals(3, cumulative[cumulative.length - 1]); // +Inf
+        for (int i = 1; i < cumulative.length; i++) {
+            assertTrue(cumulative[i] >= cumulative[i - 1]);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.otto.conversormoedas.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do registro: identidade das séries e formato texto do Prometheus.
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    void counter_sameNameAndLabels_returnsSameInstance() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter a = registry.counter("requests_total", "Requisições", "route", "/a");
+
+        assertSame(a, registry.counter("requests_total", "Requisições", "route", "/a"));
+        assertNotSame(a, registry.counter("requests_total", "Requisições", "route", "/b"));
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("requests_total", "x"));
+    }
+
+    @Test
+    void writePrometheus_formatsCountersGaugesAndHistograms() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("requests_total", "Requisições", "route", "/api/rates", "status", "200").add(3);
+        registry.gauge("remaining", "Cota \"restante\"").set(42);
+        registry.histogram("latency_seconds", "Latência", "route", "/x").record(2_000_000L);
+
+        String text = registry.scrape();
+
+        assertTrue(text.contains("# TYPE requests_total counter\n"));
+        assertTrue(text.contains("requests_total{route=\"/api/rates\",status=\"200\"} 3\n"));
+        assertTrue(text.contains("remaining 42\n"));
+        assertTrue(text.contains("# TYPE latency_seconds histogram\n"));
+        assertTrue(text.contains("latency_seconds_bucket{route=\"/x\",le=\"0.001\"} 0\n"));
+        assertTrue(text.contains("latency_seconds_bucket{route=\"/x\",le=\"0.0025\"} 1\n"));
+        assertTrue(text.contains("latency_seconds_bucket{route=\"/x\",le=\"+Inf\"} 1\n"));
+        assertTrue(text.contains("latency_seconds_sum{route=\"/x\"} 0.002\n"));
+        assertTrue(text.contains("latency_seconds_count{route=\"/x\"} 1\n"));
+    }
+}
@@ -36,6 +36,14 @@ public class CurrencyCodeTest {
         assertThrows(IllegalArgumentException.class, () -> CurrencyCode.fromString(null));
     }
 
+    @Test
+    public void lookup_returnsEnumOrNullWithoutThrowing() {
+        assertEquals(CurrencyCode.BRL, CurrencyCode.lookup("BRL"));
+        assertEquals(CurrencyCode.USD, CurrencyCode.lookup("usd"));
+        assertNull(CurrencyCode.lookup("XYZ"));
+        assertNull(CurrencyCode.lookup(null));
+    }
+
     @Test
     public void toString_returnsCodeAndDescription() {
         String result = CurrencyCode.BRL.toString();
@@ -0,0 +1,83 @@
+package com.otto.conversormoedas.service;
+
+import com.otto.conversormoedas.model.ConversionHistory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do buffer circular do ConversionHistoryService.
+ */
+public class ConversionHistoryServiceTest {
+
+    @Test
+    void capacity_isRoundedUpToPowerOfTwo() {
+        assertEquals(64, new ConversionHistoryService(50).capacity());
+        assertEquals(1024, new ConversionHistoryService().capacity());
+    }
+
+    @Test
+    void getLastConversions_returnsOldestToNewest() {
+        ConversionHistoryService history = new ConversionHistoryService(8);
+        for (int i = 1; i <= 5; i++) {
+            history.addConversion("USD", "BRL", i, i * 5.0, 5.0);
+        }
+
+        List<ConversionHistory> last = history.getLastConversions(3);
+
+        assertEquals(3, last.size());
+        assertEquals(3.0, last.get(0).getAmount(), 0.0001);
+        assertEquals(5.0, last.get(2).getAmount(), 0.0001);
+    }
+
+    @Test
+    void addConversion_beyondCapacity_overwritesOldest() {
+        ConversionHistoryService history = new ConversionHistoryService(4);
+        for (int i = 1; i <= 10; i++) {
+            history.addConversion("USD", "BRL", i, i * 5.0, 5.0);
+        }
+
+        List<ConversionHistory> all = history.getHistory();
+
+        assertEquals(4, history.getHistorySize());
+        assertEquals(4, all.size());
+        assertEquals(7.0, all.get(0).getAmount(), 0.0001);
+        assertEquals(10.0, all.get(3).getAmount(), 0.0001);
+    }
+
+    @Test
+    void clearHistory_hidesPreviousEntries() {
+        ConversionHistoryService history = new ConversionHistoryService(8);
+        history.addConversion("USD", "BRL", 1, 5.0, 5.0);
+        history.clearHistory();
+        history.addConversion("USD", "EUR", 2, 1.8, 0.9);
+
+        List<ConversionHistory> all = history.getHistory();
+
+        assertEquals(1, history.getHistorySize());
+        assertEquals("EUR", all.get(0).getToCurrency());
+    }
+
+    @Test
+    void addConversion_concurrentWriters_keepsLatestCapacityEntries() throws Exception {
+        ConversionHistoryService history = new ConversionHistoryService(256);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    history.addConversion("USD", "BRL", 1, 5.0, 5.0);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(256, history.getHistorySize());
+        assertEquals(256, history.getHistory().size());
+    }
+}
@@ -0,0 +1,416 @@
+package com.otto.conversormoedas.service;
+
+import com.otto.conversormoedas.client.ExchangeLatestResponse;
+import com.otto.conversormoedas.client.ExchangePairResponse;
+import com.otto.conversormoedas.client.ExchangeRateClient;
+import com.otto.conversormoedas.client.ExchangeRateException;
+import com.otto.conversormoedas.model.CurrencyCode;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do CurrencyConverterService usando um cliente stub (sem rede).
+ */
+public class CurrencyConverterServiceTest {
+
+    /** Cliente stub que conta chamadas e pode segurar a resposta até ser liberado. */
+    static class StubClient extends ExchangeRateClient {
+        // Uma thread por chamada assíncrona, para que buscas paralelas realmente se sobreponham
+        private static final ExecutorService ASYNC = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "stub-client");
+            t.setDaemon(true);
+            return t;
+        });
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger latestCalls = new AtomicInteger();
+        final CountDownLatch release;
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        volatile double rate = 5.0;
+        volatile boolean fail;
+        volatile boolean failLatest;
+        /** Se não nulo, falha das buscas no lugar do erro genérico de {@link #fail}. */
+        volatile ExchangeRateException failure;
+        /** Datas de publicação e validade informadas nas respostas (0: não informadas). */
+        volatile long lastUpdateUnix;
+        volatile long nextUpdateUnix;
+        volatile long latencyMillis;
+
+        StubClient(CountDownLatch release) {
+            super("test-key");
+            this.release = release;
+        }
+
+        @Override
+        public ExchangePairResponse fetchPair(String from, String to) throws InterruptedException, ExchangeRateException {
+            calls.incrementAndGet();
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                if (release != null) {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+            } finally {
+                active.decrementAndGet();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (fail) {
+                throw new ExchangeRateException("upstream down");
+            }
+            ExchangePairResponse resp = new ExchangePairResponse();
+            resp.result = "success";
+            resp.base_code = from;
+            resp.target_code = to;
+            resp.conversion_rate = rate;
+            resp.time_last_update_unix = lastUpdateUnix;
+            resp.time_next_update_unix = nextUpdateUnix;
+            return resp;
+        }
+
+        @Override
+        public CompletableFuture<ExchangePairResponse> fetchPairAsync(String from, String to, Duration timeout) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return fetchPair(from, to);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, ASYNC);
+        }
+
+        @Override
+        public ExchangeLatestResponse fetchLatest(String base) throws ExchangeRateException {
+            latestCalls.incrementAndGet();
+            if (failure != null) {
+                throw failure;
+            }
+            if (fail || failLatest) {
+                throw new ExchangeRateException("upstream down");
+            }
+            // Tabela relativa ao USD, re-expressa na base pedida
+            Map<String, Double> usd = Map.of("USD", 1.0, "BRL", 5.0, "EUR", 0.8);
+            double baseRate = usd.get(base);
+            Map<String, Double> rates = new HashMap<>();
+            usd.forEach((code, value) -> rates.put(code, value / baseRate));
+            ExchangeLatestResponse resp = new ExchangeLatestResponse();
+            resp.result = "success";
+            resp.base_code = base;
+            resp.conversion_rates = rates;
+            return resp;
+        }
+
+        @Override
+        public CompletableFuture<ExchangeLatestResponse> fetchLatestAsync(String base, Duration timeout) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return fetchLatest(base);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, ASYNC);
+        }
+    }
+
+    @Test
+    void getRate_cacheHit_doesNotCallUpstreamAgain() {
+        StubClient client = new StubClient(null);
+        CurrencyConverterService service = new CurrencyConverterService(client);
+
+        assertEquals(5.0, service.getRate("USD", "BRL"), 0.0001);
+        assertEquals(5.0, service.getRate("usd", "brl"), 0.0001);
+        assertEquals(1, client.calls.get());
+    }
+
+    @Test
+    void getRate_concurrentMisses_areCoalescedIntoSingleFetch() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubClient client = new StubClient(release);
+        CurrencyConverterService service = new CurrencyConverterService(client);
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Double>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> service.getRate("USD", "BRL")));
+            }
+            // Aguarda todas as threads chegarem (líder bloqueado no upstream, demais aguardando)
+            long deadline = System.currentTimeMillis() + 5000;
+            while (service.getCoalescedFetches() < threads - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<Double> f : results) {
+                assertEquals(5.0, f.get(5, TimeUnit.SECONDS), 0.0001);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, client.calls.get());
+        assertEquals(1, service.getIssuedFetches());
+        assertEquals(threads - 1, service.getCoalescedFetches());
+    }
+
+    @Test
+    void getRate_upstreamFailure_fallsBackToExpiredCache() throws Exception {
+        StubClient client = new StubClient(null);
+        CurrencyConverterService service = new CurrencyConverterService(client, 1);
+
+        assertEquals(5.0, service.getRate("USD", "BRL"), 0.0001);
+        Thread.sleep(5);
+        client.fail = true;
+        assertEquals(5.0, service.getRate("USD", "BRL"), 0.0001);
+    }
+
+    @Test
+    void convertDetailedAt_usesRateInEffectWithoutCallingUpstream() throws Exception {
+        StubClient client = new StubClient(null);
+        CurrencyConverterService service = new CurrencyConverterService(client, 1);
+        long before = System.currentTimeMillis();
+
+        assertEquals(5.0, service.getRate("USD", "BRL"), 0.0001);
+        Thread.sleep(5);
+        long between = System.currentTimeMillis();
+        Thread.sleep(5);
+        client.rate = 6.0;
+        assertEquals(6.0, service.getRate("USD", "BRL"), 0.0001);
+        int calls = client.calls.get();
+
+        assertEquals(500.0, service.convertDetailed(100, "USD", "BRL", between).getConvertedAmount(), 0.0001);
+        assertEquals(600.0, service.convertDetailed(CurrencyCode.USD, CurrencyCode.BRL, 100,
+                System.currentTimeMillis()).getConvertedAmount(), 0.0001);
+        assertEquals(20.0, service.convertDetailed(CurrencyCode.BRL, CurrencyCode.USD, 100, between)
+                .getConvertedAmount(), 0.0001, "par inverso");
+        assertThrows(NoSuchElementException.class,
+                () -> service.convertDetailed(CurrencyCode.USD, CurrencyCode.BRL, 100, before - 1_000));
+        assertEquals(calls, client.calls.get());
+    }
+
+    @Test
+    void convertExact_roundsToMinorUnitsOfTargetCurrency() {
+        StubClient client = new StubClient(null);
+        client.rate = 5.055;
+        CurrencyConverterService service = new CurrencyConverterService(client);
+
+        // 100.05 * 5.055 = 505.75275
+        var result = service.convertExact(CurrencyCode.USD, CurrencyCode.BRL, new BigDecimal("100.05"),
+                RoundingMode.HALF_EVEN);
+        assertTrue(result.isExact());
+        assertEquals(new BigDecimal("505.75"), result.getExactConvertedAmount());
+        assertEquals(new BigDecimal("100.05"), result.getExactOriginalAmount());
+        assertEquals(505.75, result.getConvertedAmount(), 0.0);
+
+        client.rate = 150.505;
+        var yen = service.convertExact(CurrencyCode.USD, CurrencyCode.JPY, new BigDecimal("100"), RoundingMode.HALF_UP);
+        assertEquals(new BigDecimal("15051"), yen.getExactConvertedAmount());
+        assertFalse(service.convertDetailed(CurrencyCode.USD, CurrencyCode.BRL, 100).isExact());
+    }
+
+    @Test
+    void getRate_upstreamFailureWithoutCache_throws() {
+        StubClient client = new StubClient(null);
+        client.fail = true;
+        CurrencyConverterService service = new CurrencyConverterService(client);
+
+        assertThrows(RuntimeException.class, () -> service.getRate("USD", "BRL"));
+    }
+
+    @Test
+    void getRate_typedAfterStringFetch_hitsOrdinalStore() {
+        StubClient client = new StubClient(null);
+        CurrencyConverterService service = new CurrencyConverterService(client);
+
+        service.getRate("usd", "brl");
+        client.rate = 7.0;
+
+        assertEquals(5.0, service.getRate(CurrencyCode.USD, CurrencyCode.BRL), 0.0001);
+        assertEquals(1, client.calls.get());
+    }
+
+    @Test
+    void getRate_typedHits_stillFeedPairPopularity() throws Exception {
+        StubClient client = new StubClient(null);
+        CurrencyConverterService service = new CurrencyConverterService(client);
+        service.getRate(CurrencyCode.USD, CurrencyCode.BRL);
+
+        // Demanda amostrada no acerto: no máximo uma por milissegundo por par
+        for (int i = 0; i < 5; i++) {
+            service.getRate(CurrencyCode.USD, CurrencyCode.BRL);
+            Thread.sleep(2);
+        }
+
+        assertTrue(client.getGovernor().isHot(CurrencyCode.USD, CurrencyCode.BRL));
+        assertFalse(client.getGovernor().isHot(CurrencyCode.USD, CurrencyCode.EUR));
+    }
+
+    @Test
+    void getRate_expiredProviderData_isServedButNeverCachedAsFresh() {
+        StubClient client = new StubClient(null);
+        long publishedUnix = System.currentTimeMillis() / 1000 - 3 * 24 * 60 * 60;
+        client.lastUpdateUnix = publishedUnix;
+        client.nextUpdateUnix = publishedUnix + 24 * 60 * 60;
+        CurrencyConverterService service = new CurrencyConverterService(client);
+
+        assertEquals(5.0, service.getRate(CurrencyCode.USD, CurrencyCode.BRL), 0.0001);
+        assertEquals(5.0, service.getRate(CurrencyCode.USD, CurrencyCode.BRL), 0.0001);
+
+        // Vencida: cada consulta volta ao upstream, e a taxa não entra no histórico como atual
+        assertEquals(2, client.calls.get());
+        assertThrows(NoSuchElementException.class,
+            () -> service.getRateAt(CurrencyCode.USD, CurrencyCode.BRL, System.currentTimeMillis()));
+
+        // Dado vigente depois de um vencido: volta a valer o cache normal
+        client.nextUpdateUnix = 0;
+        client.rate = 6.0;
+        assertEquals(6.0, service.getRate(CurrencyCode.USD, CurrencyCode.BRL), 0.0001);
+        assertEquals(6.0, service.getRate(CurrencyCode.USD, CurrencyCode.BRL), 0.0001);
+        assertEquals(3, client.calls.get());
+    }
+
+    @Test
+    void fetchedAt_usesPublicationOnlyWhenProviderDataExpired() {
+        long now = 1_700_000_000_000L;
+        assertEquals(now, CurrencyConverterService.fetchedAt(0, 0, now));
+        assertEquals(now, CurrencyConverterService.fetchedAt(1_699_990_000, 1_700_050_000, now));
+        assertEquals(1_699_000_000_000L, CurrencyConverterService.fetchedAt(1_699_000_000, 1_699_086_400, now));
+        assertEquals(now, CurrencyConverterService.fetchedAt(1_800_000_000, 1_600_000_000, now));
+    }
+
+    @Test
+    void getRates_coldCache_usesSingleSnapshotFetch() {
+        StubClient client = new StubClient(null);
+        CurrencyConverterService service = new CurrencyConverterService(client);
+
+        Map<CurrencyCode, Double> rates = service.getRates(CurrencyCode.BRL);
+
+        assertEquals(1, client.latestCalls.get());
+        assertEquals(0, client.calls.get());
+        assertEquals(0.2, rates.get(CurrencyCode.USD), 0.0001);
+        assertEquals(0.16, rates.get(CurrencyCode.EUR), 0.0001);
+        // Moedas ausentes no snapshot são omitidas
+        assertFalse(rates.containsKey(CurrencyCode.JPY));
+    }
+
+    @Test
+    void getRate_typed_derivesCrossRateFromSnapshot() {
+        StubClient client = new StubClient(null);
+        CurrencyConverterService service = new CurrencyConverterService(client);
+        service.getRates(CurrencyCode.USD);
+
+        assertEquals(6.25, service.getRate(CurrencyCode.EUR, CurrencyCode.BRL), 0.0001);
+        assertEquals(0, client.calls.get());
+    }
+
+    @Test
+    void getRate_staleWhileRevalidate_servesCachedAndRefreshesInBackground() throws Exception {
+        StubClient client = new StubClient(null);
+        try (RefreshScheduler scheduler = new RefreshScheduler(60_000, 60_000)) {
+            CurrencyConverterService service = new CurrencyConverterService(client, 1, 60_000, scheduler);
+
+            assertEquals(5.0, service.getRate("USD", "BRL"), 0.0001);
+            Thread.sleep(5);
+            client.rate = 6.0;
+
+            // Passou do TTL suave: devolve o valor antigo sem bloquear
+            assertEquals(5.0, service.getRate("USD", "BRL"), 0.0001);
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (client.calls.get() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(20);
+            assertEquals(2, client.calls.get());
+            assertEquals(6.0, service.getRate("USD", "BRL"), 0.0001);
+            assertEquals(1, scheduler.getActiveKeyCount());
+        }
+    }
+
+    @Test
+    void getRate_typedHits_keepPairInProactiveRefresh() throws Exception {
+        StubClient client = new StubClient(null);
+        try (RefreshScheduler scheduler = new RefreshScheduler(100, 10)) {
+            CurrencyConverterService service = new CurrencyConverterService(client, 60_000, 60_000, scheduler);
+            service.getRate("USD", "BRL");
+
+            // Só acertos tipados (sem touch) por mais que o tempo ocioso: o par continua ativo
+            long until = System.currentTimeMillis() + 400;
+            while (System.currentTimeMillis() < until) {
+                service.getRate(CurrencyCode.USD, CurrencyCode.BRL);
+                Thread.sleep(10);
+            }
+            assertEquals(1, scheduler.getActiveKeyCount());
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (scheduler.getActiveKeyCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, scheduler.getActiveKeyCount());
+            assertEquals(1, client.calls.get());
+        }
+    }
+
+    @Test
+    void getRatesAsync_firesPairFetchesInParallel() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubClient client = new StubClient(release);
+        CurrencyConverterService service = new CurrencyConverterService(client);
+
+        CompletableFuture<Map<CurrencyCode, Double>> rates = service.getRatesAsync(CurrencyCode.USD,
+                List.of(CurrencyCode.BRL, CurrencyCode.EUR, CurrencyCode.USD), Duration.ofSeconds(5));
+
+        // Ambas as buscas ficam pendentes ao mesmo tempo, antes de qualquer resposta
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (client.calls.get() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(2, client.calls.get());
+        assertFalse(rates.isDone());
+
+        release.countDown();
+        Map<CurrencyCode, Double> result = rates.get(5, TimeUnit.SECONDS);
+        assertEquals(Map.of(CurrencyCode.BRL, 5.0, CurrencyCode.EUR, 5.0), result);
+        assertEquals(5.0, service.getRate(CurrencyCode.USD, CurrencyCode.BRL), 0.0001);
+        assertEquals(2, client.calls.get());
+    }
+
+    @Test
+    void getRateAsync_deadlineExpires_sharedFetchStillFillsCache() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubClient client = new StubClient(release);
+        CurrencyConverterService service = new CurrencyConverterService(client);
+
+        CompletableFuture<Double> late = service.getRateAsync(CurrencyCode.USD, CurrencyCode.BRL, Duration.ofMillis(50));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+
+        release.countDown();
+        assertEquals(5.0, service.getRateAsync(CurrencyCode.USD, CurrencyCode.BRL).get(5, TimeUnit.SECONDS), 0.0001);
+        assertEquals(1, client.calls.get());
+    }
+}
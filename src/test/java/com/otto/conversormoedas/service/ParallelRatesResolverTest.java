@@ -0,0 +1,99 @@
+package com.otto.conversormoedas.service;
+
+import com.otto.conversormoedas.client.QuotaExceededException;
+import com.otto.conversormoedas.client.QuotaGovernor;
+import com.otto.conversormoedas.model.CurrencyCode;
+import com.otto.conversormoedas.service.CurrencyConverterServiceTest.StubClient;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do ParallelRatesResolver (snapshot, fan-out limitado e prazo).
+ */
+public class ParallelRatesResolverTest {
+
+    private static final int TARGETS = CurrencyCode.values().length - 1;
+
+    @Test
+    void resolve_withSnapshot_marksMissingCurrenciesUnavailable() {
+        StubClient client = new StubClient(null);
+        ParallelRatesResolver resolver = new ParallelRatesResolver(new CurrencyConverterService(client));
+
+        ParallelRatesResolver.Result result = resolver.resolve(CurrencyCode.USD, Duration.ofSeconds(5));
+
+        assertEquals(5.0, result.getRates().get(CurrencyCode.BRL), 0.0001);
+        assertEquals(ParallelRatesResolver.Status.UNAVAILABLE, result.getStatuses().get(CurrencyCode.JPY));
+        assertEquals(TARGETS, result.getStatuses().size());
+        assertTrue(result.isComplete());
+        assertNotEquals(ParallelRatesResolver.NO_SNAPSHOT, result.getSnapshotVersion());
+        assertEquals(0, client.calls.get());
+    }
+
+    @Test
+    void resolve_withoutSnapshot_fansOutWithBoundedConcurrency() {
+        StubClient client = new StubClient(null);
+        client.failLatest = true;
+        client.latencyMillis = 10;
+        ParallelRatesResolver resolver = new ParallelRatesResolver(new CurrencyConverterService(client), 4);
+
+        ParallelRatesResolver.Result result = resolver.resolve(CurrencyCode.USD, Duration.ofSeconds(30));
+
+        assertTrue(result.isComplete());
+        assertEquals(TARGETS, result.getRates().size());
+        assertEquals(TARGETS, client.calls.get());
+        assertEquals(ParallelRatesResolver.NO_SNAPSHOT, result.getSnapshotVersion());
+        assertTrue(client.maxActive.get() <= 4, "máximo simultâneo: " + client.maxActive.get());
+        assertTrue(client.maxActive.get() > 1);
+    }
+
+    @Test
+    void resolve_deadlineExpires_returnsPartialResultWithStatus() {
+        StubClient client = new StubClient(null);
+        client.failLatest = true;
+        CurrencyConverterService service = new CurrencyConverterService(client);
+        service.getRate(CurrencyCode.USD, CurrencyCode.BRL); // já em cache
+        client.latencyMillis = 2_000;
+        ParallelRatesResolver resolver = new ParallelRatesResolver(service, 4);
+
+        long start = System.nanoTime();
+        ParallelRatesResolver.Result result = resolver.resolve(CurrencyCode.USD, Duration.ofMillis(200));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1_500, "resolve deve respeitar o prazo: " + elapsedMillis + " ms");
+        assertFalse(result.isComplete());
+        assertEquals(ParallelRatesResolver.Status.OK, result.getStatuses().get(CurrencyCode.BRL));
+        assertEquals(5.0, result.getRates().get(CurrencyCode.BRL), 0.0001);
+        assertEquals(ParallelRatesResolver.Status.TIMEOUT, result.getStatuses().get(CurrencyCode.EUR));
+    }
+
+    @Test
+    void resolve_upstreamErrors_reportedPerCurrency() {
+        StubClient client = new StubClient(null);
+        client.fail = true;
+        ParallelRatesResolver resolver = new ParallelRatesResolver(new CurrencyConverterService(client));
+
+        ParallelRatesResolver.Result result = resolver.resolve(CurrencyCode.USD, Duration.ofSeconds(5));
+
+        assertFalse(result.isComplete());
+        assertTrue(result.getRates().isEmpty());
+        assertEquals(ParallelRatesResolver.Status.ERROR, result.getStatuses().get(CurrencyCode.BRL));
+        assertEquals("upstream down", result.getErrors().get(CurrencyCode.BRL));
+    }
+
+    @Test
+    void resolve_quotaDenials_keepDenialInResult() {
+        StubClient client = new StubClient(null);
+        client.failure = new QuotaExceededException(QuotaGovernor.Reason.RATE_LIMITED, "limite local", 1_500);
+        ParallelRatesResolver resolver = new ParallelRatesResolver(new CurrencyConverterService(client));
+
+        ParallelRatesResolver.Result result = resolver.resolve(CurrencyCode.USD, Duration.ofSeconds(5));
+
+        assertTrue(result.getRates().isEmpty());
+        assertNotNull(result.getQuotaDenial());
+        assertEquals(QuotaGovernor.Reason.RATE_LIMITED, result.getQuotaDenial().getReason());
+        assertEquals(1_500, result.getQuotaDenial().getRetryAfterMillis());
+    }
+}
@@ -0,0 +1,70 @@
+package com.otto.conversormoedas.service;
+
+import com.otto.conversormoedas.model.CurrencyCode;
+import com.otto.conversormoedas.service.CurrencyConverterServiceTest.StubClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do RateSnapshotStore (gravação, partida quente e fallback com upstream fora).
+ */
+public class RateSnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void restore_warmsNewServiceWithoutUpstreamCalls() throws Exception {
+        Path file = dir.resolve("rates.bin");
+        CurrencyConverterService first = new CurrencyConverterService(new StubClient(null));
+        first.getRate("USD", "BRL");
+        first.getRates(CurrencyCode.USD);
+        new RateSnapshotStore(file, 60_000).save(first);
+        assertEquals(RateSnapshotStore.FILE_BYTES, Files.size(file));
+
+        StubClient client = new StubClient(null);
+        CurrencyConverterService restarted = new CurrencyConverterService(client);
+        assertEquals(1, new RateSnapshotStore(file, 60_000).restore(restarted));
+
+        assertEquals(5.0, restarted.getRate(CurrencyCode.USD, CurrencyCode.BRL), 0.0001);
+        assertEquals(6.25, restarted.getRate(CurrencyCode.EUR, CurrencyCode.BRL), 0.0001);
+        assertEquals(0.16, restarted.getRates(CurrencyCode.BRL).get(CurrencyCode.EUR), 0.0001);
+        assertEquals(0, client.calls.get());
+        assertEquals(0, client.latestCalls.get());
+    }
+
+    @Test
+    void restore_servesLastKnownRatesWhenUpstreamIsDown() throws Exception {
+        Path file = dir.resolve("rates.bin");
+        CurrencyConverterService first = new CurrencyConverterService(new StubClient(null));
+        first.getRate("USD", "BRL");
+        first.getRates(CurrencyCode.USD);
+        new RateSnapshotStore(file, 60_000).save(first);
+        Thread.sleep(5);
+
+        StubClient client = new StubClient(null);
+        client.fail = true;
+        // TTL de 1 ms: tudo o que foi restaurado já está vencido
+        CurrencyConverterService restarted = new CurrencyConverterService(client, 1);
+        new RateSnapshotStore(file, 60_000).restore(restarted);
+
+        assertEquals(5.0, restarted.getRate("USD", "BRL"), 0.0001);
+        assertEquals(6.25, restarted.getRate(CurrencyCode.EUR, CurrencyCode.BRL), 0.0001);
+        assertTrue(client.calls.get() > 0);
+    }
+
+    @Test
+    void restore_ignoresMissingOrForeignFiles() throws Exception {
+        CurrencyConverterService service = new CurrencyConverterService(new StubClient(null));
+        assertEquals(0, new RateSnapshotStore(dir.resolve("missing.bin"), 60_000).restore(service));
+
+        Path foreign = dir.resolve("foreign.bin");
+        Files.write(foreign, new byte[RateSnapshotStore.FILE_BYTES]);
+        assertEquals(0, new RateSnapshotStore(foreign, 60_000).restore(service));
+    }
+}
@@ -0,0 +1,99 @@
+package com.otto.conversormoedas.service;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da conversão em streaming (CSV e NDJSON).
+ */
+public class StreamingConverterTest {
+
+    private final CurrencyConverterServiceTest.StubClient client = new CurrencyConverterServiceTest.StubClient(null);
+    private final StreamingConverter converter = new StreamingConverter(new CurrencyConverterService(client));
+
+    @Test
+    void convert_csvWithHeader_appendsResultColumnsAndKeepsExtraColumns() throws Exception {
+        String csv = "id,from,to,amount\n"
+            + "1,USD,BRL,100\n"
+            + "2,usd,brl,\"2,5\"\n"
+            + "3,USD,XYZ,1\n";
+        StringWriter out = new StringWriter();
+
+        StreamingConverter.Summary summary = converter.convert(new StringReader(csv), out, StreamingConverter.Format.CSV);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals("id,from,to,amount,result,rate,error", lines[0]);
+        assertEquals("1,USD,BRL,100,500.0,5.0,", lines[1]);
+        assertEquals("2,usd,brl,\"2,5\",12.5,5.0,", lines[2]);
+        assertEquals("3,USD,XYZ,1,,,Código de moeda inválido", lines[3]);
+        assertEquals(3, summary.getLines());
+        assertEquals(1, summary.getFailed());
+        assertEquals(1, client.calls.get());
+    }
+
+    @Test
+    void convert_csvWithoutHeader_usesFirstThreeColumns() throws Exception {
+        StringWriter out = new StringWriter();
+
+        converter.convert(new StringReader("USD;BRL;10\n"), out, StreamingConverter.Format.CSV);
+
+        assertEquals("USD;BRL;10;50.0;5.0;\n", out.toString());
+    }
+
+    @Test
+    void convert_csvSemicolonWithDecimalComma_usesSemicolon() throws Exception {
+        StringWriter out = new StringWriter();
+        converter.convert(new StringReader("USD;BRL;100,50\n"), out, StreamingConverter.Format.CSV);
+
+        assertEquals("USD;BRL;100,50;502.5;5.0;\n", out.toString());
+    }
+
+    @Test
+    void detectDelimiter_ignoresSemicolonInsideQuotes() {
+        assertEquals(';', StreamingConverter.detectDelimiter("from;to;amount"));
+        assertEquals(',', StreamingConverter.detectDelimiter("from,to,amount,\"nota; extra\""));
+        assertEquals(',', StreamingConverter.detectDelimiter("USD,BRL,10"));
+    }
+
+    @Test
+    void convert_ndjson_writesOneResultPerInputLine() throws Exception {
+        String ndjson = "{\"from\":\"USD\",\"to\":\"BRL\",\"amount\":2}\n"
+            + "{broken\n"
+            + "{\"from\":\"USD\",\"to\":\"BRL\",\"amount\":0}\n";
+        StringWriter out = new StringWriter();
+
+        StreamingConverter.Summary summary = converter.convert(new StringReader(ndjson), out, StreamingConverter.Format.NDJSON);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(3, lines.length);
+        JsonObject first = JsonParser.parseString(lines[0]).getAsJsonObject();
+        assertEquals(10.0, first.get("result").getAsDouble(), 0.0001);
+        assertEquals(2, JsonParser.parseString(lines[1]).getAsJsonObject().get("line").getAsInt());
+        assertTrue(JsonParser.parseString(lines[2]).getAsJsonObject().has("error"));
+        assertEquals(1, summary.getConverted());
+    }
+
+    @Test
+    void splitCsv_handlesQuotedDelimitersAndEscapedQuotes() {
+        List<String> fields = new ArrayList<>();
+
+        StreamingConverter.splitCsv("a,\"b,c\",\"d\"\"e\"", ',', fields);
+
+        assertEquals(List.of("a", "b,c", "d\"e"), fields);
+    }
+
+    @Test
+    void format_detectedFromContentTypeAndFileName() {
+        assertEquals(StreamingConverter.Format.CSV, StreamingConverter.Format.fromContentType("text/csv; charset=utf-8"));
+        assertEquals(StreamingConverter.Format.NDJSON, StreamingConverter.Format.fromFileName("ledger.jsonl"));
+        assertNull(StreamingConverter.Format.fromFileName("ledger.xlsx"));
+    }
+}
@@ -0,0 +1,190 @@
+package com.otto.conversormoedas.timeseries;
+
+import com.otto.conversormoedas.model.CurrencyCode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do histórico de taxas: compressão sem perdas, rollups OHLC, retenção e par inverso.
+ */
+public class RateTimeSeriesTest {
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    /** 2024-01-01T00:00:00Z */
+    private static final long T0 = 1_704_067_200_000L;
+
+    @Test
+    void gorillaBlock_roundTripsIrregularTimestampsAndValues() {
+        Random random = new Random(42);
+        long[] times = new long[GorillaBlock.MAX_POINTS];
+        double[] values = new double[times.length];
+        times[0] = T0;
+        values[0] = 5.1234;
+        for (int i = 1; i < times.length; i++) {
+            // Intervalos regulares, com jitter, repetidos e saltos grandes (todas as faixas do delta-of-delta)
+            long gap;
+            if (i % 5 == 0) {
+                gap = 300_000L;
+            } else if (i % 5 == 1) {
+                gap = 300_000L + random.nextInt(2_000);
+            } else if (i % 5 == 2) {
+                gap = 0L;
+            } else if (i % 5 == 3) {
+                gap = 1L + random.nextInt(100_000_000);
+            } else {
+                gap = (long) random.nextInt(Integer.MAX_VALUE) * 1_000L;
+            }
+            times[i] = times[i - 1] + gap;
+            values[i] = i % 7 == 0 ? values[i - 1] : values[i - 1] * (1 + (random.nextDouble() - 0.5) / 100);
+        }
+        values[10] = 1e-9;
+        values[11] = 123_456_789.0;
+
+        GorillaBlock block = new GorillaBlock(times[0], values[0]);
+        for (int i = 1; i < times.length; i++) {
+            block.append(times[i], values[i]);
+        }
+        assertTrue(block.isFull());
+
+        GorillaBlock.Cursor cursor = block.cursor();
+        for (int i = 0; i < times.length; i++) {
+            assertTrue(cursor.next());
+            assertEquals(times[i], cursor.timestamp(), "instante " + i);
+            assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(cursor.value()), "taxa " + i);
+        }
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void gorillaBlock_compressesRegularSlowlyChangingRates() {
+        GorillaBlock block = new GorillaBlock(T0, 5.0);
+        for (int i = 1; i < GorillaBlock.MAX_POINTS; i++) {
+            block.append(T0 + i * 5 * MINUTE, i % 10 == 0 ? 5.0 + i / 10_000.0 : 5.0 + (i - i % 10) / 10_000.0);
+        }
+        // 16 bytes por ponto sem compressão
+        assertTrue(block.compressedBytes() < GorillaBlock.MAX_POINTS * 16 / 4,
+                "comprimido: " + block.compressedBytes() + " bytes");
+    }
+
+    @Test
+    void query_aggregatesRawPointsIntoOhlcBars() {
+        RateTimeSeries series = new RateTimeSeries();
+        series.record(CurrencyCode.USD, CurrencyCode.BRL, 5.0, T0 + 10 * MINUTE);
+        series.record(CurrencyCode.USD, CurrencyCode.BRL, 5.4, T0 + 20 * MINUTE);
+        series.record(CurrencyCode.USD, CurrencyCode.BRL, 4.9, T0 + 30 * MINUTE);
+        series.record(CurrencyCode.USD, CurrencyCode.BRL, 5.1, T0 + 70 * MINUTE);
+
+        RateBars bars = series.query(CurrencyCode.USD, CurrencyCode.BRL, T0, T0 + 3 * HOUR, 30 * MINUTE);
+        assertEquals("minute", bars.getSource());
+        List<OhlcBar> list = bars.getBars();
+        assertEquals(3, list.size(), "intervalos vazios omitidos");
+        assertBar(list.get(0), T0, 5.0, 5.4, 5.0, 5.4, 2);
+        assertBar(list.get(1), T0 + 30 * MINUTE, 4.9, 4.9, 4.9, 4.9, 1);
+        assertBar(list.get(2), T0 + 60 * MINUTE, 5.1, 5.1, 5.1, 5.1, 1);
+
+        // Passo que não é múltiplo de minuto: só os pontos brutos servem
+        RateBars raw = series.query(CurrencyCode.USD, CurrencyCode.BRL, T0, T0 + 3 * HOUR, 90_000L);
+        assertEquals("raw", raw.getSource());
+        assertEquals(4, raw.getBars().size());
+
+        RateBars hourly = series.query(CurrencyCode.USD, CurrencyCode.BRL, T0, T0 + 3 * HOUR, HOUR);
+        assertEquals("hour", hourly.getSource());
+        assertBar(hourly.getBars().get(0), T0, 5.0, 5.4, 4.9, 4.9, 3);
+    }
+
+    @Test
+    void query_yearOfPoints_usesRollupsAndStaysWithinRetention() {
+        RateTimeSeries series = new RateTimeSeries(Duration.ofDays(90), RateTimeSeries.MAX_RAW_BLOCKS);
+        long step = 5 * MINUTE;
+        int points = (int) (366 * DAY / step);
+        for (int i = 0; i < points; i++) {
+            series.record(CurrencyCode.EUR, CurrencyCode.USD, 1.1 + (i % 288) / 10_000.0, T0 + i * step);
+        }
+        long end = T0 + 366 * DAY;
+
+        RateBars daily = series.query(CurrencyCode.EUR, CurrencyCode.USD, T0, end, DAY);
+        assertEquals("day", daily.getSource());
+        assertEquals(366, daily.getBars().size());
+        assertBar(daily.getBars().get(0), T0, 1.1, 1.1 + 287 / 10_000.0, 1.1, 1.1 + 287 / 10_000.0, 288);
+
+        // Um passo fino sobre o ano todo: só o rollup diário ainda cobre o início
+        RateBars fine = series.query(CurrencyCode.EUR, CurrencyCode.USD, T0, end, 7 * DAY);
+        assertEquals("day", fine.getSource());
+        RateBars old = series.query(CurrencyCode.EUR, CurrencyCode.USD, T0, T0 + 10 * DAY, 5 * MINUTE);
+        assertEquals(DAY, old.getStepMillis(), "brutos fora da retenção: passo arredondado para dias");
+
+        RateBars recent = series.query(CurrencyCode.EUR, CurrencyCode.USD, end - DAY, end, 5 * MINUTE);
+        assertEquals("minute", recent.getSource());
+        assertEquals(288, recent.getBars().size());
+        // Além do rollup por minuto (7 * 24 * 60 baldes = 35 dias de pontos a cada 5 min), dentro da retenção
+        RateBars older = series.query(CurrencyCode.EUR, CurrencyCode.USD, end - 60 * DAY, end - 59 * DAY, 5 * MINUTE);
+        assertEquals("raw", older.getSource());
+        assertEquals(288, older.getBars().size());
+
+        // 90 dias de pontos brutos (mais um bloco) + rollups cheios: abaixo dos ~1,7 MB do ano sem compressão
+        assertTrue(series.getMemoryBytes() < 1_500_000, "memória: " + series.getMemoryBytes());
+        assertEquals(points, series.getPointCount());
+    }
+
+    @Test
+    void query_withoutDirectSeries_invertsReversePair() {
+        RateTimeSeries series = new RateTimeSeries();
+        series.record(CurrencyCode.USD, CurrencyCode.BRL, 4.0, T0);
+        series.record(CurrencyCode.USD, CurrencyCode.BRL, 5.0, T0 + MINUTE);
+
+        RateBars bars = series.query(CurrencyCode.BRL, CurrencyCode.USD, T0, T0 + HOUR, HOUR);
+        assertBar(bars.getBars().get(0), T0, 0.25, 0.25, 0.2, 0.2, 2);
+        assertTrue(series.query(CurrencyCode.EUR, CurrencyCode.JPY, T0, T0 + HOUR, HOUR).getBars().isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> series.query(CurrencyCode.USD, CurrencyCode.BRL, T0, T0 + 366 * DAY, MINUTE));
+    }
+
+    @Test
+    void rateAt_findsLastPointAtOrBeforeInstant() {
+        RateTimeSeries series = new RateTimeSeries();
+        for (int i = 0; i < 3 * GorillaBlock.MAX_POINTS; i++) {
+            series.record(CurrencyCode.USD, CurrencyCode.BRL, 5.0 + i / 1_000.0, T0 + i * MINUTE);
+        }
+        series.record(CurrencyCode.USD, CurrencyCode.EUR, 0.5, T0);
+
+        assertEquals(5.0, series.rateAt(CurrencyCode.USD, CurrencyCode.BRL, T0).getRate(), 1e-12);
+        RatePoint between = series.rateAt(CurrencyCode.USD, CurrencyCode.BRL, T0 + 2_000 * MINUTE + 30_000);
+        assertEquals(T0 + 2_000 * MINUTE, between.getTimestamp());
+        assertEquals(7.0, between.getRate(), 1e-12);
+        assertEquals(5.0 + 3_071 / 1_000.0, series.rateAt(CurrencyCode.USD, CurrencyCode.BRL, T0 + 10 * DAY).getRate(), 1e-12);
+        assertNull(series.rateAt(CurrencyCode.USD, CurrencyCode.BRL, T0 - 1));
+
+        assertEquals(1 / 7.0, series.rateAt(CurrencyCode.BRL, CurrencyCode.USD, T0 + 2_000 * MINUTE).getRate(), 1e-12);
+        // Cruzado pela moeda em comum: EUR→BRL = (USD→BRL) / (USD→EUR)
+        assertEquals(14.0, series.rateAt(CurrencyCode.EUR, CurrencyCode.BRL, T0 + 2_000 * MINUTE).getRate(), 1e-12);
+        assertNull(series.rateAt(CurrencyCode.JPY, CurrencyCode.BRL, T0 + 2_000 * MINUTE));
+    }
+
+    @Test
+    void rateAt_beyondRawRetention_usesRollupClose() {
+        RateTimeSeries series = new RateTimeSeries(Duration.ofDays(1), RateTimeSeries.MAX_RAW_BLOCKS);
+        for (int i = 0; i < 100 * 24 * 12; i++) {
+            series.record(CurrencyCode.USD, CurrencyCode.BRL, 5.0 + i / 100_000.0, T0 + i * 5 * MINUTE);
+        }
+        // Dia 3, 10:02: brutos e rollup por minuto já descartados; fecha o balde horário das 09:00
+        RatePoint point = series.rateAt(CurrencyCode.USD, CurrencyCode.BRL, T0 + 3 * DAY + 10 * HOUR + 2 * MINUTE);
+        assertEquals(T0 + 3 * DAY + 10 * HOUR, point.getTimestamp());
+        int lastIndex = (int) ((3 * DAY + 10 * HOUR - 5 * MINUTE) / (5 * MINUTE));
+        assertEquals(5.0 + lastIndex / 100_000.0, point.getRate(), 1e-12);
+    }
+
+    private static void assertBar(OhlcBar bar, long time, double open, double high, double low, double close, int count) {
+        assertEquals(time, bar.getTime());
+        assertEquals(open, bar.getOpen(), 1e-12);
+        assertEquals(high, bar.getHigh(), 1e-12);
+        assertEquals(low, bar.getLow(), 1e-12);
+        assertEquals(close, bar.getClose(), 1e-12);
+        assertEquals(count, bar.getCount());
+    }
+}
@@ -0,0 +1,105 @@
+package com.otto.conversormoedas.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes das conversões em massa, nos dois núcleos (escalar e Vector API, quando o módulo está
+ * presente): resultados iguais ao cálculo elemento a elemento, sobras do laço vetorial e validação.
+ */
+public class BulkConversionTest {
+
+    private static List<ConversionKernel> kernels() {
+        List<ConversionKernel> kernels = new ArrayList<>();
+        kernels.add(new ScalarConversionKernel());
+        ConversionKernel loaded = BulkConversion.loadKernel();
+        if (!(loaded instanceof ScalarConversionKernel)) {
+            kernels.add(loaded);
+        }
+        return kernels;
+    }
+
+    @Test
+    public void loadKernel_usesVectorApiWhenCompiledAndModuleIsPresent() {
+        // Com o módulo só na execução "vector-kernel" do perfil vector; sem o perfil, o núcleo não existe
+        boolean present = ModuleLayer.boot().findModule(BulkConversion.VECTOR_MODULE).isPresent();
+        boolean compiled = BulkConversion.class.getResource("VectorConversionKernel.class") != null;
+        assertEquals(present && compiled, BulkConversion.isVectorized());
+    }
+
+    @Test
+    public void convertAll_matchesElementWiseConversionForAllLengths() {
+        Random random = new Random(3);
+        for (ConversionKernel kernel : kernels()) {
+            for (int length = 0; length <= 67; length++) {
+                double[] amounts = new double[length];
+                double[] rates = new double[length];
+                for (int i = 0; i < length; i++) {
+                    amounts[i] = random.nextDouble() * 10_000;
+                    rates[i] = random.nextDouble() * 10;
+                }
+                double[] out = new double[length];
+                BulkConversion.convertAll(kernel, amounts, rates, out);
+                for (int i = 0; i < length; i++) {
+                    assertEquals(ConversionCalculator.convert(amounts[i], rates[i]), out[i], 0.0, kernel + " " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void convertAll_gathersRatesByPairIndex() {
+        Random random = new Random(5);
+        double[] rateTable = new double[64 * 64];
+        for (int i = 0; i < rateTable.length; i++) {
+            rateTable[i] = 0.01 + random.nextDouble() * 100;
+        }
+        for (ConversionKernel kernel : kernels()) {
+            int length = 1_003;
+            double[] amounts = new double[length];
+            int[] pairs = new int[length];
+            for (int i = 0; i < length; i++) {
+                amounts[i] = random.nextDouble() * 10_000;
+                pairs[i] = random.nextInt(rateTable.length);
+            }
+            double[] out = new double[length];
+            BulkConversion.convertAll(kernel, amounts, pairs, rateTable, out);
+            for (int i = 0; i < length; i++) {
+                assertEquals(amounts[i] * rateTable[pairs[i]], out[i], 0.0, kernel + " " + i);
+            }
+        }
+    }
+
+    @Test
+    public void convertAll_invalidInput_pointsToOffendingIndex() {
+        for (ConversionKernel kernel : kernels()) {
+            double[] amounts = new double[100];
+            double[] rates = new double[100];
+            Arrays.fill(amounts, 10);
+            Arrays.fill(rates, 5);
+            amounts[37] = -1;
+            IllegalArgumentException negative = assertThrows(IllegalArgumentException.class,
+                () -> BulkConversion.convertAll(kernel, amounts, rates, new double[100]));
+            assertTrue(negative.getMessage().contains("amounts[37]"), negative.getMessage());
+
+            amounts[37] = 10;
+            rates[98] = Double.NaN;
+            IllegalArgumentException nan = assertThrows(IllegalArgumentException.class,
+                () -> BulkConversion.convertAll(kernel, amounts, rates, new double[100]));
+            assertTrue(nan.getMessage().contains("rates[98]"), nan.getMessage());
+
+            assertThrows(IllegalArgumentException.class,
+                () -> BulkConversion.convertAll(kernel, amounts, rates, new double[99]));
+            int[] pairs = new int[100];
+            pairs[50] = 4;
+            assertThrows(IndexOutOfBoundsException.class,
+                () -> BulkConversion.convertAll(kernel, amounts, pairs, new double[4], new double[100]));
+        }
+    }
+}
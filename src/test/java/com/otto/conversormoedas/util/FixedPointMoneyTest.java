@@ -0,0 +1,94 @@
+package com.otto.conversormoedas.util;
+
+import com.otto.conversormoedas.model.CurrencyCode;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da conversão em ponto fixo: arredondamento bancário, escala por moeda e equivalência com
+ * BigDecimal (incluindo produto de 128 bits e estouro de long).
+ */
+public class FixedPointMoneyTest {
+
+    @Test
+    public void convert_halfEven_roundsTiesToEvenDigit() {
+        assertEquals(new BigDecimal("0.12"), FixedPointMoney.convert(new BigDecimal("0.125"), 1.0, 2, RoundingMode.HALF_EVEN));
+        assertEquals(new BigDecimal("0.14"), FixedPointMoney.convert(new BigDecimal("0.135"), 1.0, 2, RoundingMode.HALF_EVEN));
+        assertEquals(new BigDecimal("0.13"), FixedPointMoney.convert(new BigDecimal("0.125"), 1.0, 2, RoundingMode.HALF_UP));
+        // 100.05 * 5.055 = 505.75275
+        assertEquals(new BigDecimal("505.75"), FixedPointMoney.convert(new BigDecimal("100.05"), 5.055, 2, RoundingMode.HALF_EVEN));
+        assertEquals(new BigDecimal("505.76"), FixedPointMoney.convert(new BigDecimal("100.05"), 5.055, 2, RoundingMode.UP));
+    }
+
+    @Test
+    public void convert_avoidsBinaryRoundingArtifacts() {
+        // Em double, 1.005 * 100 = 100.49999999999999 e o arredondamento "meio para cima" falha
+        assertEquals(1.0, ConversionCalculator.round(1.005, 2), 0.0);
+        assertEquals(new BigDecimal("1.01"), FixedPointMoney.convert(new BigDecimal("1.005"), 1.0, 2, RoundingMode.HALF_UP));
+        assertEquals(101, FixedPointMoney.convert(1005, 3, 1.0, 2, RoundingMode.HALF_UP));
+
+        assertEquals(0, new BigDecimal("0.3").compareTo(FixedPointMoney.decimalRate(0.1 + 0.2)));
+        assertEquals(new BigDecimal("5.0551"), FixedPointMoney.decimalRate(5.0551));
+        assertEquals(15, FixedPointMoney.rate(1.0 / 3).getScale());
+    }
+
+    @Test
+    public void convert_usesMinorUnitsOfTargetCurrency() {
+        assertEquals(2, CurrencyCode.BRL.getMinorUnits());
+        assertEquals(0, CurrencyCode.JPY.getMinorUnits());
+        assertEquals(3, CurrencyCode.KWD.getMinorUnits());
+        // 15050.5 ienes: empate, fica no par
+        assertEquals(new BigDecimal("15050"), FixedPointMoney.convert(new BigDecimal("100.00"), 150.505, CurrencyCode.JPY, RoundingMode.HALF_EVEN));
+        assertEquals(new BigDecimal("30.754"), FixedPointMoney.convert(new BigDecimal("100"), 0.307535, CurrencyCode.KWD, RoundingMode.HALF_EVEN));
+    }
+
+    @Test
+    public void convert_matchesBigDecimalAcrossMagnitudes() {
+        Random random = new Random(7);
+        RoundingMode[] modes = {RoundingMode.HALF_EVEN, RoundingMode.HALF_UP, RoundingMode.HALF_DOWN,
+            RoundingMode.UP, RoundingMode.DOWN};
+        for (int i = 0; i < 20_000; i++) {
+            // De centavos a valores acima de long (fallback), taxas cruzadas com 15+ dígitos (produto de 128 bits)
+            int digits = 1 + random.nextInt(22);
+            BigDecimal amount = new BigDecimal(new BigInteger(digits * 4, random), random.nextInt(5));
+            double rate = Math.pow(10, random.nextInt(12) - 6) * (1 + random.nextDouble());
+            int scale = random.nextInt(5);
+            RoundingMode mode = modes[random.nextInt(modes.length)];
+
+            BigDecimal expected = amount.multiply(FixedPointMoney.decimalRate(rate)).setScale(scale, mode);
+            assertEquals(expected, FixedPointMoney.convert(amount, rate, scale, mode),
+                amount + " * " + rate + " (" + mode + ")");
+        }
+    }
+
+    @Test
+    public void divideUnsigned128_matchesBigInteger() {
+        Random random = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            long divisor = 1 + (random.nextLong() >>> (1 + random.nextInt(62)));
+            long high = Long.remainderUnsigned(random.nextLong(), divisor);
+            long low = random.nextLong();
+            BigInteger dividend = new BigInteger(Long.toUnsignedString(high)).shiftLeft(64)
+                .or(new BigInteger(Long.toUnsignedString(low)));
+            BigInteger expected = dividend.divide(BigInteger.valueOf(divisor));
+            assertEquals(expected.longValue(), FixedPointMoney.divideUnsigned128(high, low, divisor));
+        }
+    }
+
+    @Test
+    public void convert_invalidInputOrInexact_throws() {
+        assertThrows(IllegalArgumentException.class, () -> FixedPointMoney.convert(-1, 2, 5.0, 2, RoundingMode.HALF_EVEN));
+        assertThrows(IllegalArgumentException.class, () -> FixedPointMoney.convert(BigDecimal.ONE, 0.0, 2, RoundingMode.HALF_EVEN));
+        assertThrows(IllegalArgumentException.class, () -> FixedPointMoney.convert(BigDecimal.ONE, Double.NaN, 2, RoundingMode.HALF_EVEN));
+        assertThrows(ArithmeticException.class, () -> FixedPointMoney.convert(Long.MAX_VALUE, 0, 10.0, 2, RoundingMode.HALF_EVEN));
+        assertThrows(ArithmeticException.class, () -> FixedPointMoney.convert(new BigDecimal("0.125"), 1.0, 2, RoundingMode.UNNECESSARY));
+        assertEquals(new BigDecimal("92233720368547758070.00"),
+            FixedPointMoney.convert(BigDecimal.valueOf(Long.MAX_VALUE), 10.0, 2, RoundingMode.HALF_EVEN));
+    }
+}
@@ -0,0 +1,17 @@
+package com.otto.conversormoedas.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadsTest {
+
+    @Test
+    public void isAvailable_onlyOnJdk21OrLater() {
+        // No JDK 19/20 o método existe como preview e falharia na chamada
+        assertEquals(Runtime.version().feature() >= 21, VirtualThreads.isAvailable());
+        if (!VirtualThreads.isAvailable()) {
+            assertThrows(UnsupportedOperationException.class, VirtualThreads::newVirtualThreadPerTaskExecutor);
+        }
+    }
+}
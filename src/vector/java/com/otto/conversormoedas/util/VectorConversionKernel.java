@@ -0,0 +1,61 @@
+package com.otto.conversormoedas.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Núcleo com a Vector API ({@code jdk.incubator.vector}), na maior largura do processador
+ * (4 doubles com AVX2, 8 com AVX-512). A validação acumula uma máscara de lanes inválidas
+ * ({@code !(x >= 0)} pega negativos e NaN), sem custo perceptível sobre a multiplicação; só se
+ * alguma lane falhar o array é varrido de novo para achar o índice.
+ * Compilado só no perfil Maven {@code vector} (fora dele a classe não existe e o laço escalar é
+ * usado); carregado por {@link BulkConversion} apenas quando o módulo está presente
+ * (JVM iniciada com {@code --add-modules jdk.incubator.vector}).
+ */
+final class VectorConversionKernel implements ConversionKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public int multiply(double[] amounts, double[] rates, double[] out, int length) {
+        VectorMask<Double> invalid = SPECIES.maskAll(false);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector amount = DoubleVector.fromArray(SPECIES, amounts, i);
+            DoubleVector rate = DoubleVector.fromArray(SPECIES, rates, i);
+            amount.mul(rate).intoArray(out, i);
+            invalid = invalid.or(amount.compare(VectorOperators.GE, 0.0).not())
+                .or(rate.compare(VectorOperators.GE, 0.0).not());
+        }
+        for (int j = i; j < length; j++) {
+            out[j] = amounts[j] * rates[j];
+        }
+        if (invalid.anyTrue()) {
+            return ScalarConversionKernel.firstInvalid(amounts, rates, 0, length);
+        }
+        return ScalarConversionKernel.firstInvalid(amounts, rates, i, length);
+    }
+
+    @Override
+    public int gatherMultiply(double[] amounts, int[] pairs, double[] rateTable, double[] out, int length) {
+        VectorMask<Double> invalid = SPECIES.maskAll(false);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector amount = DoubleVector.fromArray(SPECIES, amounts, i);
+            DoubleVector rate = DoubleVector.fromArray(SPECIES, rateTable, 0, pairs, i);
+            amount.mul(rate).intoArray(out, i);
+            invalid = invalid.or(amount.compare(VectorOperators.GE, 0.0).not())
+                .or(rate.compare(VectorOperators.GE, 0.0).not());
+        }
+        for (int j = i; j < length; j++) {
+            out[j] = amounts[j] * rateTable[pairs[j]];
+        }
+        if (invalid.anyTrue()) {
+            return ScalarConversionKernel.firstInvalid(amounts, pairs, rateTable, 0, length);
+        }
+        return ScalarConversionKernel.firstInvalid(amounts, pairs, rateTable, i, length);
+    }
+}